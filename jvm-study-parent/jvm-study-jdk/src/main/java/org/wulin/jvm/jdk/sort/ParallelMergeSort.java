@@ -0,0 +1,72 @@
+package org.wulin.jvm.jdk.sort;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 基于 fork/join 的并行归并排序
+ * <p> 把区间对半切分成两个子任务并行排序，子任务区间小于 {@link #THRESHOLD} 时退化为串行的 {@link PingPongMergeSort}。
+ * 两个子任务都完成后再在当前线程中归并，因此最顶层的一次归并是串行的。
+ * <p> 默认使用 {@link ForkJoinPool#commonPool()}。
+ * @author wulin
+ *
+ * @param <T>
+ */
+public class ParallelMergeSort<T extends Comparable<T>> extends PingPongMergeSort<T> {
+
+    /**
+     * 小于该长度的区间不再切分，与 Arrays.parallelSort 的粒度相同
+     */
+    protected static final int THRESHOLD = 1 << 13;
+
+    private final ForkJoinPool pool;
+
+    public ParallelMergeSort() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelMergeSort(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new NullPointerException("pool");
+        }
+        this.pool = pool;
+    }
+
+    @Override
+    public void sort(T[] nums) {
+        if (nums.length < THRESHOLD) {
+            super.sort(nums);
+            return;
+        }
+        T[] aux = nums.clone();
+        pool.invoke(new SortTask(aux, nums, 0, nums.length - 1));
+    }
+
+    private class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final T[] src;
+        private final T[] dst;
+        private final int l;
+        private final int h;
+
+        SortTask(T[] src, T[] dst, int l, int h) {
+            this.src = src;
+            this.dst = dst;
+            this.l = l;
+            this.h = h;
+        }
+
+        @Override
+        protected void compute() {
+            if (h - l < THRESHOLD) {
+                sort(src, dst, l, h);
+                return;
+            }
+            int mid = l + (h - l) / 2;
+            invokeAll(new SortTask(dst, src, l, mid),
+                      new SortTask(dst, src, mid + 1, h));
+            merge(src, dst, l, mid, h);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.wulin.jvm.jdk.sort;
+
+/**
+ * 乒乓缓冲归并排序
+ * <p> 与 {@link Up2DownMergeSort} 相比有三处优化：
+ * <p> 1. 辅助数组在整个排序过程中只分配（或复制）一次，每一层递归交换源数组与目标数组的角色，
+ * 归并时直接从一个数组写入另一个数组，不再需要每次归并前把区间复制到辅助数组；
+ * <p> 2. 区间长度不超过 {@link #CUTOFF} 时改用插入排序，小数组上插入排序比递归归并更快；
+ * <p> 3. 如果左半部分的最大值不大于右半部分的最小值，说明区间已经有序，直接复制，跳过归并。
+ * <p> 排序是稳定的。
+ * @author wulin
+ *
+ * @param <T>
+ */
+public class PingPongMergeSort<T extends Comparable<T>> extends Sort<T> {
+
+    /**
+     * 小于等于该长度的区间使用插入排序
+     */
+    protected static final int CUTOFF = 7;
+
+    @Override
+    public void sort(T[] nums) {
+        if (nums.length < 2) {
+            return;
+        }
+        T[] aux = nums.clone();
+        sort(aux, nums, 0, nums.length - 1);
+    }
+
+    /**
+     * 将 src[l..h] 排序后写入 dst[l..h]。调用前两个数组在该区间内的内容必须相同，src 在排序过程中被用作辅助空间。
+     *
+     * @param src 源数组
+     * @param dst 目标数组
+     * @param l -> low 区间的最低位索引
+     * @param h -> high 区间的最高位索引
+     */
+    protected void sort(T[] src, T[] dst, int l, int h) {
+        if (h - l < CUTOFF) {
+            insertionSort(dst, l, h);
+            return;
+        }
+        int mid = l + (h - l) / 2;
+        sort(dst, src, l, mid);
+        sort(dst, src, mid + 1, h);
+        merge(src, dst, l, mid, h);
+    }
+
+    /**
+     * 将 src[l..m] 与 src[m+1..h] 两个有序区间归并到 dst[l..h]
+     */
+    protected void merge(T[] src, T[] dst, int l, int m, int h) {
+        if (!less(src[m + 1], src[m])) {
+            System.arraycopy(src, l, dst, l, h - l + 1); // 已经有序
+            return;
+        }
+        int i = l, j = m + 1;
+        for (int k = l; k <= h; k++) {
+            if (i > m) {
+                dst[k] = src[j++];
+            } else if (j > h) {
+                dst[k] = src[i++];
+            } else if (less(src[j], src[i])) {
+                dst[k] = src[j++];
+            } else {
+                dst[k] = src[i++]; // 相等时取左边的元素，保证稳定性
+            }
+        }
+    }
+
+    protected void insertionSort(T[] nums, int l, int h) {
+        for (int i = l + 1; i <= h; i++) {
+            T t = nums[i];
+            int j = i;
+            for (; j > l && less(t, nums[j - 1]); j--) {
+                nums[j] = nums[j - 1]; // 右移代替交换
+            }
+            nums[j] = t;
+        }
+    }
+}
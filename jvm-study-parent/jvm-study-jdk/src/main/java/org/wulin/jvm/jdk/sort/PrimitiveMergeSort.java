@@ -0,0 +1,349 @@
+package org.wulin.jvm.jdk.sort;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 基本类型数组的归并排序
+ * <p> 算法与 {@link PingPongMergeSort}、{@link ParallelMergeSort} 相同，只是针对 int[]、long[]、double[] 分别实现，
+ * 避免了装箱以及 compareTo() 的虚方法调用。
+ * <p> 调用方可以传入可复用的辅助数组，此时排序过程中不会分配任何内存。
+ * @author wulin
+ *
+ */
+public final class PrimitiveMergeSort {
+
+    /**
+     * 小于等于该长度的区间使用插入排序
+     */
+    private static final int CUTOFF = 7;
+
+    /**
+     * 并行排序时小于该长度的区间不再切分
+     */
+    private static final int THRESHOLD = 1 << 13;
+
+    private PrimitiveMergeSort() {
+    }
+
+    private static void checkWork(int length, int workLength) {
+        if (workLength < length) {
+            throw new IllegalArgumentException("work array too short: " + workLength + " < " + length);
+        }
+    }
+
+    /* ---------------- int[] ---------------- */
+
+    /**
+     * 对 int[] 数组升序排序
+     */
+    public static void sort(int[] a) {
+        sort(a, new int[a.length]);
+    }
+
+    /**
+     * 对 int[] 数组升序排序，使用调用方提供的辅助数组，排序本身不再分配内存。
+     *
+     * @param a 要排序的数组
+     * @param work 辅助数组，长度不能小于 a.length，可以在多次排序之间复用
+     */
+    public static void sort(int[] a, int[] work) {
+        checkWork(a.length, work.length);
+        if (a.length < 2) {
+            return;
+        }
+        System.arraycopy(a, 0, work, 0, a.length);
+        sort(work, a, 0, a.length - 1);
+    }
+
+    /**
+     * 使用 {@link ForkJoinPool#commonPool()} 对 int[] 数组并行排序
+     */
+    public static void parallelSort(int[] a) {
+        if (a.length < THRESHOLD) {
+            sort(a);
+            return;
+        }
+        int[] work = a.clone();
+        ForkJoinPool.commonPool().invoke(new IntSortTask(work, a, 0, a.length - 1));
+    }
+
+    private static void sort(int[] src, int[] dst, int l, int h) {
+        if (h - l < CUTOFF) {
+            insertionSort(dst, l, h);
+            return;
+        }
+        int mid = l + (h - l) / 2;
+        sort(dst, src, l, mid);
+        sort(dst, src, mid + 1, h);
+        merge(src, dst, l, mid, h);
+    }
+
+    private static void merge(int[] src, int[] dst, int l, int m, int h) {
+        if (src[m] <= src[m + 1]) {
+            System.arraycopy(src, l, dst, l, h - l + 1);
+            return;
+        }
+        int i = l, j = m + 1;
+        for (int k = l; k <= h; k++) {
+            if (i > m) {
+                dst[k] = src[j++];
+            } else if (j > h) {
+                dst[k] = src[i++];
+            } else if (src[j] < src[i]) {
+                dst[k] = src[j++];
+            } else {
+                dst[k] = src[i++];
+            }
+        }
+    }
+
+    private static void insertionSort(int[] a, int l, int h) {
+        for (int i = l + 1; i <= h; i++) {
+            int t = a[i];
+            int j = i;
+            for (; j > l && t < a[j - 1]; j--) {
+                a[j] = a[j - 1];
+            }
+            a[j] = t;
+        }
+    }
+
+    private static final class IntSortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int[] dst;
+        private final int l;
+        private final int h;
+
+        IntSortTask(int[] src, int[] dst, int l, int h) {
+            this.src = src;
+            this.dst = dst;
+            this.l = l;
+            this.h = h;
+        }
+
+        @Override
+        protected void compute() {
+            if (h - l < THRESHOLD) {
+                sort(src, dst, l, h);
+                return;
+            }
+            int mid = l + (h - l) / 2;
+            invokeAll(new IntSortTask(dst, src, l, mid),
+                      new IntSortTask(dst, src, mid + 1, h));
+            merge(src, dst, l, mid, h);
+        }
+    }
+
+    /* ---------------- long[] ---------------- */
+
+    /**
+     * 对 long[] 数组升序排序
+     */
+    public static void sort(long[] a) {
+        sort(a, new long[a.length]);
+    }
+
+    /**
+     * 对 long[] 数组升序排序，使用调用方提供的辅助数组，排序本身不再分配内存。
+     *
+     * @param a 要排序的数组
+     * @param work 辅助数组，长度不能小于 a.length，可以在多次排序之间复用
+     */
+    public static void sort(long[] a, long[] work) {
+        checkWork(a.length, work.length);
+        if (a.length < 2) {
+            return;
+        }
+        System.arraycopy(a, 0, work, 0, a.length);
+        sort(work, a, 0, a.length - 1);
+    }
+
+    /**
+     * 使用 {@link ForkJoinPool#commonPool()} 对 long[] 数组并行排序
+     */
+    public static void parallelSort(long[] a) {
+        if (a.length < THRESHOLD) {
+            sort(a);
+            return;
+        }
+        long[] work = a.clone();
+        ForkJoinPool.commonPool().invoke(new LongSortTask(work, a, 0, a.length - 1));
+    }
+
+    private static void sort(long[] src, long[] dst, int l, int h) {
+        if (h - l < CUTOFF) {
+            insertionSort(dst, l, h);
+            return;
+        }
+        int mid = l + (h - l) / 2;
+        sort(dst, src, l, mid);
+        sort(dst, src, mid + 1, h);
+        merge(src, dst, l, mid, h);
+    }
+
+    private static void merge(long[] src, long[] dst, int l, int m, int h) {
+        if (src[m] <= src[m + 1]) {
+            System.arraycopy(src, l, dst, l, h - l + 1);
+            return;
+        }
+        int i = l, j = m + 1;
+        for (int k = l; k <= h; k++) {
+            if (i > m) {
+                dst[k] = src[j++];
+            } else if (j > h) {
+                dst[k] = src[i++];
+            } else if (src[j] < src[i]) {
+                dst[k] = src[j++];
+            } else {
+                dst[k] = src[i++];
+            }
+        }
+    }
+
+    private static void insertionSort(long[] a, int l, int h) {
+        for (int i = l + 1; i <= h; i++) {
+            long t = a[i];
+            int j = i;
+            for (; j > l && t < a[j - 1]; j--) {
+                a[j] = a[j - 1];
+            }
+            a[j] = t;
+        }
+    }
+
+    private static final class LongSortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] src;
+        private final long[] dst;
+        private final int l;
+        private final int h;
+
+        LongSortTask(long[] src, long[] dst, int l, int h) {
+            this.src = src;
+            this.dst = dst;
+            this.l = l;
+            this.h = h;
+        }
+
+        @Override
+        protected void compute() {
+            if (h - l < THRESHOLD) {
+                sort(src, dst, l, h);
+                return;
+            }
+            int mid = l + (h - l) / 2;
+            invokeAll(new LongSortTask(dst, src, l, mid),
+                      new LongSortTask(dst, src, mid + 1, h));
+            merge(src, dst, l, mid, h);
+        }
+    }
+
+    /* ---------------- double[] ---------------- */
+
+    /**
+     * 对 double[] 数组升序排序，顺序与 {@link Double#compare} 一致：-0.0 排在 0.0 之前，NaN 排在最后
+     */
+    public static void sort(double[] a) {
+        sort(a, new double[a.length]);
+    }
+
+    /**
+     * 对 double[] 数组升序排序，使用调用方提供的辅助数组，排序本身不再分配内存。
+     *
+     * @param a 要排序的数组
+     * @param work 辅助数组，长度不能小于 a.length，可以在多次排序之间复用
+     */
+    public static void sort(double[] a, double[] work) {
+        checkWork(a.length, work.length);
+        if (a.length < 2) {
+            return;
+        }
+        System.arraycopy(a, 0, work, 0, a.length);
+        sort(work, a, 0, a.length - 1);
+    }
+
+    /**
+     * 使用 {@link ForkJoinPool#commonPool()} 对 double[] 数组并行排序
+     */
+    public static void parallelSort(double[] a) {
+        if (a.length < THRESHOLD) {
+            sort(a);
+            return;
+        }
+        double[] work = a.clone();
+        ForkJoinPool.commonPool().invoke(new DoubleSortTask(work, a, 0, a.length - 1));
+    }
+
+    private static void sort(double[] src, double[] dst, int l, int h) {
+        if (h - l < CUTOFF) {
+            insertionSort(dst, l, h);
+            return;
+        }
+        int mid = l + (h - l) / 2;
+        sort(dst, src, l, mid);
+        sort(dst, src, mid + 1, h);
+        merge(src, dst, l, mid, h);
+    }
+
+    private static void merge(double[] src, double[] dst, int l, int m, int h) {
+        if (Double.compare(src[m], src[m + 1]) <= 0) {
+            System.arraycopy(src, l, dst, l, h - l + 1);
+            return;
+        }
+        int i = l, j = m + 1;
+        for (int k = l; k <= h; k++) {
+            if (i > m) {
+                dst[k] = src[j++];
+            } else if (j > h) {
+                dst[k] = src[i++];
+            } else if (Double.compare(src[j], src[i]) < 0) {
+                dst[k] = src[j++];
+            } else {
+                dst[k] = src[i++];
+            }
+        }
+    }
+
+    private static void insertionSort(double[] a, int l, int h) {
+        for (int i = l + 1; i <= h; i++) {
+            double t = a[i];
+            int j = i;
+            for (; j > l && Double.compare(t, a[j - 1]) < 0; j--) {
+                a[j] = a[j - 1];
+            }
+            a[j] = t;
+        }
+    }
+
+    private static final class DoubleSortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] src;
+        private final double[] dst;
+        private final int l;
+        private final int h;
+
+        DoubleSortTask(double[] src, double[] dst, int l, int h) {
+            this.src = src;
+            this.dst = dst;
+            this.l = l;
+            this.h = h;
+        }
+
+        @Override
+        protected void compute() {
+            if (h - l < THRESHOLD) {
+                sort(src, dst, l, h);
+                return;
+            }
+            int mid = l + (h - l) / 2;
+            invokeAll(new DoubleSortTask(dst, src, l, mid),
+                      new DoubleSortTask(dst, src, mid + 1, h));
+            merge(src, dst, l, mid, h);
+        }
+    }
+}
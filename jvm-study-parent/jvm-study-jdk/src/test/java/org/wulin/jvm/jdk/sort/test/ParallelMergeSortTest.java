@@ -0,0 +1,43 @@
+package org.wulin.jvm.jdk.sort.test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+import org.wulin.jvm.jdk.sort.ParallelMergeSort;
+
+public class ParallelMergeSortTest {
+
+	@Test
+	public void testParallelMergeSort() {
+		Random random = new Random(42);
+		Integer[] nums = new Integer[100000];
+		for (int i = 0; i < nums.length; i++) {
+			nums[i] = random.nextInt();
+		}
+		Integer[] expected = nums.clone();
+		Arrays.sort(expected);
+		new ParallelMergeSort<Integer>().sort(nums);
+		assertArrayEquals(expected, nums);
+	}
+
+	@Test
+	public void testCustomPool() {
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			Integer[] nums = new Integer[50000];
+			for (int i = 0; i < nums.length; i++) {
+				nums[i] = nums.length - i;
+			}
+			Integer[] expected = nums.clone();
+			Arrays.sort(expected);
+			new ParallelMergeSort<Integer>(pool).sort(nums);
+			assertArrayEquals(expected, nums);
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
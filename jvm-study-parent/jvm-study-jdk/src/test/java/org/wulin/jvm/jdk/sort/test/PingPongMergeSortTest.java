@@ -0,0 +1,65 @@
+package org.wulin.jvm.jdk.sort.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+import org.wulin.jvm.jdk.sort.PingPongMergeSort;
+
+public class PingPongMergeSortTest {
+
+	private Integer[] numbers = new Integer[] {5,1,4,3,2,10,8,9,6,7,12,11};
+
+	@Test
+	public void testPingPongMergeSort() {
+		PingPongMergeSort<Integer> sorter = new PingPongMergeSort<>();
+		sorter.sort(numbers);
+		assertArrayEquals(new Integer[] {1,2,3,4,5,6,7,8,9,10,11,12}, numbers);
+	}
+
+	@Test
+	public void testRandom() {
+		Random random = new Random(42);
+		PingPongMergeSort<Integer> sorter = new PingPongMergeSort<>();
+		for (int n : new int[] {0, 1, 2, 7, 8, 100, 1000}) {
+			Integer[] nums = new Integer[n];
+			for (int i = 0; i < n; i++) {
+				nums[i] = random.nextInt(50);
+			}
+			Integer[] expected = nums.clone();
+			Arrays.sort(expected);
+			sorter.sort(nums);
+			assertArrayEquals(expected, nums);
+		}
+	}
+
+	@Test
+	public void testStable() {
+		Key[] keys = new Key[1000];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = new Key(i % 10);
+		}
+		Key[] expected = keys.clone();
+		Arrays.sort(expected); // Arrays.sort 对对象数组是稳定的
+		new PingPongMergeSort<Key>().sort(keys);
+		for (int i = 0; i < keys.length; i++) {
+			assertSame(expected[i], keys[i]);
+		}
+	}
+
+	static class Key implements Comparable<Key> {
+		final int value;
+
+		Key(int value) {
+			this.value = value;
+		}
+
+		@Override
+		public int compareTo(Key o) {
+			return Integer.compare(value, o.value);
+		}
+	}
+}
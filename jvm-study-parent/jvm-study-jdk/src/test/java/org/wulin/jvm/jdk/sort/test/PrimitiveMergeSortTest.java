@@ -0,0 +1,61 @@
+package org.wulin.jvm.jdk.sort.test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+import org.wulin.jvm.jdk.sort.PrimitiveMergeSort;
+
+public class PrimitiveMergeSortTest {
+
+	private Random random = new Random(42);
+
+	@Test
+	public void testIntSort() {
+		for (int n : new int[] {0, 1, 7, 8, 1000, 100000}) {
+			int[] a = random.ints(n, -100, 100).toArray();
+			int[] expected = a.clone();
+			Arrays.sort(expected);
+			int[] b = a.clone();
+			PrimitiveMergeSort.sort(a);
+			PrimitiveMergeSort.parallelSort(b);
+			assertArrayEquals(expected, a);
+			assertArrayEquals(expected, b);
+		}
+	}
+
+	@Test
+	public void testLongSortWithWorkArray() {
+		long[] work = new long[1000];
+		for (int n : new int[] {0, 1, 7, 8, 500, 1000}) {
+			long[] a = random.longs(n).toArray();
+			long[] expected = a.clone();
+			Arrays.sort(expected);
+			PrimitiveMergeSort.sort(a, work);
+			assertArrayEquals(expected, a);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testShortWorkArray() {
+		PrimitiveMergeSort.sort(new long[10], new long[9]);
+	}
+
+	@Test
+	public void testDoubleSort() {
+		double[] a = random.doubles(100000).toArray();
+		a[0] = Double.NaN;
+		a[1] = -0.0;
+		a[2] = 0.0;
+		a[3] = Double.NEGATIVE_INFINITY;
+		double[] expected = a.clone();
+		Arrays.sort(expected);
+		double[] b = a.clone();
+		PrimitiveMergeSort.sort(a);
+		PrimitiveMergeSort.parallelSort(b);
+		assertArrayEquals(expected, a, 0.0);
+		assertArrayEquals(expected, b, 0.0);
+	}
+}
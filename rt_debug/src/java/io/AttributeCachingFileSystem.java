@@ -0,0 +1,283 @@
+package java.io;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A file system that caches the attributes of files for a short time, for
+ * applications that query the same files repeatedly.  Enabled by setting
+ * the {@code sun.io.useFileAttributeCache} system property to {@code true}.
+ *
+ * <p>Attributes are cached by absolute path.  Attributes cached for a file
+ * are dropped when it is changed through this file system, and all of them
+ * when a file is deleted or renamed, since that affects every file below
+ * it.  Changes made by other processes, or by writing to a file through a
+ * stream, are only seen once the cached attributes expire.  So are changes
+ * made through a different name for the same file, such as one containing
+ * {@code ".."} or going through a link, or on a case-insensitive file
+ * system one differing in case.
+ *
+ * @since 1.8
+ */
+class AttributeCachingFileSystem extends FileSystem {
+
+    private final FileSystem fs;
+    private final ExpiringCache<Integer> booleanAttributes;
+    private final ExpiringCache<Long> lastModifiedTimes;
+    private final ExpiringCache<Long> lengths;
+
+    // Incremented after every change made through this file system, so
+    // that a lookup that raced with a change does not keep what it read
+    // before the change
+    private final AtomicLong changes = new AtomicLong();
+
+    AttributeCachingFileSystem(FileSystem fs) {
+        this.fs = fs;
+        booleanAttributes = newCache("booleanAttributes",
+            fileAttributeCacheTTL, fileAttributeCacheMaxEntries);
+        lastModifiedTimes = newCache("lastModifiedTime",
+            fileAttributeCacheTTL, fileAttributeCacheMaxEntries);
+        lengths = newCache("length",
+            fileAttributeCacheTTL, fileAttributeCacheMaxEntries);
+    }
+
+    /**
+     * Returns the key of the attributes of a file, its absolute path, so
+     * that relative and absolute names of the file share them.
+     */
+    private String key(final File f) {
+        if (fs.isAbsolute(f))
+            return f.getPath();
+        return AccessController.doPrivileged(
+            new PrivilegedAction<String>() {
+                public String run() {
+                    return fs.resolve(f);
+                }
+            });
+    }
+
+    /**
+     * Caches a value read from the underlying file system, unless a change
+     * was made since the given count of changes was taken, in which case
+     * the value may be out of date.
+     */
+    private <V> void cache(ExpiringCache<V> cache, String key, V value,
+                           long stamp) {
+        cache.put(key, value);
+        // Checked after the put, so that a change either sees the
+        // entry and drops it, or is seen here
+        if (changes.get() != stamp)
+            cache.remove(key);
+    }
+
+    /**
+     * Drops the attributes cached for a file after it was changed.
+     */
+    private void changed(File f) {
+        changes.incrementAndGet();
+        String key = key(f);
+        booleanAttributes.remove(key);
+        lastModifiedTimes.remove(key);
+        lengths.remove(key);
+    }
+
+    /**
+     * Drops all cached attributes after a change affecting many files.
+     */
+    private void changedAll() {
+        changes.incrementAndGet();
+        booleanAttributes.clear();
+        lastModifiedTimes.clear();
+        lengths.clear();
+    }
+
+    /* -- Cached attributes -- */
+
+    @Override
+    public int getBooleanAttributes(File f) {
+        String key = key(f);
+        Integer ba = booleanAttributes.get(key);
+        if (ba == null) {
+            long stamp = changes.get();
+            ba = fs.getBooleanAttributes(f);
+            cache(booleanAttributes, key, ba, stamp);
+        }
+        return ba;
+    }
+
+    @Override
+    public long getLastModifiedTime(File f) {
+        String key = key(f);
+        Long time = lastModifiedTimes.get(key);
+        if (time == null) {
+            long stamp = changes.get();
+            time = fs.getLastModifiedTime(f);
+            cache(lastModifiedTimes, key, time, stamp);
+        }
+        return time;
+    }
+
+    @Override
+    public long getLength(File f) {
+        String key = key(f);
+        Long length = lengths.get(key);
+        if (length == null) {
+            long stamp = changes.get();
+            length = fs.getLength(f);
+            cache(lengths, key, length, stamp);
+        }
+        return length;
+    }
+
+    /* -- Operations that change attributes -- */
+
+    // The cached attributes are dropped once the change has been made, so
+    // that a concurrent lookup cannot cache them again from before it
+
+    @Override
+    public boolean setPermission(File f, int access, boolean enable,
+                                 boolean owneronly) {
+        try {
+            return fs.setPermission(f, access, enable, owneronly);
+        } finally {
+            changed(f);
+        }
+    }
+
+    @Override
+    public boolean createFileExclusively(String pathname) throws IOException {
+        try {
+            return fs.createFileExclusively(pathname);
+        } finally {
+            changed(new File(pathname));
+        }
+    }
+
+    @Override
+    public boolean delete(File f) {
+        try {
+            return fs.delete(f);
+        } finally {
+            changedAll();
+        }
+    }
+
+    @Override
+    public boolean createDirectory(File f) {
+        try {
+            return fs.createDirectory(f);
+        } finally {
+            changed(f);
+        }
+    }
+
+    @Override
+    public boolean rename(File f1, File f2) {
+        try {
+            return fs.rename(f1, f2);
+        } finally {
+            changedAll();
+        }
+    }
+
+    @Override
+    public boolean setLastModifiedTime(File f, long time) {
+        try {
+            return fs.setLastModifiedTime(f, time);
+        } finally {
+            changed(f);
+        }
+    }
+
+    @Override
+    public boolean setReadOnly(File f) {
+        try {
+            return fs.setReadOnly(f);
+        } finally {
+            changed(f);
+        }
+    }
+
+    /* -- Everything else is delegated -- */
+
+    @Override
+    public char getSeparator() {
+        return fs.getSeparator();
+    }
+
+    @Override
+    public char getPathSeparator() {
+        return fs.getPathSeparator();
+    }
+
+    @Override
+    public String normalize(String path) {
+        return fs.normalize(path);
+    }
+
+    @Override
+    public int prefixLength(String path) {
+        return fs.prefixLength(path);
+    }
+
+    @Override
+    public String resolve(String parent, String child) {
+        return fs.resolve(parent, child);
+    }
+
+    @Override
+    public String getDefaultParent() {
+        return fs.getDefaultParent();
+    }
+
+    @Override
+    public String fromURIPath(String path) {
+        return fs.fromURIPath(path);
+    }
+
+    @Override
+    public boolean isAbsolute(File f) {
+        return fs.isAbsolute(f);
+    }
+
+    @Override
+    public String resolve(File f) {
+        return fs.resolve(f);
+    }
+
+    @Override
+    public String canonicalize(String path) throws IOException {
+        return fs.canonicalize(path);
+    }
+
+    @Override
+    public boolean checkAccess(File f, int access) {
+        return fs.checkAccess(f, access);
+    }
+
+    @Override
+    public String[] list(File f) {
+        return fs.list(f);
+    }
+
+    @Override
+    public File[] listRoots() {
+        return fs.listRoots();
+    }
+
+    @Override
+    public long getSpace(File f, int t) {
+        return fs.getSpace(f, t);
+    }
+
+    @Override
+    public int compare(File f1, File f2) {
+        return fs.compare(f1, f2);
+    }
+
+    @Override
+    public int hashCode(File f) {
+        return fs.hashCode(f);
+    }
+}
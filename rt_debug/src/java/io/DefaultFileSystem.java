@@ -35,6 +35,8 @@ class DefaultFileSystem {
      * Return the FileSystem object for Windows platform.
      */
     public static FileSystem getFileSystem() {
-        return new WinNTFileSystem();
+        FileSystem fs = new WinNTFileSystem();
+        return FileSystem.useFileAttributeCache ?
+            new AttributeCachingFileSystem(fs) : fs;
     }
 }
@@ -29,99 +29,139 @@
 package java.io;
 
 import java.util.Iterator;
-import java.util.Map;
-import java.util.LinkedHashMap;
-import java.util.Set;
-
-class ExpiringCache {
-    private long millisUntilExpiration;
-    private Map<String,Entry> map;
-    // Clear out old entries every few queries
-    private int queryCount;
-    private int queryOverflow = 300;
-    private int MAX_ENTRIES = 200;
-
-    static class Entry {
-        private long   timestamp;
-        private String val;
-
-        Entry(long timestamp, String val) {
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * A cache of file system lookups whose entries expire after a fixed time.
+ * Lookups do not lock, so that many threads can canonicalize paths at once.
+ * When the cache grows beyond its bound, expired entries are dropped, and
+ * then arbitrary entries until it is a quarter below the bound.
+ */
+class ExpiringCache<V> implements FileCacheMXBean {
+    private final String name;
+    private final long millisUntilExpiration;
+    private final int maxEntries;
+    private final ConcurrentHashMap<String,Entry<V>> map =
+        new ConcurrentHashMap<>();
+    // Only one thread trims the map at a time
+    private final AtomicBoolean trimming = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    static final class Entry<V> {
+        final long timestamp;
+        final V val;
+
+        Entry(long timestamp, V val) {
             this.timestamp = timestamp;
             this.val = val;
         }
-
-        long   timestamp()                  { return timestamp;           }
-        void   setTimestamp(long timestamp) { this.timestamp = timestamp; }
-
-        String val()                        { return val;                 }
-        void   setVal(String val)           { this.val = val;             }
     }
 
-    ExpiringCache() {
-        this(30000);
+    ExpiringCache(String name) {
+        this(name, 30000, 200);
     }
 
-    @SuppressWarnings("serial")
-    ExpiringCache(long millisUntilExpiration) {
+    ExpiringCache(String name, long millisUntilExpiration, int maxEntries) {
+        this.name = name;
         this.millisUntilExpiration = millisUntilExpiration;
-        map = new LinkedHashMap<String,Entry>() {
-            protected boolean removeEldestEntry(Map.Entry<String,Entry> eldest) {
-              return size() > MAX_ENTRIES;
-            }
-          };
+        this.maxEntries = maxEntries;
     }
 
-    synchronized String get(String key) {
-        if (++queryCount >= queryOverflow) {
-            cleanup();
-        }
-        Entry entry = entryFor(key);
+    V get(String key) {
+        Entry<V> entry = map.get(key);
         if (entry != null) {
-            return entry.val();
+            if (!expired(entry, System.currentTimeMillis())) {
+                hits.increment();
+                return entry.val;
+            }
+            map.remove(key, entry);
         }
+        misses.increment();
         return null;
     }
 
-    synchronized void put(String key, String val) {
-        if (++queryCount >= queryOverflow) {
-            cleanup();
-        }
-        Entry entry = entryFor(key);
-        if (entry != null) {
-            entry.setTimestamp(System.currentTimeMillis());
-            entry.setVal(val);
-        } else {
-            map.put(key, new Entry(System.currentTimeMillis(), val));
-        }
+    void put(String key, V val) {
+        map.put(key, new Entry<>(System.currentTimeMillis(), val));
+        if (map.size() > maxEntries)
+            trim();
     }
 
-    synchronized void clear() {
+    void remove(String key) {
+        map.remove(key);
+    }
+
+    void clear() {
         map.clear();
     }
 
-    private Entry entryFor(String key) {
-        Entry entry = map.get(key);
-        if (entry != null) {
-            long delta = System.currentTimeMillis() - entry.timestamp();
-            if (delta < 0 || delta >= millisUntilExpiration) {
-                map.remove(key);
-                entry = null;
+    private boolean expired(Entry<V> entry, long now) {
+        long delta = now - entry.timestamp;
+        return delta < 0 || delta >= millisUntilExpiration;
+    }
+
+    private void trim() {
+        if (!trimming.compareAndSet(false, true))
+            return;
+        try {
+            long now = System.currentTimeMillis();
+            for (Iterator<Entry<V>> it = map.values().iterator(); it.hasNext(); ) {
+                if (expired(it.next(), now))
+                    it.remove();
+            }
+            int target = maxEntries - (maxEntries >> 2);
+            for (Iterator<String> it = map.keySet().iterator();
+                 it.hasNext() && map.size() > target; ) {
+                it.next();
+                it.remove();
             }
+        } finally {
+            trimming.set(false);
         }
-        return entry;
     }
 
-    private void cleanup() {
-        Set<String> keySet = map.keySet();
-        // Avoid ConcurrentModificationExceptions
-        String[] keys = new String[keySet.size()];
-        int i = 0;
-        for (String key: keySet) {
-            keys[i++] = key;
-        }
-        for (int j = 0; j < keys.length; j++) {
-            entryFor(keys[j]);
+    // -- FileCacheMXBean --
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public int getSize() {
+        return map.size();
+    }
+
+    @Override
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    @Override
+    public long getTimeToLive() {
+        return millisUntilExpiration;
+    }
+
+    @Override
+    public ObjectName getObjectName() {
+        try {
+            return new ObjectName("java.io:type=FileCache,name=" + name);
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
         }
-        queryCount = 0;
     }
 }
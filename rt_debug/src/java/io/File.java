@@ -1777,6 +1777,33 @@ public class File
     }
 
 
+    /**
+     * Returns the management interfaces of the caches that the platform's
+     * local file system uses, for example to remember the results of
+     * {@link #getCanonicalPath} for a while.  The same interfaces are
+     * returned by {@link java.lang.management.ManagementFactory#getPlatformMXBeans
+     * ManagementFactory.getPlatformMXBeans(FileCacheMXBean.class)}.
+     *
+     * <p> The size and time to live of the canonical path caches can be set
+     * with the {@code sun.io.canonCacheMaxEntries} and {@code
+     * sun.io.canonCacheTTL} (in milliseconds) system properties.  Setting
+     * {@code sun.io.useFileAttributeCache} to {@code true} also caches the
+     * results of {@link #exists}, {@link #isDirectory}, {@link #isFile},
+     * {@link #isHidden}, {@link #length} and {@link #lastModified}, sized by
+     * {@code sun.io.fileAttributeCacheMaxEntries} and {@code
+     * sun.io.fileAttributeCacheTTL}; these results may then be out of date
+     * by up to the time to live when files are changed by other processes,
+     * through streams, or through other names for the same file, such as
+     * names containing {@code ".."} or going through links.
+     *
+     * @return  The caches of the local file system
+     *
+     * @since 1.8
+     */
+    public static List<FileCacheMXBean> getCacheMXBeans() {
+        return FileSystem.caches();
+    }
+
     /* -- Disk usage -- */
 
     /**
@@ -0,0 +1,73 @@
+package java.io;
+
+import java.lang.management.PlatformManagedObject;
+
+/**
+ * The management interface for a cache of file system lookups, such as the
+ * caches of canonical paths used by {@link File#getCanonicalPath}.
+ *
+ * <p> A class implementing this interface is an
+ * {@link javax.management.MXBean}.  The {@link
+ * java.lang.management.ManagementFactory#getPlatformMXBeans getPlatformMXBeans}
+ * method can be used to obtain the caches of the default file system:
+ * <pre>
+ *     List&lt;FileCacheMXBean&gt; caches = ManagementFactory.getPlatformMXBeans(FileCacheMXBean.class);
+ * </pre>
+ *
+ * <p> The management interfaces are also registered with the platform {@link
+ * javax.management.MBeanServer MBeanServer}. The {@link
+ * javax.management.ObjectName ObjectName} that uniquely identifies the
+ * management interface within the {@code MBeanServer} takes the form:
+ * <pre>
+ *     java.io:type=FileCache,name=<i>cache name</i>
+ * </pre>
+ * where <em>cache name</em> is the {@link #getName name} of the cache.
+ *
+ * @since   1.8
+ */
+public interface FileCacheMXBean extends PlatformManagedObject {
+
+    /**
+     * Returns the name of this cache.
+     *
+     * @return  The name of this cache
+     */
+    String getName();
+
+    /**
+     * Returns the number of lookups that were answered by this cache.
+     *
+     * @return  The number of cache hits
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of lookups that were not answered by this cache,
+     * because the entry was absent or had expired.
+     *
+     * @return  The number of cache misses
+     */
+    long getMissCount();
+
+    /**
+     * Returns the number of entries currently in this cache, including any
+     * that have expired but have not been dropped yet.
+     *
+     * @return  The number of entries
+     */
+    int getSize();
+
+    /**
+     * Returns the number of entries above which this cache drops entries.
+     *
+     * @return  The maximum number of entries
+     */
+    int getMaxEntries();
+
+    /**
+     * Returns the time after which an entry of this cache expires.
+     *
+     * @return  The time to live of an entry, in milliseconds
+     */
+    long getTimeToLive();
+}
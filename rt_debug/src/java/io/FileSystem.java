@@ -26,6 +26,9 @@
 package java.io;
 
 import java.lang.annotation.Native;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Package-private abstract class for the local filesystem abstraction.
@@ -226,6 +229,36 @@ abstract class FileSystem {
     // name canonicalization
     static boolean useCanonCaches      = true;
     static boolean useCanonPrefixCache = true;
+    static int     canonCacheMaxEntries = 200;
+    static long    canonCacheTTL        = 30000;
+
+    // Flags for the cache of file attributes (existence, type, length and
+    // last modified time).  It is off by default because its results may be
+    // out of date by up to its time to live when files are changed by other
+    // processes or through streams.
+    static boolean useFileAttributeCache        = false;
+    static int     fileAttributeCacheMaxEntries = 10000;
+    static long    fileAttributeCacheTTL        = 1000;
+
+    // The caches created by file systems, for monitoring
+    private static final List<FileCacheMXBean> caches =
+        new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a cache and makes it available for monitoring.
+     */
+    static <V> ExpiringCache<V> newCache(String name, long ttl, int maxEntries) {
+        ExpiringCache<V> cache = new ExpiringCache<>(name, ttl, maxEntries);
+        caches.add(cache);
+        return cache;
+    }
+
+    /**
+     * Returns the caches created by file systems.
+     */
+    static List<FileCacheMXBean> caches() {
+        return Collections.unmodifiableList(caches);
+    }
 
     private static boolean getBooleanProperty(String prop, boolean defaultVal) {
         String val = System.getProperty(prop);
@@ -237,10 +270,33 @@ abstract class FileSystem {
         }
     }
 
+    private static long getLongProperty(String prop, long defaultVal) {
+        String val = System.getProperty(prop);
+        if (val == null) return defaultVal;
+        try {
+            long l = Long.parseLong(val);
+            return (l > 0) ? l : defaultVal;
+        } catch (NumberFormatException e) {
+            return defaultVal;
+        }
+    }
+
     static {
         useCanonCaches      = getBooleanProperty("sun.io.useCanonCaches",
                                                  useCanonCaches);
         useCanonPrefixCache = getBooleanProperty("sun.io.useCanonPrefixCache",
                                                  useCanonPrefixCache);
+        canonCacheMaxEntries = (int)Math.min(Integer.MAX_VALUE,
+            getLongProperty("sun.io.canonCacheMaxEntries",
+                            canonCacheMaxEntries));
+        canonCacheTTL       = getLongProperty("sun.io.canonCacheTTL",
+                                              canonCacheTTL);
+        useFileAttributeCache = getBooleanProperty("sun.io.useFileAttributeCache",
+                                                   useFileAttributeCache);
+        fileAttributeCacheMaxEntries = (int)Math.min(Integer.MAX_VALUE,
+            getLongProperty("sun.io.fileAttributeCacheMaxEntries",
+                            fileAttributeCacheMaxEntries));
+        fileAttributeCacheTTL = getLongProperty("sun.io.fileAttributeCacheTTL",
+                                                fileAttributeCacheTTL);
     }
 }
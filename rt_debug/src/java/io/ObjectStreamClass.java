@@ -53,6 +53,7 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 import sun.misc.JavaSecurityAccess;
 import sun.misc.SharedSecrets;
 import sun.misc.Unsafe;
@@ -118,6 +119,26 @@ public class ObjectStreamClass implements Serializable {
         /** queue for WeakReferences to field reflectors keys */
         private static final ReferenceQueue<Class<?>> reflectorsQueue =
             new ReferenceQueue<>();
+
+        /**
+         * descriptors held strongly and consulted before localDescs; see
+         * preload(Class[]) and the pinnedCacheSize property
+         */
+        static final ConcurrentMap<Class<?>,ObjectStreamClass> pinned =
+            new ConcurrentHashMap<>();
+
+        /**
+         * number of looked up descriptors that are pinned automatically;
+         * 0 (the default) pins only explicitly preloaded descriptors
+         */
+        static final int pinnedCacheSize = AccessController.doPrivileged(
+            new sun.security.action.GetIntegerAction(
+                "java.io.ObjectStreamClass.pinnedCacheSize", 0));
+
+        /** lookups answered from the cache */
+        static final LongAdder hits = new LongAdder();
+        /** lookups that had to create a descriptor */
+        static final LongAdder misses = new LongAdder();
     }
 
     /** class associated with this descriptor (if any) */
@@ -247,6 +268,68 @@ public class ObjectStreamClass implements Serializable {
         return lookup(cl, true);
     }
 
+    /**
+     * Creates the descriptors for the given classes ahead of their use, and
+     * keeps them for the lifetime of the virtual machine.  Looking up a
+     * preloaded descriptor, as serialization streams do for every object
+     * they write, is cheaper than looking up a descriptor that is only
+     * softly cached.  Preloading the classes of frequently serialized
+     * objects at startup also moves the cost of creating their descriptors
+     * out of the first requests.
+     *
+     * <p>The classes are strongly referenced once preloaded, and so cannot
+     * be unloaded.  Descriptors may also be preloaded automatically: if the
+     * system property {@code java.io.ObjectStreamClass.pinnedCacheSize} is
+     * set to a positive number, up to that many descriptors are kept in the
+     * same way as they are looked up.
+     *
+     * @param   classes the classes whose descriptors to create
+     * @throws  NullPointerException if {@code classes} or any of its elements
+     *          is null
+     * @since 1.8
+     */
+    public static void preload(Class<?>... classes) {
+        for (Class<?> cl : classes) {
+            Caches.pinned.putIfAbsent(cl, lookup(cl, true));
+        }
+    }
+
+    /**
+     * Returns the number of descriptor lookups that found the descriptor
+     * already created.  Together with {@link #getLookupMissCount} this
+     * indicates whether descriptors are being evicted from the cache and
+     * created again.
+     *
+     * @return  the number of cache hits
+     * @since 1.8
+     */
+    public static long getLookupHitCount() {
+        return Caches.hits.sum();
+    }
+
+    /**
+     * Returns the number of descriptor lookups that had to create the
+     * descriptor.
+     *
+     * @return  the number of cache misses
+     * @since 1.8
+     */
+    public static long getLookupMissCount() {
+        return Caches.misses.sum();
+    }
+
+    /**
+     * Returns the number of descriptors that are kept for the lifetime of
+     * the virtual machine.
+     *
+     * @return  the number of preloaded descriptors
+     * @see     #preload
+     * @since 1.8
+     */
+    public static int getPreloadedCount() {
+        return Caches.pinned.size();
+    }
+
     /**
      * Returns the name of the class described by this descriptor.
      * This method returns the name of the class in the format that
@@ -344,6 +427,11 @@ public class ObjectStreamClass implements Serializable {
         if (!(all || Serializable.class.isAssignableFrom(cl))) {
             return null;
         }
+        ObjectStreamClass desc = Caches.pinned.get(cl);
+        if (desc != null) {
+            Caches.hits.increment();
+            return desc;
+        }
         processQueue(Caches.localDescsQueue, Caches.localDescs);
         WeakClassKey key = new WeakClassKey(cl, Caches.localDescsQueue);
         Reference<?> ref = Caches.localDescs.get(key);
@@ -370,7 +458,8 @@ public class ObjectStreamClass implements Serializable {
         }
 
         if (entry instanceof ObjectStreamClass) {  // check common case first
-            return (ObjectStreamClass) entry;
+            Caches.hits.increment();
+            return pin(cl, (ObjectStreamClass) entry);
         }
         if (entry instanceof EntryFuture) {
             future = (EntryFuture) entry;
@@ -387,6 +476,7 @@ public class ObjectStreamClass implements Serializable {
             }
         }
         if (entry == null) {
+            Caches.misses.increment();
             try {
                 entry = new ObjectStreamClass(cl);
             } catch (Throwable th) {
@@ -401,7 +491,7 @@ public class ObjectStreamClass implements Serializable {
         }
 
         if (entry instanceof ObjectStreamClass) {
-            return (ObjectStreamClass) entry;
+            return pin(cl, (ObjectStreamClass) entry);
         } else if (entry instanceof RuntimeException) {
             throw (RuntimeException) entry;
         } else if (entry instanceof Error) {
@@ -411,6 +501,19 @@ public class ObjectStreamClass implements Serializable {
         }
     }
 
+    /**
+     * Keeps the descriptor for the given class strongly reachable if the
+     * automatically pinned descriptors have not reached their limit yet.
+     * The limit may be exceeded slightly by racing lookups.
+     */
+    private static ObjectStreamClass pin(Class<?> cl, ObjectStreamClass desc) {
+        if (Caches.pinnedCacheSize > 0 &&
+            Caches.pinned.size() < Caches.pinnedCacheSize) {
+            Caches.pinned.putIfAbsent(cl, desc);
+        }
+        return desc;
+    }
+
     /**
      * Placeholder used in class descriptor and field reflector lookup tables
      * for an entry in the process of being initialized.  (Internal) callers
@@ -377,8 +377,10 @@ class WinNTFileSystem extends FileSystem {
     // same directory, and must not create results differing from the true
     // canonicalization algorithm in canonicalize_md.c. For this reason the
     // prefix cache is conservative and is not used for complex path names.
-    private ExpiringCache cache       = new ExpiringCache();
-    private ExpiringCache prefixCache = new ExpiringCache();
+    private final ExpiringCache<String> cache =
+        newCache("canonicalPath", canonCacheTTL, canonCacheMaxEntries);
+    private final ExpiringCache<String> prefixCache =
+        newCache("canonicalPathPrefix", canonCacheTTL, canonCacheMaxEntries);
 
     @Override
     public String canonicalize(String path) throws IOException {
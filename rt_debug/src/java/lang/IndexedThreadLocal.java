@@ -0,0 +1,191 @@
+package java.lang;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A thread-local variable that is stored at a fixed index of a per-thread
+ * array, rather than in a hash table keyed by the variable.  It behaves like
+ * {@link ThreadLocal}: each thread that accesses the variable (via its
+ * {@code get} or {@code set} method) has its own, independently initialized
+ * copy, obtained from {@link #initialValue} on the first {@code get}.
+ *
+ * <p>Because every variable is assigned an index when it is created, a
+ * {@code get} is a single array access, whose cost does not depend on the
+ * number of thread-local variables a thread uses, and no stale entries ever
+ * have to be found and expunged.  In exchange, indexes are never reused, and
+ * each thread's array is as long as the highest index it has accessed.  This
+ * class is therefore intended for long-lived variables, typically held in
+ * {@code static} fields, of which a program creates a bounded number.
+ * Unlike a {@code ThreadLocal}, a variable that is no longer referenced does
+ * not release the values it holds in each thread; they are released when
+ * the thread terminates, or when the variable is {@linkplain #remove
+ * removed} by that thread.
+ *
+ * <p>Values are not inherited by child threads.
+ *
+ * @param <T> the type of the thread-local variable's value
+ * @see ThreadLocal
+ * @since 1.8
+ */
+public class IndexedThreadLocal<T> {
+
+    /**
+     * Marks the slots of variables that have no value in a thread.
+     */
+    private static final Object UNSET = new Object();
+
+    /**
+     * The next index to be given out.
+     */
+    private static final AtomicInteger nextIndex = new AtomicInteger();
+
+    /**
+     * The initial length of a thread's array.
+     */
+    private static final int INITIAL_CAPACITY = 32;
+
+    /**
+     * The index of this variable in each thread's array.
+     */
+    private final int index;
+
+    /**
+     * Creates an indexed thread-local variable.
+     *
+     * @throws IllegalStateException if the number of variables created
+     *         exceeds the maximum array length
+     * @see #withInitial(java.util.function.Supplier)
+     */
+    public IndexedThreadLocal() {
+        int i = nextIndex.getAndIncrement();
+        if (i < 0 || i >= Integer.MAX_VALUE - 8) {
+            nextIndex.set(Integer.MAX_VALUE - 8);
+            throw new IllegalStateException("too many thread-local variables");
+        }
+        index = i;
+    }
+
+    /**
+     * Creates an indexed thread-local variable.  The initial value of the
+     * variable is determined by invoking the {@code get} method on the
+     * {@code Supplier}.
+     *
+     * @param <S> the type of the thread local's value
+     * @param supplier the supplier to be used to determine the initial value
+     * @return a new thread local variable
+     * @throws NullPointerException if the specified supplier is null
+     */
+    public static <S> IndexedThreadLocal<S> withInitial(Supplier<? extends S> supplier) {
+        return new SuppliedIndexedThreadLocal<>(supplier);
+    }
+
+    /**
+     * Returns the current thread's "initial value" for this thread-local
+     * variable.  As with {@link ThreadLocal#initialValue}, this method is
+     * invoked the first time a thread accesses the variable with the
+     * {@link #get} method, unless the thread previously invoked the
+     * {@link #set} method, and again after a call to {@link #remove}.
+     *
+     * <p>This implementation simply returns {@code null}.
+     *
+     * @return the initial value for this thread-local
+     */
+    protected T initialValue() {
+        return null;
+    }
+
+    /**
+     * Returns the value in the current thread's copy of this thread-local
+     * variable.  If the variable has no value for the current thread, it is
+     * first initialized to the value returned by an invocation of the
+     * {@link #initialValue} method.
+     *
+     * @return the current thread's value of this thread-local
+     */
+    @SuppressWarnings("unchecked")
+    public T get() {
+        Object[] values = Thread.currentThread().indexedThreadLocals;
+        if (values != null && index < values.length) {
+            Object v = values[index];
+            if (v != UNSET)
+                return (T)v;
+        }
+        return setInitialValue();
+    }
+
+    private T setInitialValue() {
+        T value = initialValue();
+        set(value);
+        return value;
+    }
+
+    /**
+     * Sets the current thread's copy of this thread-local variable to the
+     * specified value.
+     *
+     * @param value the value to be stored in the current thread's copy of
+     *        this thread-local.
+     */
+    public void set(T value) {
+        Thread t = Thread.currentThread();
+        Object[] values = t.indexedThreadLocals;
+        if (values == null || index >= values.length)
+            t.indexedThreadLocals = values = grow(values, index);
+        values[index] = value;
+    }
+
+    /**
+     * Removes the current thread's value for this thread-local variable.
+     * If this thread-local variable is subsequently {@linkplain #get read}
+     * by the current thread, its value will be reinitialized by invoking
+     * its {@link #initialValue} method, unless its value is {@linkplain
+     * #set set} by the current thread in the interim.
+     */
+    public void remove() {
+        Object[] values = Thread.currentThread().indexedThreadLocals;
+        if (values != null && index < values.length)
+            values[index] = UNSET;
+    }
+
+    /**
+     * Returns an array that can hold the value at the given index, with the
+     * contents of the given array, which may be null.
+     */
+    private static Object[] grow(Object[] values, int index) {
+        int oldLength = (values == null) ? 0 : values.length;
+        int newLength = Math.max(INITIAL_CAPACITY, oldLength);
+        while (newLength <= index) {
+            newLength <<= 1;
+            if (newLength < 0) {
+                newLength = Integer.MAX_VALUE - 8;
+                break;
+            }
+        }
+        Object[] newValues = (values == null)
+            ? new Object[newLength]
+            : Arrays.copyOf(values, newLength);
+        Arrays.fill(newValues, oldLength, newLength, UNSET);
+        return newValues;
+    }
+
+    /**
+     * An extension of IndexedThreadLocal that obtains its initial value from
+     * the specified {@code Supplier}.
+     */
+    static final class SuppliedIndexedThreadLocal<T> extends IndexedThreadLocal<T> {
+
+        private final Supplier<? extends T> supplier;
+
+        SuppliedIndexedThreadLocal(Supplier<? extends T> supplier) {
+            this.supplier = Objects.requireNonNull(supplier);
+        }
+
+        @Override
+        protected T initialValue() {
+            return supplier.get();
+        }
+    }
+}
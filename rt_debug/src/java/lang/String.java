@@ -2175,7 +2175,7 @@ public final class String
      * @spec JSR-51
      */
     public String replaceFirst(String regex, String replacement) {
-        return Pattern.compile(regex).matcher(this).replaceFirst(replacement);
+        return Pattern.compileCached(regex, 0).matcher(this).replaceFirst(replacement);
     }
 
     /**
@@ -2220,7 +2220,7 @@ public final class String
      * @spec JSR-51
      */
     public String replaceAll(String regex, String replacement) {
-        return Pattern.compile(regex).matcher(this).replaceAll(replacement);
+        return Pattern.compileCached(regex, 0).matcher(this).replaceAll(replacement);
     }
 
     /**
@@ -2331,9 +2331,11 @@ public final class String
          (1)one-char String and this character is not one of the
             RegEx's meta characters ".$|()[{^?*+\\", or
          (2)two-char String and the first char is the backslash and
-            the second is not the ascii digit or ascii letter.
+            the second is not the ascii digit or ascii letter, or
+         (3)literal of more chars, see literalSeparator.
          */
         char ch = 0;
+        String sep = null;
         if (((regex.value.length == 1 &&
              ".$|()[{^?*+\\".indexOf(ch = regex.charAt(0)) == -1) ||
              (regex.length() == 2 &&
@@ -2342,16 +2344,19 @@ public final class String
               ((ch-'a')|('z'-ch)) < 0 &&
               ((ch-'A')|('Z'-ch)) < 0)) &&
             (ch < Character.MIN_HIGH_SURROGATE ||
-             ch > Character.MAX_LOW_SURROGATE))
+             ch > Character.MAX_LOW_SURROGATE) ||
+            (sep = literalSeparator(regex)) != null)
         {
             int off = 0;
             int next = 0;
+            int len = (sep == null) ? 1 : sep.value.length;
             boolean limited = limit > 0;
             ArrayList<String> list = new ArrayList<>();
-            while ((next = indexOf(ch, off)) != -1) {
+            while ((next = (sep == null) ? indexOf(ch, off)
+                                         : indexOf(sep, off)) != -1) {
                 if (!limited || list.size() < limit - 1) {
                     list.add(substring(off, next));
-                    off = next + 1;
+                    off = next + len;
                 } else {    // last one
                     //assert (list.size() == limit - 1);
                     list.add(substring(off, value.length));
@@ -2377,7 +2382,35 @@ public final class String
             String[] result = new String[resultSize];
             return list.subList(0, resultSize).toArray(result);
         }
-        return Pattern.compile(regex).split(this, limit);
+        return Pattern.compileCached(regex, 0).split(this, limit);
+    }
+
+    /*
+     * Returns the text matched by the given regex if it is a literal of
+     * more than one char: either a string without any of the RegEx's meta
+     * characters, or one quoted as a whole by \Q and \E.  Returns null
+     * otherwise, and for separators that begin or end with a surrogate,
+     * which the regex would not match inside a surrogate pair.
+     */
+    private static String literalSeparator(String regex) {
+        String sep = regex;
+        int n = regex.value.length;
+        if (n > 4 && regex.startsWith("\\Q") && regex.endsWith("\\E")
+                && regex.indexOf("\\E", 2) == n - 2) {
+            sep = regex.substring(2, n - 2);
+        } else if (n < 2) {
+            return null;
+        } else {
+            for (char c : regex.value) {
+                if (".$|()[{^?*+\\".indexOf(c) != -1)
+                    return null;
+            }
+        }
+        if (sep.value.length < 2 ||
+            Character.isSurrogate(sep.value[0]) ||
+            Character.isSurrogate(sep.value[sep.value.length - 1]))
+            return null;
+        return sep;
     }
 
     /**
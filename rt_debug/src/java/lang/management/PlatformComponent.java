@@ -216,6 +216,46 @@ enum PlatformComponent {
             }
         }),
 
+    /**
+     * Caches of file system lookups.
+     */
+    FILE_CACHE(
+        "java.io.FileCacheMXBean",
+        "java.io", "FileCache", keyProperties("name"),
+        false, // zero or more instances
+        new MXBeanFetcher<java.io.FileCacheMXBean>() {
+            public List<java.io.FileCacheMXBean> getMXBeans() {
+                return java.io.File.getCacheMXBeans();
+            }
+        }),
+
+    /**
+     * Cache of compiled regular expressions.
+     */
+    PATTERN_CACHE(
+        "java.util.regex.PatternCacheMXBean",
+        "java.util.regex", "PatternCache", defaultKeyProperties(),
+        true, // singleton
+        new MXBeanFetcher<java.util.regex.PatternCacheMXBean>() {
+            public List<java.util.regex.PatternCacheMXBean> getMXBeans() {
+                return Collections.singletonList(java.util.regex.Pattern.getCacheMXBean());
+            }
+        }),
+
+    /**
+     * Common fork/join pool.
+     */
+    FORK_JOIN_POOL(
+        "java.util.concurrent.ForkJoinPoolMXBean",
+        "java.util.concurrent", "ForkJoinPool", keyProperties("name"),
+        false, // zero or more instances
+        new MXBeanFetcher<java.util.concurrent.ForkJoinPoolMXBean>() {
+            public List<java.util.concurrent.ForkJoinPoolMXBean> getMXBeans() {
+                return Collections.singletonList(
+                    java.util.concurrent.ForkJoinPool.commonPool().getMXBean());
+            }
+        }),
+
 
     // Sun Platform Extension
 
@@ -135,4 +135,55 @@ public interface PlatformLoggingMXBean extends PlatformManagedObject {
      *         is returned.
      */
     String getParentLoggerName(String loggerName);
+
+    /**
+     * Returns the names of the currently open
+     * {@linkplain java.util.logging.AsyncHandler asynchronous handlers}.
+     *
+     * @return A list of {@code String} each of which is the name of
+     *         an open {@code AsyncHandler}.
+     *
+     * @see java.util.logging.LoggingMXBean#getAsyncHandlerNames
+     * @since 1.8
+     */
+    default java.util.List<String> getAsyncHandlerNames() {
+        return java.util.logging.LogManager.getLoggingMXBean()
+                                           .getAsyncHandlerNames();
+    }
+
+    /**
+     * Returns the number of records waiting in the buffer of the
+     * specified {@linkplain java.util.logging.AsyncHandler asynchronous
+     * handler}.
+     *
+     * @param handlerName The name of an {@code AsyncHandler}.
+     *
+     * @return the number of records waiting in the buffer; or -1 if
+     *         no open {@code AsyncHandler} has the given name.
+     *
+     * @see java.util.logging.LoggingMXBean#getAsyncHandlerQueueSize
+     * @since 1.8
+     */
+    default int getAsyncHandlerQueueSize(String handlerName) {
+        return java.util.logging.LogManager.getLoggingMXBean()
+                                           .getAsyncHandlerQueueSize(handlerName);
+    }
+
+    /**
+     * Returns the number of records dropped by the specified
+     * {@linkplain java.util.logging.AsyncHandler asynchronous handler}
+     * because its buffer was full.
+     *
+     * @param handlerName The name of an {@code AsyncHandler}.
+     *
+     * @return the number of dropped records; or -1 if no open
+     *         {@code AsyncHandler} has the given name.
+     *
+     * @see java.util.logging.LoggingMXBean#getAsyncHandlerDroppedCount
+     * @since 1.8
+     */
+    default long getAsyncHandlerDroppedCount(String handlerName) {
+        return java.util.logging.LogManager.getLoggingMXBean()
+                                           .getAsyncHandlerDroppedCount(handlerName);
+    }
 }
@@ -233,8 +233,8 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
      * @serial
      * @see #scale
      */
-    private final int scale;  // Note: this may have any value, so
-                              // calculations must be done in longs
+    final int scale;  // Note: this may have any value, so
+                      // calculations must be done in longs
 
     /**
      * The number of decimal digits in this BigDecimal, or 0 if the
@@ -265,7 +265,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
      * less than or equal to {@code Long.MAX_VALUE}, the value can be
      * compactly stored in this field and used in computations.
      */
-    private final transient long intCompact;
+    final transient long intCompact;
 
     // All 18-digit base ten strings fit into a long; not all 19-digit
     // strings will
@@ -3680,7 +3680,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
      * Compute val * 10 ^ n; return this product if it is
      * representable as a long, INFLATED otherwise.
      */
-    private static long longMultiplyPowerTen(long val, int n) {
+    static long longMultiplyPowerTen(long val, int n) {
         if (val == 0 || n <= 0)
             return val;
         long[] tab = LONG_TEN_POWERS_TABLE;
@@ -4533,13 +4533,13 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
                 valueOf(sum, rscale, 0);
     }
 
-    private static BigInteger bigMultiplyPowerTen(long value, int n) {
+    static BigInteger bigMultiplyPowerTen(long value, int n) {
         if (n <= 0)
             return BigInteger.valueOf(value);
         return bigTenToThe(n).multiply(value);
     }
 
-    private static BigInteger bigMultiplyPowerTen(BigInteger value, int n) {
+    static BigInteger bigMultiplyPowerTen(BigInteger value, int n) {
         if (n <= 0)
             return value;
         if(n<LONG_TEN_POWERS_TABLE.length) {
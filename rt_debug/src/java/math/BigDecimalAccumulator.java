@@ -0,0 +1,210 @@
+package java.math;
+
+import java.util.function.Consumer;
+
+/**
+ * A mutable sum of {@code BigDecimal} values.  Adding a value to an
+ * accumulator gives the same result as {@link BigDecimal#add(BigDecimal)},
+ * but no {@code BigDecimal} is created until the sum is requested, and
+ * values whose unscaled value fits in a {@code long} are added as
+ * {@code long}s.
+ *
+ * <p>The scale of the sum is the largest of zero and the scales of the
+ * values added, as for a sum computed by
+ * {@code stream.reduce(BigDecimal.ZERO, BigDecimal::add)}.  The sum is
+ * exact; a {@link MathContext} may be given to round it when it is
+ * requested.
+ *
+ * <p>This class is designed to work with (though does not require)
+ * {@linkplain java.util.stream streams}.  For example, you can compute
+ * the sum of the amounts of a stream of payments with:
+ * <pre> {@code
+ * BigDecimal total = payments.stream()
+ *     .collect(Collectors.summingBigDecimal(Payment::getAmount));
+ * }</pre>
+ *
+ * @implNote This implementation is not thread safe.  However, it is safe
+ * to use {@link java.util.stream.Collectors#summingBigDecimal(java.util.function.Function)
+ * Collectors.summingBigDecimal()} on a parallel stream, because the
+ * parallel implementation of {@link java.util.stream.Stream#collect
+ * Stream.collect()} provides the necessary partitioning, isolation, and
+ * merging of results for safe and efficient parallel execution.
+ *
+ * @see BigDecimal#add(BigDecimal)
+ * @since 1.8
+ */
+public final class BigDecimalAccumulator implements Consumer<BigDecimal> {
+    /*
+     * The unscaled sum is big + compact, where big is null until the sum
+     * of compact values overflows a long.  Values are added to compact,
+     * and when that overflows, compact is moved into big and starts
+     * over, so a long sequence of small values costs one BigInteger
+     * addition every time the sum grows past the range of a long.
+     */
+    private long compact;
+    private BigInteger big;
+    private int scale;
+
+    /**
+     * Constructs an accumulator with a sum of zero, with a scale of
+     * zero.
+     */
+    public BigDecimalAccumulator() { }
+
+    /**
+     * Adds a value to the sum.
+     *
+     * @param val value to be added to the sum.
+     * @throws NullPointerException if {@code val} is null.
+     * @throws ArithmeticException if the scales of the sum and
+     *         {@code val} differ by more than {@code Integer.MAX_VALUE}.
+     */
+    public void add(BigDecimal val) {
+        long xs = val.intCompact;
+        if (xs != BigDecimal.INFLATED && val.scale == scale) {
+            long c = compact;
+            long sum = c + xs;
+            // See "Hacker's Delight" section 2-12 for explanation of
+            // the overflow test.  Like BigDecimal.intCompact, compact
+            // is never INFLATED.
+            if (((sum ^ c) & (sum ^ xs)) >= 0L && sum != BigDecimal.INFLATED) {
+                compact = sum;
+                return;
+            }
+        }
+        addSlow(val);
+    }
+
+    /**
+     * Adds a value to the sum.  Equivalent to {@link #add(BigDecimal)}.
+     *
+     * @param val value to be added to the sum.
+     * @throws NullPointerException if {@code val} is null.
+     * @throws ArithmeticException if the scales of the sum and
+     *         {@code val} differ by more than {@code Integer.MAX_VALUE}.
+     */
+    @Override
+    public void accept(BigDecimal val) {
+        add(val);
+    }
+
+    private void addSlow(BigDecimal val) {
+        int vscale = val.scale;
+        if (vscale > scale)
+            rescale(vscale);
+        long raise = (long) scale - vscale;
+        long xs = val.intCompact;
+        if (xs == 0 || (xs == BigDecimal.INFLATED && val.signum() == 0))
+            return;
+        if (raise > Integer.MAX_VALUE)
+            throw new ArithmeticException("Overflow");
+        if (xs != BigDecimal.INFLATED)
+            addUnscaled(xs, (int) raise);
+        else
+            addUnscaled(BigDecimal.bigMultiplyPowerTen(val.unscaledValue(),
+                                                       (int) raise));
+    }
+
+    /**
+     * Adds xs * 10^raise to the unscaled sum.
+     */
+    private void addUnscaled(long xs, int raise) {
+        long x = BigDecimal.longMultiplyPowerTen(xs, raise);
+        if (x == BigDecimal.INFLATED) {
+            addUnscaled(BigDecimal.bigMultiplyPowerTen(xs, raise));
+            return;
+        }
+        long c = compact;
+        long sum = c + x;
+        if (((sum ^ c) & (sum ^ x)) >= 0L && sum != BigDecimal.INFLATED) {
+            compact = sum;
+        } else {
+            addUnscaled(BigInteger.valueOf(c));
+            compact = x;
+        }
+    }
+
+    private void addUnscaled(BigInteger x) {
+        big = (big == null) ? x : big.add(x);
+    }
+
+    /**
+     * Raises the scale of the sum to newScale, which is larger than
+     * its current scale.
+     */
+    private void rescale(int newScale) {
+        // The scale is at least zero, so the difference fits in an int
+        int raise = newScale - scale;
+        if (big != null)
+            big = BigDecimal.bigMultiplyPowerTen(big, raise);
+        long c = BigDecimal.longMultiplyPowerTen(compact, raise);
+        if (c == BigDecimal.INFLATED) {
+            addUnscaled(BigDecimal.bigMultiplyPowerTen(compact, raise));
+            c = 0;
+        }
+        compact = c;
+        scale = newScale;
+    }
+
+    /**
+     * Adds the sum of another accumulator to this one.
+     *
+     * @param other another {@code BigDecimalAccumulator}.
+     * @throws NullPointerException if {@code other} is null.
+     */
+    public void combine(BigDecimalAccumulator other) {
+        if (other.scale > scale)
+            rescale(other.scale);
+        int raise = scale - other.scale;
+        if (other.big != null)
+            addUnscaled(BigDecimal.bigMultiplyPowerTen(other.big, raise));
+        if (other.compact != 0)
+            addUnscaled(other.compact, raise);
+    }
+
+    /**
+     * Resets the sum to zero, with a scale of zero.
+     */
+    public void reset() {
+        compact = 0;
+        big = null;
+        scale = 0;
+    }
+
+    /**
+     * Returns the sum of the values added.
+     *
+     * @return the sum, with a scale equal to the largest of zero and the
+     *         scales of the values added.
+     */
+    public BigDecimal sum() {
+        if (big == null)
+            return BigDecimal.valueOf(compact, scale);
+        return new BigDecimal(big.add(BigInteger.valueOf(compact)), scale);
+    }
+
+    /**
+     * Returns the sum of the values added, rounded according to the
+     * context settings.
+     *
+     * @param mc the context to use.
+     * @return the sum, rounded as necessary.
+     * @throws ArithmeticException if the rounding mode is
+     *         {@code UNNECESSARY} and the sum cannot be represented
+     *         exactly with the precision of {@code mc}.
+     * @see BigDecimal#round(MathContext)
+     */
+    public BigDecimal sum(MathContext mc) {
+        return sum().round(mc);
+    }
+
+    /**
+     * Returns the string representation of the sum.
+     *
+     * @return the string representation of {@link #sum()}.
+     */
+    @Override
+    public String toString() {
+        return sum().toString();
+    }
+}
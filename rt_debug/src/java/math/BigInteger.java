@@ -35,6 +35,9 @@ import java.io.ObjectOutputStream;
 import java.io.ObjectStreamField;
 import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.ThreadLocalRandom;
 import sun.misc.DoubleConsts;
 import sun.misc.FloatConsts;
@@ -242,6 +245,23 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      */
     private static final int TOOM_COOK_SQUARE_THRESHOLD = 216;
 
+    /**
+     * The threshold value for using multiplication by number-theoretic
+     * transforms.  If the number of ints in both mag arrays are greater
+     * than this number, then the product is computed by
+     * {@link NumberTheoreticTransform}.  This value is found
+     * experimentally to work well.
+     */
+    private static final int NTT_THRESHOLD = 6000;
+
+    /**
+     * The threshold value for squaring by number-theoretic transforms.  If
+     * the number of ints in the number are larger than this value, the
+     * square is computed by {@link NumberTheoreticTransform}.  This value
+     * is found experimentally to work well.
+     */
+    private static final int NTT_SQUARE_THRESHOLD = 4000;
+
     /**
      * The threshold value for using Burnikel-Ziegler division.  If the number
      * of ints in the divisor are larger than this value, Burnikel-Ziegler
@@ -1166,7 +1186,9 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
             && TOOM_COOK_THRESHOLD < Integer.MAX_VALUE
             && 0 < KARATSUBA_SQUARE_THRESHOLD
             && KARATSUBA_SQUARE_THRESHOLD < TOOM_COOK_SQUARE_THRESHOLD
-            && TOOM_COOK_SQUARE_THRESHOLD < Integer.MAX_VALUE :
+            && TOOM_COOK_SQUARE_THRESHOLD < Integer.MAX_VALUE
+            && TOOM_COOK_THRESHOLD < NTT_THRESHOLD
+            && TOOM_COOK_SQUARE_THRESHOLD < NTT_SQUARE_THRESHOLD :
             "Algorithm thresholds are inconsistent";
 
         for (int i = 1; i <= MAX_CONSTANT; i++) {
@@ -1490,7 +1512,28 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * @return {@code this * val}
      */
     public BigInteger multiply(BigInteger val) {
-        return multiply(val, false);
+        return multiply(val, false, false, 0);
+    }
+
+    /**
+     * Returns a BigInteger whose value is {@code (this * val)}.  When
+     * both values are large, the computation is split into parts that
+     * are performed in parallel in the
+     * {@linkplain ForkJoinPool#commonPool() common pool}, or in the pool
+     * of the calling thread if it is a {@code ForkJoinWorkerThread}.
+     *
+     * @implNote This method uses the same algorithms as
+     * {@link #multiply(BigInteger)}, and returns the same result.  It
+     * uses more CPU time in total, and more memory, in exchange for a
+     * shorter elapsed time on machines with several processors.
+     *
+     * @param  val value to be multiplied by this BigInteger.
+     * @return {@code this * val}
+     * @see #multiply(BigInteger)
+     * @since 1.8
+     */
+    public BigInteger parallelMultiply(BigInteger val) {
+        return multiply(val, false, true, 0);
     }
 
     /**
@@ -1499,16 +1542,19 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      *
      * @param  val value to be multiplied by this BigInteger.
      * @param  isRecursion whether this is a recursive invocation
+     * @param  parallel whether the multiplication may be done in parallel
+     * @param  depth the depth of recursion of Toom-Cook multiplication
      * @return {@code this * val}
      */
-    private BigInteger multiply(BigInteger val, boolean isRecursion) {
+    private BigInteger multiply(BigInteger val, boolean isRecursion,
+                                boolean parallel, int depth) {
         if (val.signum == 0 || signum == 0)
             return ZERO;
 
         int xlen = mag.length;
 
         if (val == this && xlen > MULTIPLY_SQUARE_THRESHOLD) {
-            return square();
+            return square(false, parallel, depth);
         }
 
         int ylen = val.mag.length;
@@ -1586,7 +1632,14 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
                     }
                 }
 
-                return multiplyToomCook3(this, val);
+                if (xlen < NTT_THRESHOLD || ylen < NTT_THRESHOLD
+                    || !NumberTheoreticTransform.supports(xlen, ylen)) {
+                    return multiplyToomCook3(this, val, parallel, depth);
+                }
+                int[] result = NumberTheoreticTransform.multiply(mag, xlen,
+                                         val.mag, ylen, parallel);
+                return new BigInteger(trustedStripLeadingZeroInts(result),
+                                      signum == val.signum ? 1 : -1);
             }
         }
     }
@@ -1762,7 +1815,8 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * LNCS #4547. Springer, Madrid, Spain, June 21-22, 2007.
      *
      */
-    private static BigInteger multiplyToomCook3(BigInteger a, BigInteger b) {
+    private static BigInteger multiplyToomCook3(BigInteger a, BigInteger b,
+                                                boolean parallel, int depth) {
         int alen = a.mag.length;
         int blen = b.mag.length;
 
@@ -1786,16 +1840,40 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
 
         BigInteger v0, v1, v2, vm1, vinf, t1, t2, tm1, da1, db1;
 
-        v0 = a0.multiply(b0, true);
-        da1 = a2.add(a0);
-        db1 = b2.add(b0);
-        vm1 = da1.subtract(a1).multiply(db1.subtract(b1), true);
-        da1 = da1.add(a1);
-        db1 = db1.add(b1);
-        v1 = da1.multiply(db1, true);
-        v2 = da1.add(a2).shiftLeft(1).subtract(a0).multiply(
-             db1.add(b2).shiftLeft(1).subtract(b0), true);
-        vinf = a2.multiply(b2, true);
+        // The five products are independent, and are computed in
+        // parallel near the top of the recursion if requested
+        depth++;
+        if (RecursiveOp.forks(parallel, depth)) {
+            RecursiveTask<BigInteger> v0t, vm1t, v1t, v2t;
+            v0t = RecursiveOp.multiply(a0, b0, depth);
+            da1 = a2.add(a0);
+            db1 = b2.add(b0);
+            vm1t = RecursiveOp.multiply(da1.subtract(a1), db1.subtract(b1),
+                                        depth);
+            da1 = da1.add(a1);
+            db1 = db1.add(b1);
+            v1t = RecursiveOp.multiply(da1, db1, depth);
+            v2t = RecursiveOp.multiply(da1.add(a2).shiftLeft(1).subtract(a0),
+                                       db1.add(b2).shiftLeft(1).subtract(b0),
+                                       depth);
+            vinf = a2.multiply(b2, true, true, depth);
+            v2 = v2t.join();
+            v1 = v1t.join();
+            vm1 = vm1t.join();
+            v0 = v0t.join();
+        } else {
+            v0 = a0.multiply(b0, true, parallel, depth);
+            da1 = a2.add(a0);
+            db1 = b2.add(b0);
+            vm1 = da1.subtract(a1).multiply(db1.subtract(b1), true,
+                                            parallel, depth);
+            da1 = da1.add(a1);
+            db1 = db1.add(b1);
+            v1 = da1.multiply(db1, true, parallel, depth);
+            v2 = da1.add(a2).shiftLeft(1).subtract(a0).multiply(
+                 db1.add(b2).shiftLeft(1).subtract(b0), true, parallel, depth);
+            vinf = a2.multiply(b2, true, parallel, depth);
+        }
 
         // The algorithm requires two divisions by 2 and one by 3.
         // All divisions are known to be exact, that is, they do not produce
@@ -1824,6 +1902,95 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
     }
 
 
+    /**
+     * A product or square computed as part of a Toom-Cook multiplication
+     * or squaring.  When parallel computation is requested, the parts are
+     * forked as tasks near the top of the recursion, where they are large;
+     * below it, and in serial computations, they are computed by plain
+     * recursive calls.
+     */
+    @SuppressWarnings("serial")
+    private static abstract class RecursiveOp extends RecursiveTask<BigInteger> {
+        /**
+         * The depth of recursion down to which parts are forked in the
+         * common pool.  Each level has four forked parts, so this gives
+         * a few tasks for every thread of the pool.
+         */
+        private static final int PARALLEL_FORK_DEPTH_THRESHOLD =
+            maxForkDepth(ForkJoinPool.getCommonPoolParallelism());
+
+        final int depth;
+
+        RecursiveOp(int depth) {
+            this.depth = depth;
+        }
+
+        private static int maxForkDepth(int parallelism) {
+            return 32 - Integer.numberOfLeadingZeros(parallelism);
+        }
+
+        private static int forkDepthThreshold() {
+            Thread t = Thread.currentThread();
+            if (t instanceof ForkJoinWorkerThread) {
+                ForkJoinPool pool = ((ForkJoinWorkerThread) t).getPool();
+                if (pool != ForkJoinPool.commonPool())
+                    return maxForkDepth(pool.getParallelism());
+            }
+            return PARALLEL_FORK_DEPTH_THRESHOLD;
+        }
+
+        /**
+         * Returns true if the parts at the given depth of recursion are
+         * to be forked: if parallel computation is requested and the
+         * recursion is not too deep.
+         */
+        static boolean forks(boolean parallel, int depth) {
+            return parallel && depth <= forkDepthThreshold();
+        }
+
+        static RecursiveTask<BigInteger> multiply(BigInteger a, BigInteger b,
+                                                  int depth) {
+            RecursiveOp op = new RecursiveMultiply(a, b, depth);
+            op.fork();
+            return op;
+        }
+
+        static RecursiveTask<BigInteger> square(BigInteger a, int depth) {
+            RecursiveOp op = new RecursiveSquare(a, depth);
+            op.fork();
+            return op;
+        }
+
+        private static final class RecursiveMultiply extends RecursiveOp {
+            private final BigInteger a, b;
+
+            RecursiveMultiply(BigInteger a, BigInteger b, int depth) {
+                super(depth);
+                this.a = a;
+                this.b = b;
+            }
+
+            @Override
+            protected BigInteger compute() {
+                return a.multiply(b, true, true, depth);
+            }
+        }
+
+        private static final class RecursiveSquare extends RecursiveOp {
+            private final BigInteger a;
+
+            RecursiveSquare(BigInteger a, int depth) {
+                super(depth);
+                this.a = a;
+            }
+
+            @Override
+            protected BigInteger compute() {
+                return a.square(true, true, depth);
+            }
+        }
+    }
+
     /**
      * Returns a slice of a BigInteger for use in Toom-Cook multiplication.
      *
@@ -1961,7 +2128,7 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * @return {@code this<sup>2</sup>}
      */
     private BigInteger square() {
-        return square(false);
+        return square(false, false, 0);
     }
 
     /**
@@ -1969,9 +2136,11 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * the invocation is recursive certain overflow checks are skipped.
      *
      * @param isRecursion whether this is a recursive invocation
+     * @param parallel whether the squaring may be done in parallel
+     * @param depth the depth of recursion of Toom-Cook squaring
      * @return {@code this<sup>2</sup>}
      */
-    private BigInteger square(boolean isRecursion) {
+    private BigInteger square(boolean isRecursion, boolean parallel, int depth) {
         if (signum == 0) {
             return ZERO;
         }
@@ -1993,7 +2162,12 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
                     }
                 }
 
-                return squareToomCook3();
+                if (len < NTT_SQUARE_THRESHOLD
+                    || !NumberTheoreticTransform.supports(len, len)) {
+                    return squareToomCook3(parallel, depth);
+                }
+                int[] result = NumberTheoreticTransform.square(mag, len, parallel);
+                return new BigInteger(trustedStripLeadingZeroInts(result), 1);
             }
         }
     }
@@ -2126,7 +2300,7 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * that has better asymptotic performance than the algorithm used in
      * squareToLen or squareKaratsuba.
      */
-    private BigInteger squareToomCook3() {
+    private BigInteger squareToomCook3(boolean parallel, int depth) {
         int len = mag.length;
 
         // k is the size (in ints) of the lower-order slices.
@@ -2143,13 +2317,29 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
         a0 = getToomSlice(k, r, 2, len);
         BigInteger v0, v1, v2, vm1, vinf, t1, t2, tm1, da1;
 
-        v0 = a0.square(true);
-        da1 = a2.add(a0);
-        vm1 = da1.subtract(a1).square(true);
-        da1 = da1.add(a1);
-        v1 = da1.square(true);
-        vinf = a2.square(true);
-        v2 = da1.add(a2).shiftLeft(1).subtract(a0).square(true);
+        depth++;
+        if (RecursiveOp.forks(parallel, depth)) {
+            RecursiveTask<BigInteger> v0t, vm1t, v1t, vinft;
+            v0t = RecursiveOp.square(a0, depth);
+            da1 = a2.add(a0);
+            vm1t = RecursiveOp.square(da1.subtract(a1), depth);
+            da1 = da1.add(a1);
+            v1t = RecursiveOp.square(da1, depth);
+            vinft = RecursiveOp.square(a2, depth);
+            v2 = da1.add(a2).shiftLeft(1).subtract(a0).square(true, true, depth);
+            vinf = vinft.join();
+            v1 = v1t.join();
+            vm1 = vm1t.join();
+            v0 = v0t.join();
+        } else {
+            v0 = a0.square(true, parallel, depth);
+            da1 = a2.add(a0);
+            vm1 = da1.subtract(a1).square(true, parallel, depth);
+            da1 = da1.add(a1);
+            v1 = da1.square(true, parallel, depth);
+            vinf = a2.square(true, parallel, depth);
+            v2 = da1.add(a2).shiftLeft(1).subtract(a0).square(true, parallel, depth);
+        }
 
         // The algorithm requires two divisions by 2 and one by 3.
         // All divisions are known to be exact, that is, they do not produce
@@ -0,0 +1,433 @@
+package java.math;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Multiplication of very large magnitudes by number-theoretic transforms,
+ * used by {@code BigInteger} above the Toom-Cook thresholds.
+ *
+ * <p>The magnitudes are split into 16-bit digits, which are the
+ * coefficients of two polynomials.  Their product, a convolution of the
+ * coefficients, is computed modulo two primes of the form c*2^k+1 by
+ * transforming both polynomials, multiplying them pointwise and
+ * transforming the result back, which takes O(n log n) operations.  Each
+ * coefficient of the product is less than 2^26 * 2^32, less than the
+ * product of the primes, so it is recovered exactly from its two residues
+ * by the Chinese remainder theorem before the carries are propagated.
+ *
+ * <p>Arithmetic modulo each prime uses Montgomery multiplication, so that
+ * no division is needed in the transforms.  The forward transform splits
+ * the residue of a polynomial modulo x^2m - c into its residues modulo
+ * x^m - s and x^m + s, where s^2 = c, down to single values, so every
+ * butterfly of a block uses the same twiddle factor, and the output is in
+ * bit-reversed order.  The inverse transform takes that order as input,
+ * so the elements are never permuted.
+ *
+ * @see BigInteger#multiply(BigInteger)
+ * @since 1.8
+ */
+final class NumberTheoreticTransform {
+
+    private NumberTheoreticTransform() {}
+
+    /**
+     * The largest transform length, 2^26, is the largest power of two
+     * dividing P2 - 1.  It bounds the number of terms summed in a
+     * coefficient of the product, which the choice of primes relies on.
+     */
+    private static final int MAX_LOG_LENGTH = 26;
+
+    private static final int P1 = 2013265921;  // 15 * 2^27 + 1
+    private static final int P2 = 469762049;   // 7 * 2^26 + 1
+
+    private static final Modulus M1 = new Modulus(P1, 31);
+    private static final Modulus M2 = new Modulus(P2, 3);
+
+    /**
+     * Blocks of a transform up to this many pairs of elements are
+     * transformed level by level; larger ones are split depth first, so
+     * that most levels work on data in the caches.
+     */
+    private static final int CACHE_BLOCK = 1 << 12;
+
+    /**
+     * Blocks of a transform of at least this many pairs of elements are
+     * split in parallel.
+     */
+    private static final int PARALLEL_BLOCK = 1 << 15;
+
+    /** The inverse of P1 modulo P2, in Montgomery form. */
+    private static final int P1_INV =
+        M2.toMontgomery(M2.pow(P1, P2 - 2));
+
+    /**
+     * Tells whether magnitudes of the given lengths, in ints, can be
+     * multiplied by this class.
+     */
+    static boolean supports(int xlen, int ylen) {
+        return (long) xlen + ylen <= 1L << (MAX_LOG_LENGTH - 1);
+    }
+
+    /**
+     * Multiplies the magnitudes x[0..xlen) and y[0..ylen), big-endian like
+     * {@code BigInteger.mag}.  The result has xlen + ylen ints and may
+     * have a leading zero.
+     *
+     * @param parallel whether the transforms may be run in parallel in
+     *        the common ForkJoinPool
+     */
+    static int[] multiply(int[] x, int xlen, int[] y, int ylen,
+                          boolean parallel) {
+        return multiply(x, xlen, y, ylen, false, parallel);
+    }
+
+    /**
+     * Squares the magnitude x[0..len).  The result has 2 * len ints and
+     * may have a leading zero.
+     */
+    static int[] square(int[] x, int len, boolean parallel) {
+        return multiply(x, len, x, len, true, parallel);
+    }
+
+    private static int[] multiply(int[] x, int xlen, int[] y, int ylen,
+                                  boolean square, boolean parallel) {
+        int digits = 2 * (xlen + ylen);
+        int logn = 32 - Integer.numberOfLeadingZeros(digits - 1);
+        int n = 1 << logn;
+
+        int[] r1, r2;
+        if (parallel) {
+            Convolution c1 = new Convolution(M1, x, xlen, y, ylen, n, square, true);
+            c1.fork();
+            r2 = M2.convolve(x, xlen, y, ylen, n, square, true);
+            r1 = c1.join();
+        } else {
+            r1 = M1.convolve(x, xlen, y, ylen, n, square, false);
+            r2 = M2.convolve(x, xlen, y, ylen, n, square, false);
+        }
+
+        // Recover each coefficient from its residues and carry into the
+        // 16-bit digits of the result, least significant first
+        int[] z = new int[xlen + ylen];
+        long carry = 0;
+        for (int k = 0, i = z.length - 1; i >= 0; i--) {
+            long lo = coefficient(r1[k], r2[k++]) + carry;
+            long hi = coefficient(r1[k], r2[k++]) + (lo >>> 16);
+            z[i] = (int) (hi << 16) | ((int) lo & 0xFFFF);
+            carry = hi >>> 16;
+        }
+        return z;
+    }
+
+    /**
+     * Returns the coefficient c with c = a modulo P1 and c = b modulo P2,
+     * 0 <= c < P1 * P2.
+     */
+    private static long coefficient(int a, int b) {
+        return a + (long) P1 * M2.mul(M2.sub(b, a % P2), P1_INV);
+    }
+
+    /**
+     * Splits the magnitude x[0..len) into 16-bit digits, least significant
+     * first, in an array of length n.
+     */
+    private static int[] digits(int[] x, int len, int n) {
+        int[] a = new int[n];
+        for (int k = 0, i = len - 1; i >= 0; i--) {
+            a[k++] = x[i] & 0xFFFF;
+            a[k++] = x[i] >>> 16;
+        }
+        return a;
+    }
+
+    /**
+     * The convolution modulo one of the primes, run as a task.
+     */
+    @SuppressWarnings("serial")
+    private static final class Convolution extends RecursiveTask<int[]> {
+        private final Modulus m;
+        private final int[] x, y;
+        private final int xlen, ylen, n;
+        private final boolean square, parallel;
+
+        Convolution(Modulus m, int[] x, int xlen, int[] y, int ylen, int n,
+                    boolean square, boolean parallel) {
+            this.m = m;
+            this.x = x;
+            this.xlen = xlen;
+            this.y = y;
+            this.ylen = ylen;
+            this.n = n;
+            this.square = square;
+            this.parallel = parallel;
+        }
+
+        @Override
+        protected int[] compute() {
+            return m.convolve(x, xlen, y, ylen, n, square, parallel);
+        }
+    }
+
+    /**
+     * A block of a transform, with the blocks it splits into, run as a
+     * task.  Blocks of at least PARALLEL_BLOCK elements fork one of their
+     * halves.
+     */
+    @SuppressWarnings("serial")
+    private static final class Transform extends RecursiveAction {
+        private final Modulus m;
+        private final int[] a, roots;
+        private final int off, half, k;
+        private final boolean inverse;
+
+        Transform(Modulus m, int[] a, int off, int half, int k,
+                  int[] roots, boolean inverse) {
+            this.m = m;
+            this.a = a;
+            this.off = off;
+            this.half = half;
+            this.k = k;
+            this.roots = roots;
+            this.inverse = inverse;
+        }
+
+        @Override
+        protected void compute() {
+            if (half < PARALLEL_BLOCK) {
+                if (inverse)
+                    m.inverse(a, off, half, k, roots);
+                else
+                    m.forward(a, off, half, k, roots);
+                return;
+            }
+            if (!inverse)
+                m.forwardButterflies(a, off, half, roots[k]);
+            int q = half >> 1;
+            Transform hi = new Transform(m, a, off + half, q, 2 * k + 1, roots, inverse);
+            hi.fork();
+            new Transform(m, a, off, q, 2 * k, roots, inverse).compute();
+            hi.join();
+            if (inverse)
+                m.inverseButterflies(a, off, half, roots[k]);
+        }
+    }
+
+    /**
+     * Transform of the digits of a magnitude, run as a task.
+     */
+    @SuppressWarnings("serial")
+    private static final class Forward extends RecursiveTask<int[]> {
+        private final Modulus m;
+        private final int[] x;
+        private final int len, n;
+        private final int[] roots;
+
+        Forward(Modulus m, int[] x, int len, int n, int[] roots) {
+            this.m = m;
+            this.x = x;
+            this.len = len;
+            this.n = n;
+            this.roots = roots;
+        }
+
+        @Override
+        protected int[] compute() {
+            int[] a = digits(x, len, n);
+            m.transform(a, roots, false, true);
+            return a;
+        }
+    }
+
+    /**
+     * Arithmetic modulo a prime p < 2^31, with R = 2^32 as Montgomery
+     * radix.  Elements are ints in [0, p).
+     */
+    private static final class Modulus {
+        final int p;
+        final int g;        // a primitive root modulo p
+        final int pinv;     // -1/p modulo 2^32
+        final int r2;       // R^2 modulo p
+
+        Modulus(int p, int g) {
+            this.p = p;
+            this.g = g;
+            int inv = p;    // Newton's iteration, correct to 3 bits
+            for (int i = 0; i < 4; i++)
+                inv *= 2 - p * inv;
+            pinv = -inv;
+            long r = (1L << 32) % p;
+            r2 = (int) (r * r % p);
+        }
+
+        /** Returns a * b / R modulo p. */
+        int mul(int a, int b) {
+            return mul(a, b, b * pinv);
+        }
+
+        /**
+         * Returns a * b / R modulo p, given bp = b * pinv, which a loop
+         * multiplying by the same b computes once.
+         */
+        int mul(int a, int b, int bp) {
+            long t = (long) a * b + ((a * bp) & 0xFFFFFFFFL) * p;
+            int u = (int) (t >>> 32) - p;
+            return u + (u >> 31 & p);
+        }
+
+        int add(int a, int b) {
+            int s = a + b - p;
+            return s + (s >> 31 & p);
+        }
+
+        int sub(int a, int b) {
+            int d = a - b;
+            return d + (d >> 31 & p);
+        }
+
+        int toMontgomery(int a) {
+            return mul(a, r2);
+        }
+
+        /** Returns b^e modulo p, without Montgomery form. */
+        int pow(long b, long e) {
+            long r = 1;
+            b %= p;
+            for (; e > 0; e >>= 1) {
+                if ((e & 1) != 0)
+                    r = r * b % p;
+                b = b * b % p;
+            }
+            return (int) r;
+        }
+
+        /**
+         * Returns the powers w^j of a primitive n-th root of unity w, or of
+         * its inverse, for j < n/2 in bit-reversed order, in Montgomery
+         * form.  Element k is the twiddle factor of the k-th block of
+         * every level of the transforms.
+         */
+        int[] roots(int n, boolean inverse) {
+            int w = pow(g, (p - 1) / n);
+            if (inverse)
+                w = pow(w, p - 2);
+            // Element 2^i + j is w^(n/2^(i+2)) times element j
+            int[] roots = new int[n / 2];
+            roots[0] = toMontgomery(1);
+            for (int m = 1; m < roots.length; m <<= 1) {
+                int wm = toMontgomery(pow(w, n / (4 * m)));
+                for (int j = 0; j < m; j++)
+                    roots[m + j] = mul(roots[j], wm);
+            }
+            return roots;
+        }
+
+        /**
+         * Returns the cyclic convolution of the digits of x and y, of
+         * length n, modulo p.
+         */
+        int[] convolve(int[] x, int xlen, int[] y, int ylen, int n,
+                       boolean square, boolean parallel) {
+            int[] roots = roots(n, false);
+            int[] a, b;
+            if (square) {
+                a = b = digits(x, xlen, n);
+                transform(a, roots, false, parallel);
+            } else if (parallel) {
+                Forward fy = new Forward(this, y, ylen, n, roots);
+                fy.fork();
+                a = digits(x, xlen, n);
+                transform(a, roots, false, true);
+                b = fy.join();
+            } else {
+                a = digits(x, xlen, n);
+                transform(a, roots, false, false);
+                b = digits(y, ylen, n);
+                transform(b, roots, false, false);
+            }
+            // Pointwise products carry a factor 1/R, and the inverse
+            // transform a factor n, which are taken out here as well
+            int scale = toMontgomery(toMontgomery(pow(n, p - 2)));
+            for (int i = 0; i < n; i++)
+                a[i] = mul(mul(a[i], b[i]), scale);
+            transform(a, roots(n, true), true, parallel);
+            return a;
+        }
+
+        void transform(int[] a, int[] roots, boolean inverse, boolean parallel) {
+            int half = a.length >> 1;
+            if (parallel && half >= PARALLEL_BLOCK)
+                new Transform(this, a, 0, half, 0, roots, inverse).invoke();
+            else if (inverse)
+                inverse(a, 0, half, 0, roots);
+            else
+                forward(a, 0, half, 0, roots);
+        }
+
+        /**
+         * Transforms the block a[off, off + 2 * half) in place, the k-th
+         * block of its level, and then the blocks it splits into.  The
+         * result is in bit-reversed order.  Blocks too large for the caches
+         * are split depth first.
+         */
+        void forward(int[] a, int off, int half, int k, int[] roots) {
+            if (half > CACHE_BLOCK) {
+                forwardButterflies(a, off, half, roots[k]);
+                forward(a, off, half >> 1, 2 * k, roots);
+                forward(a, off + half, half >> 1, 2 * k + 1, roots);
+                return;
+            }
+            for (int blocks = 1; half >= 1; half >>= 1, blocks <<= 1) {
+                for (int b = 0, i = off; b < blocks; b++, i += 2 * half)
+                    forwardButterflies(a, i, half, roots[k * blocks + b]);
+            }
+        }
+
+        /**
+         * Splits a[off, off + 2 * half), the residue of a polynomial modulo
+         * x^(2 * half) - w^2, into its residues modulo x^half - w and
+         * x^half + w.
+         */
+        void forwardButterflies(int[] a, int off, int half, int w) {
+            int wp = w * pinv;
+            for (int i = off, end = off + half; i < end; i++) {
+                int u = a[i];
+                int v = mul(a[i + half], w, wp);
+                a[i] = add(u, v);
+                a[i + half] = sub(u, v);
+            }
+        }
+
+        /**
+         * Transforms the block a[off, off + 2 * half) in place from
+         * bit-reversed order, undoing {@link #forward}, with the inverse
+         * twiddle factors.  The result is 2 * half times the inverse
+         * transform.
+         */
+        void inverse(int[] a, int off, int half, int k, int[] roots) {
+            if (half > CACHE_BLOCK) {
+                inverse(a, off, half >> 1, 2 * k, roots);
+                inverse(a, off + half, half >> 1, 2 * k + 1, roots);
+                inverseButterflies(a, off, half, roots[k]);
+                return;
+            }
+            int blocks = 1;
+            for (int h = half; h > 1; h >>= 1)
+                blocks <<= 1;
+            for (int h = 1; h <= half; h <<= 1, blocks >>= 1) {
+                for (int b = 0, i = off; b < blocks; b++, i += 2 * h)
+                    inverseButterflies(a, i, h, roots[k * blocks + b]);
+            }
+        }
+
+        void inverseButterflies(int[] a, int off, int half, int w) {
+            int wp = w * pinv;
+            for (int i = off, end = off + half; i < end; i++) {
+                int u = a[i];
+                int v = a[i + half];
+                a[i] = add(u, v);
+                a[i + half] = mul(sub(u, v), w, wp);
+            }
+        }
+    }
+}
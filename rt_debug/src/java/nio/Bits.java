@@ -663,6 +663,12 @@ class Bits {                            // package-private
             }
         }
 
+        // free memory held idle by direct buffer pools, which is cheaper
+        // than a full collection and often enough
+        if (DirectBufferPool.trimAll() > 0 && tryReserveMemory(size, cap)) {
+            return;
+        }
+
         // trigger VM's Reference processing
         System.gc();
 
@@ -0,0 +1,457 @@
+package java.nio;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.ObjectName;
+import sun.misc.Cleaner;
+import sun.misc.VM;
+
+/**
+ * A pool of direct byte buffers that are returned to the pool explicitly
+ * instead of being reclaimed by the garbage collector.
+ *
+ * <p> Direct buffers allocated with {@link ByteBuffer#allocateDirect} free
+ * their memory only once the buffer has been found unreachable by the
+ * garbage collector.  When an application allocates direct buffers faster
+ * than they are collected, reaching the maximum direct memory size forces
+ * an explicit full collection.  A pool avoids this for buffers whose
+ * lifetime is known to the application, such as network I/O buffers:
+ * {@link #allocate} hands out a buffer and {@link #release} makes its
+ * memory available to the next allocation of a similar size.
+ *
+ * <p> Capacities are rounded up to a power of two, from {@value #MIN_SIZE}
+ * bytes up to the pool's {@linkplain #getMaxBufferSize maximum buffer size}.
+ * Each thread keeps a small number of released buffers of each size up to
+ * 64 KB for itself, so that a thread that repeatedly allocates and releases
+ * buffers does not contend with other threads.  Further released buffers are kept
+ * on shared lists, up to the pool's idle memory limit, and any excess is
+ * freed immediately.  Buffers larger than the maximum buffer size are not
+ * pooled, but are still freed as soon as they are released.
+ *
+ * <p> When direct memory runs short, idle memory held on the shared lists
+ * of all pools is freed before a garbage collection is attempted.
+ *
+ * <p> The buffers returned by {@link #allocate} have exactly the requested
+ * capacity.  Unlike buffers returned by {@code allocateDirect}, their
+ * content is not initialized.  A buffer must be released at most once, and
+ * must not be used after it has been released, nor may any buffer derived
+ * from it, since its memory may then be in use by another buffer.
+ *
+ * <p> This class is safe for use by multiple concurrent threads.
+ *
+ * @see DirectBufferPoolMXBean
+ * @since 1.8
+ */
+public final class DirectBufferPool implements DirectBufferPoolMXBean {
+
+    /**
+     * The capacity of the smallest size class.
+     */
+    public static final int MIN_SIZE = 512;
+
+    private static final int MIN_SHIFT = 9;
+
+    /**
+     * The largest maximum buffer size, which is also the largest power of
+     * two capacity.
+     */
+    private static final int MAX_POOLED_SIZE = 1 << 30;
+
+    /**
+     * The number of released buffers of each size class that a thread keeps
+     * for itself.
+     */
+    private static final int THREAD_CACHE_SIZE = 4;
+
+    /**
+     * The capacity of the largest buffers that threads cache for themselves.
+     */
+    private static final int THREAD_CACHE_MAX_SIZE = 64 * 1024;
+
+    // All pools, so that idle memory can be freed when direct memory runs
+    // short.  Weak so that an unused pool can be collected.
+    private static final Set<DirectBufferPool> pools =
+        Collections.newSetFromMap(new WeakHashMap<DirectBufferPool,Boolean>());
+
+    private static volatile DirectBufferPool defaultPool;
+
+    private final String name;
+    private final int maxBufferSize;
+    private final long maxIdleBytes;
+
+    // Released buffers per size class, shared by all threads
+    private final ConcurrentLinkedQueue<Slab>[] shared;
+
+    private final ThreadLocal<ThreadCache> threadCache =
+        new ThreadLocal<ThreadCache>() {
+            @Override
+            protected ThreadCache initialValue() {
+                return new ThreadCache(Math.min(shared.length,
+                    sizeClass(THREAD_CACHE_MAX_SIZE) + 1));
+            }
+        };
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder releases = new LongAdder();
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final AtomicLong idleBytes = new AtomicLong();
+
+    /**
+     * Creates a new pool.
+     *
+     * @param  name
+     *         The name of the pool
+     *
+     * @param  maxBufferSize
+     *         The capacity of the largest buffer that the pool recycles;
+     *         it is rounded up to a power of two
+     *
+     * @param  maxIdleBytes
+     *         The maximum amount of released memory that the pool holds
+     *         on its shared lists
+     *
+     * @throws  IllegalArgumentException
+     *          If <tt>maxBufferSize</tt> is less than {@value #MIN_SIZE} or
+     *          greater than <tt>2<sup>30</sup></tt>, or if
+     *          <tt>maxIdleBytes</tt> is negative
+     *
+     * @throws  NullPointerException
+     *          If <tt>name</tt> is <tt>null</tt>
+     */
+    @SuppressWarnings("unchecked")
+    public DirectBufferPool(String name, int maxBufferSize, long maxIdleBytes) {
+        if (name == null)
+            throw new NullPointerException("name");
+        if (maxBufferSize < MIN_SIZE || maxBufferSize > MAX_POOLED_SIZE)
+            throw new IllegalArgumentException("maxBufferSize: " + maxBufferSize);
+        if (maxIdleBytes < 0)
+            throw new IllegalArgumentException("maxIdleBytes: " + maxIdleBytes);
+        this.name = name;
+        this.maxBufferSize = sizeOf(sizeClass(maxBufferSize));
+        this.maxIdleBytes = maxIdleBytes;
+        this.shared = new ConcurrentLinkedQueue[sizeClass(maxBufferSize) + 1];
+        for (int i = 0; i < shared.length; i++)
+            shared[i] = new ConcurrentLinkedQueue<Slab>();
+        synchronized (pools) {
+            pools.add(this);
+        }
+    }
+
+    /**
+     * Returns the default pool, named {@code "default"}, which recycles
+     * buffers of up to 1 MB and holds up to a quarter of the maximum direct
+     * memory size for reuse.
+     *
+     * @return  The default pool
+     */
+    public static DirectBufferPool getDefault() {
+        DirectBufferPool p = defaultPool;
+        if (p == null) {
+            synchronized (DirectBufferPool.class) {
+                if ((p = defaultPool) == null)
+                    defaultPool = p = new DirectBufferPool(
+                        "default", 1 << 20, VM.maxDirectMemory() / 4);
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Allocates a direct byte buffer from this pool.
+     *
+     * <p> The new buffer's position will be zero, its limit will be its
+     * capacity, its mark will be undefined, and its byte order will be
+     * {@link ByteOrder#BIG_ENDIAN BIG_ENDIAN}.  Its content is unspecified.
+     *
+     * @param  capacity
+     *         The new buffer's capacity, in bytes
+     *
+     * @return  The new byte buffer
+     *
+     * @throws  IllegalArgumentException
+     *          If the <tt>capacity</tt> is a negative integer
+     *
+     * @throws  OutOfMemoryError
+     *          If no direct memory could be reserved for the buffer
+     */
+    public ByteBuffer allocate(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("capacity: " + capacity);
+        Slab slab;
+        if (capacity > maxBufferSize) {
+            misses.increment();
+            slab = newSlab(capacity, -1);
+        } else {
+            int sc = sizeClass(capacity);
+            slab = threadCache.get().poll(sc);
+            if (slab == null && (slab = shared[sc].poll()) != null)
+                idleBytes.addAndGet(-slab.size);
+            if (slab != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+                slab = newSlab(sizeOf(sc), sc);
+            }
+        }
+        return new DirectByteBuffer(slab.buffer.address, capacity,
+                                    new Lease(slab));
+    }
+
+    /**
+     * Returns a buffer to this pool.  The buffer must have been returned by
+     * {@link #allocate} on this pool, and must not be used again.
+     *
+     * @param  buffer
+     *         The buffer to release
+     *
+     * @throws  IllegalArgumentException
+     *          If the buffer was not allocated by this pool
+     *
+     * @throws  IllegalStateException
+     *          If the buffer has already been released
+     */
+    public void release(ByteBuffer buffer) {
+        Object att = buffer.isDirect() ?
+            ((sun.nio.ch.DirectBuffer)buffer).attachment() : null;
+        if (!(att instanceof Lease) || ((Lease)att).slab.pool != this)
+            throw new IllegalArgumentException("Buffer not allocated by this pool");
+        Lease lease = (Lease)att;
+        if (!RELEASED.compareAndSet(lease, 0, 1))
+            throw new IllegalStateException("Buffer already released");
+        Slab slab = lease.slab;
+        releases.increment();
+        int sc = slab.sizeClass;
+        if (sc >= 0) {
+            if (threadCache.get().offer(sc, slab))
+                return;
+            if (reserveIdle(slab.size)) {
+                shared[sc].offer(slab);
+                return;
+            }
+        }
+        free(slab);
+    }
+
+    /**
+     * Frees the memory held for reuse on this pool's shared lists.  Memory
+     * cached by individual threads is not affected.
+     *
+     * @return  The number of bytes freed
+     */
+    public long trim() {
+        long freed = 0;
+        for (ConcurrentLinkedQueue<Slab> q : shared) {
+            Slab slab;
+            while ((slab = q.poll()) != null) {
+                idleBytes.addAndGet(-slab.size);
+                free(slab);
+                freed += slab.size;
+            }
+        }
+        return freed;
+    }
+
+    /**
+     * Frees the idle memory of all pools.  Invoked when a direct memory
+     * reservation fails.
+     *
+     * @return  The number of bytes freed
+     */
+    static long trimAll() {
+        DirectBufferPool[] ps;
+        synchronized (pools) {
+            ps = pools.toArray(new DirectBufferPool[0]);
+        }
+        long freed = 0;
+        for (DirectBufferPool p : ps)
+            freed += p.trim();
+        return freed;
+    }
+
+    // -- DirectBufferPoolMXBean --
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getMaxBufferSize() {
+        return maxBufferSize;
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getReleaseCount() {
+        return releases.sum();
+    }
+
+    @Override
+    public long getReservedBytes() {
+        return reservedBytes.get();
+    }
+
+    @Override
+    public long getIdleBytes() {
+        return idleBytes.get();
+    }
+
+    @Override
+    public ObjectName getObjectName() {
+        try {
+            return new ObjectName("java.nio:type=DirectBufferPool,name=" + name);
+        } catch (javax.management.MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getName() + "[name=" + name
+            + ", reserved=" + reservedBytes.get()
+            + ", idle=" + idleBytes.get()
+            + ", hits=" + hits.sum()
+            + ", misses=" + misses.sum() + "]";
+    }
+
+    // -- Internals --
+
+    private static int sizeClass(int capacity) {
+        if (capacity <= MIN_SIZE)
+            return 0;
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - MIN_SHIFT;
+    }
+
+    private static int sizeOf(int sizeClass) {
+        return MIN_SIZE << sizeClass;
+    }
+
+    private boolean reserveIdle(int size) {
+        long idle;
+        do {
+            idle = idleBytes.get();
+            if (idle + size > maxIdleBytes)
+                return false;
+        } while (!idleBytes.compareAndSet(idle, idle + size));
+        return true;
+    }
+
+    private Slab newSlab(int size, int sizeClass) {
+        Slab slab = new Slab(this, new DirectByteBuffer(size), sizeClass);
+        reservedBytes.addAndGet(size);
+        return slab;
+    }
+
+    private static void free(Slab slab) {
+        slab.buffer.cleaner().clean();
+        slab.cleaner.clean();
+    }
+
+    /**
+     * A single allocation of a slab.  The buffers handed out by the pool are
+     * views of the slab's buffer with a lease attached, which keeps the
+     * memory alive while they are reachable, lets release find the slab,
+     * and detects a second release of the same buffer.
+     */
+    private static final class Lease {
+        final Slab slab;
+        volatile int released;
+
+        Lease(Slab slab) {
+            this.slab = slab;
+        }
+    }
+
+    private static final AtomicIntegerFieldUpdater<Lease> RELEASED =
+        AtomicIntegerFieldUpdater.newUpdater(Lease.class, "released");
+
+    /**
+     * A block of direct memory owned by a pool, reused by successive
+     * allocations of its size class.
+     */
+    private static final class Slab {
+        final DirectBufferPool pool;
+        final DirectByteBuffer buffer;
+        final int sizeClass;            // -1 if not pooled
+        final int size;
+        // Accounts for slabs that are dropped without being released, for
+        // example when a thread with cached slabs terminates.  The memory
+        // itself is then freed by the buffer's own cleaner.
+        final Cleaner cleaner;
+
+        Slab(DirectBufferPool pool, DirectByteBuffer buffer, int sizeClass) {
+            this.pool = pool;
+            this.buffer = buffer;
+            this.sizeClass = sizeClass;
+            this.size = buffer.capacity();
+            this.cleaner = Cleaner.create(this,
+                new Unreserve(pool.reservedBytes, size));
+        }
+    }
+
+    private static final class Unreserve implements Runnable {
+        private final AtomicLong reservedBytes;
+        private final int size;
+
+        Unreserve(AtomicLong reservedBytes, int size) {
+            this.reservedBytes = reservedBytes;
+            this.size = size;
+        }
+
+        public void run() {
+            reservedBytes.addAndGet(-size);
+        }
+    }
+
+    /**
+     * Released slabs kept by a single thread, as a small stack per size
+     * class.
+     */
+    private static final class ThreadCache {
+        private final Slab[][] slabs;
+        private final int[] counts;
+
+        ThreadCache(int sizeClasses) {
+            slabs = new Slab[sizeClasses][THREAD_CACHE_SIZE];
+            counts = new int[sizeClasses];
+        }
+
+        Slab poll(int sc) {
+            if (sc >= counts.length)
+                return null;
+            int n = counts[sc];
+            if (n == 0)
+                return null;
+            Slab slab = slabs[sc][--n];
+            slabs[sc][n] = null;
+            counts[sc] = n;
+            return slab;
+        }
+
+        boolean offer(int sc, Slab slab) {
+            if (sc >= counts.length)
+                return false;
+            int n = counts[sc];
+            if (n == THREAD_CACHE_SIZE)
+                return false;
+            slabs[sc][n] = slab;
+            counts[sc] = n + 1;
+            return true;
+        }
+    }
+}
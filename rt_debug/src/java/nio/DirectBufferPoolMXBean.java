@@ -0,0 +1,77 @@
+package java.nio;
+
+import java.lang.management.PlatformManagedObject;
+
+/**
+ * The management interface for a {@link DirectBufferPool}.
+ *
+ * <p> A class implementing this interface is an
+ * {@link javax.management.MXBean}.  Pools are not registered automatically;
+ * an application that wants to monitor a pool registers it with an {@link
+ * javax.management.MBeanServer MBeanServer} under the {@link
+ * javax.management.ObjectName ObjectName} returned by {@link
+ * #getObjectName}, which takes the form:
+ * <pre>
+ *     java.nio:type=DirectBufferPool,name=<i>pool name</i>
+ * </pre>
+ * where <em>pool name</em> is the {@link #getName name} of the pool.
+ *
+ * @since   1.8
+ */
+public interface DirectBufferPoolMXBean extends PlatformManagedObject {
+
+    /**
+     * Returns the name of this pool.
+     *
+     * @return  The name of this pool
+     */
+    String getName();
+
+    /**
+     * Returns the capacity of the largest buffer that this pool recycles.
+     * Larger buffers are allocated and freed individually.
+     *
+     * @return  The largest pooled buffer capacity, in bytes
+     */
+    int getMaxBufferSize();
+
+    /**
+     * Returns the number of allocations that were satisfied by reusing a
+     * previously released buffer.
+     *
+     * @return  The number of pool hits
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of allocations that had to reserve new direct
+     * memory.
+     *
+     * @return  The number of pool misses
+     */
+    long getMissCount();
+
+    /**
+     * Returns the number of buffers that have been released to this pool.
+     *
+     * @return  The number of released buffers
+     */
+    long getReleaseCount();
+
+    /**
+     * Returns the amount of direct memory currently reserved by this pool,
+     * whether it backs buffers in use or buffers held for reuse.
+     *
+     * @return  The reserved memory, in bytes
+     */
+    long getReservedBytes();
+
+    /**
+     * Returns the amount of reserved memory that is held for reuse in the
+     * pool's shared free lists.  Memory cached by individual threads is not
+     * included.
+     *
+     * @return  The idle memory, in bytes
+     */
+    long getIdleBytes();
+}
@@ -0,0 +1,384 @@
+package java.nio.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import sun.misc.Cleaner;
+import sun.nio.ch.DirectBuffer;
+
+/**
+ * A spliterator over the lines of a range of a file, read through
+ * memory-mapped regions of a {@link FileChannel}, for
+ * {@link Files#lines(Path, Charset)}.
+ *
+ * <p>The charset must be one in which the line terminators
+ * {@code '\n'} and {@code '\r'} are single bytes that never occur
+ * within the encoding of another character, so that the lines can be
+ * found by scanning for those bytes before decoding.  This holds for
+ * the {@linkplain #SUPPORTED_CHARSET_NAMES supported charsets}.
+ *
+ * <p>The range is split at the first line boundary after its middle
+ * byte, which is found with positional reads of the channel, so a
+ * parallel stream divides the file into balanced parts without reading
+ * the lines before them.  Each part maps the file lazily, in windows of
+ * up to {@code WINDOW_SIZE} bytes, once its traversal starts, and
+ * unmaps them as soon as it is done with them, or when the stream is
+ * {@linkplain #close closed}, whichever comes first.  Lines are found by
+ * scanning eight bytes at a time, and each line is copied out of the
+ * mapping once and decoded straight into a {@code String}; lines of
+ * ASCII characters, and all lines in ISO-8859-1, bypass the charset
+ * decoder.
+ */
+final class FileChannelLinesSpliterator implements Spliterator<String> {
+
+    /** The names of the charsets for which this spliterator may be used */
+    static final Set<String> SUPPORTED_CHARSET_NAMES;
+    static {
+        Set<String> names = new HashSet<>(3);
+        names.add(StandardCharsets.UTF_8.name());
+        names.add(StandardCharsets.ISO_8859_1.name());
+        names.add(StandardCharsets.US_ASCII.name());
+        SUPPORTED_CHARSET_NAMES = Collections.unmodifiableSet(names);
+    }
+
+    /** The size of the regions mapped by traversals, unless lines are longer */
+    static final int WINDOW_SIZE = 1 << 28;
+
+    /** The size of the reads scanning for a line boundary when splitting */
+    static final int SCAN_SIZE = 8192;
+
+    // Masks for scanning eight bytes at a time
+    private static final long LOW_BITS  = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LFS = LOW_BITS * '\n';
+    private static final long CRS = LOW_BITS * '\r';
+
+    private final FileChannel fc;
+    private final Charset cs;
+    private final boolean latin1;
+
+    // The remaining range of the file, [index, fence).  Both ends are
+    // at line boundaries, except that index may be just after a '\r'
+    // when skipLF is set.
+    private long index;
+    private long fence;
+    private boolean skipLF;
+
+    // The parts of the stream that may still have a window mapped,
+    // shared by the spliterator of the stream and all parts split from it
+    private final Set<FileChannelLinesSpliterator> parts;
+
+    // The current mapped window, covering [windowStart, windowEnd).
+    // Guarded by this, along with closed, so that the window cannot be
+    // unmapped by close while a line is being read from it.
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long windowEnd;
+    private boolean closed;
+
+    // Buffers for decoding, created on demand
+    private byte[] bytes;
+    private CharBuffer chars;
+    private CharsetDecoder decoder;
+
+    FileChannelLinesSpliterator(FileChannel fc, Charset cs,
+                                long index, long fence) {
+        this(fc, cs, index, fence, ConcurrentHashMap.newKeySet());
+    }
+
+    private FileChannelLinesSpliterator(FileChannel fc, Charset cs,
+                                        long index, long fence,
+                                        Set<FileChannelLinesSpliterator> parts) {
+        this.fc = fc;
+        this.cs = cs;
+        this.latin1 = cs.equals(StandardCharsets.ISO_8859_1);
+        this.index = index;
+        this.fence = fence;
+        this.parts = parts;
+        parts.add(this);
+    }
+
+    /**
+     * Unmaps the windows of this spliterator and of all parts split from
+     * it, waiting for any line being read from them.  Lines can no longer
+     * be read once this method is called.  Invoked when the stream is
+     * closed, before the channel is.
+     */
+    void close() {
+        for (FileChannelLinesSpliterator part : parts) {
+            synchronized (part) {
+                part.closed = true;
+                part.unmap();
+            }
+        }
+        parts.clear();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        if (action == null)
+            throw new NullPointerException();
+        String line = readLine();
+        if (line == null) {
+            release();
+            return false;
+        }
+        action.accept(line);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super String> action) {
+        if (action == null)
+            throw new NullPointerException();
+        try {
+            String line;
+            while ((line = readLine()) != null)
+                action.accept(line);
+        } finally {
+            release();
+        }
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+        // Only split before traversal has started
+        if (window != null || skipLF)
+            return null;
+        long lo = index, hi = fence;
+        long mid = (lo + hi) >>> 1;
+        if (mid <= lo)
+            return null;
+        long split;
+        try {
+            split = lineBoundaryAfter(mid, hi);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (split < 0L || split >= hi)
+            return null;
+        index = split;
+        return new FileChannelLinesSpliterator(fc, cs, lo, split, parts);
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL;
+    }
+
+    /**
+     * Returns the position just after the first line terminator at or
+     * after position p, or -1 if there is none before hi.
+     */
+    private long lineBoundaryAfter(long p, long hi) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(SCAN_SIZE);
+        boolean afterCR = false;
+        while (p < hi) {
+            b.clear();
+            if (hi - p < SCAN_SIZE)
+                b.limit((int) (hi - p));
+            int n = fc.read(b, p);
+            if (n <= 0)
+                return -1L;
+            for (int i = 0; i < n; ++i) {
+                byte c = b.get(i);
+                if (afterCR)
+                    return p + i + ((c == '\n') ? 1 : 0);
+                if (c == '\n')
+                    return p + i + 1;
+                afterCR = (c == '\r');
+            }
+            p += n;
+        }
+        // A '\r' just before hi ends a line, since hi is a line boundary
+        return afterCR ? hi : -1L;
+    }
+
+    /**
+     * Returns the next line, or null at the end of the range.
+     */
+    private synchronized String readLine() {
+        long p = index;
+        if (skipLF) {
+            skipLF = false;
+            if (p < fence && byteAt(p) == '\n')
+                index = ++p;
+        }
+        if (p >= fence)
+            return null;
+        if (window == null || p >= windowEnd)
+            map(p, WINDOW_SIZE);
+
+        // Scan for the end of the line eight bytes at a time, noting
+        // whether all bytes are ASCII
+        long bits = 0L;
+        long q = p;
+        for (;;) {
+            MappedByteBuffer w = window;
+            int i = (int) (q - windowStart);
+            int end = (int) (windowEnd - windowStart);
+            for (; i <= end - 8; i += 8) {
+                long x = w.getLong(i);
+                long t = zeroBytes(x ^ LFS) | zeroBytes(x ^ CRS);
+                if (t != 0L) {
+                    // The lowest flagged byte is the first terminator
+                    int k = Long.numberOfTrailingZeros(t) & ~7;
+                    bits |= x & ((1L << k) - 1L);
+                    i += k >>> 3;
+                    break;
+                }
+                bits |= x;
+            }
+            for (; i < end; ++i) {
+                byte c = w.get(i);
+                if (c == '\n' || c == '\r')
+                    break;
+                bits |= c;
+            }
+            q = windowStart + i;
+            if (i < end || windowEnd >= fence)
+                break;
+            // The line continues past the window; map it from its start
+            long length = q - p;
+            if (length >= Integer.MAX_VALUE)
+                throw new OutOfMemoryError("Required array size too large");
+            map(p, Math.min(Math.max(WINDOW_SIZE, length << 1),
+                            Integer.MAX_VALUE));
+        }
+
+        String line = decode(p, (int) (q - p),
+                             (bits & HIGH_BITS) == 0L);
+        if (q < fence) {
+            byte c = window.get((int) (q - windowStart));
+            ++q;                        // the terminator
+            if (c == '\r') {
+                if (q < windowEnd) {
+                    if (window.get((int) (q - windowStart)) == '\n')
+                        ++q;
+                } else {
+                    skipLF = true;
+                }
+            }
+        }
+        index = q;
+        return line;
+    }
+
+    /**
+     * Decodes the line of the given length starting at position p,
+     * which is in the current window.
+     */
+    @SuppressWarnings("deprecation")
+    private String decode(long p, int length, boolean ascii) {
+        byte[] b = bytes;
+        if (b == null || b.length < length)
+            bytes = b = new byte[Math.max(length, (b == null) ? 128
+                                          : Math.min(b.length << 1,
+                                                     Integer.MAX_VALUE - 8))];
+        MappedByteBuffer w = window;
+        w.position((int) (p - windowStart));
+        w.get(b, 0, length);
+        // Both charsets map each byte to the char of the same value
+        if (ascii || latin1)
+            return new String(b, 0, 0, length);
+        // The supported charsets decode to at most one char per byte
+        CharsetDecoder d = decoder;
+        if (d == null)
+            decoder = d = cs.newDecoder();
+        CharBuffer cb = chars;
+        if (cb == null || cb.capacity() < length)
+            chars = cb = CharBuffer.allocate(b.length);
+        cb.clear();
+        d.reset();
+        try {
+            CoderResult cr = d.decode(ByteBuffer.wrap(b, 0, length), cb, true);
+            if (cr.isUnderflow())
+                cr = d.flush(cb);
+            if (!cr.isUnderflow())
+                cr.throwException();
+        } catch (CharacterCodingException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new String(cb.array(), 0, cb.position());
+    }
+
+    /**
+     * Returns a word in which the high bit of each byte is set if the
+     * byte of x is zero, and the lowest set bit is exact.
+     */
+    private static long zeroBytes(long x) {
+        return (x - LOW_BITS) & ~x & HIGH_BITS;
+    }
+
+    /**
+     * Returns the byte at position p, which may be outside the window.
+     */
+    private byte byteAt(long p) {
+        if (window == null || p < windowStart || p >= windowEnd)
+            map(p, WINDOW_SIZE);
+        return window.get((int) (p - windowStart));
+    }
+
+    /**
+     * Replaces the window by a mapping of up to size bytes of the
+     * range, starting at position p.
+     */
+    private void map(long p, long size) {
+        if (closed)
+            throw new UncheckedIOException(new ClosedChannelException());
+        unmap();
+        long end = p + Math.min(size, fence - p);
+        try {
+            window = fc.map(FileChannel.MapMode.READ_ONLY, p, end - p);
+            window.order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        windowStart = p;
+        windowEnd = end;
+    }
+
+    /**
+     * Unmaps the window at the end of the traversal, after which the
+     * stream no longer needs to unmap it when closed.
+     */
+    private synchronized void release() {
+        unmap();
+        parts.remove(this);
+    }
+
+    /**
+     * Unmaps the window now, rather than when it is garbage collected.
+     * Strings are copied out of the window, so nothing refers to it.
+     */
+    private void unmap() {
+        MappedByteBuffer w = window;
+        if (w != null) {
+            window = null;
+            Cleaner cl = ((DirectBuffer) w).cleaner();
+            if (cl != null)
+                cl.clean();
+        }
+    }
+}
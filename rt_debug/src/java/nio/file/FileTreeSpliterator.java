@@ -0,0 +1,397 @@
+package java.nio.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileTreeWalker.Event;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A {@code Spliterator} over the nodes of a file tree, for
+ * {@link Files#walk(Path, int, FileVisitOption...)} and
+ * {@link Files#find Files.find}.
+ *
+ * <p>A spliterator that is never split visits the nodes in the same
+ * depth-first order as {@link FileTreeWalker}, and reports the same
+ * errors.  The entries of each directory are read in batches of up to
+ * {@code BATCH_SIZE}, together with their attributes, and the
+ * subdirectories among them are opened when the traversal reaches
+ * them, so a traversal has at most one directory open per level.
+ *
+ * <p>Splitting hands off half of the entries read but not yet visited
+ * from the shallowest directory that has at least two, reading a batch
+ * first if needed, and half of the subdirectories among them, so a
+ * parallel stream fans the tree
+ * out to fork/join tasks from the top down, each walking its subtrees
+ * depth-first.  At most {@code MAX_IN_FLIGHT} spliterators of a walk
+ * may be traversing at once, which bounds the number of open
+ * directories, and the number of tasks the tree is divided into.
+ *
+ * <pre>{@code
+ *     try (FileTreeSpliterator spliterator = new FileTreeSpliterator(start, maxDepth, options)) {
+ *         StreamSupport.stream(spliterator, true)
+ *                      .forEach(ev -> process(ev.file(), ev.attributes()));
+ *     }
+ * }</pre>
+ */
+final class FileTreeSpliterator implements Spliterator<Event>, Closeable {
+
+    /** The number of entries of a directory read at a time */
+    static final int BATCH_SIZE = 128;
+
+    /** The maximum number of spliterators of a walk traversing at once */
+    static final int MAX_IN_FLIGHT =
+        Math.max(ForkJoinPool.getCommonPoolParallelism() << 3, 8);
+
+    /**
+     * A directory being walked, with its ancestors for loop detection.
+     */
+    private static final class Directory {
+        final Path path;
+        final Object key;
+        final int depth;        // 0 for the starting directory
+        final Directory parent;
+        Directory(Path path, Object key, int depth, Directory parent) {
+            this.path = path;
+            this.key = key;
+            this.depth = depth;
+            this.parent = parent;
+        }
+    }
+
+    /**
+     * The entries of a directory that a spliterator has yet to visit:
+     * those read but not yet visited, and those still to be read from
+     * the directory stream, if it is open.
+     */
+    private static final class Level {
+        final Directory dir;
+        final ArrayDeque<Event> events = new ArrayDeque<>();
+        DirectoryStream<Path> stream;
+        Iterator<Path> iterator;
+        Level(Directory dir, DirectoryStream<Path> stream) {
+            this.dir = dir;
+            this.stream = stream;
+            this.iterator = (stream == null) ? null : stream.iterator();
+        }
+    }
+
+    /**
+     * The state shared by the spliterators of a walk.
+     */
+    private static final class Walk {
+        final FileTreeWalker walker;    // for the options and attributes
+        final AtomicInteger inFlight = new AtomicInteger(1);
+        final Set<FileTreeSpliterator> traversing =
+            ConcurrentHashMap.newKeySet();
+        volatile boolean closed;
+        Walk(FileTreeWalker walker) {
+            this.walker = walker;
+        }
+        boolean tryAcquire() {
+            for (int n; (n = inFlight.get()) < MAX_IN_FLIGHT; ) {
+                if (inFlight.compareAndSet(n, n + 1))
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    private final Walk walk;
+    // Guarded by this, as the walk may be closed by another thread while
+    // this spliterator is traversing.  The action is never called while
+    // holding the lock.
+    private final ArrayDeque<Level> stack = new ArrayDeque<>();
+    private Event first;            // the starting file, until visited
+    private boolean done;
+
+    /**
+     * Creates a new spliterator to walk the file tree starting at the
+     * given file.
+     *
+     * @throws  IllegalArgumentException
+     *          if {@code maxDepth} is negative
+     * @throws  IOException
+     *          if an I/O errors occurs opening the starting file
+     * @throws  SecurityException
+     *          if the security manager denies access to the starting file
+     * @throws  NullPointerException
+     *          if {@code start} or {@code options} is {@code null} or
+     *          the options array contains a {@code null} element
+     */
+    FileTreeSpliterator(Path start, int maxDepth, FileVisitOption... options)
+        throws IOException
+    {
+        FileTreeWalker walker =
+            new FileTreeWalker(Arrays.asList(options), maxDepth);
+        this.walk = new Walk(walker);
+        BasicFileAttributes attrs = walker.getAttributes(start, false);
+        if (attrs.isDirectory() && maxDepth > 0) {
+            DirectoryStream<Path> stream = Files.newDirectoryStream(start);
+            stack.push(new Level(new Directory(start, attrs.fileKey(), 0, null),
+                                 stream));
+            this.first = new Event(FileTreeWalker.EventType.START_DIRECTORY,
+                                   start, attrs);
+        } else {
+            this.first = new Event(FileTreeWalker.EventType.ENTRY, start, attrs);
+        }
+        walk.traversing.add(this);
+    }
+
+    /**
+     * Creates a spliterator for the given entries split off from
+     * another one.
+     */
+    private FileTreeSpliterator(Walk walk, Level level) {
+        this.walk = walk;
+        stack.push(level);
+        walk.traversing.add(this);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Event> action) {
+        if (action == null)
+            throw new NullPointerException();
+        Event ev = next();
+        if (ev == null)
+            return false;
+        action.accept(ev);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Event> action) {
+        if (action == null)
+            throw new NullPointerException();
+        Event ev;
+        while ((ev = next()) != null)
+            action.accept(ev);
+    }
+
+    @Override
+    public synchronized Spliterator<Event> trySplit() {
+        if (done || walk.closed || !walk.tryAcquire())
+            return null;
+        boolean split = false;
+        try {
+            // The shallowest directories have the largest subtrees
+            for (Iterator<Level> it = stack.descendingIterator(); it.hasNext(); ) {
+                Level level = it.next();
+                ArrayDeque<Event> events = level.events;
+                if (events.size() < 2)
+                    read(level);
+                if (events.size() >= 2) {
+                    // Deal the directories and the other entries out
+                    // alternately, so both halves get subtrees
+                    Level half = new Level(level.dir, null);
+                    boolean giveDir = false, giveFile = false;
+                    for (Iterator<Event> i = events.iterator(); i.hasNext(); ) {
+                        Event ev = i.next();
+                        BasicFileAttributes attrs = ev.attributes();
+                        boolean give;
+                        if (attrs != null && attrs.isDirectory()) {
+                            give = giveDir;
+                            giveDir = !giveDir;
+                        } else {
+                            give = giveFile;
+                            giveFile = !giveFile;
+                        }
+                        if (give) {
+                            half.events.add(ev);
+                            i.remove();
+                        }
+                    }
+                    split = true;
+                    return new FileTreeSpliterator(walk, half);
+                }
+            }
+            return null;
+        } finally {
+            if (!split)
+                walk.inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        return done ? 0L : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.DISTINCT | Spliterator.NONNULL;
+    }
+
+    /**
+     * Closes the directories that the spliterators of this walk have
+     * open, waiting for those that are reading a directory.  Any further
+     * traversal or splitting throws, or returns {@code null},
+     * respectively.
+     */
+    @Override
+    public void close() {
+        walk.closed = true;
+        for (FileTreeSpliterator s : walk.traversing)
+            s.closeDirectories();
+    }
+
+    /**
+     * Returns the next node, or {@code null} at the end of the traversal.
+     */
+    private synchronized Event next() {
+        if (walk.closed)
+            throw new IllegalStateException();
+        Event ev = first;
+        if (ev != null) {
+            first = null;
+            return ev;
+        }
+        Level top;
+        while ((top = stack.peek()) != null) {
+            ev = top.events.poll();
+            if (ev == null) {
+                if (!read(top)) {
+                    stack.pop();
+                    closeStream(top);
+                }
+                continue;
+            }
+            IOException ioe = ev.ioeException();
+            if (ioe != null)
+                throw new UncheckedIOException(ioe);
+            BasicFileAttributes attrs = ev.attributes();
+            int depth = top.dir.depth + 1;
+            if (depth >= walk.walker.maxDepth() || !attrs.isDirectory())
+                return ev;
+            Path entry = ev.file();
+            Object key = attrs.fileKey();
+            if (walk.walker.followLinks() && wouldLoop(top.dir, entry, key))
+                throw new UncheckedIOException(
+                    new FileSystemLoopException(entry.toString()));
+            DirectoryStream<Path> stream;
+            try {
+                stream = Files.newDirectoryStream(entry);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (SecurityException se) {
+                continue;
+            }
+            stack.push(new Level(new Directory(entry, key, depth, top.dir),
+                                 stream));
+            return new Event(FileTreeWalker.EventType.START_DIRECTORY,
+                             entry, attrs);
+        }
+        if (!done) {
+            done = true;
+            walk.traversing.remove(this);
+            walk.inFlight.decrementAndGet();
+        }
+        return null;
+    }
+
+    /**
+     * Reads the next batch of entries of the directory of the given
+     * level, with their attributes, closing the stream once all have
+     * been read.  An error reading the directory is recorded as an
+     * event after the entries read before it.  Returns {@code false}
+     * if there were no more entries.
+     */
+    private boolean read(Level level) {
+        Iterator<Path> iterator = level.iterator;
+        if (iterator == null)
+            return false;
+        ArrayDeque<Event> events = level.events;
+        int n = 0;
+        try {
+            while (n < BATCH_SIZE && iterator.hasNext()) {
+                Event ev = visit(iterator.next());
+                if (ev != null) {
+                    events.add(ev);
+                    ++n;
+                }
+            }
+        } catch (DirectoryIteratorException x) {
+            events.add(new Event(FileTreeWalker.EventType.END_DIRECTORY,
+                                 level.dir.path, x.getCause()));
+            ++n;
+            level.iterator = null;
+        }
+        if (n < BATCH_SIZE) {
+            level.iterator = null;
+            closeStream(level);
+        }
+        return n > 0;
+    }
+
+    /**
+     * Returns the event for an entry of a directory, or {@code null} if
+     * it is not accessible to the security manager.
+     */
+    private Event visit(Path entry) {
+        try {
+            BasicFileAttributes attrs = walk.walker.getAttributes(entry, true);
+            return new Event(FileTreeWalker.EventType.ENTRY, entry, attrs);
+        } catch (IOException ioe) {
+            return new Event(FileTreeWalker.EventType.ENTRY, entry, ioe);
+        } catch (SecurityException se) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns true if walking into the given directory, an entry of the
+     * given parent, would result in a file system loop/cycle.
+     */
+    private static boolean wouldLoop(Directory parent, Path dir, Object key) {
+        for (Directory ancestor = parent; ancestor != null;
+             ancestor = ancestor.parent) {
+            Object ancestorKey = ancestor.key;
+            if (key != null && ancestorKey != null) {
+                if (key.equals(ancestorKey))
+                    return true;
+            } else {
+                try {
+                    if (Files.isSameFile(dir, ancestor.path))
+                        return true;
+                } catch (IOException | SecurityException x) {
+                    // ignore
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void closeStream(Level level) {
+        DirectoryStream<Path> stream = level.stream;
+        if (stream != null) {
+            level.stream = null;
+            try {
+                stream.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private synchronized void closeDirectories() {
+        for (Level level : stack) {
+            level.iterator = null;
+            DirectoryStream<Path> stream = level.stream;
+            if (stream != null) {
+                level.stream = null;
+                try {
+                    stream.close();
+                } catch (IOException ignore) { }
+            }
+        }
+    }
+}
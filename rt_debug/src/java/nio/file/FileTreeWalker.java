@@ -198,7 +198,7 @@ class FileTreeWalker implements Closeable {
      * the walk is following sym links is not. The {@code canUseCached}
      * argument determines whether this method can use cached attributes.
      */
-    private BasicFileAttributes getAttributes(Path file, boolean canUseCached)
+    BasicFileAttributes getAttributes(Path file, boolean canUseCached)
         throws IOException
     {
         // if attributes are cached then use them if possible
@@ -229,6 +229,20 @@ class FileTreeWalker implements Closeable {
         return attrs;
     }
 
+    /**
+     * Returns {@code true} if the walk follows symbolic links.
+     */
+    boolean followLinks() {
+        return followLinks;
+    }
+
+    /**
+     * Returns the maximum depth of the walk.
+     */
+    int maxDepth() {
+        return maxDepth;
+    }
+
     /**
      * Returns true if walking into the given directory would result in a
      * file system loop/cycle.
@@ -3564,6 +3564,18 @@ public final class Files {
      *          to check read access to the directory.
      * @throws  IOException
      *          if an I/O error is thrown when accessing the starting file.
+     *
+     * @implNote
+     * The stream reads the entries of each directory, with their
+     * attributes, in batches, and opens a subdirectory when the walk reaches
+     * it.  Its {@link Spliterator} splits by handing off entries of the
+     * shallowest directory that the walk has yet to visit, so a {@linkplain
+     * Stream#parallel() parallel} stream walks the subtrees of the file tree
+     * in concurrent fork/join tasks, each depth-first, in no particular order
+     * relative to each other.  The number of such tasks traversing at once,
+     * and so the number of directories they hold open, is bounded.  A
+     * sequential stream visits the files in the order described above.
+     *
      * @since   1.8
      */
     public static Stream<Path> walk(Path start,
@@ -3571,13 +3583,13 @@ public final class Files {
                                     FileVisitOption... options)
         throws IOException
     {
-        FileTreeIterator iterator = new FileTreeIterator(start, maxDepth, options);
+        FileTreeSpliterator spliterator = new FileTreeSpliterator(start, maxDepth, options);
         try {
-            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.DISTINCT), false)
-                                .onClose(iterator::close)
+            return StreamSupport.stream(spliterator, false)
+                                .onClose(spliterator::close)
                                 .map(entry -> entry.file());
         } catch (Error|RuntimeException e) {
-            iterator.close();
+            spliterator.close();
             throw e;
         }
     }
@@ -3684,14 +3696,14 @@ public final class Files {
                                     FileVisitOption... options)
         throws IOException
     {
-        FileTreeIterator iterator = new FileTreeIterator(start, maxDepth, options);
+        FileTreeSpliterator spliterator = new FileTreeSpliterator(start, maxDepth, options);
         try {
-            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.DISTINCT), false)
-                                .onClose(iterator::close)
+            return StreamSupport.stream(spliterator, false)
+                                .onClose(spliterator::close)
                                 .filter(entry -> matcher.test(entry.file(), entry.attributes()))
                                 .map(entry -> entry.file());
         } catch (Error|RuntimeException e) {
-            iterator.close();
+            spliterator.close();
             throw e;
         }
     }
@@ -3714,12 +3726,27 @@ public final class Files {
      * place. In case an {@code IOException} is thrown when closing the file,
      * it is also wrapped as an {@code UncheckedIOException}.
      *
-     * <p> The returned stream encapsulates a {@link Reader}.  If timely
-     * disposal of file system resources is required, the try-with-resources
-     * construct should be used to ensure that the stream's
-     * {@link Stream#close close} method is invoked after the stream operations
-     * are completed.
+     * <p> The returned stream encapsulates a {@link Reader} or a {@link
+     * FileChannel}.  If timely disposal of file system resources is required,
+     * the try-with-resources construct should be used to ensure that the
+     * stream's {@link Stream#close close} method is invoked after the stream
+     * operations are completed.
      *
+     * @implNote
+     * If the file is in the {@linkplain FileSystems#getDefault default} file
+     * system, has a non-zero size, and the charset is {@link
+     * StandardCharsets#UTF_8 UTF-8}, {@link StandardCharsets#ISO_8859_1
+     * ISO-8859-1} or {@link StandardCharsets#US_ASCII US-ASCII}, this
+     * implementation reads the file through memory-mapped regions of a
+     * {@code FileChannel}, and decodes each line directly from the bytes of
+     * the file.  The stream's spliterator then splits the file at the line
+     * boundaries nearest after the middle of its byte range, so that a
+     * {@linkplain Stream#parallel parallel} stream divides the file into
+     * balanced parts and processes them independently.  The size of the file
+     * is read when it is opened; lines appended later are not read, and
+     * truncating the file while the stream is in use may cause the stream to
+     * fail with an unspecified error.  Otherwise, the file is read through a
+     * {@code BufferedReader}, whose lines can only be split sequentially.
      *
      * @param   path
      *          the path to the file
@@ -3741,7 +3768,60 @@ public final class Files {
      * @since   1.8
      */
     public static Stream<String> lines(Path path, Charset cs) throws IOException {
-        BufferedReader br = Files.newBufferedReader(path, cs);
+        // Read through a mapped channel if the file system is the default
+        // one, where channels are FileChannelImpls that can be mapped, and
+        // the charset is one whose lines can be found before decoding
+        if (path.getFileSystem() == FileSystems.getDefault() &&
+            FileChannelLinesSpliterator.SUPPORTED_CHARSET_NAMES.contains(cs.name())) {
+            FileChannel fc = FileChannel.open(path, StandardOpenOption.READ);
+            return createFileChannelLinesStream(fc, cs);
+        }
+        return createBufferedReaderLinesStream(Files.newBufferedReader(path, cs));
+    }
+
+    /**
+     * Returns a stream of the lines read through the given channel.  If the
+     * channel reports a size of zero, as it does for empty files but also
+     * for files whose size is not known in advance, such as pipes, the lines
+     * are read sequentially through a reader on the same channel, so the
+     * file is opened only once.  Closes the channel if an exception is
+     * thrown.
+     */
+    private static Stream<String> createFileChannelLinesStream(FileChannel fc,
+                                                               Charset cs)
+        throws IOException
+    {
+        try {
+            long size = fc.size();
+            if (size == 0) {
+                Reader reader = Channels.newReader(fc, cs.newDecoder(), -1);
+                return createBufferedReaderLinesStream(new BufferedReader(reader));
+            }
+            FileChannelLinesSpliterator s =
+                new FileChannelLinesSpliterator(fc, cs, 0, size);
+            // Unmap the windows of all parts before closing the channel,
+            // as short-circuiting operations may leave them mapped
+            return StreamSupport.stream(s, false)
+                                .onClose(s::close)
+                                .onClose(asUncheckedRunnable(fc));
+        } catch (Error|RuntimeException|IOException e) {
+            try {
+                fc.close();
+            } catch (IOException ex) {
+                try {
+                    e.addSuppressed(ex);
+                } catch (Throwable ignore) {}
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a stream of the lines read by the given reader, which is
+     * closed when the stream is.  Closes the reader if an exception is
+     * thrown.
+     */
+    private static Stream<String> createBufferedReaderLinesStream(BufferedReader br) {
         try {
             return br.lines().onClose(asUncheckedRunnable(br));
         } catch (Error|RuntimeException e) {
@@ -2492,13 +2492,20 @@ public final class Formatter implements Closeable, Flushable {
      */
     public Formatter format(Locale l, String format, Object ... args) {
         ensureOpen();
+        print(l, parse(format), args);
+        return this;
+    }
 
+    /**
+     * Prints parsed format strings with the given arguments, recording any
+     * {@code IOException} thrown by the destination.
+     */
+    private void print(Locale l, FormatString[] fsa, Object[] args) {
         // index of last argument referenced
         int last = -1;
         // last ordinary index
         int lasto = -1;
 
-        FormatString[] fsa = parse(format);
         for (int i = 0; i < fsa.length; i++) {
             FormatString fs = fsa[i];
             int index = fs.index();
@@ -2530,7 +2537,223 @@ public final class Formatter implements Closeable, Flushable {
                 lastException = x;
             }
         }
-        return this;
+    }
+
+    /**
+     * Compiles a format string for repeated use, in the {@link
+     * Locale#getDefault(Locale.Category) default locale} for {@link
+     * Locale.Category#FORMAT formatting}.
+     *
+     * @param  format
+     *         A format string as described in <a href="#syntax">Format string
+     *         syntax</a>
+     *
+     * @throws  IllegalFormatException
+     *          If the format string contains an illegal syntax
+     *
+     * @return  The compiled format
+     *
+     * @see #compile(Locale, String)
+     * @since 1.8
+     */
+    public static CompiledFormat compile(String format) {
+        return compile(Locale.getDefault(Locale.Category.FORMAT), format);
+    }
+
+    /**
+     * Compiles a format string for repeated use in the given locale.
+     *
+     * <p> The format string is parsed once, and syntax errors are reported
+     * by this method rather than when the format is used.  Errors that
+     * depend on the arguments, such as a missing argument or an argument of
+     * the wrong type, are still reported when the format is used.
+     *
+     * @param  l
+     *         The {@linkplain java.util.Locale locale} to apply during
+     *         formatting.  If {@code l} is {@code null} then no localization
+     *         is applied.
+     *
+     * @param  format
+     *         A format string as described in <a href="#syntax">Format string
+     *         syntax</a>
+     *
+     * @throws  IllegalFormatException
+     *          If the format string contains an illegal syntax
+     *
+     * @return  The compiled format
+     *
+     * @since 1.8
+     */
+    public static CompiledFormat compile(Locale l, String format) {
+        return new CompiledFormat(l, format);
+    }
+
+    /**
+     * A format string that has been parsed once for repeated use, obtained
+     * from {@link Formatter#compile(Locale, String) Formatter.compile}.
+     *
+     * <p> Formatting with a compiled format gives the same result as
+     * formatting with the original format string, but avoids parsing the
+     * format string on each use, and writes its output directly to the
+     * destination.  Integers formatted by {@code %d} or {@code %x} without
+     * flags, width or precision are appended to a {@link StringBuilder}
+     * without creating intermediate strings.
+     *
+     * <p> Instances of this class are immutable and safe for use by multiple
+     * concurrent threads.
+     *
+     * @since 1.8
+     */
+    public static final class CompiledFormat {
+        private final Locale l;
+        private final String format;
+        private final FormatString[] fsa;
+
+        // Specifiers are inner objects of the formatter they print to, so
+        // each thread gets a formatter of its own with copies of them
+        private final ThreadLocal<Bound> bound = new ThreadLocal<Bound>() {
+            @Override
+            protected Bound initialValue() {
+                return new Bound(l, fsa);
+            }
+        };
+
+        // Static, so that the values of the thread local do not refer to
+        // it, and its entries are cleared once the format is unreachable
+        private static final class Bound {
+            final Formatter fmt;
+            final FormatString[] fsa;
+            boolean busy;
+
+            Bound(Locale l, FormatString[] fsa) {
+                this.fmt = new Formatter(l, (Appendable)null);
+                this.fsa = fmt.copy(fsa);
+            }
+        }
+
+        CompiledFormat(Locale l, String format) {
+            this.l = l;
+            this.format = format;
+            this.fsa = new Formatter(l, (Appendable)null).parse(format);
+        }
+
+        /**
+         * Returns the locale of this format.
+         *
+         * @return  {@code null} if no localization is applied, otherwise a
+         *          locale
+         */
+        public Locale locale() {
+            return l;
+        }
+
+        /**
+         * Returns a formatted string using this format and the given
+         * arguments.
+         *
+         * @param  args
+         *         Arguments referenced by the format specifiers
+         *
+         * @throws  IllegalFormatException
+         *          If a format specifier is incompatible with the given
+         *          arguments, or there are insufficient arguments
+         *
+         * @return  A formatted string
+         */
+        public String format(Object ... args) {
+            return formatTo(new StringBuilder(), args).toString();
+        }
+
+        /**
+         * Appends a formatted string using this format and the given
+         * arguments to a string builder.
+         *
+         * @param  sb
+         *         The string builder to append to
+         *
+         * @param  args
+         *         Arguments referenced by the format specifiers
+         *
+         * @throws  IllegalFormatException
+         *          If a format specifier is incompatible with the given
+         *          arguments, or there are insufficient arguments
+         *
+         * @return  The string builder
+         */
+        public StringBuilder formatTo(StringBuilder sb, Object ... args) {
+            try {
+                print(Objects.requireNonNull(sb), args);
+            } catch (IOException x) {
+                throw new AssertionError(x); // StringBuilder does no I/O
+            }
+            return sb;
+        }
+
+        /**
+         * Appends a formatted string using this format and the given
+         * arguments to a destination.
+         *
+         * @param  a
+         *         The destination for the formatted output
+         *
+         * @param  args
+         *         Arguments referenced by the format specifiers
+         *
+         * @throws  IllegalFormatException
+         *          If a format specifier is incompatible with the given
+         *          arguments, or there are insufficient arguments
+         *
+         * @throws  IOException
+         *          If the destination throws an {@code IOException}; the
+         *          output may then be incomplete
+         */
+        public void formatTo(Appendable a, Object ... args) throws IOException {
+            print(Objects.requireNonNull(a), args);
+        }
+
+        private void print(Appendable a, Object[] args) throws IOException {
+            Bound b = bound.get();
+            if (b.busy)  // formatting an argument reentered this format
+                b = new Bound(l, fsa);
+            b.busy = true;
+            Formatter fmt = b.fmt;
+            fmt.a = a;
+            try {
+                fmt.print(l, b.fsa, args);
+                IOException x = fmt.lastException;
+                if (x != null) {
+                    fmt.lastException = null;
+                    throw x;
+                }
+            } finally {
+                fmt.a = null;
+                b.busy = false;
+            }
+        }
+
+        /**
+         * Returns the format string this format was compiled from.
+         *
+         * @return  The format string
+         */
+        @Override
+        public String toString() {
+            return format;
+        }
+    }
+
+    /**
+     * Returns copies of parsed format strings that print to this formatter.
+     */
+    private FormatString[] copy(FormatString[] fsa) {
+        FormatString[] copy = new FormatString[fsa.length];
+        for (int i = 0; i < fsa.length; i++) {
+            FormatString fs = fsa[i];
+            copy[i] = (fs instanceof FixedString)
+                ? new FixedString(fs.toString())
+                : new FormatSpecifier((FormatSpecifier)fs);
+        }
+        return copy;
     }
 
     // %[argument_index$][flags][width][.precision][t]conversion
@@ -2618,6 +2841,8 @@ public final class Formatter implements Closeable, Flushable {
         private int precision;
         private boolean dt = false;
         private char c;
+        // no flags, width or precision
+        private boolean plain;
 
         private int index(String s) {
             if (s != null) {
@@ -2733,6 +2958,18 @@ public final class Formatter implements Closeable, Flushable {
                 checkText();
             else
                 throw new UnknownFormatConversionException(String.valueOf(c));
+
+            plain = !dt && f.valueOf() == 0 && width == -1 && precision == -1;
+        }
+
+        FormatSpecifier(FormatSpecifier fs) {
+            index = fs.index;
+            f = fs.f;
+            width = fs.width;
+            precision = fs.precision;
+            dt = fs.dt;
+            c = fs.c;
+            plain = fs.plain;
         }
 
         public void print(Object arg, Locale l) throws IOException {
@@ -3085,6 +3322,17 @@ public final class Formatter implements Closeable, Flushable {
 
         private void print(long value, Locale l) throws IOException {
 
+            if (plain && c != Conversion.OCTAL_INTEGER && getZero(l) == '0') {
+                // Nothing to pad, group or localize
+                if (c == Conversion.HEXADECIMAL_INTEGER)
+                    a.append(Long.toHexString(value));
+                else if (a instanceof StringBuilder)
+                    ((StringBuilder)a).append(value);
+                else
+                    a.append(Long.toString(value));
+                return;
+            }
+
             StringBuilder sb = new StringBuilder();
 
             if (c == Conversion.DECIMAL_INTEGER) {
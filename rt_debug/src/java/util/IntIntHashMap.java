@@ -0,0 +1,777 @@
+package java.util;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Hash table based implementation of the {@code Map} interface specialized
+ * for primitive {@code int} keys and values.
+ *
+ * <p>Unlike {@link HashMap}, this implementation uses open addressing with
+ * linear probing: keys and values are held in two parallel arrays and no
+ * per-mapping node object is ever allocated.  The primitive methods
+ * ({@link #get(int)}, {@link #put(int, int)}, {@link #remove(int)},
+ * {@link #addTo(int, int)} and friends) never box keys or values, which
+ * makes this class suitable for large counters and id-to-id indexes, where
+ * {@code HashMap<Integer,Integer>} would pay for a {@code Node} plus two
+ * {@code Integer} objects per mapping and for the garbage collection of all
+ * three.
+ *
+ * <p>Since values are primitive, the primitive accessors cannot signal a
+ * missing mapping with {@code null}; they return {@code 0} instead (or the
+ * supplied default for {@link #getOrDefault(int, int)}).  Use
+ * {@link #containsKey(int)} when a stored zero has to be told apart from
+ * an absent key.
+ *
+ * <p>The map also implements the full {@code Map<Integer,Integer>} contract, so
+ * it can be handed to code expecting a {@code Map}.  The methods inherited
+ * from {@code Map} box their keys and values, and the {@link #keySet},
+ * {@link #values} and {@link #entrySet} views create entry objects lazily
+ * while iterating; they are provided for interoperability rather than
+ * speed.
+ *
+ * <p>Deletions use backward shifting rather than tombstones, so the table
+ * never degrades after many removals.  The table is doubled when its size
+ * exceeds the product of the load factor and the current capacity.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * The iterators returned by this class's collection view methods are
+ * <i>fail-fast</i> in the same sense as those of {@link HashMap}.
+ *
+ * @see HashMap
+ * @see IntObjectHashMap
+ * @see LongLongHashMap
+ * @since 1.8
+ */
+public class IntIntHashMap extends AbstractMap<Integer,Integer> {
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum capacity of the table.  Must be a power of two, leaving
+     * room for the extra slot reserved for the zero key.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * The key table.  Slot {@code n} (the last one) is reserved for the
+     * key {@code 0}, which doubles as the "free slot" marker in slots
+     * {@code 0..n-1}.
+     */
+    transient int[] keys;
+
+    /**
+     * The value table, parallel to {@link #keys}.
+     */
+    transient int[] vals;
+
+    /**
+     * Whether the key {@code 0} is present (stored in slot {@code n}).
+     */
+    transient boolean containsZeroKey;
+
+    /**
+     * {@code n - 1}, where {@code n} is the (power of two) table capacity.
+     */
+    transient int mask;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    transient int size;
+
+    /**
+     * The next size value at which to resize.
+     */
+    transient int threshold;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The load factor for the hash table.
+     */
+    final float loadFactor;
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * load factor.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, strictly between 0 and 1
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not in {@code (0, 1)}
+     */
+    public IntIntHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (!(loadFactor > 0 && loadFactor < 1))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        int n = tableSizeFor(initialCapacity, loadFactor);
+        allocate(n);
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and the
+     * default load factor (0.75).
+     *
+     * @param  initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public IntIntHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity (16) and
+     * the default load factor (0.75).
+     */
+    public IntIntHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs a new map with the same mappings as the specified
+     * {@code Map}.
+     *
+     * @param   m the map whose mappings are to be placed in this map
+     * @throws  NullPointerException if the specified map is null or
+     *          contains a null key
+     */
+    public IntIntHashMap(Map<? extends Integer, ? extends Integer> m) {
+        this(m.size(), DEFAULT_LOAD_FACTOR);
+        putAll(m);
+    }
+
+    /* ---------------- Static utilities -------------- */
+
+    /**
+     * Scrambles the bits of the key so that sequential keys do not end up
+     * in sequential slots, which would produce long probe runs.
+     */
+    static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the power of two table size needed to hold {@code expected}
+     * mappings without exceeding the given load factor.
+     */
+    static int tableSizeFor(int expected, float loadFactor) {
+        long needed = (long)Math.ceil(expected / (double)loadFactor);
+        if (needed >= MAXIMUM_CAPACITY)
+            return MAXIMUM_CAPACITY;
+        int n = HashMap.tableSizeFor((int)needed);
+        return Math.max(n, 2);
+    }
+
+    /**
+     * Returns the resize threshold for a table of capacity {@code n}, always
+     * leaving at least one free slot so that probing terminates.
+     */
+    static int thresholdFor(int n, float loadFactor) {
+        return Math.min((int)Math.ceil(n * loadFactor), n - 1);
+    }
+
+    /* ---------------- Primitive operations -------------- */
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code 0} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or
+     *         {@code 0} if this map contains no mapping for the key
+     */
+    public int get(int key) {
+        int i = indexOf(key);
+        return (i < 0) ? 0 : vals[i];
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @return the value to which the specified key is mapped, or
+     *         {@code defaultValue} if this map contains no mapping for the key
+     */
+    public int getOrDefault(int key, int defaultValue) {
+        int i = indexOf(key);
+        return (i < 0) ? defaultValue : vals[i];
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key the key whose presence in this map is to be tested
+     * @return {@code true} if this map contains a mapping for the key
+     */
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns {@code true} if this map maps one or more keys to the
+     * specified value.  This operation scans the whole table.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return {@code true} if this map maps one or more keys to the
+     *         specified value
+     */
+    public boolean containsValue(int value) {
+        int[] vs = vals;
+        if (containsZeroKey && vs[mask + 1] == value)
+            return true;
+        int[] ks = keys;
+        for (int i = 0; i <= mask; ++i) {
+            if (ks[i] != 0 && vs[i] == value)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         {@code 0} if there was no mapping for {@code key}
+     */
+    public int put(int key, int value) {
+        int i = slotFor(key);
+        if (i < 0) {
+            insertAt(~i, key, value);
+            return 0;
+        }
+        int oldValue = vals[i];
+        vals[i] = value;
+        return oldValue;
+    }
+
+    /**
+     * Adds {@code delta} to the value mapped to the specified key, treating
+     * an absent mapping as {@code 0}.  This is the primitive equivalent of
+     * {@code merge(key, delta, Integer::sum)} and is convenient for counters.
+     *
+     * @param key key whose value is to be incremented
+     * @param delta the value to add
+     * @return the updated value associated with {@code key}
+     */
+    public int addTo(int key, int delta) {
+        int i = slotFor(key);
+        if (i < 0) {
+            insertAt(~i, key, delta);
+            return delta;
+        }
+        return vals[i] += delta;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param  key key whose mapping is to be removed from the map
+     * @return the previous value associated with {@code key}, or
+     *         {@code 0} if there was no mapping for {@code key}
+     */
+    public int remove(int key) {
+        int i = indexOf(key);
+        if (i < 0)
+            return 0;
+        int oldValue = vals[i];
+        removeAt(i);
+        return oldValue;
+    }
+
+    /**
+     * Performs the given action for each mapping in this map, passing the
+     * key and value as boxed {@code Integer}s.
+     */
+    public void forEach(BiConsumer<? super Integer, ? super Integer> action) {
+        if (action == null)
+            throw new NullPointerException();
+        int mc = modCount;
+        int[] ks = keys;
+        int[] vs = vals;
+        if (containsZeroKey)
+            action.accept(0, vs[mask + 1]);
+        for (int i = 0; i <= mask; ++i) {
+            int k = ks[i];
+            if (k != 0)
+                action.accept(k, vs[i]);
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Removes all of the mappings from this map.  The table keeps its
+     * current capacity.
+     */
+    public void clear() {
+        if (size > 0) {
+            modCount++;
+            size = 0;
+            containsZeroKey = false;
+            Arrays.fill(keys, 0);
+        }
+    }
+
+    /**
+     * Returns a primitive iterator over the keys of this map, which does
+     * not box them.  The iterator supports removal.
+     *
+     * @return an iterator over the keys contained in this map
+     */
+    public PrimitiveIterator.OfInt keyIterator() {
+        return new KeyIterator();
+    }
+
+    /* ---------------- Map implementation -------------- */
+
+    public Integer get(Object key) {
+        int i;
+        return (key instanceof Integer && (i = indexOf(((Integer)key).intValue())) >= 0)
+            ? Integer.valueOf(vals[i]) : null;
+    }
+
+    public Integer getOrDefault(Object key, Integer defaultValue) {
+        int i;
+        return (key instanceof Integer && (i = indexOf(((Integer)key).intValue())) >= 0)
+            ? Integer.valueOf(vals[i]) : defaultValue;
+    }
+
+    public boolean containsKey(Object key) {
+        return (key instanceof Integer) && containsKey(((Integer)key).intValue());
+    }
+
+    public boolean containsValue(Object value) {
+        return (value instanceof Integer) && containsValue(((Integer)value).intValue());
+    }
+
+    public Integer put(Integer key, Integer value) {
+        int v = value.intValue();
+        int i = slotFor(key.intValue());
+        if (i < 0) {
+            insertAt(~i, key.intValue(), v);
+            return null;
+        }
+        int oldValue = vals[i];
+        vals[i] = v;
+        return oldValue;
+    }
+
+    public Integer remove(Object key) {
+        int i;
+        if (!(key instanceof Integer) || (i = indexOf(((Integer)key).intValue())) < 0)
+            return null;
+        int oldValue = vals[i];
+        removeAt(i);
+        return oldValue;
+    }
+
+    public void putAll(Map<? extends Integer, ? extends Integer> m) {
+        int s = m.size();
+        if (s > threshold)
+            ensureCapacity(s);
+        super.putAll(m);
+    }
+
+    transient Set<Map.Entry<Integer,Integer>> entrySet;
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map.
+     * Each entry is created on demand during iteration and reflects the
+     * slot it was read from only until the next structural modification.
+     *
+     * @return a set view of the mappings contained in this map
+     */
+    public Set<Map.Entry<Integer,Integer>> entrySet() {
+        Set<Map.Entry<Integer,Integer>> es;
+        return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<Integer,Integer>> {
+        public final int size()                 { return size; }
+        public final void clear()               { IntIntHashMap.this.clear(); }
+        public final Iterator<Map.Entry<Integer,Integer>> iterator() {
+            return new EntryIterator();
+        }
+        public final boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object key = e.getKey();
+            if (!(key instanceof Integer))
+                return false;
+            int i = indexOf(((Integer)key).intValue());
+            return i >= 0 && Objects.equals(vals[i], e.getValue());
+        }
+        public final boolean remove(Object o) {
+            if (contains(o)) {
+                IntIntHashMap.this.remove(((Map.Entry<?,?>)o).getKey());
+                return true;
+            }
+            return false;
+        }
+        public final void forEach(Consumer<? super Map.Entry<Integer,Integer>> action) {
+            if (action == null)
+                throw new NullPointerException();
+            int mc = modCount;
+            if (containsZeroKey)
+                action.accept(new MapEntry(mask + 1));
+            int[] ks = keys;
+            for (int i = 0; i <= mask; ++i) {
+                if (ks[i] != 0)
+                    action.accept(new MapEntry(i));
+            }
+            if (modCount != mc)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Entry backed by a table slot.
+     */
+    final class MapEntry implements Map.Entry<Integer,Integer> {
+        final int index;
+
+        MapEntry(int index) {
+            this.index = index;
+        }
+
+        public Integer getKey() {
+            return keys[index];
+        }
+
+        public Integer getValue() {
+            return vals[index];
+        }
+
+        public Integer setValue(Integer value) {
+            int oldValue = vals[index];
+            vals[index] = value.intValue();
+            return oldValue;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            return getKey().equals(e.getKey()) &&
+                Objects.equals(vals[index], e.getValue());
+        }
+
+        public int hashCode() {
+            return keys[index] ^ vals[index];
+        }
+
+        public String toString() {
+            return keys[index] + "=" + vals[index];
+        }
+    }
+
+    /* ---------------- Table internals -------------- */
+
+    /**
+     * Returns the slot holding {@code key}, or -1 if absent.
+     */
+    final int indexOf(int key) {
+        if (key == 0)
+            return containsZeroKey ? mask + 1 : -1;
+        int[] ks = keys;
+        int m = mask;
+        int k;
+        for (int i = mix(key) & m; (k = ks[i]) != 0; i = (i + 1) & m) {
+            if (k == key)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the slot holding {@code key} or, if absent, {@code ~i} where
+     * {@code i} is the free slot at which it would be inserted.
+     */
+    final int slotFor(int key) {
+        if (key == 0)
+            return containsZeroKey ? mask + 1 : ~(mask + 1);
+        int[] ks = keys;
+        int m = mask;
+        int k;
+        int i;
+        for (i = mix(key) & m; (k = ks[i]) != 0; i = (i + 1) & m) {
+            if (k == key)
+                return i;
+        }
+        return ~i;
+    }
+
+    /**
+     * Inserts a new mapping at free slot {@code i}, growing the table
+     * first if needed so that at least one slot always stays free.
+     */
+    private void insertAt(int i, int key, int value) {
+        if (size >= threshold) {
+            resize(mask + 1 << 1);
+            i = (key == 0) ? mask + 1 : freeSlotFor(key);
+        }
+        if (key == 0)
+            containsZeroKey = true;
+        keys[i] = key;
+        vals[i] = value;
+        ++modCount;
+        ++size;
+    }
+
+    /**
+     * Returns the first free slot of the probe run of a non-zero key
+     * known to be absent.
+     */
+    private int freeSlotFor(int key) {
+        int[] ks = keys;
+        int m = mask;
+        int i = mix(key) & m;
+        while (ks[i] != 0)
+            i = (i + 1) & m;
+        return i;
+    }
+
+    /**
+     * Removes the mapping held in slot {@code i}.
+     */
+    final void removeAt(int i) {
+        ++modCount;
+        --size;
+        if (i == mask + 1) {
+            containsZeroKey = false;
+        } else {
+            shiftKeys(i);
+        }
+    }
+
+    /**
+     * Closes the gap left at {@code pos} by shifting back the entries of
+     * the following probe run that would otherwise become unreachable.
+     *
+     * @return the position that was finally freed
+     */
+    final int shiftKeys(int pos) {
+        int[] ks = keys;
+        int[] vs = vals;
+        int m = mask;
+        for (;;) {
+            int last = pos;
+            int k;
+            for (pos = (last + 1) & m; ; pos = (pos + 1) & m) {
+                if ((k = ks[pos]) == 0) {
+                    ks[last] = 0;
+                    return last;
+                }
+                int slot = mix(k) & m;
+                if (last <= pos ? (last >= slot || slot > pos)
+                                : (last >= slot && slot > pos))
+                    break;
+            }
+            ks[last] = k;
+            vs[last] = vs[pos];
+        }
+    }
+
+    private void ensureCapacity(int expected) {
+        int n = tableSizeFor(expected, loadFactor);
+        if (n > mask + 1)
+            resize(n);
+    }
+
+    private void allocate(int n) {
+        keys = new int[n + 1];
+        vals = new int[n + 1];
+        mask = n - 1;
+        threshold = thresholdFor(n, loadFactor);
+    }
+
+    /**
+     * Rehashes every mapping into a table of capacity {@code n}.
+     */
+    final void resize(int n) {
+        if (mask + 1 == MAXIMUM_CAPACITY)
+            throw new IllegalStateException("Map is full");
+        int[] oldKeys = keys;
+        int[] oldValues = vals;
+        int oldCap = mask + 1;
+        allocate(n);
+        int[] ks = keys;
+        int[] vs = vals;
+        int m = mask;
+        vs[m + 1] = oldValues[oldCap];
+        for (int j = 0; j < oldCap; ++j) {
+            int k = oldKeys[j];
+            if (k != 0) {
+                int i = mix(k) & m;
+                while (ks[i] != 0)
+                    i = (i + 1) & m;
+                ks[i] = k;
+                vs[i] = oldValues[j];
+            }
+        }
+    }
+
+    /* ---------------- Iterators -------------- */
+
+    /**
+     * Walks the table from the highest slot down, starting with the zero
+     * key slot.  When a removal through the iterator shifts an entry that
+     * has not yet been visited across the end of the table (into the
+     * already visited region), its key is remembered and returned after
+     * the scan completes, so that every mapping is visited exactly once.
+     */
+    abstract class HashIterator {
+        int pos;               // next slot to examine (scanning down)
+        int last = -1;         // slot of the last returned entry
+        int remaining;         // entries still to return
+        int lastKey;           // key of the last returned entry
+        boolean lastValid;     // whether remove() is allowed
+        boolean mustReturnZeroKey;
+        int[] wrapped;         // keys shifted into the visited region
+        int wrappedCount;
+        int expectedModCount;  // for fast-fail
+
+        HashIterator() {
+            pos = mask + 1;
+            remaining = size;
+            mustReturnZeroKey = containsZeroKey;
+            expectedModCount = modCount;
+        }
+
+        public final boolean hasNext() {
+            return remaining > 0;
+        }
+
+        final int nextIndex() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (remaining <= 0)
+                throw new NoSuchElementException();
+            --remaining;
+            lastValid = true;
+            if (mustReturnZeroKey) {
+                mustReturnZeroKey = false;
+                lastKey = 0;
+                return last = mask + 1;
+            }
+            int[] ks = keys;
+            for (;;) {
+                if (--pos < 0) {
+                    // Entries shifted across the end of the table.
+                    last = -1;
+                    lastKey = wrapped[--wrappedCount];
+                    return indexOf(lastKey);
+                }
+                if (ks[pos] != 0) {
+                    lastKey = ks[pos];
+                    return last = pos;
+                }
+            }
+        }
+
+        public final void remove() {
+            if (!lastValid)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            lastValid = false;
+            if (last == mask + 1) {
+                removeAt(last);
+            } else if (last >= 0) {
+                ++modCount;
+                --size;
+                iteratorShiftKeys(last);
+            } else {
+                IntIntHashMap.this.remove(lastKey);
+            }
+            last = -1;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Variant of {@link #shiftKeys} that records entries moved from
+         * the unvisited region into the visited one.
+         */
+        private void iteratorShiftKeys(int pos) {
+            int[] ks = keys;
+            int[] vs = vals;
+            int m = mask;
+            for (;;) {
+                int last = pos;
+                int k;
+                for (pos = (last + 1) & m; ; pos = (pos + 1) & m) {
+                    if ((k = ks[pos]) == 0) {
+                        ks[last] = 0;
+                        return;
+                    }
+                    int slot = mix(k) & m;
+                    if (last <= pos ? (last >= slot || slot > pos)
+                                    : (last >= slot && slot > pos))
+                        break;
+                }
+                if (pos < last) {
+                    if (wrapped == null)
+                        wrapped = new int[2];
+                    else if (wrappedCount == wrapped.length)
+                        wrapped = Arrays.copyOf(wrapped, wrappedCount << 1);
+                    wrapped[wrappedCount++] = k;
+                }
+                ks[last] = k;
+                vs[last] = vs[pos];
+            }
+        }
+    }
+
+    final class EntryIterator extends HashIterator
+        implements Iterator<Map.Entry<Integer,Integer>> {
+        public final Map.Entry<Integer,Integer> next() { return new MapEntry(nextIndex()); }
+    }
+
+    final class KeyIterator extends HashIterator
+        implements PrimitiveIterator.OfInt {
+        public final int nextInt() { return keys[nextIndex()]; }
+    }
+}
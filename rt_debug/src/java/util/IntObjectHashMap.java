@@ -0,0 +1,785 @@
+package java.util;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Hash table based implementation of the {@code Map} interface specialized
+ * for primitive {@code int} keys.
+ *
+ * <p>Unlike {@link HashMap}, this implementation uses open addressing with
+ * linear probing: keys and values are held in two parallel arrays and no
+ * per-mapping node object is ever allocated.  The primitive methods
+ * ({@link #get(int)}, {@link #put(int, Object)}, {@link #remove(int)},
+ * {@link #containsKey(int)} and friends) never box their key, which makes
+ * this class suitable for large caches keyed by numeric identifiers, where
+ * {@code HashMap<Integer,V>} would pay for a {@code Node} plus an
+ * {@code Integer} per mapping and for the garbage collection of both.
+ *
+ * <p>The map also implements the full {@code Map<Integer,V>} contract, so
+ * it can be handed to code expecting a {@code Map}.  The methods inherited
+ * from {@code Map} box their keys, and the {@link #keySet}, {@link #values}
+ * and {@link #entrySet} views create entry objects lazily while iterating;
+ * they are provided for interoperability rather than speed.
+ *
+ * <p>Deletions use backward shifting rather than tombstones, so the table
+ * never degrades after many removals.  The table is doubled when its size
+ * exceeds the product of the load factor and the current capacity.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * The iterators returned by this class's collection view methods are
+ * <i>fail-fast</i> in the same sense as those of {@link HashMap}.
+ *
+ * @param <V> the type of mapped values
+ *
+ * @see HashMap
+ * @see LongObjectHashMap
+ * @see IntIntHashMap
+ * @since 1.8
+ */
+public class IntObjectHashMap<V> extends AbstractMap<Integer,V> {
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum capacity of the table.  Must be a power of two, leaving
+     * room for the extra slot reserved for the zero key.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * The key table.  Slot {@code n} (the last one) is reserved for the
+     * key {@code 0}, which doubles as the "free slot" marker in slots
+     * {@code 0..n-1}.
+     */
+    transient int[] keys;
+
+    /**
+     * The value table, parallel to {@link #keys}.
+     */
+    transient Object[] vals;
+
+    /**
+     * Whether the key {@code 0} is present (stored in slot {@code n}).
+     */
+    transient boolean containsZeroKey;
+
+    /**
+     * {@code n - 1}, where {@code n} is the (power of two) table capacity.
+     */
+    transient int mask;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    transient int size;
+
+    /**
+     * The next size value at which to resize.
+     */
+    transient int threshold;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The load factor for the hash table.
+     */
+    final float loadFactor;
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * load factor.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, strictly between 0 and 1
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not in {@code (0, 1)}
+     */
+    public IntObjectHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (!(loadFactor > 0 && loadFactor < 1))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        int n = tableSizeFor(initialCapacity, loadFactor);
+        allocate(n);
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and the
+     * default load factor (0.75).
+     *
+     * @param  initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public IntObjectHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity (16) and
+     * the default load factor (0.75).
+     */
+    public IntObjectHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs a new map with the same mappings as the specified
+     * {@code Map}.
+     *
+     * @param   m the map whose mappings are to be placed in this map
+     * @throws  NullPointerException if the specified map is null or
+     *          contains a null key
+     */
+    public IntObjectHashMap(Map<? extends Integer, ? extends V> m) {
+        this(m.size(), DEFAULT_LOAD_FACTOR);
+        putAll(m);
+    }
+
+    /* ---------------- Static utilities -------------- */
+
+    /**
+     * Scrambles the bits of the key so that sequential keys do not end up
+     * in sequential slots, which would produce long probe runs.
+     */
+    static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the power of two table size needed to hold {@code expected}
+     * mappings without exceeding the given load factor.
+     */
+    static int tableSizeFor(int expected, float loadFactor) {
+        long needed = (long)Math.ceil(expected / (double)loadFactor);
+        if (needed >= MAXIMUM_CAPACITY)
+            return MAXIMUM_CAPACITY;
+        int n = HashMap.tableSizeFor((int)needed);
+        return Math.max(n, 2);
+    }
+
+    /**
+     * Returns the resize threshold for a table of capacity {@code n}, always
+     * leaving at least one free slot so that probing terminates.
+     */
+    static int thresholdFor(int n, float loadFactor) {
+        return Math.min((int)Math.ceil(n * loadFactor), n - 1);
+    }
+
+    /* ---------------- Primitive operations -------------- */
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code null} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or
+     *         {@code null} if this map contains no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int i = indexOf(key);
+        return (i < 0) ? null : (V)vals[i];
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @return the value to which the specified key is mapped, or
+     *         {@code defaultValue} if this map contains no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(int key, V defaultValue) {
+        int i = indexOf(key);
+        return (i < 0) ? defaultValue : (V)vals[i];
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key the key whose presence in this map is to be tested
+     * @return {@code true} if this map contains a mapping for the key
+     */
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     */
+    public V put(int key, V value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * If the specified key is not already associated with a value (or is
+     * mapped to {@code null}) associates it with the given value and
+     * returns {@code null}, else returns the current value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key, or
+     *         {@code null} if there was no mapping for the key
+     */
+    public V putIfAbsent(int key, V value) {
+        return putVal(key, value, true);
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param  key key whose mapping is to be removed from the map
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int i = indexOf(key);
+        if (i < 0)
+            return null;
+        V oldValue = (V)vals[i];
+        removeAt(i);
+        return oldValue;
+    }
+
+    /**
+     * If the specified key is not already associated with a non-null value,
+     * attempts to compute its value using the given mapping function and
+     * enters it into this map unless {@code null}.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key, or null if the computed value is null
+     * @throws NullPointerException if the mapping function is null
+     * @throws ConcurrentModificationException if it is detected that the
+     *         mapping function modified this map
+     */
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(int key, IntFunction<? extends V> mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        int i = indexOf(key);
+        V v;
+        if (i >= 0 && (v = (V)vals[i]) != null)
+            return v;
+        int mc = modCount;
+        v = mappingFunction.apply(key);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        if (v != null)
+            putVal(key, v, false);
+        return v;
+    }
+
+    /**
+     * Performs the given action for each mapping in this map, passing the
+     * key as a boxed {@code Integer}.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super Integer, ? super V> action) {
+        if (action == null)
+            throw new NullPointerException();
+        int mc = modCount;
+        int[] ks = keys;
+        Object[] vs = vals;
+        if (containsZeroKey)
+            action.accept(0, (V)vs[mask + 1]);
+        for (int i = 0; i <= mask; ++i) {
+            int k = ks[i];
+            if (k != 0)
+                action.accept(k, (V)vs[i]);
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Removes all of the mappings from this map.  The table keeps its
+     * current capacity.
+     */
+    public void clear() {
+        if (size > 0) {
+            modCount++;
+            size = 0;
+            containsZeroKey = false;
+            Arrays.fill(keys, 0);
+            Arrays.fill(vals, null);
+        }
+    }
+
+    /**
+     * Returns a primitive iterator over the keys of this map, which does
+     * not box them.  The iterator supports removal.
+     *
+     * @return an iterator over the keys contained in this map
+     */
+    public PrimitiveIterator.OfInt keyIterator() {
+        return new KeyIterator();
+    }
+
+    /* ---------------- Map implementation -------------- */
+
+    public V get(Object key) {
+        return (key instanceof Integer) ? get(((Integer)key).intValue()) : null;
+    }
+
+    public V getOrDefault(Object key, V defaultValue) {
+        return (key instanceof Integer)
+            ? getOrDefault(((Integer)key).intValue(), defaultValue)
+            : defaultValue;
+    }
+
+    public boolean containsKey(Object key) {
+        return (key instanceof Integer) && containsKey(((Integer)key).intValue());
+    }
+
+    public boolean containsValue(Object value) {
+        Object[] vs = vals;
+        if (containsZeroKey && Objects.equals(vs[mask + 1], value))
+            return true;
+        int[] ks = keys;
+        for (int i = 0; i <= mask; ++i) {
+            if (ks[i] != 0 && Objects.equals(vs[i], value))
+                return true;
+        }
+        return false;
+    }
+
+    public V put(Integer key, V value) {
+        return putVal(key.intValue(), value, false);
+    }
+
+    public V putIfAbsent(Integer key, V value) {
+        return putVal(key.intValue(), value, true);
+    }
+
+    public V remove(Object key) {
+        return (key instanceof Integer) ? remove(((Integer)key).intValue()) : null;
+    }
+
+    public void putAll(Map<? extends Integer, ? extends V> m) {
+        int s = m.size();
+        if (s > threshold)
+            ensureCapacity(s);
+        super.putAll(m);
+    }
+
+    transient Set<Map.Entry<Integer,V>> entrySet;
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map.
+     * Each entry is created on demand during iteration and reflects the
+     * slot it was read from only until the next structural modification.
+     *
+     * @return a set view of the mappings contained in this map
+     */
+    public Set<Map.Entry<Integer,V>> entrySet() {
+        Set<Map.Entry<Integer,V>> es;
+        return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<Integer,V>> {
+        public final int size()                 { return size; }
+        public final void clear()               { IntObjectHashMap.this.clear(); }
+        public final Iterator<Map.Entry<Integer,V>> iterator() {
+            return new EntryIterator();
+        }
+        public final boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object key = e.getKey();
+            if (!(key instanceof Integer))
+                return false;
+            int i = indexOf(((Integer)key).intValue());
+            return i >= 0 && Objects.equals(vals[i], e.getValue());
+        }
+        public final boolean remove(Object o) {
+            if (contains(o)) {
+                IntObjectHashMap.this.remove(((Map.Entry<?,?>)o).getKey());
+                return true;
+            }
+            return false;
+        }
+        public final void forEach(Consumer<? super Map.Entry<Integer,V>> action) {
+            if (action == null)
+                throw new NullPointerException();
+            int mc = modCount;
+            if (containsZeroKey)
+                action.accept(new MapEntry(mask + 1));
+            int[] ks = keys;
+            for (int i = 0; i <= mask; ++i) {
+                if (ks[i] != 0)
+                    action.accept(new MapEntry(i));
+            }
+            if (modCount != mc)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Entry backed by a table slot.
+     */
+    final class MapEntry implements Map.Entry<Integer,V> {
+        final int index;
+
+        MapEntry(int index) {
+            this.index = index;
+        }
+
+        public Integer getKey() {
+            return keys[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        public V getValue() {
+            return (V)vals[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        public V setValue(V value) {
+            V oldValue = (V)vals[index];
+            vals[index] = value;
+            return oldValue;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            return getKey().equals(e.getKey()) &&
+                Objects.equals(vals[index], e.getValue());
+        }
+
+        public int hashCode() {
+            return keys[index] ^ Objects.hashCode(vals[index]);
+        }
+
+        public String toString() {
+            return keys[index] + "=" + vals[index];
+        }
+    }
+
+    /* ---------------- Table internals -------------- */
+
+    /**
+     * Returns the slot holding {@code key}, or -1 if absent.
+     */
+    final int indexOf(int key) {
+        if (key == 0)
+            return containsZeroKey ? mask + 1 : -1;
+        int[] ks = keys;
+        int m = mask;
+        int k;
+        for (int i = mix(key) & m; (k = ks[i]) != 0; i = (i + 1) & m) {
+            if (k == key)
+                return i;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    final V putVal(int key, V value, boolean onlyIfAbsent) {
+        int i;
+        if (key == 0) {
+            i = mask + 1;
+            if (!containsZeroKey)
+                return insertAt(i, 0, value);
+        } else {
+            int[] ks = keys;
+            int m = mask;
+            int k;
+            for (i = mix(key) & m; (k = ks[i]) != 0; i = (i + 1) & m) {
+                if (k == key)
+                    break;
+            }
+            if (k == 0)
+                return insertAt(i, key, value);
+        }
+        V oldValue = (V)vals[i];
+        if (!onlyIfAbsent || oldValue == null)
+            vals[i] = value;
+        return oldValue;
+    }
+
+    /**
+     * Inserts a new mapping at free slot {@code i}, growing the table
+     * first if needed so that at least one slot always stays free.
+     */
+    private V insertAt(int i, int key, V value) {
+        if (size >= threshold) {
+            resize(mask + 1 << 1);
+            i = (key == 0) ? mask + 1 : freeSlotFor(key);
+        }
+        if (key == 0)
+            containsZeroKey = true;
+        keys[i] = key;
+        vals[i] = value;
+        ++modCount;
+        ++size;
+        return null;
+    }
+
+    /**
+     * Returns the first free slot of the probe run of a non-zero key
+     * known to be absent.
+     */
+    private int freeSlotFor(int key) {
+        int[] ks = keys;
+        int m = mask;
+        int i = mix(key) & m;
+        while (ks[i] != 0)
+            i = (i + 1) & m;
+        return i;
+    }
+
+    /**
+     * Removes the mapping held in slot {@code i}.
+     */
+    final void removeAt(int i) {
+        ++modCount;
+        --size;
+        if (i == mask + 1) {
+            containsZeroKey = false;
+            vals[i] = null;
+        } else {
+            shiftKeys(i);
+        }
+    }
+
+    /**
+     * Closes the gap left at {@code pos} by shifting back the entries of
+     * the following probe run that would otherwise become unreachable.
+     *
+     * @return the position that was finally freed
+     */
+    final int shiftKeys(int pos) {
+        int[] ks = keys;
+        Object[] vs = vals;
+        int m = mask;
+        for (;;) {
+            int last = pos;
+            int k;
+            for (pos = (last + 1) & m; ; pos = (pos + 1) & m) {
+                if ((k = ks[pos]) == 0) {
+                    ks[last] = 0;
+                    vs[last] = null;
+                    return last;
+                }
+                int slot = mix(k) & m;
+                if (last <= pos ? (last >= slot || slot > pos)
+                                : (last >= slot && slot > pos))
+                    break;
+            }
+            ks[last] = k;
+            vs[last] = vs[pos];
+        }
+    }
+
+    private void ensureCapacity(int expected) {
+        int n = tableSizeFor(expected, loadFactor);
+        if (n > mask + 1)
+            resize(n);
+    }
+
+    private void allocate(int n) {
+        keys = new int[n + 1];
+        vals = new Object[n + 1];
+        mask = n - 1;
+        threshold = thresholdFor(n, loadFactor);
+    }
+
+    /**
+     * Rehashes every mapping into a table of capacity {@code n}.
+     */
+    final void resize(int n) {
+        if (mask + 1 == MAXIMUM_CAPACITY)
+            throw new IllegalStateException("Map is full");
+        int[] oldKeys = keys;
+        Object[] oldValues = vals;
+        int oldCap = mask + 1;
+        allocate(n);
+        int[] ks = keys;
+        Object[] vs = vals;
+        int m = mask;
+        vs[m + 1] = oldValues[oldCap];
+        for (int j = 0; j < oldCap; ++j) {
+            int k = oldKeys[j];
+            if (k != 0) {
+                int i = mix(k) & m;
+                while (ks[i] != 0)
+                    i = (i + 1) & m;
+                ks[i] = k;
+                vs[i] = oldValues[j];
+            }
+        }
+    }
+
+    /* ---------------- Iterators -------------- */
+
+    /**
+     * Walks the table from the highest slot down, starting with the zero
+     * key slot.  When a removal through the iterator shifts an entry that
+     * has not yet been visited across the end of the table (into the
+     * already visited region), its key is remembered and returned after
+     * the scan completes, so that every mapping is visited exactly once.
+     */
+    abstract class HashIterator {
+        int pos;               // next slot to examine (scanning down)
+        int last = -1;         // slot of the last returned entry
+        int remaining;         // entries still to return
+        int lastKey;           // key of the last returned entry
+        boolean lastValid;     // whether remove() is allowed
+        boolean mustReturnZeroKey;
+        int[] wrapped;         // keys shifted into the visited region
+        int wrappedCount;
+        int expectedModCount;  // for fast-fail
+
+        HashIterator() {
+            pos = mask + 1;
+            remaining = size;
+            mustReturnZeroKey = containsZeroKey;
+            expectedModCount = modCount;
+        }
+
+        public final boolean hasNext() {
+            return remaining > 0;
+        }
+
+        final int nextIndex() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (remaining <= 0)
+                throw new NoSuchElementException();
+            --remaining;
+            lastValid = true;
+            if (mustReturnZeroKey) {
+                mustReturnZeroKey = false;
+                lastKey = 0;
+                return last = mask + 1;
+            }
+            int[] ks = keys;
+            for (;;) {
+                if (--pos < 0) {
+                    // Entries shifted across the end of the table.
+                    last = -1;
+                    lastKey = wrapped[--wrappedCount];
+                    return indexOf(lastKey);
+                }
+                if (ks[pos] != 0) {
+                    lastKey = ks[pos];
+                    return last = pos;
+                }
+            }
+        }
+
+        public final void remove() {
+            if (!lastValid)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            lastValid = false;
+            if (last == mask + 1) {
+                removeAt(last);
+            } else if (last >= 0) {
+                ++modCount;
+                --size;
+                iteratorShiftKeys(last);
+            } else {
+                IntObjectHashMap.this.remove(lastKey);
+            }
+            last = -1;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Variant of {@link #shiftKeys} that records entries moved from
+         * the unvisited region into the visited one.
+         */
+        private void iteratorShiftKeys(int pos) {
+            int[] ks = keys;
+            Object[] vs = vals;
+            int m = mask;
+            for (;;) {
+                int last = pos;
+                int k;
+                for (pos = (last + 1) & m; ; pos = (pos + 1) & m) {
+                    if ((k = ks[pos]) == 0) {
+                        ks[last] = 0;
+                        vs[last] = null;
+                        return;
+                    }
+                    int slot = mix(k) & m;
+                    if (last <= pos ? (last >= slot || slot > pos)
+                                    : (last >= slot && slot > pos))
+                        break;
+                }
+                if (pos < last) {
+                    if (wrapped == null)
+                        wrapped = new int[2];
+                    else if (wrappedCount == wrapped.length)
+                        wrapped = Arrays.copyOf(wrapped, wrappedCount << 1);
+                    wrapped[wrappedCount++] = k;
+                }
+                ks[last] = k;
+                vs[last] = vs[pos];
+            }
+        }
+    }
+
+    final class EntryIterator extends HashIterator
+        implements Iterator<Map.Entry<Integer,V>> {
+        public final Map.Entry<Integer,V> next() { return new MapEntry(nextIndex()); }
+    }
+
+    final class KeyIterator extends HashIterator
+        implements PrimitiveIterator.OfInt {
+        public final int nextInt() { return keys[nextIndex()]; }
+    }
+}
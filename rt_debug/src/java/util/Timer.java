@@ -25,6 +25,9 @@
 
 package java.util;
 import java.util.Date;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -73,10 +76,22 @@ import java.util.concurrent.atomic.AtomicInteger;
  * ScheduledThreadPoolExecutor} with one thread makes it equivalent to
  * {@code Timer}.
  *
+ * <p>A timer created with an {@link Executor} (see
+ * {@link #Timer(String, boolean, int, Executor)}) only uses its background
+ * threads to detect that tasks are due, and runs the tasks themselves on
+ * the executor, so that a slow task no longer delays the others.  Such a
+ * timer may also spread its tasks over several queues, each served by its
+ * own background thread, so that scheduling from many threads does not
+ * serialize on a single queue.  Tasks then run concurrently with each
+ * other, although a repeating task never overlaps with itself.
+ *
  * <p>Implementation note: This class scales to large numbers of concurrently
  * scheduled tasks (thousands should present no problem).  Internally,
  * it uses a binary heap to represent its task queue, so the cost to schedule
  * a task is O(log n), where n is the number of concurrently scheduled tasks.
+ * Cancelled tasks are discarded when they reach the head of the queue, and
+ * a queue is compacted automatically once more than half of its tasks have
+ * been cancelled, so calling {@link #purge} is never required.
  *
  * <p>Implementation note: All constructors start a timer thread.
  *
@@ -88,17 +103,19 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 public class Timer {
     /**
-     * The timer task queue.  This data structure is shared with the timer
-     * thread.  The timer produces tasks, via its various schedule calls,
-     * and the timer thread consumes, executing timer tasks as appropriate,
-     * and removing them from the queue when they're obsolete.
+     * The timer task queues, one per stripe.  Each queue is shared with the
+     * timer thread of the same index.  The timer produces tasks, via its
+     * various schedule calls, and the timer threads consume, executing (or
+     * dispatching) timer tasks as appropriate, and removing them from the
+     * queue when they're obsolete.  Timers created without an executor have
+     * exactly one stripe.
      */
-    private final TaskQueue queue = new TaskQueue();
+    private final TaskQueue[] queues;
 
     /**
-     * The timer thread.
+     * The timer threads, one per stripe.
      */
-    private final TimerThread thread = new TimerThread(queue);
+    private final TimerThread[] threads;
 
     /**
      * This object causes the timer's task execution thread to exit
@@ -109,9 +126,12 @@ public class Timer {
      */
     private final Object threadReaper = new Object() {
         protected void finalize() throws Throwable {
-            synchronized(queue) {
-                thread.newTasksMayBeScheduled = false;
-                queue.notify(); // In case queue is empty.
+            for (int i = 0; i < queues.length; i++) {
+                TaskQueue queue = queues[i];
+                synchronized(queue) {
+                    threads[i].newTasksMayBeScheduled = false;
+                    queue.notify(); // In case queue is empty.
+                }
             }
         }
     };
@@ -156,8 +176,8 @@ public class Timer {
      * @since 1.5
      */
     public Timer(String name) {
-        thread.setName(name);
-        thread.start();
+        this(1, null);
+        startThreads(name);
     }
 
     /**
@@ -171,9 +191,83 @@ public class Timer {
      * @since 1.5
      */
     public Timer(String name, boolean isDaemon) {
-        thread.setName(name);
-        thread.setDaemon(isDaemon);
-        thread.start();
+        this(1, null);
+        for (TimerThread thread : threads)
+            thread.setDaemon(isDaemon);
+        startThreads(name);
+    }
+
+    /**
+     * Creates a new timer that runs its tasks on the specified executor.
+     * The timer's own threads merely wait for tasks to become due and hand
+     * them to the executor, so a task that takes excessive time to complete
+     * only occupies an executor thread, and does not delay other tasks.
+     * Passing a bounded executor (for example a
+     * {@link java.util.concurrent.ThreadPoolExecutor ThreadPoolExecutor}
+     * with a bounded queue) bounds the number of tasks running at once.
+     *
+     * <p>Tasks are spread over {@code stripes} queues, each with its own
+     * timer thread, chosen at random when a task is scheduled.  This allows
+     * threads that schedule many tasks concurrently to do so without all
+     * contending for the same queue.  A single stripe is sufficient unless
+     * scheduling itself is a bottleneck.
+     *
+     * <p>Unlike with other timers, tasks may run concurrently with each
+     * other.  A repeating task is rescheduled only when its previous
+     * execution has completed, so it never runs concurrently with itself.
+     * If a repeating task throws an exception it is not rescheduled, but
+     * the timer remains usable.  If the executor rejects a task, it is run
+     * in the timer thread that was dispatching it.
+     *
+     * @param name the name of the associated threads; if there is more
+     *        than one stripe, the index of the stripe is appended
+     * @param isDaemon true if the associated threads should run as daemons
+     * @param stripes the number of task queues, and of associated threads
+     * @param executor the executor that runs the tasks
+     * @throws IllegalArgumentException if {@code stripes <= 0}
+     * @throws NullPointerException if {@code name} or {@code executor} is
+     *         null
+     * @since 1.8
+     */
+    public Timer(String name, boolean isDaemon, int stripes, Executor executor) {
+        this(checkStripes(stripes), Objects.requireNonNull(executor));
+        Objects.requireNonNull(name);
+        for (TimerThread thread : threads)
+            thread.setDaemon(isDaemon);
+        startThreads(name);
+    }
+
+    /**
+     * Creates the queues and (unstarted) threads of a timer.
+     *
+     * @param stripes the number of queues
+     * @param executor the executor that runs tasks, or null to run them in
+     *        the timer thread
+     */
+    private Timer(int stripes, Executor executor) {
+        queues = new TaskQueue[stripes];
+        threads = new TimerThread[stripes];
+        for (int i = 0; i < stripes; i++) {
+            queues[i] = new TaskQueue();
+            threads[i] = new TimerThread(queues[i], executor);
+        }
+    }
+
+    private static int checkStripes(int stripes) {
+        if (stripes <= 0)
+            throw new IllegalArgumentException("Non-positive stripes.");
+        return stripes;
+    }
+
+    private void startThreads(String name) {
+        if (threads.length == 1) {
+            threads[0].setName(name);
+        } else {
+            for (int i = 0; i < threads.length; i++)
+                threads[i].setName(name + "-" + i);
+        }
+        for (TimerThread thread : threads)
+            thread.start();
     }
 
     /**
@@ -392,8 +486,11 @@ public class Timer {
         if (Math.abs(period) > (Long.MAX_VALUE >> 1))
             period >>= 1;
 
+        int i = (queues.length == 1) ? 0 :
+            ThreadLocalRandom.current().nextInt(queues.length);
+        TaskQueue queue = queues[i];
         synchronized(queue) {
-            if (!thread.newTasksMayBeScheduled)
+            if (!threads[i].newTasksMayBeScheduled)
                 throw new IllegalStateException("Timer already cancelled.");
 
             synchronized(task.lock) {
@@ -403,8 +500,12 @@ public class Timer {
                 task.nextExecutionTime = time;
                 task.period = period;
                 task.state = TimerTask.SCHEDULED;
+                task.queue = queue;
             }
 
+            // Lazily drop cancelled tasks once they are the majority
+            if (queue.cancelledCount() > (queue.size() >> 1))
+                queue.purgeCancelled();
             queue.add(task);
             if (queue.getMin() == task)
                 queue.notify();
@@ -426,10 +527,13 @@ public class Timer {
      * calls have no effect.
      */
     public void cancel() {
-        synchronized(queue) {
-            thread.newTasksMayBeScheduled = false;
-            queue.clear();
-            queue.notify();  // In case queue was already empty.
+        for (int i = 0; i < queues.length; i++) {
+            TaskQueue queue = queues[i];
+            synchronized(queue) {
+                threads[i].newTasksMayBeScheduled = false;
+                queue.clear();
+                queue.notify();  // In case queue was already empty.
+            }
         }
     }
 
@@ -456,16 +560,10 @@ public class Timer {
      public int purge() {
          int result = 0;
 
-         synchronized(queue) {
-             for (int i = queue.size(); i > 0; i--) {
-                 if (queue.get(i).state == TimerTask.CANCELLED) {
-                     queue.quickRemove(i);
-                     result++;
-                 }
+         for (TaskQueue queue : queues) {
+             synchronized(queue) {
+                 result += queue.purgeCancelled();
              }
-
-             if (result != 0)
-                 queue.heapify();
          }
 
          return result;
@@ -496,8 +594,15 @@ class TimerThread extends Thread {
      */
     private TaskQueue queue;
 
-    TimerThread(TaskQueue queue) {
+    /**
+     * The executor that runs fired tasks, or null if they are run in this
+     * thread.
+     */
+    private final Executor executor;
+
+    TimerThread(TaskQueue queue, Executor executor) {
         this.queue = queue;
+        this.executor = executor;
     }
 
     public void run() {
@@ -533,6 +638,7 @@ class TimerThread extends Thread {
                     synchronized(task.lock) {
                         if (task.state == TimerTask.CANCELLED) {
                             queue.removeMin();
+                            queue.cancelledRemoved();
                             continue;  // No action required, poll queue again
                         }
                         currentTime = System.currentTimeMillis();
@@ -541,22 +647,97 @@ class TimerThread extends Thread {
                             if (task.period == 0) { // Non-repeating, remove
                                 queue.removeMin();
                                 task.state = TimerTask.EXECUTED;
-                            } else { // Repeating task, reschedule
+                            } else if (executor == null) { // Repeating task, reschedule
                                 queue.rescheduleMin(
                                   task.period<0 ? currentTime   - task.period
                                                 : executionTime + task.period);
+                            } else { // Requeued by dispatch once it completes
+                                queue.removeMin();
+                                task.nextExecutionTime =
+                                  task.period<0 ? currentTime   - task.period
+                                                : executionTime + task.period;
                             }
                         }
                     }
                     if (!taskFired) // Task hasn't yet fired; wait
                         queue.wait(executionTime - currentTime);
                 }
-                if (taskFired)  // Task fired; run it, holding no locks
-                    task.run();
+                if (taskFired) { // Task fired; run it, holding no locks
+                    if (executor == null)
+                        task.run();
+                    else
+                        dispatch(task);
+                }
             } catch(InterruptedException e) {
             }
         }
     }
+
+    /**
+     * Hands a fired task to the executor.  Repeating tasks are wrapped so
+     * that they are put back on the queue when they complete.  If the
+     * executor rejects the task, it is run in this thread instead.
+     */
+    private void dispatch(TimerTask task) {
+        Runnable r = (task.period == 0) ? task : new RequeueingTask(task, this);
+        try {
+            executor.execute(r);
+        } catch (RejectedExecutionException e) {
+            r.run();
+        }
+    }
+
+    /**
+     * Puts a repeating task whose execution has completed normally back on
+     * the queue, unless it has been cancelled or the timer has died
+     * meanwhile.  A task whose execution threw an exception is not run
+     * again, and is marked as executed so that cancelling it later does
+     * not count it as a cancelled task on the queue.
+     */
+    void requeue(TimerTask task, boolean completed) {
+        synchronized(queue) {
+            if (!newTasksMayBeScheduled)
+                return;
+            synchronized(task.lock) {
+                if (task.state != TimerTask.SCHEDULED) {
+                    // Cancelled while running, so was never counted out
+                    queue.cancelledRemoved();
+                    return;
+                }
+                if (!completed) {
+                    task.state = TimerTask.EXECUTED;
+                    return;
+                }
+            }
+            queue.add(task);
+            if (queue.getMin() == task)
+                queue.notify();
+        }
+    }
+}
+
+/**
+ * Runs a repeating task that was dispatched to an executor, and puts it back
+ * on its queue once it has completed normally.
+ */
+final class RequeueingTask implements Runnable {
+    private final TimerTask task;
+    private final TimerThread thread;
+
+    RequeueingTask(TimerTask task, TimerThread thread) {
+        this.task = task;
+        this.thread = thread;
+    }
+
+    public void run() {
+        boolean completed = false;
+        try {
+            task.run();
+            completed = true;
+        } finally {
+            thread.requeue(task, completed);
+        }
+    }
 }
 
 /**
@@ -583,6 +764,13 @@ class TaskQueue {
      */
     private int size = 0;
 
+    /**
+     * The number of tasks scheduled on this queue that have been cancelled
+     * but not yet removed from it.  Updated by TimerTask.cancel without
+     * holding the queue lock, so it is only a hint.
+     */
+    private final AtomicInteger cancelled = new AtomicInteger();
+
     /**
      * Returns the number of tasks currently on the queue.
      */
@@ -665,6 +853,52 @@ class TaskQueue {
             queue[i] = null;
 
         size = 0;
+        cancelled.set(0);
+    }
+
+    /**
+     * Records that a task scheduled on this queue has been cancelled.
+     */
+    void cancelledAdded() {
+        cancelled.incrementAndGet();
+    }
+
+    /**
+     * Records that a cancelled task has been discarded from this queue.
+     */
+    void cancelledRemoved() {
+        if (cancelled.decrementAndGet() < 0)
+            cancelled.set(0);
+    }
+
+    /**
+     * Returns the approximate number of cancelled tasks still on the queue.
+     */
+    int cancelledCount() {
+        return cancelled.get();
+    }
+
+    /**
+     * Removes all cancelled tasks from the queue and restores the heap
+     * invariant.
+     *
+     * @return the number of tasks removed
+     */
+    int purgeCancelled() {
+        int result = 0;
+        for (int i = size; i > 0; i--) {
+            if (queue[i].state == TimerTask.CANCELLED) {
+                quickRemove(i);
+                result++;
+            }
+        }
+        if (result != 0) {
+            heapify();
+            cancelled.addAndGet(-result);
+            if (cancelled.get() < 0)
+                cancelled.set(0);
+        }
+        return result;
     }
 
     /**
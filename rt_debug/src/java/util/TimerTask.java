@@ -73,6 +73,12 @@ public abstract class TimerTask implements Runnable {
      */
     long nextExecutionTime;
 
+    /**
+     * The queue this task was scheduled on, or null if it has not been
+     * scheduled.  Used to account for cancelled tasks left on the queue.
+     */
+    TaskQueue queue;
+
     /**
      * Period in milliseconds for repeating tasks.  A positive value indicates
      * fixed-rate execution.  A negative value indicates fixed-delay execution.
@@ -117,6 +123,8 @@ public abstract class TimerTask implements Runnable {
         synchronized(lock) {
             boolean result = (state == SCHEDULED);
             state = CANCELLED;
+            if (result && queue != null)
+                queue.cancelledAdded();
             return result;
         }
     }
@@ -165,6 +165,33 @@ public class ArrayBlockingQueue<E> extends AbstractQueue<E>
         notEmpty.signal();
     }
 
+    /**
+     * Inserts as many of the elements a[from, a.length) as there is room
+     * for at the current put position, advances, and signals as many
+     * waiting takers.  Call only when holding lock.
+     *
+     * @return the index in a of the first element not inserted
+     */
+    private int enqueue(Object[] a, int from) {
+        // assert lock.getHoldCount() == 1;
+        final Object[] items = this.items;
+        int n = Math.min(a.length - from, items.length - count);
+        if (n > 0) {
+            int put = putIndex;
+            int first = Math.min(n, items.length - put);
+            System.arraycopy(a, from, items, put, first);
+            System.arraycopy(a, from + first, items, 0, n - first);
+            put += n;
+            if (put >= items.length)
+                put -= items.length;
+            putIndex = put;
+            count += n;
+            for (int i = n; i > 0 && lock.hasWaiters(notEmpty); i--)
+                notEmpty.signal();
+        }
+        return from + n;
+    }
+
     /**
      * Extracts element at current take position, advances, and signals.
      * Call only when holding lock.
@@ -385,6 +412,88 @@ public class ArrayBlockingQueue<E> extends AbstractQueue<E>
         }
     }
 
+    /**
+     * Inserts all of the elements of the specified collection at the tail
+     * of this queue, in the order of the collection's iterator, waiting if
+     * necessary for space to become available.  Elements are inserted in
+     * batches, each as large as the space available, with a single lock
+     * acquisition per batch, signalling only as many waiting takers as
+     * there are elements in the batch.
+     *
+     * <p>If interrupted while waiting, the elements inserted before the
+     * interruption remain in the queue, and the others are not inserted.
+     *
+     * @param c collection containing elements to be added to this queue
+     * @throws InterruptedException if interrupted while waiting
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null
+     * @throws IllegalArgumentException if the collection is this queue
+     * @since 1.8
+     */
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        enqueueAll(c, false, 0L);
+    }
+
+    /**
+     * Inserts elements of the specified collection at the tail of this
+     * queue, in the order of the collection's iterator, waiting if
+     * necessary up to the specified wait time for space to become
+     * available.  Elements are inserted in batches, each as large as the
+     * space available, with a single lock acquisition per batch,
+     * signalling only as many waiting takers as there are elements in
+     * the batch.
+     *
+     * @param c collection containing elements to be added to this queue
+     * @param timeout how long to wait before giving up, in units of
+     *        {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return the number of elements inserted, which is less than the size
+     *         of the collection if the specified waiting time elapses
+     *         before space is available for all of them
+     * @throws InterruptedException if interrupted while waiting
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null
+     * @throws IllegalArgumentException if the collection is this queue
+     * @since 1.8
+     */
+    public int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        return enqueueAll(c, true, unit.toNanos(timeout));
+    }
+
+    /**
+     * Implements putAll and offerAll.
+     *
+     * @return the number of elements inserted
+     */
+    private int enqueueAll(Collection<? extends E> c, boolean timed, long nanos)
+        throws InterruptedException {
+        if (c == this)
+            throw new IllegalArgumentException();
+        Object[] a = c.toArray();
+        for (Object e : a)
+            checkNotNull(e);
+        if (a.length == 0)
+            return 0;
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            int i = 0;
+            while ((i = enqueue(a, i)) < a.length) {
+                if (!timed)
+                    notFull.await();
+                else if (nanos > 0)
+                    nanos = notFull.awaitNanos(nanos);
+                else
+                    break;
+            }
+            return i;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public E poll() {
         final ReentrantLock lock = this.lock;
         lock.lock();
@@ -715,44 +824,108 @@ public class ArrayBlockingQueue<E> extends AbstractQueue<E>
             throw new IllegalArgumentException();
         if (maxElements <= 0)
             return 0;
-        final Object[] items = this.items;
         final ReentrantLock lock = this.lock;
         lock.lock();
         try {
-            int n = Math.min(maxElements, count);
-            int take = takeIndex;
-            int i = 0;
-            try {
-                while (i < n) {
-                    @SuppressWarnings("unchecked")
-                    E x = (E) items[take];
-                    c.add(x);
-                    items[take] = null;
-                    if (++take == items.length)
-                        take = 0;
-                    i++;
-                }
-                return n;
-            } finally {
-                // Restore invariants even if c.add() threw
-                if (i > 0) {
-                    count -= i;
-                    takeIndex = take;
-                    if (itrs != null) {
-                        if (count == 0)
-                            itrs.queueIsEmpty();
-                        else if (i > take)
-                            itrs.takeIndexWrapped();
-                    }
-                    for (; i > 0 && lock.hasWaiters(notFull); i--)
-                        notFull.signal();
-                }
+            return drain(c, maxElements);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes at most the given number of available elements from this
+     * queue and adds them to the given collection, waiting if necessary
+     * up to the specified wait time for an element to become available.
+     * Once at least one element is available, this method removes the
+     * elements available, up to {@code maxElements}, with a single lock
+     * acquisition, and does not wait for more.
+     *
+     * <p>A failure encountered while attempting to add elements to
+     * collection {@code c} may result in elements being in neither,
+     * either or both collections when the associated exception is
+     * thrown, as for {@link #drainTo(Collection, int)}.
+     *
+     * @param c the collection to transfer elements into
+     * @param maxElements the maximum number of elements to transfer
+     * @param timeout how long to wait before giving up, in units of
+     *        {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return the number of elements transferred, which is zero if the
+     *         specified waiting time elapses before an element is available
+     * @throws InterruptedException if interrupted while waiting
+     * @throws UnsupportedOperationException if addition of elements
+     *         is not supported by the specified collection
+     * @throws ClassCastException if the class of an element of this queue
+     *         prevents it from being added to the specified collection
+     * @throws NullPointerException if the specified collection is null
+     * @throws IllegalArgumentException if the specified collection is this
+     *         queue, or some property of an element of this queue prevents
+     *         it from being added to the specified collection
+     * @since 1.8
+     */
+    public int drainTo(Collection<? super E> c, int maxElements,
+                       long timeout, TimeUnit unit)
+        throws InterruptedException {
+        checkNotNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0)
+                    return 0;
+                nanos = notEmpty.awaitNanos(nanos);
             }
+            return drain(c, maxElements);
         } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * Transfers at most maxElements available elements to c.  Call only
+     * when holding lock.
+     */
+    private int drain(Collection<? super E> c, int maxElements) {
+        // assert lock.getHoldCount() == 1;
+        final Object[] items = this.items;
+        int n = Math.min(maxElements, count);
+        int take = takeIndex;
+        int i = 0;
+        try {
+            while (i < n) {
+                @SuppressWarnings("unchecked")
+                E x = (E) items[take];
+                c.add(x);
+                items[take] = null;
+                if (++take == items.length)
+                    take = 0;
+                i++;
+            }
+            return n;
+        } finally {
+            // Restore invariants even if c.add() threw
+            if (i > 0) {
+                count -= i;
+                takeIndex = take;
+                if (itrs != null) {
+                    if (count == 0)
+                        itrs.queueIsEmpty();
+                    else if (i > take)
+                        itrs.takeIndexWrapped();
+                }
+                for (; i > 0 && lock.hasWaiters(notFull); i--)
+                    notFull.signal();
+            }
+        }
+    }
+
     /**
      * Returns an iterator over the elements in this queue in proper sequence.
      * The elements will be returned in order from first (head) to last (tail).
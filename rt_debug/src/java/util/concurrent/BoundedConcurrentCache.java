@@ -0,0 +1,1454 @@
+package java.util.concurrent;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A concurrent cache that holds at most a given number of entries,
+ * backed by a {@link ConcurrentHashMap}.  Entries are evicted when the
+ * cache grows past its maximum size, and may also expire a fixed
+ * duration after they were written or last read, and be refreshed
+ * asynchronously a fixed duration after they were written.
+ *
+ * <p>Retrievals have the same concurrency as those of a
+ * {@code ConcurrentHashMap}: they never block, and they record the
+ * access to the entry in one of several small buffers (chosen per
+ * thread) without taking any lock.  When a buffer fills up, or after
+ * an update, the thread that can acquire the lock guarding the
+ * eviction policy replays the recorded operations against it.  The
+ * buffers are lossy: under heavy contention some reads are not
+ * recorded, which only affects the choice of the entries to evict.
+ *
+ * <p>The eviction policy is <em>Window TinyLFU</em>.  New entries go
+ * to a small least-recently-used "window".  When an entry leaves the
+ * window while the cache is full, the estimated access frequencies of
+ * the entry and of the next victim of the main space are compared, and
+ * only the more frequently used of them is kept.  The main space is
+ * a segmented LRU, in which entries are "protected" from eviction once
+ * they have been read twice.  Frequencies are estimated by a compact
+ * count-min sketch, whose counters are halved periodically so that
+ * the policy adapts when the workload changes.  Compared with a plain
+ * LRU policy, this keeps the hit rate high for frequency-skewed
+ * workloads and for scans that touch every entry once.
+ *
+ * <p>Expired entries are never returned, but they may be counted by
+ * {@link #size} until they are removed, which happens during
+ * maintenance of the eviction policy.  Refreshing an entry, with
+ * {@link #refresh} or because the {@linkplain
+ * Builder#setRefreshAfterWrite refresh interval} has elapsed when it is
+ * read, loads its new value on the {@linkplain Builder#setExecutor
+ * executor} while the old value is still returned.
+ *
+ * <p>Hit, miss, load and eviction counts are kept for every cache, and
+ * returned by {@link #stats}.
+ *
+ * <p>Like {@code ConcurrentHashMap}, this class does <em>not</em> allow
+ * {@code null} to be used as a key or value.  A cache is created with a
+ * {@link Builder}; for example:
+ * <pre> {@code
+ * BoundedConcurrentCache<String,Image> images =
+ *     new BoundedConcurrentCache.Builder<String,Image>()
+ *         .setMaximumSize(10_000)
+ *         .setExpireAfterAccess(10, TimeUnit.MINUTES)
+ *         .setRefreshAfterWrite(1, TimeUnit.MINUTES)
+ *         .setLoader(Image::fetch)
+ *         .build();
+ * }</pre>
+ *
+ * @since 1.8
+ * @param <K> the type of keys maintained by this cache
+ * @param <V> the type of cached values
+ */
+public class BoundedConcurrentCache<K,V> {
+
+    /*
+     * Overview:
+     *
+     * The mappings live in "data", a ConcurrentHashMap from keys to
+     * Nodes.  Each mapping is changed only inside a ConcurrentHashMap
+     * compute method, or by a plain put/remove of the map, so that
+     * every change of a node's value happens while it is mapped.  A
+     * node replaced or removed from the map is never mapped again.
+     *
+     * The eviction policy (the deques, the sketch and the sizes) is
+     * guarded by evictionLock.  Threads that read or write the map
+     * never wait for it.  Instead they record what they did: reads in
+     * the striped, lossy readBuffers, and writes, which must not be
+     * lost, as tasks in writeBuffer, a bounded MpscArrayQueue.  They
+     * then tryLock the eviction lock, and if they get it, run
+     * maintenance, which replays the buffers, then removes expired
+     * entries and evicts entries until the cache is back within its
+     * maximum size.  Writes always try to run maintenance, so that the
+     * bound is enforced promptly; reads do only when their buffer is
+     * full.  A writer that cannot add its task because the write
+     * buffer stays full waits for the lock and runs the task itself,
+     * which bounds the work owed by writers to the policy.
+     *
+     * Tasks may be replayed in a different order than the writes that
+     * produced them happened in, since writers race to the buffer.
+     * The policy copes by ignoring tasks that are out of date: a node
+     * is linked by its add task only if it is not "dead" yet (that is,
+     * it was not unlinked by its removal, or evicted, before), and
+     * updates of and reads from unlinked nodes are ignored.
+     *
+     * Each linked node is in one of three access-ordered deques, the
+     * window, probation and protected segments, and also in a
+     * write-ordered deque if entries expire after write.  Nodes enter
+     * at the tail of the window.  Nodes pushed out of the window go to
+     * probation.  When the cache is then over its maximum size, the
+     * node from the window (the candidate) and the head of probation
+     * (the victim) compete in admit, and the one with the lower
+     * frequency is evicted.  A probation node that is read moves to
+     * the protected segment, and protected nodes overflowing its
+     * bound move back to probation.
+     *
+     * Expiration works on the heads of the deques: the nodes least
+     * recently read for expire-after-access, and least recently
+     * written for expire-after-write.  Since reads may be replayed
+     * late or dropped, the access order is only approximate, and an
+     * expired node may stay behind a live one for a while.  Reads
+     * check the timestamps themselves, so such a node is never
+     * returned.
+     */
+
+    /** The number of CPUs, for sizing the buffers */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** The number of read buffers, a power of two */
+    static final int READ_BUFFERS = ceilingPowerOfTwo(Math.min(NCPU, 64));
+
+    /** The number of slots of each read buffer, a power of two */
+    static final int READ_BUFFER_SIZE = 16;
+
+    /** The capacity of the write buffer */
+    static final int WRITE_BUFFER_SIZE = 128 * READ_BUFFERS;
+
+    /**
+     * The number of times a writer tries to add its task to a full
+     * write buffer before it waits for the eviction lock.
+     */
+    static final int WRITE_BUFFER_RETRIES = 100;
+
+    /**
+     * Candidates estimated to have been used fewer times than this
+     * are never admitted in place of a more frequently used victim.
+     * Warmer candidates are admitted at random once in a while, so
+     * that flooding the sketch with colliding keys cannot keep a
+     * victim in the cache forever.
+     */
+    static final int ADMIT_WARM_FREQUENCY = 6;
+
+    /* Deques of the eviction policy (values of Node.queue) */
+    static final int NONE      = 0; // not linked
+    static final int WINDOW    = 1;
+    static final int PROBATION = 2;
+    static final int PROTECTED = 3;
+
+    /* Results of ReadBuffer.offer */
+    static final int SUCCESS = 0;
+    static final int FAILED  = 1; // lost a race for a slot
+    static final int FULL    = 2;
+
+    /** The mappings */
+    final ConcurrentHashMap<K,Node<K,V>> data;
+
+    /** The maximum number of entries */
+    final long maximumSize;
+
+    /** The maximum number of entries in the window */
+    final long windowMaximum;
+
+    /** The maximum number of entries in the protected segment */
+    final long protectedMaximum;
+
+    /** Durations of the expiration and refresh policies, or -1 if none */
+    final long expireAfterWriteNanos;
+    final long expireAfterAccessNanos;
+    final long refreshAfterWriteNanos;
+
+    /**
+     * Whether any of these policies is used.  If not, nodes are not
+     * timestamped, which saves reading the clock on every operation.
+     */
+    final boolean timed;
+
+    /** The function computing values for refresh, or null if none */
+    final Function<? super K, ? extends V> loader;
+
+    /** The executor running refreshes */
+    final Executor executor;
+
+    /** Buffers recording reads, indexed by thread probe */
+    final ReadBuffer[] readBuffers;
+
+    /** Buffer of tasks recording writes */
+    final MpscArrayQueue<Runnable> writeBuffer;
+
+    /** Guards the eviction policy */
+    final ReentrantLock evictionLock = new ReentrantLock();
+
+    // The eviction policy, guarded by evictionLock
+    final AccessOrderDeque<K,V> window = new AccessOrderDeque<K,V>();
+    final AccessOrderDeque<K,V> probation = new AccessOrderDeque<K,V>();
+    final AccessOrderDeque<K,V> protectedSegment =
+        new AccessOrderDeque<K,V>();
+    final WriteOrderDeque<K,V> writeOrder = new WriteOrderDeque<K,V>();
+    final FrequencySketch sketch;
+    long windowSize;
+    long protectedSize;
+    long linkedSize;
+
+    // Statistics
+    final LongAdder hitCount = new LongAdder();
+    final LongAdder missCount = new LongAdder();
+    final LongAdder loadSuccessCount = new LongAdder();
+    final LongAdder loadFailureCount = new LongAdder();
+    final LongAdder evictionCount = new LongAdder();
+    final LongAdder expirationCount = new LongAdder();
+
+    BoundedConcurrentCache(Builder<K,V> builder) {
+        maximumSize = builder.maximumSize;
+        windowMaximum = Math.min(maximumSize, Math.max(1L, maximumSize / 100));
+        long mainMaximum = maximumSize - windowMaximum;
+        protectedMaximum = mainMaximum - mainMaximum / 5;
+        expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        expireAfterAccessNanos = builder.expireAfterAccessNanos;
+        refreshAfterWriteNanos = builder.refreshAfterWriteNanos;
+        timed = (expireAfterWriteNanos >= 0L || expireAfterAccessNanos >= 0L ||
+                 refreshAfterWriteNanos >= 0L);
+        loader = builder.loader;
+        executor = (builder.executor != null) ? builder.executor
+            : ForkJoinPool.commonPool();
+        data = new ConcurrentHashMap<K,Node<K,V>>(
+            (int) Math.min(maximumSize, 16));
+        readBuffers = new ReadBuffer[READ_BUFFERS];
+        for (int i = 0; i < READ_BUFFERS; ++i)
+            readBuffers[i] = new ReadBuffer();
+        writeBuffer = new MpscArrayQueue<Runnable>(WRITE_BUFFER_SIZE);
+        sketch = new FrequencySketch();
+        sketch.ensureCapacity(Math.min(maximumSize, 16));
+    }
+
+    static int ceilingPowerOfTwo(int x) {
+        return 1 << -Integer.numberOfLeadingZeros(x - 1);
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code null} if this cache contains no unexpired mapping for the
+     * key.  A hit or a miss is recorded in the statistics, and a hit
+     * counts as an access to the entry for the eviction and
+     * expire-after-access policies.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the key is mapped, or {@code null}
+     * @throws NullPointerException if the specified key is null
+     */
+    public V get(Object key) {
+        Node<K,V> node = data.get(key);
+        if (node == null) {
+            missCount.increment();
+            return null;
+        }
+        long now = now();
+        if (hasExpired(node, now)) {
+            missCount.increment();
+            tryToRunMaintenance();
+            return null;
+        }
+        V value = node.value;
+        hitCount.increment();
+        afterRead(node, now);
+        return value;
+    }
+
+    /**
+     * Returns {@code true} if this cache contains an unexpired mapping
+     * for the specified key.  Neither the statistics nor the policies
+     * are affected.
+     *
+     * @param key the key whose presence is to be tested
+     * @return {@code true} if this cache contains a mapping for the key
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean containsKey(Object key) {
+        Node<K,V> node = data.get(key);
+        return node != null && !hasExpired(node, now());
+    }
+
+    /**
+     * If the specified key has no unexpired mapping, attempts to
+     * compute its value using the given mapping function and enters
+     * it into this cache unless {@code null}.  The entire method
+     * invocation is performed atomically, so the function is applied
+     * at most once per key.  Some attempted update operations on this
+     * cache by other threads may be blocked while computation is in
+     * progress, so the computation should be short and simple, and
+     * must not attempt to update any other mappings of this cache.
+     *
+     * <p>A computed value counts as a miss, and as a successful load
+     * unless it is {@code null}; an existing value counts as a hit.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key, or {@code null} if the computed value
+     *         is {@code null}
+     * @throws NullPointerException if the specified key or
+     *         mappingFunction is null
+     * @throws RuntimeException or Error if the mappingFunction does so,
+     *         in which case the mapping is left unestablished
+     */
+    public V computeIfAbsent(K key,
+                             Function<? super K, ? extends V> mappingFunction) {
+        if (key == null || mappingFunction == null)
+            throw new NullPointerException();
+        long now = now();
+        Node<K,V> node = data.get(key);
+        if (node != null && !hasExpired(node, now)) {
+            hitCount.increment();
+            afterRead(node, now);
+            return node.value;
+        }
+        @SuppressWarnings("unchecked")
+        Node<K,V>[] changed = (Node<K,V>[]) new Node<?,?>[2];
+        node = data.compute(key, (k, n) -> {
+            if (n != null && !hasExpired(n, now))
+                return n;
+            V value = load(k, mappingFunction);
+            changed[0] = n;
+            return (value == null) ? null
+                : (changed[1] = new Node<K,V>(k, value, now()));
+        });
+        if (changed[0] != null) {
+            expirationCount.increment();
+            afterRemoval(changed[0]);
+        }
+        if (node == null) {
+            missCount.increment();
+            return null;
+        }
+        if (node != changed[1]) {
+            hitCount.increment();
+            afterRead(node, now);
+        } else {
+            missCount.increment();
+            afterAdd(node);
+        }
+        return node.value;
+    }
+
+    /**
+     * Maps the specified key to the specified value in this cache.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no unexpired mapping for
+     *         {@code key}
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V put(K key, V value) {
+        return put(key, value, false);
+    }
+
+    /**
+     * If the specified key has no unexpired mapping, maps it to the
+     * given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no unexpired mapping for
+     *         the key
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V putIfAbsent(K key, V value) {
+        return put(key, value, true);
+    }
+
+    /** Implementation for put and putIfAbsent */
+    final V put(K key, V value, boolean onlyIfAbsent) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        long now = now();
+        Node<K,V> prior = data.get(key);
+        if (prior == null) {
+            Node<K,V> node = new Node<K,V>(key, value, now);
+            if ((prior = data.putIfAbsent(key, node)) == null) {
+                afterAdd(node);
+                return null;
+            }
+        }
+        if (onlyIfAbsent && !hasExpired(prior, now)) {
+            afterRead(prior, now);
+            return prior.value;
+        }
+        @SuppressWarnings("unchecked")
+        Node<K,V>[] changed = (Node<K,V>[]) new Node<?,?>[2];
+        Object[] oldValue = new Object[1];
+        Node<K,V> node = data.compute(key, (k, n) -> {
+            if (n == null || hasExpired(n, now)) {
+                changed[0] = n;
+                return changed[1] = new Node<K,V>(k, value, now);
+            }
+            oldValue[0] = n.value;
+            if (!onlyIfAbsent) {
+                n.value = value;
+                n.version++;
+                n.writeTime = now;
+                n.accessTime = now;
+            }
+            return n;
+        });
+        if (changed[0] != null) {
+            expirationCount.increment();
+            afterRemoval(changed[0]);
+        }
+        if (node == changed[1])
+            afterAdd(node);
+        else if (onlyIfAbsent)
+            afterRead(node, now);
+        else
+            afterUpdate(node);
+        @SuppressWarnings("unchecked") V v = (V) oldValue[0];
+        return v;
+    }
+
+    /**
+     * Removes the mapping for a key from this cache if it is present.
+     *
+     * @param key key whose mapping is to be removed from the cache
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no unexpired mapping for
+     *         {@code key}
+     * @throws NullPointerException if the specified key is null
+     */
+    public V remove(Object key) {
+        Node<K,V> node = data.remove(key);
+        if (node == null)
+            return null;
+        afterRemoval(node);
+        if (hasExpired(node, now())) {
+            expirationCount.increment();
+            return null;
+        }
+        return node.value;
+    }
+
+    /**
+     * Removes all of the mappings from this cache.
+     */
+    public void clear() {
+        for (K key : data.keySet())
+            remove(key);
+    }
+
+    /**
+     * Returns the number of mappings in this cache, including expired
+     * ones that have not been removed yet.  If the cache contains more
+     * than {@code Integer.MAX_VALUE} elements, returns
+     * {@code Integer.MAX_VALUE}.
+     *
+     * @return the number of mappings in this cache
+     */
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * Returns the maximum number of mappings in this cache.
+     *
+     * @return the maximum size
+     */
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Loads a new value for the specified key asynchronously, using
+     * the {@linkplain Builder#setLoader loader} of this cache, and
+     * returns a future completed with it once it has replaced the
+     * cached value.  Until then, the cache keeps returning the old
+     * value, if any.  The new value is discarded if the mapping is
+     * changed or removed while it is loaded, and a {@code null} value
+     * removes the mapping.  If the key is already being refreshed,
+     * the future of that refresh is returned.
+     *
+     * @param key the key whose value is to be refreshed
+     * @return a future completed with the new value, or exceptionally
+     *         if the loader or the executor throws an exception
+     * @throws NullPointerException if the specified key is null
+     * @throws IllegalStateException if this cache has no loader
+     */
+    public CompletableFuture<V> refresh(K key) {
+        if (key == null)
+            throw new NullPointerException();
+        if (loader == null)
+            throw new IllegalStateException("No loader");
+        return refresh(key, data.get(key));
+    }
+
+    /**
+     * Performs any pending maintenance of the eviction policy, which
+     * includes removing expired entries, in the calling thread.  There
+     * is normally no need to call this method, since maintenance is
+     * performed as part of the other operations, but it may be used to
+     * remove expired entries from a cache that is not otherwise in use.
+     */
+    public void cleanUp() {
+        final ReentrantLock lock = evictionLock;
+        lock.lock();
+        try {
+            maintenance();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a point-in-time view of the statistics of this cache.
+     * The counters are updated without locking, so while the cache is
+     * in use the values are only approximations, and are not
+     * necessarily consistent with each other.
+     *
+     * @return a snapshot of the statistics of this cache
+     */
+    public Stats stats() {
+        return new Stats(hitCount.sum(), missCount.sum(),
+                         loadSuccessCount.sum(), loadFailureCount.sum(),
+                         evictionCount.sum(), expirationCount.sum());
+    }
+
+    /**
+     * Returns a string identifying this cache, as well as its size
+     * and statistics.
+     *
+     * @return a string identifying this cache
+     */
+    public String toString() {
+        return super.toString() +
+            "[size = " + data.size() +
+            ", maximum size = " + maximumSize +
+            ", hits = " + hitCount.sum() +
+            ", misses = " + missCount.sum() +
+            ", evictions = " + evictionCount.sum() +
+            "]";
+    }
+
+    /* ---------------- Reads, writes and refreshes -------------- */
+
+    /** Returns the time for timestamps, or zero if nodes are untimed */
+    final long now() {
+        return timed ? System.nanoTime() : 0L;
+    }
+
+    final boolean hasExpired(Node<K,V> node, long now) {
+        return ((expireAfterWriteNanos >= 0L &&
+                 now - node.writeTime >= expireAfterWriteNanos) ||
+                (expireAfterAccessNanos >= 0L &&
+                 now - node.accessTime >= expireAfterAccessNanos));
+    }
+
+    /**
+     * Applies the given function to compute the value for a key,
+     * recording the outcome in the statistics.
+     */
+    final V load(K key, Function<? super K, ? extends V> function) {
+        V value;
+        try {
+            value = function.apply(key);
+        } catch (RuntimeException | Error ex) {
+            loadFailureCount.increment();
+            throw ex;
+        }
+        if (value == null)
+            loadFailureCount.increment();
+        else
+            loadSuccessCount.increment();
+        return value;
+    }
+
+    /**
+     * Records a hit on the given node, and starts its refresh if it
+     * is due.
+     */
+    final void afterRead(Node<K,V> node, long now) {
+        if (expireAfterAccessNanos >= 0L)
+            U.putOrderedLong(node, ACCESSTIME, now);
+        if (refreshAfterWriteNanos >= 0L && node.refresh == null &&
+            now - node.writeTime >= refreshAfterWriteNanos)
+            refresh(node.key, node);
+        int h;
+        if ((h = ThreadLocalRandom.getProbe()) == 0) {
+            ThreadLocalRandom.localInit();
+            h = ThreadLocalRandom.getProbe();
+        }
+        int r = readBuffers[h & (READ_BUFFERS - 1)].offer(node);
+        if (r == FAILED)
+            ThreadLocalRandom.advanceProbe(h);
+        else if (r == FULL)
+            tryToRunMaintenance();
+    }
+
+    final void afterAdd(Node<K,V> node) {
+        afterWrite(() -> onAdd(node));
+    }
+
+    final void afterUpdate(Node<K,V> node) {
+        afterWrite(() -> onUpdate(node));
+    }
+
+    final void afterRemoval(Node<K,V> node) {
+        afterWrite(() -> onRemoval(node));
+    }
+
+    /**
+     * Queues a task replaying a write against the eviction policy,
+     * and tries to run maintenance.
+     */
+    final void afterWrite(Runnable task) {
+        for (int i = 0; i < WRITE_BUFFER_RETRIES; ++i) {
+            if (writeBuffer.offer(task)) {
+                tryToRunMaintenance();
+                return;
+            }
+            tryToRunMaintenance();
+        }
+        // The lock holder is falling behind; help it
+        final ReentrantLock lock = evictionLock;
+        lock.lock();
+        try {
+            maintenance();
+            task.run();
+            evictEntries();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs maintenance unless another thread is running it.  Checks
+     * the write buffer again after releasing the lock, in case a
+     * writer failed to acquire it just before.
+     */
+    final void tryToRunMaintenance() {
+        final ReentrantLock lock = evictionLock;
+        do {
+            if (!lock.tryLock())
+                return;
+            try {
+                maintenance();
+            } finally {
+                lock.unlock();
+            }
+        } while (!writeBuffer.isEmpty());
+    }
+
+    /**
+     * Starts a refresh of the given node, or of an absent mapping if
+     * null.
+     */
+    final CompletableFuture<V> refresh(K key, Node<K,V> node) {
+        CompletableFuture<V> f = new CompletableFuture<V>();
+        if (node != null) {
+            CompletableFuture<V> r;
+            while ((r = node.refresh) == null &&
+                   !U.compareAndSwapObject(node, REFRESH, null, f))
+                ;
+            if (r != null)
+                return r;
+        }
+        int version = (node == null) ? 0 : node.version;
+        try {
+            executor.execute(() -> reload(key, node, version, f));
+        } catch (Throwable ex) {
+            if (node != null)
+                node.refresh = null;
+            f.completeExceptionally(ex);
+        }
+        return f;
+    }
+
+    /**
+     * Loads the new value of a refresh and installs it if the mapping
+     * is still the one that was refreshed, then completes the future.
+     */
+    final void reload(K key, Node<K,V> node, int version,
+                      CompletableFuture<V> f) {
+        V value;
+        try {
+            value = load(key, loader);
+        } catch (Throwable ex) {
+            if (node != null)
+                node.refresh = null;
+            f.completeExceptionally(ex);
+            return;
+        }
+        long now = now();
+        @SuppressWarnings("unchecked")
+        Node<K,V>[] changed = (Node<K,V>[]) new Node<?,?>[3];
+        data.compute(key, (k, n) -> {
+            if (n != node || (n != null && n.version != version))
+                return n;               // changed while loading
+            if (n == null)
+                return (value == null) ? null
+                    : (changed[1] = new Node<K,V>(k, value, now));
+            if (value == null) {
+                changed[0] = n;
+                return null;
+            }
+            n.value = value;
+            n.version++;
+            n.writeTime = now;
+            return changed[2] = n;
+        });
+        if (changed[0] != null)
+            afterRemoval(changed[0]);
+        else if (changed[1] != null)
+            afterAdd(changed[1]);
+        else if (changed[2] != null)
+            afterUpdate(changed[2]);
+        if (node != null)
+            node.refresh = null;
+        f.complete(value);
+    }
+
+    /* ---------------- Maintenance -------------- */
+
+    /**
+     * Replays the buffers, then expires and evicts entries.  Called
+     * only while holding evictionLock.
+     */
+    final void maintenance() {
+        for (ReadBuffer b : readBuffers)
+            b.drainTo(this);
+        Runnable task;
+        for (int i = 0; i < WRITE_BUFFER_SIZE &&
+                 (task = writeBuffer.poll()) != null; ++i)
+            task.run();
+        expireEntries();
+        evictEntries();
+    }
+
+    /** Replays a read of the given node */
+    final void onAccess(Node<K,V> node) {
+        switch (node.queue) {
+        case WINDOW:
+            sketch.increment(node.key);
+            window.moveToBack(node);
+            break;
+        case PROBATION:
+            sketch.increment(node.key);
+            probation.unlink(node);
+            protectedSegment.linkLast(node);
+            node.queue = PROTECTED;
+            ++protectedSize;
+            while (protectedSize > protectedMaximum) {
+                Node<K,V> demoted = protectedSegment.first;
+                protectedSegment.unlink(demoted);
+                probation.linkLast(demoted);
+                demoted.queue = PROBATION;
+                --protectedSize;
+            }
+            break;
+        case PROTECTED:
+            sketch.increment(node.key);
+            protectedSegment.moveToBack(node);
+            break;
+        default:                        // not added yet, or removed
+            break;
+        }
+    }
+
+    final void onAdd(Node<K,V> node) {
+        if (node.dead || node.queue != NONE)
+            return;
+        sketch.increment(node.key);
+        window.linkLast(node);
+        node.queue = WINDOW;
+        ++windowSize;
+        if (++linkedSize > sketch.capacity())
+            sketch.ensureCapacity(Math.min(linkedSize << 1, maximumSize));
+        if (expireAfterWriteNanos >= 0L)
+            writeOrder.linkLast(node);
+    }
+
+    final void onUpdate(Node<K,V> node) {
+        if (node.queue != NONE) {
+            onAccess(node);
+            if (expireAfterWriteNanos >= 0L)
+                writeOrder.moveToBack(node);
+        }
+    }
+
+    final void onRemoval(Node<K,V> node) {
+        unlink(node);
+        node.dead = true;
+    }
+
+    /** Unlinks the node from the deques, if linked */
+    final void unlink(Node<K,V> node) {
+        switch (node.queue) {
+        case WINDOW:
+            window.unlink(node);
+            --windowSize;
+            break;
+        case PROBATION:
+            probation.unlink(node);
+            break;
+        case PROTECTED:
+            protectedSegment.unlink(node);
+            --protectedSize;
+            break;
+        default:
+            return;
+        }
+        if (expireAfterWriteNanos >= 0L)
+            writeOrder.unlink(node);
+        node.queue = NONE;
+        --linkedSize;
+    }
+
+    /**
+     * Removes the node from the map, unless it is no longer mapped or,
+     * if it is being expired, was written or read since it expired,
+     * and unlinks it.
+     *
+     * @return false if the node was not expired after all
+     */
+    final boolean evict(Node<K,V> node, boolean expire, long now) {
+        boolean[] removed = new boolean[2];
+        data.computeIfPresent(node.key, (k, n) -> {
+            if (n != node)
+                return n;
+            if (expire && !hasExpired(n, now)) {
+                removed[1] = true;
+                return n;
+            }
+            removed[0] = true;
+            return null;
+        });
+        if (removed[1])
+            return false;
+        onRemoval(node);
+        if (removed[0])
+            (expire ? expirationCount : evictionCount).increment();
+        return true;
+    }
+
+    final void expireEntries() {
+        if (expireAfterAccessNanos < 0L && expireAfterWriteNanos < 0L)
+            return;
+        long now = System.nanoTime();
+        if (expireAfterAccessNanos >= 0L) {
+            expireEntries(window, now);
+            expireEntries(probation, now);
+            expireEntries(protectedSegment, now);
+        }
+        if (expireAfterWriteNanos >= 0L) {
+            Node<K,V> node;
+            while ((node = writeOrder.first) != null &&
+                   now - node.writeTime >= expireAfterWriteNanos) {
+                if (!evict(node, true, now))
+                    writeOrder.moveToBack(node);
+            }
+        }
+    }
+
+    final void expireEntries(AccessOrderDeque<K,V> deque, long now) {
+        Node<K,V> node;
+        while ((node = deque.first) != null &&
+               now - node.accessTime >= expireAfterAccessNanos) {
+            if (!evict(node, true, now))
+                deque.moveToBack(node);
+        }
+    }
+
+    /**
+     * Moves the nodes overflowing the window to probation, letting
+     * each compete with the head of probation while the cache is over
+     * its maximum size, then evicts from the heads of the deques
+     * until it is within it.
+     */
+    final void evictEntries() {
+        while (windowSize > windowMaximum) {
+            Node<K,V> candidate = window.first;
+            window.unlink(candidate);
+            --windowSize;
+            probation.linkLast(candidate);
+            candidate.queue = PROBATION;
+            if (linkedSize > maximumSize) {
+                Node<K,V> victim = probation.first;
+                if (victim != candidate && admit(candidate.key, victim.key))
+                    evict(victim, false, 0L);
+                else
+                    evict(candidate, false, 0L);
+            }
+        }
+        while (linkedSize > maximumSize) {
+            Node<K,V> victim;
+            if ((victim = probation.first) == null &&
+                (victim = protectedSegment.first) == null)
+                victim = window.first;
+            evict(victim, false, 0L);
+        }
+    }
+
+    /**
+     * Returns whether the candidate should be kept in place of the
+     * victim.
+     */
+    final boolean admit(K candidateKey, K victimKey) {
+        int victimFrequency = sketch.frequency(victimKey);
+        int candidateFrequency = sketch.frequency(candidateKey);
+        if (candidateFrequency > victimFrequency)
+            return true;
+        if (candidateFrequency < ADMIT_WARM_FREQUENCY)
+            return false;
+        return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+    }
+
+    /* ---------------- Nodes and deques -------------- */
+
+    /**
+     * A mapping.  The value, version and timestamps are written only
+     * while the node is mapped, inside compute methods of the map (or,
+     * for accessTime, by readers); the links are guarded by
+     * evictionLock.  The version counts the changes of value, so that a
+     * refresh can tell whether the value it replaces is still the one
+     * it started from, even when nodes are not timestamped.
+     */
+    static final class Node<K,V> {
+        final K key;
+        volatile V value;
+        volatile int version;
+        volatile long writeTime;
+        volatile long accessTime;
+        volatile CompletableFuture<V> refresh; // refresh in progress
+        Node<K,V> prev, next;                  // access order
+        Node<K,V> writePrev, writeNext;        // write order
+        int queue;                             // WINDOW etc, or NONE
+        boolean dead;                          // removed from the policy
+
+        Node(K key, V value, long now) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+    }
+
+    /** A deque of nodes linked through prev and next */
+    static final class AccessOrderDeque<K,V> {
+        Node<K,V> first, last;
+
+        void linkLast(Node<K,V> e) {
+            Node<K,V> l = last;
+            e.prev = l;
+            e.next = null;
+            if (l == null)
+                first = e;
+            else
+                l.next = e;
+            last = e;
+        }
+
+        void unlink(Node<K,V> e) {
+            Node<K,V> p = e.prev, n = e.next;
+            if (p == null)
+                first = n;
+            else
+                p.next = n;
+            if (n == null)
+                last = p;
+            else
+                n.prev = p;
+            e.prev = e.next = null;
+        }
+
+        void moveToBack(Node<K,V> e) {
+            if (e != last) {
+                unlink(e);
+                linkLast(e);
+            }
+        }
+    }
+
+    /** A deque of nodes linked through writePrev and writeNext */
+    static final class WriteOrderDeque<K,V> {
+        Node<K,V> first, last;
+
+        void linkLast(Node<K,V> e) {
+            Node<K,V> l = last;
+            e.writePrev = l;
+            e.writeNext = null;
+            if (l == null)
+                first = e;
+            else
+                l.writeNext = e;
+            last = e;
+        }
+
+        void unlink(Node<K,V> e) {
+            Node<K,V> p = e.writePrev, n = e.writeNext;
+            if (p == null)
+                first = n;
+            else
+                p.writeNext = n;
+            if (n == null)
+                last = p;
+            else
+                n.writePrev = p;
+            e.writePrev = e.writeNext = null;
+        }
+
+        void moveToBack(Node<K,V> e) {
+            if (e != last) {
+                unlink(e);
+                linkLast(e);
+            }
+        }
+    }
+
+    /**
+     * A bounded buffer of reads, filled by any number of readers and
+     * drained by the holder of the eviction lock.  Readers claim slots
+     * by a compare-and-set of writeCounter and give up, dropping the
+     * read, when they lose the race or the buffer is full.
+     */
+    @sun.misc.Contended
+    static final class ReadBuffer {
+        final Object[] slots = new Object[READ_BUFFER_SIZE];
+        volatile long readCounter;
+        volatile long writeCounter;
+
+        /** Returns SUCCESS, FAILED, or FULL if the buffer needs draining */
+        int offer(Object node) {
+            long head = readCounter, tail = writeCounter;
+            long n = tail - head;
+            if (n >= READ_BUFFER_SIZE)
+                return FULL;
+            if (!U.compareAndSwapLong(this, WRITECOUNTER, tail, tail + 1L))
+                return FAILED;
+            U.putOrderedObject(slots, slotOffset(tail), node);
+            return (n + 1L >= READ_BUFFER_SIZE) ? FULL : SUCCESS;
+        }
+
+        /**
+         * Replays the reads in the buffer.  Stops at a slot that was
+         * claimed but not filled yet, which the next drain resumes at.
+         */
+        @SuppressWarnings("unchecked")
+        <K,V> void drainTo(BoundedConcurrentCache<K,V> cache) {
+            long head = readCounter, tail = writeCounter;
+            for (; head != tail; ++head) {
+                long offset = slotOffset(head);
+                Object e = U.getObjectVolatile(slots, offset);
+                if (e == null)
+                    break;
+                U.putOrderedObject(slots, offset, null);
+                cache.onAccess((Node<K,V>) e);
+            }
+            U.putOrderedLong(this, READCOUNTER, head);
+        }
+
+        static long slotOffset(long index) {
+            return ((index & (READ_BUFFER_SIZE - 1)) << ASHIFT) + ABASE;
+        }
+    }
+
+    /**
+     * A count-min sketch estimating the access frequencies of keys
+     * with four-bit counters, sixteen to a long.  Each key maps to one
+     * counter in each of four longs chosen by independent hashes,
+     * using the same quarter of each long, and its estimate is the
+     * least of its counters.  After sampleSize increments, every
+     * counter is halved, so that the estimates favor recent accesses.
+     * Used only while holding evictionLock.
+     */
+    static final class FrequencySketch {
+        static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+            0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        static final long RESET_MASK = 0x7777777777777777L;
+        static final long ONE_MASK = 0x1111111111111111L;
+
+        long[] table = new long[0];
+        int tableMask;
+        int sampleSize;
+        int additions;
+
+        /** Returns the number of keys the sketch is sized for */
+        long capacity() {
+            return table.length;
+        }
+
+        /**
+         * Resizes the sketch for the given number of keys, if larger
+         * than its capacity, discarding the counts.
+         */
+        void ensureCapacity(long maximum) {
+            int n = (int) Math.min(Math.max(maximum, 8L), 1L << 30);
+            if (n <= table.length)
+                return;
+            int length = ceilingPowerOfTwo(n);
+            table = new long[length];
+            tableMask = length - 1;
+            sampleSize = (int) Math.min(10L * length, Integer.MAX_VALUE);
+            additions = 0;
+        }
+
+        int frequency(Object key) {
+            int h = spread(key.hashCode());
+            int start = (h & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; ++i) {
+                long word = table[indexOf(h, i)];
+                int count = (int) ((word >>> ((start + i) << 2)) & 0xfL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        void increment(Object key) {
+            int h = spread(key.hashCode());
+            int start = (h & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; ++i) {
+                int index = indexOf(h, i);
+                long mask = 0xfL << ((start + i) << 2);
+                long word = table[index];
+                if ((word & mask) != mask) {
+                    table[index] = word + (mask & ONE_MASK);
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize)
+                reset();
+        }
+
+        /** Halves every counter */
+        void reset() {
+            long[] tab = table;
+            int odd = 0;
+            for (int i = 0; i < tab.length; ++i) {
+                odd += Long.bitCount(tab[i] & ONE_MASK);
+                tab[i] = (tab[i] >>> 1) & RESET_MASK;
+            }
+            additions = (additions >>> 1) - (odd >>> 2);
+        }
+
+        int indexOf(int h, int i) {
+            long hash = (h + SEEDS[i]) * SEEDS[i];
+            hash += hash >>> 32;
+            return (int) hash & tableMask;
+        }
+
+        static int spread(int x) {
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            return (x >>> 16) ^ x;
+        }
+    }
+
+    /* ---------------- Builder and statistics -------------- */
+
+    /**
+     * Builds {@code BoundedConcurrentCache} instances.  Only the
+     * maximum size must be set; expiration and refresh are disabled
+     * unless set.
+     *
+     * @param <K> the type of keys maintained by the cache
+     * @param <V> the type of cached values
+     * @since 1.8
+     */
+    public static final class Builder<K,V> {
+        long maximumSize = -1L;
+        long expireAfterWriteNanos = -1L;
+        long expireAfterAccessNanos = -1L;
+        long refreshAfterWriteNanos = -1L;
+        Function<? super K, ? extends V> loader;
+        Executor executor;
+
+        /**
+         * Constructs an empty builder.
+         */
+        public Builder() { }
+
+        /**
+         * Sets the maximum number of entries of the cache.
+         *
+         * @param maximumSize the maximum size
+         * @return this builder
+         * @throws IllegalArgumentException if {@code maximumSize} is
+         *         negative
+         */
+        public Builder<K,V> setMaximumSize(long maximumSize) {
+            if (maximumSize < 0L)
+                throw new IllegalArgumentException();
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Sets the time after which entries expire, measured from
+         * their creation or the last replacement of their value.
+         *
+         * @param duration the duration
+         * @param unit the unit of {@code duration}
+         * @return this builder
+         * @throws IllegalArgumentException if {@code duration} is
+         *         negative
+         * @throws NullPointerException if {@code unit} is null
+         */
+        public Builder<K,V> setExpireAfterWrite(long duration,
+                                                TimeUnit unit) {
+            expireAfterWriteNanos = toNanos(duration, unit);
+            return this;
+        }
+
+        /**
+         * Sets the time after which entries expire, measured from
+         * their creation, the last replacement of their value, or
+         * their last retrieval.
+         *
+         * @param duration the duration
+         * @param unit the unit of {@code duration}
+         * @return this builder
+         * @throws IllegalArgumentException if {@code duration} is
+         *         negative
+         * @throws NullPointerException if {@code unit} is null
+         */
+        public Builder<K,V> setExpireAfterAccess(long duration,
+                                                 TimeUnit unit) {
+            expireAfterAccessNanos = toNanos(duration, unit);
+            return this;
+        }
+
+        /**
+         * Sets the time after which a retrieval of an entry starts a
+         * {@linkplain BoundedConcurrentCache#refresh refresh} of it,
+         * measured from its creation or the last replacement of its
+         * value.  A {@linkplain #setLoader loader} must be set too.
+         *
+         * @param duration the duration
+         * @param unit the unit of {@code duration}
+         * @return this builder
+         * @throws IllegalArgumentException if {@code duration} is
+         *         negative
+         * @throws NullPointerException if {@code unit} is null
+         */
+        public Builder<K,V> setRefreshAfterWrite(long duration,
+                                                 TimeUnit unit) {
+            refreshAfterWriteNanos = toNanos(duration, unit);
+            return this;
+        }
+
+        /**
+         * Sets the function computing new values for refreshes.
+         *
+         * @param loader the function
+         * @return this builder
+         * @throws NullPointerException if {@code loader} is null
+         */
+        public Builder<K,V> setLoader(
+            Function<? super K, ? extends V> loader) {
+            if (loader == null)
+                throw new NullPointerException();
+            this.loader = loader;
+            return this;
+        }
+
+        /**
+         * Sets the executor running refreshes.  By default, they run in
+         * the {@link ForkJoinPool#commonPool()}.
+         *
+         * @param executor the executor
+         * @return this builder
+         * @throws NullPointerException if {@code executor} is null
+         */
+        public Builder<K,V> setExecutor(Executor executor) {
+            if (executor == null)
+                throw new NullPointerException();
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Returns a new cache configured by this builder.
+         *
+         * @return the cache
+         * @throws IllegalStateException if the maximum size was not
+         *         set, or the refresh interval was set without a loader
+         */
+        public BoundedConcurrentCache<K,V> build() {
+            if (maximumSize < 0L)
+                throw new IllegalStateException("No maximum size");
+            if (refreshAfterWriteNanos >= 0L && loader == null)
+                throw new IllegalStateException("No loader");
+            return new BoundedConcurrentCache<K,V>(this);
+        }
+
+        static long toNanos(long duration, TimeUnit unit) {
+            if (unit == null)
+                throw new NullPointerException();
+            if (duration < 0L)
+                throw new IllegalArgumentException();
+            return unit.toNanos(duration);
+        }
+    }
+
+    /**
+     * An immutable view of the statistics of a
+     * {@code BoundedConcurrentCache}, as returned by
+     * {@link BoundedConcurrentCache#stats}.
+     *
+     * <p>A request is a retrieval through {@code get} or
+     * {@code computeIfAbsent}, and counts as a hit if it found an
+     * unexpired mapping and as a miss otherwise.  Loads are the
+     * computations of {@code computeIfAbsent} and refreshes; a load
+     * that returns {@code null} or throws an exception counts as a
+     * failure.  Evictions count the entries removed because the cache
+     * was full, and expirations those removed because they expired.
+     *
+     * @since 1.8
+     */
+    public static final class Stats {
+        private final long hitCount;
+        private final long missCount;
+        private final long loadSuccessCount;
+        private final long loadFailureCount;
+        private final long evictionCount;
+        private final long expirationCount;
+
+        Stats(long hitCount, long missCount, long loadSuccessCount,
+              long loadFailureCount, long evictionCount,
+              long expirationCount) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.loadSuccessCount = loadSuccessCount;
+            this.loadFailureCount = loadFailureCount;
+            this.evictionCount = evictionCount;
+            this.expirationCount = expirationCount;
+        }
+
+        /**
+         * Returns the number of requests that found a mapping.
+         *
+         * @return the number of hits
+         */
+        public long getHitCount() { return hitCount; }
+
+        /**
+         * Returns the number of requests that found no mapping.
+         *
+         * @return the number of misses
+         */
+        public long getMissCount() { return missCount; }
+
+        /**
+         * Returns the number of requests.
+         *
+         * @return the number of hits and misses
+         */
+        public long getRequestCount() { return hitCount + missCount; }
+
+        /**
+         * Returns the ratio of hits to requests, or {@code 1.0} if there
+         * were no requests.
+         *
+         * @return the hit rate
+         */
+        public double getHitRate() {
+            long requests = hitCount + missCount;
+            return (requests == 0L) ? 1.0 : (double) hitCount / requests;
+        }
+
+        /**
+         * Returns the ratio of misses to requests, or {@code 0.0} if
+         * there were no requests.
+         *
+         * @return the miss rate
+         */
+        public double getMissRate() {
+            long requests = hitCount + missCount;
+            return (requests == 0L) ? 0.0 : (double) missCount / requests;
+        }
+
+        /**
+         * Returns the number of loads that returned a value.
+         *
+         * @return the number of successful loads
+         */
+        public long getLoadSuccessCount() { return loadSuccessCount; }
+
+        /**
+         * Returns the number of loads that returned {@code null} or
+         * threw an exception.
+         *
+         * @return the number of failed loads
+         */
+        public long getLoadFailureCount() { return loadFailureCount; }
+
+        /**
+         * Returns the number of entries evicted because the cache was
+         * full.
+         *
+         * @return the number of evictions
+         */
+        public long getEvictionCount() { return evictionCount; }
+
+        /**
+         * Returns the number of entries removed because they expired.
+         *
+         * @return the number of expirations
+         */
+        public long getExpirationCount() { return expirationCount; }
+
+        public String toString() {
+            return super.toString() +
+                "[hits = " + hitCount +
+                ", misses = " + missCount +
+                ", loads = " + loadSuccessCount +
+                ", failed loads = " + loadFailureCount +
+                ", evictions = " + evictionCount +
+                ", expirations = " + expirationCount +
+                "]";
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long ACCESSTIME;
+    private static final long REFRESH;
+    private static final long READCOUNTER;
+    private static final long WRITECOUNTER;
+    private static final long ABASE;
+    private static final int ASHIFT;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> nk = Node.class;
+            ACCESSTIME = U.objectFieldOffset
+                (nk.getDeclaredField("accessTime"));
+            REFRESH = U.objectFieldOffset
+                (nk.getDeclaredField("refresh"));
+            Class<?> bk = ReadBuffer.class;
+            READCOUNTER = U.objectFieldOffset
+                (bk.getDeclaredField("readCounter"));
+            WRITECOUNTER = U.objectFieldOffset
+                (bk.getDeclaredField("writeCounter"));
+            ABASE = U.arrayBaseOffset(Object[].class);
+            int scale = U.arrayIndexScale(Object[].class);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -34,6 +34,8 @@
  */
 
 package java.util.concurrent;
+import java.util.Arrays;
+import java.util.List;
 import java.util.function.Supplier;
 import java.util.function.Consumer;
 import java.util.function.BiConsumer;
@@ -79,7 +81,13 @@ import java.util.concurrent.locks.LockSupport;
  * which case, a new Thread is created to run each task).  To simplify
  * monitoring, debugging, and tracking, all generated asynchronous
  * tasks are instances of the marker interface {@link
- * AsynchronousCompletionTask}. </li>
+ * AsynchronousCompletionTask}.  If the system property {@code
+ * java.util.concurrent.CompletableFuture.inlineOnExecutor} is {@code
+ * true}, an async action whose source is completed by a thread of the
+ * {@link ForkJoinPool} that would perform it is instead performed
+ * immediately by that thread, if it is the last action to be
+ * triggered by that completion, sparing a hand-off between threads
+ * for each stage of a chain. </li>
  *
  * <li>All CompletionStage methods are implemented independently of
  * other public methods, so the behavior of one method is not impacted
@@ -217,6 +225,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
 
     volatile Object result;       // Either the result or boxed AltResult
     volatile Completion stack;    // Top of Treiber stack of dependent actions
+    int depth;                    // Number of stages before this one
 
     final boolean internalComplete(Object r) { // CAS from null to r
         return UNSAFE.compareAndSwapObject(this, RESULT, null, r);
@@ -238,6 +247,32 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         do {} while (!tryPushStack(c));
     }
 
+    /** Returns a new incomplete stage depending on this one. */
+    final <V> CompletableFuture<V> newDependent() {
+        CompletableFuture<V> d = new CompletableFuture<V>();
+        d.depth = deeper(depth);
+        return d;
+    }
+
+    /** Returns a new incomplete stage depending on this one and b. */
+    final <V> CompletableFuture<V> newDependent(CompletableFuture<?> b) {
+        CompletableFuture<V> d = new CompletableFuture<V>();
+        d.depth = deeper(Math.max(depth, b.depth));
+        return d;
+    }
+
+    /** Returns a new stage depending on this one, with encoded result r. */
+    final <V> CompletableFuture<V> newCompletedDependent(Object r) {
+        CompletableFuture<V> d = new CompletableFuture<V>(r);
+        d.depth = deeper(depth);
+        return d;
+    }
+
+    /** Returns the depth of a stage after one of the given depth. */
+    static int deeper(int depth) {
+        return (depth == Integer.MAX_VALUE) ? depth : depth + 1; // saturate
+    }
+
     /* ------------- Encoding and decoding outcomes -------------- */
 
     static final class AltResult { // See above
@@ -400,6 +435,26 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     private static final Executor asyncPool = useCommonPool ?
         ForkJoinPool.commonPool() : new ThreadPerTaskExecutor();
 
+    /** Number of CPUs, to decide whether to spin while waiting */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Whether an async action may be performed by a worker of its
+     * executor that completes its source; see the class
+     * documentation.
+     */
+    static final boolean INLINE_ON_EXECUTOR =
+        java.security.AccessController.doPrivileged(
+            new sun.security.action.GetBooleanAction(
+                "java.util.concurrent.CompletableFuture.inlineOnExecutor"));
+
+    /** Returns true if the current thread is a worker of pool e. */
+    static boolean isWorkerOf(Executor e) {
+        Thread t;
+        return ((t = Thread.currentThread()) instanceof ForkJoinWorkerThread &&
+                ((ForkJoinWorkerThread)t).pool == e);
+    }
+
     /** Fallback if ForkJoinPool.commonPool() cannot support parallelism */
     static final class ThreadPerTaskExecutor implements Executor {
         public void execute(Runnable r) { new Thread(r).start(); }
@@ -471,11 +526,36 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
                     }
                     h.next = null;    // detach
                 }
+                else if (INLINE_ON_EXECUTOR && stack == null) {
+                    // last to be triggered; may run in this thread
+                    f = (d = fireInline(h)) == null ? this : d;
+                    continue;
+                }
                 f = (d = h.tryFire(NESTED)) == null ? this : d;
             }
         }
     }
 
+    /**
+     * Tries to trigger the last dependent popped by postComplete,
+     * allowing its action to be run in this thread (see claim) for
+     * the duration of this call only.
+     */
+    static CompletableFuture<?> fireInline(Completion h) {
+        Completion c = (h instanceof CoCompletion) ? ((CoCompletion)h).base : h;
+        if (!(c instanceof UniCompletion))
+            return h.tryFire(NESTED);
+        UniCompletion<?,?> u = (UniCompletion<?,?>)c;
+        Thread t = Thread.currentThread();
+        u.inliner = t;
+        try {
+            return h.tryFire(NESTED);
+        } finally {
+            if (u.inliner == t)
+                u.inliner = null;
+        }
+    }
+
     /** Traverses stack and unlinks dead Completions. */
     final void cleanStack() {
         for (Completion p = null, q = stack; q != null;) {
@@ -508,6 +588,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         Executor executor;                 // executor to use (null if none)
         CompletableFuture<V> dep;          // the dependent to complete
         CompletableFuture<T> src;          // source for action
+        Thread inliner;                    // thread that may run it (see claim)
 
         UniCompletion(Executor executor, CompletableFuture<V> dep,
                       CompletableFuture<T> src) {
@@ -518,7 +599,14 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
          * Returns true if action can be run. Call only when known to
          * be triggerable. Uses FJ tag bit to ensure that only one
          * thread claims ownership.  If async, starts as task -- a
-         * later call to tryFire will run action.
+         * later call to tryFire will run action -- unless this
+         * thread is firing it in postComplete as the last dependent
+         * of a completion (see fireInline) and is a worker of the
+         * executor, in which case the action is run now, as if sync.
+         * The inliner is only ever set to a thread by that thread, so
+         * other threads claiming it meanwhile, such as the completer
+         * of the other source of a BiCompletion or a thread racing to
+         * push it, never see themselves as the inliner.
          */
         final boolean claim() {
             Executor e = executor;
@@ -526,6 +614,8 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
                 if (e == null)
                     return true;
                 executor = null; // disable
+                if (inliner == Thread.currentThread() && isWorkerOf(e))
+                    return true;
                 e.execute(this);
             }
             return false;
@@ -610,7 +700,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     private <V> CompletableFuture<V> uniApplyStage(
         Executor e, Function<? super T,? extends V> f) {
         if (f == null) throw new NullPointerException();
-        CompletableFuture<V> d =  new CompletableFuture<V>();
+        CompletableFuture<V> d = newDependent();
         if (e != null || !d.uniApply(this, f, null)) {
             UniApply<T,V> c = new UniApply<T,V>(e, d, this, f);
             push(c);
@@ -665,7 +755,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     private CompletableFuture<Void> uniAcceptStage(Executor e,
                                                    Consumer<? super T> f) {
         if (f == null) throw new NullPointerException();
-        CompletableFuture<Void> d = new CompletableFuture<Void>();
+        CompletableFuture<Void> d = newDependent();
         if (e != null || !d.uniAccept(this, f, null)) {
             UniAccept<T> c = new UniAccept<T>(e, d, this, f);
             push(c);
@@ -713,7 +803,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
 
     private CompletableFuture<Void> uniRunStage(Executor e, Runnable f) {
         if (f == null) throw new NullPointerException();
-        CompletableFuture<Void> d = new CompletableFuture<Void>();
+        CompletableFuture<Void> d = newDependent();
         if (e != null || !d.uniRun(this, f, null)) {
             UniRun<T> c = new UniRun<T>(e, d, this, f);
             push(c);
@@ -774,7 +864,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     private CompletableFuture<T> uniWhenCompleteStage(
         Executor e, BiConsumer<? super T, ? super Throwable> f) {
         if (f == null) throw new NullPointerException();
-        CompletableFuture<T> d = new CompletableFuture<T>();
+        CompletableFuture<T> d = newDependent();
         if (e != null || !d.uniWhenComplete(this, f, null)) {
             UniWhenComplete<T> c = new UniWhenComplete<T>(e, d, this, f);
             push(c);
@@ -830,7 +920,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     private <V> CompletableFuture<V> uniHandleStage(
         Executor e, BiFunction<? super T, Throwable, ? extends V> f) {
         if (f == null) throw new NullPointerException();
-        CompletableFuture<V> d = new CompletableFuture<V>();
+        CompletableFuture<V> d = newDependent();
         if (e != null || !d.uniHandle(this, f, null)) {
             UniHandle<T,V> c = new UniHandle<T,V>(e, d, this, f);
             push(c);
@@ -880,7 +970,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     private CompletableFuture<T> uniExceptionallyStage(
         Function<Throwable, ? extends T> f) {
         if (f == null) throw new NullPointerException();
-        CompletableFuture<T> d = new CompletableFuture<T>();
+        CompletableFuture<T> d = newDependent();
         if (!d.uniExceptionally(this, f, null)) {
             UniExceptionally<T> c = new UniExceptionally<T>(d, this, f);
             push(c);
@@ -972,7 +1062,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
             // try to return function result directly
             if (r instanceof AltResult) {
                 if ((x = ((AltResult)r).ex) != null) {
-                    return new CompletableFuture<V>(encodeThrowable(x, r));
+                    return newCompletedDependent(encodeThrowable(x, r));
                 }
                 r = null;
             }
@@ -981,17 +1071,17 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
                 CompletableFuture<V> g = f.apply(t).toCompletableFuture();
                 Object s = g.result;
                 if (s != null)
-                    return new CompletableFuture<V>(encodeRelay(s));
-                CompletableFuture<V> d = new CompletableFuture<V>();
+                    return newCompletedDependent(encodeRelay(s));
+                CompletableFuture<V> d = newDependent();
                 UniRelay<V> copy = new UniRelay<V>(d, g);
                 g.push(copy);
                 copy.tryFire(SYNC);
                 return d;
             } catch (Throwable ex) {
-                return new CompletableFuture<V>(encodeThrowable(ex));
+                return newCompletedDependent(encodeThrowable(ex));
             }
         }
-        CompletableFuture<V> d = new CompletableFuture<V>();
+        CompletableFuture<V> d = newDependent();
         UniCompose<T,V> c = new UniCompose<T,V>(e, d, this, f);
         push(c);
         c.tryFire(SYNC);
@@ -1116,7 +1206,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         CompletableFuture<U> b;
         if (f == null || (b = o.toCompletableFuture()) == null)
             throw new NullPointerException();
-        CompletableFuture<V> d = new CompletableFuture<V>();
+        CompletableFuture<V> d = newDependent(b);
         if (e != null || !d.biApply(this, b, f, null)) {
             BiApply<T,U,V> c = new BiApply<T,U,V>(e, d, this, b, f);
             bipush(b, c);
@@ -1188,7 +1278,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         CompletableFuture<U> b;
         if (f == null || (b = o.toCompletableFuture()) == null)
             throw new NullPointerException();
-        CompletableFuture<Void> d = new CompletableFuture<Void>();
+        CompletableFuture<Void> d = newDependent(b);
         if (e != null || !d.biAccept(this, b, f, null)) {
             BiAccept<T,U> c = new BiAccept<T,U>(e, d, this, b, f);
             bipush(b, c);
@@ -1247,7 +1337,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         CompletableFuture<?> b;
         if (f == null || (b = o.toCompletableFuture()) == null)
             throw new NullPointerException();
-        CompletableFuture<Void> d = new CompletableFuture<Void>();
+        CompletableFuture<Void> d = newDependent(b);
         if (e != null || !d.biRun(this, b, f, null)) {
             BiRun<T,?> c = new BiRun<>(e, d, this, b, f);
             bipush(b, c);
@@ -1388,7 +1478,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         CompletableFuture<U> b;
         if (f == null || (b = o.toCompletableFuture()) == null)
             throw new NullPointerException();
-        CompletableFuture<V> d = new CompletableFuture<V>();
+        CompletableFuture<V> d = newDependent(b);
         if (e != null || !d.orApply(this, b, f, null)) {
             OrApply<T,U,V> c = new OrApply<T,U,V>(e, d, this, b, f);
             orpush(b, c);
@@ -1452,7 +1542,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         CompletableFuture<U> b;
         if (f == null || (b = o.toCompletableFuture()) == null)
             throw new NullPointerException();
-        CompletableFuture<Void> d = new CompletableFuture<Void>();
+        CompletableFuture<Void> d = newDependent(b);
         if (e != null || !d.orAccept(this, b, f, null)) {
             OrAccept<T,U> c = new OrAccept<T,U>(e, d, this, b, f);
             orpush(b, c);
@@ -1510,7 +1600,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         CompletableFuture<?> b;
         if (f == null || (b = o.toCompletableFuture()) == null)
             throw new NullPointerException();
-        CompletableFuture<Void> d = new CompletableFuture<Void>();
+        CompletableFuture<Void> d = newDependent(b);
         if (e != null || !d.orRun(this, b, f, null)) {
             OrRun<T,?> c = new OrRun<>(e, d, this, b, f);
             orpush(b, c);
@@ -1567,6 +1657,123 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return d;
     }
 
+    /* ------------- Gathering Completions -------------- */
+
+    /**
+     * The dependent of allOfList and anyOfSuccessful, counting down
+     * its sources as they complete.  Unlike andTree and orTree, no
+     * intermediate futures are created, and sources that are already
+     * complete are counted without pushing a Completion onto them.
+     */
+    static final class Gather<V> extends CompletableFuture<V> {
+        CompletableFuture<?>[] srcs;   // null once completed
+        final boolean any;             // true for anyOfSuccessful
+        volatile int pending;          // number of sources yet to arrive
+
+        Gather(CompletableFuture<?>[] srcs, boolean any) {
+            this.srcs = srcs; this.any = any; this.pending = srcs.length;
+        }
+
+        /** Counts each complete source, and pushes a GatherRelay on others. */
+        final Gather<V> start() {
+            CompletableFuture<?>[] as = srcs;
+            if (as.length == 0) {
+                if (!any)
+                    finish();
+            }
+            else {
+                for (CompletableFuture<?> a : as) {
+                    if (result != null)
+                        break;
+                    if (a.result != null)
+                        arrive(a, SYNC);
+                    else
+                        relay(a);
+                }
+            }
+            return this;
+        }
+
+        private <S> void relay(CompletableFuture<S> a) {
+            GatherRelay<S,V> c = new GatherRelay<S,V>(this, a);
+            a.push(c);
+            c.tryFire(SYNC);
+        }
+
+        /**
+         * Records the completion of source a, completing this future
+         * if a completed normally and this is anyOfSuccessful, or if
+         * a was the last source to arrive.
+         */
+        final CompletableFuture<V> arrive(CompletableFuture<?> a, int mode) {
+            Object r = a.result;
+            if (any && result == null &&
+                (!(r instanceof AltResult) || ((AltResult)r).ex == null))
+                internalComplete(r);
+            if (UNSAFE.getAndAddInt(this, PENDING, -1) == 1 && result == null)
+                finish();
+            if (result != null)
+                srcs = null;
+            return postFire(a, mode);
+        }
+
+        /**
+         * Completes this future when all sources are complete: with
+         * the exception of the first source that completed
+         * exceptionally, if any (as all did, for anyOfSuccessful),
+         * otherwise with the list of their results.
+         */
+        private void finish() {
+            CompletableFuture<?>[] as = srcs;
+            if (as == null)
+                return;
+            if (any) {
+                completeRelay(as[0].result);
+                return;
+            }
+            Object[] values = new Object[as.length];
+            for (int i = 0; i < as.length; ++i) {
+                Object r = as[i].result; Throwable x;
+                if (r instanceof AltResult) {
+                    if ((x = ((AltResult)r).ex) != null) {
+                        completeThrowable(x, r);
+                        return;
+                    }
+                    r = null;
+                }
+                values[i] = r;
+            }
+            @SuppressWarnings("unchecked") V v = (V) Arrays.asList(values);
+            completeValue(v);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class GatherRelay<T,V> extends UniCompletion<T,V> { // for Gather
+        GatherRelay(Gather<V> dep, CompletableFuture<T> src) {
+            super(null, dep, src);
+        }
+        final CompletableFuture<V> tryFire(int mode) {
+            CompletableFuture<V> d; CompletableFuture<T> a;
+            if ((d = dep) == null || (a = src) == null || a.result == null ||
+                !claim())
+                return null;
+            dep = null; src = null;
+            return ((Gather<V>)d).arrive(a, mode);
+        }
+    }
+
+    /** Returns the given futures as an array, checking for nulls. */
+    static CompletableFuture<?>[] toArray(
+        List<? extends CompletableFuture<?>> cfs) {
+        CompletableFuture<?>[] as = cfs.toArray(new CompletableFuture<?>[cfs.size()]);
+        for (CompletableFuture<?> a : as) {
+            if (a == null)
+                throw new NullPointerException();
+        }
+        return as;
+    }
+
     /* ------------- Zero-input Async forms -------------- */
 
     @SuppressWarnings("serial")
@@ -1643,6 +1850,18 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
 
     /* ------------- Signallers -------------- */
 
+    /** Bounds of the number of spins in waitingGet before parking */
+    static final int MIN_SPINS = 1 << 6;
+    static final int MAX_SPINS = 1 << 14;
+
+    /**
+     * The number of spins in waitingGet before parking: doubled
+     * after a wait that ends while spinning, or that parks for less
+     * time than it spun, and otherwise halved.  Races in updating it
+     * are harmless, so it is not volatile.
+     */
+    static int spinBudget = 1 << 8;
+
     /**
      * Completion for recording and releasing a waiting thread.  This
      * class implements ManagedBlocker to avoid starvation when
@@ -1705,17 +1924,27 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     private Object waitingGet(boolean interruptible) {
         Signaller q = null;
         boolean queued = false;
-        int spins = -1;
         Object r;
-        while ((r = result) == null) {
-            if (spins < 0)
-                spins = (Runtime.getRuntime().availableProcessors() > 1) ?
-                    1 << 8 : 0; // Use brief spin-wait on multiprocessors
-            else if (spins > 0) {
+        // Use brief spin-wait on multiprocessors, adapting its length
+        // to how long recent waits that parked turned out to be
+        int budget = (NCPU > 1) ? spinBudget : 0;
+        long spinEnd = 0L, spinNanos = 0L;
+        if (budget > 0) {
+            long spinStart = System.nanoTime();
+            for (int spins = budget; (r = result) == null && spins > 0; ) {
                 if (ThreadLocalRandom.nextSecondarySeed() >= 0)
                     --spins;
             }
-            else if (q == null)
+            if (r != null) {
+                if (budget < MAX_SPINS)
+                    spinBudget = budget << 1;
+                postComplete();
+                return r;
+            }
+            spinNanos = (spinEnd = System.nanoTime()) - spinStart;
+        }
+        while ((r = result) == null) {
+            if (q == null)
                 q = new Signaller(interruptible, 0L, 0L);
             else if (!queued)
                 queued = tryPushStack(q);
@@ -1732,6 +1961,15 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
                 }
             }
         }
+        if (spinEnd != 0L) {
+            // Spin twice as long next time if that would have sufficed
+            if (System.nanoTime() - spinEnd < spinNanos) {
+                if (budget < MAX_SPINS)
+                    spinBudget = budget << 1;
+            }
+            else if (budget > MIN_SPINS)
+                spinBudget = budget >>> 1;
+        }
         if (q != null) {
             q.thread = null;
             if (q.interruptControl < 0) {
@@ -2244,6 +2482,163 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return orTree(cfs, 0, cfs.length - 1);
     }
 
+    /**
+     * Returns a new CompletableFuture that is completed when all of
+     * the given CompletableFutures complete, with the list of their
+     * results, in the same order.  If any of the given
+     * CompletableFutures complete exceptionally, then the returned
+     * CompletableFuture also does so, with a CompletionException
+     * holding the exception of the first of them in the list as its
+     * cause.  If no CompletableFutures are provided, returns a
+     * CompletableFuture completed with an empty list.
+     *
+     * <p>This has the same effect as {@link #allOf allOf} followed by
+     * a {@code thenApply} function that collects the results with
+     * {@link #join}, but it creates no intermediate
+     * CompletableFutures, and only one dependent action for each of
+     * the given CompletableFutures that is not already complete.
+     *
+     * @param cfs the CompletableFutures
+     * @param <T> the type of the results
+     * @return a new CompletableFuture that is completed with the list
+     * of results when all of the given CompletableFutures complete
+     * @throws NullPointerException if the list or any of its elements are
+     * {@code null}
+     * @since 1.8
+     */
+    public static <T> CompletableFuture<List<T>> allOfList(
+        List<? extends CompletableFuture<? extends T>> cfs) {
+        return new Gather<List<T>>(toArray(cfs), false).start();
+    }
+
+    /**
+     * Returns a new CompletableFuture that is completed when any of
+     * the given CompletableFutures completes normally, with the same
+     * result.  Exceptional completions are ignored, unless all of the
+     * given CompletableFutures complete exceptionally, in which case
+     * the returned CompletableFuture also does so, with a
+     * CompletionException holding the exception of the first of them
+     * in the list as its cause.  If no CompletableFutures are
+     * provided, returns an incomplete CompletableFuture.
+     *
+     * @param cfs the CompletableFutures
+     * @param <T> the type of the results
+     * @return a new CompletableFuture that is completed with the
+     * result of any of the given CompletableFutures when one
+     * completes normally
+     * @throws NullPointerException if the list or any of its elements are
+     * {@code null}
+     * @since 1.8
+     */
+    public static <T> CompletableFuture<T> anyOfSuccessful(
+        List<? extends CompletableFuture<? extends T>> cfs) {
+        return new Gather<T>(toArray(cfs), true).start();
+    }
+
+    /* ------------- Timeouts and delays -------------- */
+
+    /**
+     * Exceptionally completes this CompletableFuture with a {@link
+     * TimeoutException} if not otherwise completed before the given
+     * timeout.
+     *
+     * <p>Timeouts are kept by a single daemon thread shared by all
+     * CompletableFutures, which cancels a timeout, removing it from
+     * its queue, as soon as this CompletableFuture completes.
+     * Dependents of a CompletableFuture that times out are triggered
+     * in that thread, unless they are asynchronous.
+     *
+     * @param timeout how long to wait before completing exceptionally
+     *        with a TimeoutException, in units of {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return this CompletableFuture
+     * @since 1.8
+     */
+    public CompletableFuture<T> orTimeout(long timeout, TimeUnit unit) {
+        if (unit == null)
+            throw new NullPointerException();
+        if (result == null)
+            timeout(null, timeout, unit);
+        return this;
+    }
+
+    /**
+     * Completes this CompletableFuture with the given value if not
+     * otherwise completed before the given timeout.  Timeouts are
+     * kept as described for {@link #orTimeout orTimeout}.
+     *
+     * @param value the value to use upon timeout
+     * @param timeout how long to wait before completing normally
+     *        with the given value, in units of {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return this CompletableFuture
+     * @since 1.8
+     */
+    public CompletableFuture<T> completeOnTimeout(T value, long timeout,
+                                                  TimeUnit unit) {
+        if (unit == null)
+            throw new NullPointerException();
+        if (result == null)
+            timeout(encodeValue(value), timeout, unit);
+        return this;
+    }
+
+    /**
+     * Schedules a Timeout completing this future with the given
+     * encoded result, or a TimeoutException if null, and pushes it
+     * to be cancelled when this future completes first.
+     */
+    private void timeout(Object r, long timeout, TimeUnit unit) {
+        Timeout c = new Timeout(this, r);
+        c.task = Delayer.delay(c, timeout, unit);
+        while (result == null && !tryPushStack(c))
+            lazySetNext(c, null); // clear on failure
+        if (result != null)
+            c.tryFire(SYNC);
+    }
+
+    /**
+     * Returns a new Executor that submits a task to the given base
+     * executor after the given delay (or no delay if non-positive).
+     * Each delay commences upon invocation of the returned executor's
+     * {@code execute} method.
+     *
+     * @param delay how long to delay, in units of {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code delay} parameter
+     * @param executor the base executor
+     * @return the new delayed executor
+     * @throws NullPointerException if either argument is {@code null}
+     * @since 1.8
+     */
+    public static Executor delayedExecutor(long delay, TimeUnit unit,
+                                           Executor executor) {
+        if (unit == null)
+            throw new NullPointerException();
+        return new DelayedExecutor(delay, unit, screenExecutor(executor));
+    }
+
+    /**
+     * Returns a new Executor that submits a task to the default
+     * executor after the given delay (or no delay if non-positive).
+     * Each delay commences upon invocation of the returned executor's
+     * {@code execute} method.
+     *
+     * @param delay how long to delay, in units of {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code delay} parameter
+     * @return the new delayed executor
+     * @throws NullPointerException if {@code unit} is {@code null}
+     * @since 1.8
+     */
+    public static Executor delayedExecutor(long delay, TimeUnit unit) {
+        if (unit == null)
+            throw new NullPointerException();
+        return new DelayedExecutor(delay, unit, asyncPool);
+    }
+
     /* ------------- Control and status methods -------------- */
 
     /**
@@ -2341,6 +2736,23 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return count;
     }
 
+    /**
+     * Returns the number of stages before this CompletableFuture in
+     * the longest chain of dependent stages leading to it: {@code 0}
+     * for a CompletableFuture created by a constructor or a static
+     * method, and otherwise one more than the greatest depth of the
+     * stages it was created from, saturating at {@code
+     * Integer.MAX_VALUE}.  This method is designed for use in
+     * monitoring system state, for example to relate latencies to the
+     * lengths of chains.
+     *
+     * @return the stage depth of this CompletableFuture
+     * @since 1.8
+     */
+    public int getStageDepth() {
+        return depth;
+    }
+
     /**
      * Returns a string identifying this CompletableFuture, as well as
      * its completion state.  The state, in brackets, contains the
@@ -2364,11 +2776,99 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
               "[Completed normally]"));
     }
 
+    /**
+     * Singleton delay scheduler, used only for starting and
+     * cancelling tasks.  Cancelled tasks are removed from its queue,
+     * so timeouts of futures that complete in time do not accumulate.
+     */
+    static final class Delayer {
+        static ScheduledFuture<?> delay(Runnable command, long delay,
+                                        TimeUnit unit) {
+            return delayer.schedule(command, delay, unit);
+        }
+
+        static final class DaemonThreadFactory implements ThreadFactory {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r);
+                t.setDaemon(true);
+                t.setName("CompletableFutureDelayScheduler");
+                return t;
+            }
+        }
+
+        static final ScheduledThreadPoolExecutor delayer;
+        static {
+            (delayer = new ScheduledThreadPoolExecutor(
+                1, new DaemonThreadFactory())).
+                setRemoveOnCancelPolicy(true);
+        }
+    }
+
+    /**
+     * A Completion that completes its source when its timeout
+     * elapses, unless the source completes first, in which case it
+     * cancels the timeout.  It is both pushed onto the source and
+     * scheduled with the Delayer, which fires it in ASYNC mode, so
+     * that a timeout needs no dependent future or separate canceller.
+     */
+    @SuppressWarnings("serial")
+    static final class Timeout extends Completion {
+        CompletableFuture<?> src;
+        final Object value;            // encoded result, or null to throw
+        Future<?> task;                // the scheduled timeout
+        Timeout(CompletableFuture<?> src, Object value) {
+            this.src = src; this.value = value;
+        }
+        final CompletableFuture<?> tryFire(int mode) {
+            CompletableFuture<?> a; Future<?> f; Object r;
+            if ((a = src) != null) {
+                if (mode == ASYNC) {   // timed out
+                    src = null;
+                    if (a.result == null &&
+                        a.internalComplete((r = value) != null ? r :
+                                           new AltResult(new TimeoutException())))
+                        a.postComplete();
+                }
+                else if (a.result != null) {
+                    src = null;
+                    if ((f = task) != null)
+                        f.cancel(false);
+                }
+            }
+            return null;
+        }
+        final boolean isLive() { return src != null; }
+    }
+
+    static final class DelayedExecutor implements Executor {
+        final long delay;
+        final TimeUnit unit;
+        final Executor executor;
+        DelayedExecutor(long delay, TimeUnit unit, Executor executor) {
+            this.delay = delay; this.unit = unit; this.executor = executor;
+        }
+        public void execute(Runnable r) {
+            Delayer.delay(new TaskSubmitter(executor, r), delay, unit);
+        }
+    }
+
+    /** Action to submit user task */
+    static final class TaskSubmitter implements Runnable {
+        final Executor executor;
+        final Runnable action;
+        TaskSubmitter(Executor executor, Runnable action) {
+            this.executor = executor;
+            this.action = action;
+        }
+        public void run() { executor.execute(action); }
+    }
+
     // Unsafe mechanics
     private static final sun.misc.Unsafe UNSAFE;
     private static final long RESULT;
     private static final long STACK;
     private static final long NEXT;
+    private static final long PENDING;
     static {
         try {
             final sun.misc.Unsafe u;
@@ -2378,6 +2878,8 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
             STACK = u.objectFieldOffset(k.getDeclaredField("stack"));
             NEXT = u.objectFieldOffset
                 (Completion.class.getDeclaredField("next"));
+            PENDING = u.objectFieldOffset
+                (Gather.class.getDeclaredField("pending"));
         } catch (Exception x) {
             throw new Error(x);
         }
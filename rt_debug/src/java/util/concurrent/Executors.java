@@ -301,6 +301,41 @@ public class Executors {
         return new ScheduledThreadPoolExecutor(corePoolSize, threadFactory);
     }
 
+    /**
+     * Creates a thread pool that can schedule commands to run after a
+     * given delay, or to execute periodically, keeping pending tasks
+     * in a timing wheel with a resolution of one millisecond.  This
+     * makes scheduling and cancellation constant-time operations,
+     * which suits very large numbers of pending timeouts, at the cost
+     * of running each task up to one tick after its trigger time.
+     * @param corePoolSize the number of threads running due tasks,
+     * in addition to the timer thread
+     * @return a newly created scheduled thread pool
+     * @throws IllegalArgumentException if {@code corePoolSize < 0}
+     * @see TimingWheelScheduledExecutor
+     */
+    public static ScheduledExecutorService newTimingWheelScheduledThreadPool(int corePoolSize) {
+        return new TimingWheelScheduledExecutor(corePoolSize);
+    }
+
+    /**
+     * Creates a thread pool that can schedule commands to run after a
+     * given delay, or to execute periodically, keeping pending tasks
+     * in a timing wheel with a resolution of one millisecond.
+     * @param corePoolSize the number of threads running due tasks,
+     * in addition to the timer thread
+     * @param threadFactory the factory to use when the executor
+     * creates a new thread
+     * @return a newly created scheduled thread pool
+     * @throws IllegalArgumentException if {@code corePoolSize < 0}
+     * @throws NullPointerException if threadFactory is null
+     * @see TimingWheelScheduledExecutor
+     */
+    public static ScheduledExecutorService newTimingWheelScheduledThreadPool(
+            int corePoolSize, ThreadFactory threadFactory) {
+        return new TimingWheelScheduledExecutor(corePoolSize, threadFactory);
+    }
+
     /**
      * Returns an object that delegates all defined {@link
      * ExecutorService} methods to the given executor, but not any
@@ -40,7 +40,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.AbstractExecutorService;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
@@ -50,9 +52,12 @@ import java.util.concurrent.RunnableFuture;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.security.AccessControlContext;
 import java.security.ProtectionDomain;
 import java.security.Permissions;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
 
 /**
  * An {@link ExecutorService} for running {@link ForkJoinTask}s.
@@ -95,7 +100,11 @@ import java.security.Permissions;
  * {@link #getStealCount}) that are intended to aid in developing,
  * tuning, and monitoring fork/join applications. Also, method
  * {@link #toString} returns indications of pool state in a
- * convenient form for informal monitoring.
+ * convenient form for informal monitoring, and method {@link
+ * #snapshot} returns detailed statistics, including per-worker queue
+ * depths and steal counts and a histogram of sampled task execution
+ * times, that are also available through the {@link
+ * ForkJoinPoolMXBean management interface} of the pool.
  *
  * <p>As is the case with other ExecutorServices, there are three
  * main task execution methods summarized in the following table.
@@ -801,6 +810,9 @@ public class ForkJoinPool extends AbstractExecutorService {
         volatile int scanState;    // versioned, <0: inactive; odd:scanning
         int stackPred;             // pool stack (ctl) predecessor
         int nsteals;               // number of steals
+        int sampleCountdown;       // tasks to run before timing one
+        long nparks;               // number of parks, written by owner
+        long nunparks;             // number of unparks, added to by signallers
         int hint;                  // randomization and stealer index hint
         int config;                // pool index and mode
         volatile int qlock;        // 1: locked, < 0: terminate; else 0
@@ -812,6 +824,7 @@ public class ForkJoinPool extends AbstractExecutorService {
         volatile Thread parker;    // == owner during call to park; else null
         volatile ForkJoinTask<?> currentJoin;  // task being joined in awaitJoin
         volatile ForkJoinTask<?> currentSteal; // mainly used by helpStealer
+        volatile long[] latencies; // sampled task times, created on first use
 
         WorkQueue(ForkJoinPool pool, ForkJoinWorkerThread owner) {
             this.pool = pool;
@@ -1053,7 +1066,10 @@ public class ForkJoinPool extends AbstractExecutorService {
         final void runTask(ForkJoinTask<?> task) {
             if (task != null) {
                 scanState &= ~SCANNING; // mark as busy
+                long start = (--sampleCountdown <= 0) ? startSample() : 0L;
                 (currentSteal = task).doExec();
+                if (start != 0L)
+                    recordLatency(System.nanoTime() - start);
                 U.putOrderedObject(this, QCURRENTSTEAL, null); // release for GC
                 execLocalTasks();
                 ForkJoinWorkerThread thread = owner;
@@ -1065,6 +1081,47 @@ public class ForkJoinPool extends AbstractExecutorService {
             }
         }
 
+        /**
+         * Restarts the countdown to the next sampled task, returning
+         * the start time of this one, or zero if timing is disabled.
+         */
+        private long startSample() {
+            ForkJoinPool p; int n;
+            if ((p = pool) == null || (n = p.taskSamplingInterval) <= 0) {
+                sampleCountdown = SAMPLING_RECHECK; // until next look
+                return 0L;
+            }
+            sampleCountdown = n;
+            long t = System.nanoTime();
+            return (t == 0L) ? 1L : t;
+        }
+
+        /** Records a sampled task execution time. Called only by owner. */
+        private void recordLatency(long nanos) {
+            long[] h = latencies;
+            if (h == null)
+                latencies = h = new long[ThreadPoolExecutor.LATENCY_BUCKETS];
+            h[ThreadPoolExecutor.latencyBucket(nanos)]++;
+        }
+
+        /**
+         * Adds park and unpark counts and task time histogram to the
+         * totals of exited workers of pool p. Called on deregistration.
+         */
+        final void transferStats(ForkJoinPool p) {
+            if (p != null) {
+                p.retiredParkCount.getAndAdd(nparks);
+                p.retiredUnparkCount.getAndAdd(nunparks);
+                long[] h = latencies;
+                if (h != null) {
+                    for (int i = 0; i < h.length; ++i) {
+                        if (h[i] != 0L)
+                            p.retiredLatencies.getAndAdd(i, h[i]);
+                    }
+                }
+            }
+        }
+
         /**
          * Adds steal count to pool stealCounter if it exists, and resets.
          */
@@ -1320,6 +1377,20 @@ public class ForkJoinPool extends AbstractExecutorService {
      */
     private static final int DEFAULT_COMMON_MAX_SPARES = 256;
 
+    /**
+     * The initial value of taskSamplingInterval: workers time one in
+     * this many top-level tasks.  Timing takes two calls to
+     * System.nanoTime, so at this rate it costs under a
+     * nanosecond per task on average.
+     */
+    private static final int DEFAULT_TASK_SAMPLING_INTERVAL = 64;
+
+    /**
+     * Number of tasks after which a worker rechecks
+     * taskSamplingInterval while timing is disabled.
+     */
+    private static final int SAMPLING_RECHECK = 1 << 10;
+
     /**
      * Number of times to spin-wait before blocking. The spins (in
      * awaitRunStateLock and awaitWork) currently use randomized
@@ -1396,6 +1467,12 @@ public class ForkJoinPool extends AbstractExecutorService {
     final UncaughtExceptionHandler ueh;  // per-worker UEH
     final String workerNamePrefix;       // to create worker name string
     volatile AtomicLong stealCounter;    // also used as sync monitor
+    volatile int taskSamplingInterval;   // time 1 in this many tasks; 0: off
+    final AtomicLong compensationCount;  // spares created by tryCompensate
+    final AtomicLong retiredParkCount;   // parks of exited workers
+    final AtomicLong retiredUnparkCount; // unparks of exited workers
+    final AtomicLongArray retiredLatencies; // task times of exited workers
+    Monitor monitor;                     // management interface, lazily set
 
     /**
      * Acquires the runState lock; returns current (locked) runState.
@@ -1593,6 +1670,7 @@ public class ForkJoinPool extends AbstractExecutorService {
         if (w != null) {
             w.qlock = -1;                             // ensure set
             w.transferStealCount(this);
+            w.transferStats(this);
             w.cancelAll();                            // cancel remaining tasks
         }
         for (;;) {                                    // possibly replace
@@ -1645,8 +1723,10 @@ public class ForkJoinPool extends AbstractExecutorService {
             long nc = (UC_MASK & (c + AC_UNIT)) | (SP_MASK & v.stackPred);
             if (d == 0 && U.compareAndSwapLong(this, CTL, c, nc)) {
                 v.scanState = vs;                      // activate v
-                if ((p = v.parker) != null)
+                if ((p = v.parker) != null) {
+                    U.getAndAddLong(v, QNUNPARKS, 1L); // v may be re-signalled
                     U.unpark(p);
+                }
                 break;
             }
             if (q != null && q.base == q.top)          // no more work
@@ -1670,8 +1750,10 @@ public class ForkJoinPool extends AbstractExecutorService {
             long nc = (UC_MASK & (c + inc)) | (SP_MASK & v.stackPred);
             if (U.compareAndSwapLong(this, CTL, c, nc)) {
                 v.scanState = vs;
-                if ((p = v.parker) != null)
+                if ((p = v.parker) != null) {
+                    U.getAndAddLong(v, QNUNPARKS, 1L);
                     U.unpark(p);
+                }
                 return true;
             }
         }
@@ -1820,8 +1902,10 @@ public class ForkJoinPool extends AbstractExecutorService {
                 Thread wt = Thread.currentThread();
                 U.putObject(wt, PARKBLOCKER, this);   // emulate LockSupport
                 w.parker = wt;
-                if (w.scanState < 0 && ctl == c)      // recheck before park
+                if (w.scanState < 0 && ctl == c) {    // recheck before park
+                    ++w.nparks;
                     U.park(false, parkTime);
+                }
                 U.putOrderedObject(w, QPARKER, null);
                 U.putObject(wt, PARKBLOCKER, null);
                 if (w.scanState >= 0)
@@ -2018,6 +2102,8 @@ public class ForkJoinPool extends AbstractExecutorService {
                     add = U.compareAndSwapLong(this, CTL, c, nc);
                 unlockRunState(rs, rs & ~RSLOCK);
                 canBlock = add && createWorker(); // throws on exception
+                if (canBlock)
+                    compensationCount.getAndIncrement();
             }
         }
         return canBlock;
@@ -2570,6 +2656,12 @@ public class ForkJoinPool extends AbstractExecutorService {
         this.config = (parallelism & SMASK) | mode;
         long np = (long)(-parallelism); // offset ctl counts
         this.ctl = ((np << AC_SHIFT) & AC_MASK) | ((np << TC_SHIFT) & TC_MASK);
+        this.taskSamplingInterval = DEFAULT_TASK_SAMPLING_INTERVAL;
+        this.compensationCount = new AtomicLong();
+        this.retiredParkCount = new AtomicLong();
+        this.retiredUnparkCount = new AtomicLong();
+        this.retiredLatencies =
+            new AtomicLongArray(ThreadPoolExecutor.LATENCY_BUCKETS);
     }
 
     /**
@@ -2973,6 +3065,134 @@ public class ForkJoinPool extends AbstractExecutorService {
         return count;
     }
 
+    /**
+     * Sets how often worker threads measure the execution time of a
+     * top-level task for the latency histogram reported by {@link
+     * #snapshot}: each worker times one in every {@code interval}
+     * tasks it takes from a queue, so that timing is cheap enough to
+     * leave enabled.  The default interval is 64; an interval of zero
+     * disables timing, and an interval of one times every task.  A
+     * worker picks up a new interval when it next times a task, or
+     * within about a thousand tasks if timing was disabled.
+     *
+     * @param interval the number of tasks per timed task, or zero
+     * @throws IllegalArgumentException if {@code interval} is negative
+     * @throws SecurityException if a security manager exists and
+     *         the caller is not permitted to modify threads
+     *         because it does not hold {@link
+     *         java.lang.RuntimePermission}{@code ("modifyThread")}
+     * @since 1.8
+     */
+    public void setTaskSamplingInterval(int interval) {
+        if (interval < 0)
+            throw new IllegalArgumentException();
+        checkPermission();
+        taskSamplingInterval = interval;
+    }
+
+    /**
+     * Returns the number of top-level tasks per task whose execution
+     * time is measured by each worker thread, or zero if timing is
+     * disabled.
+     *
+     * @return the task sampling interval
+     * @see #setTaskSamplingInterval
+     * @since 1.8
+     */
+    public int getTaskSamplingInterval() {
+        return taskSamplingInterval;
+    }
+
+    /**
+     * Returns a point-in-time view of the statistics of this pool,
+     * including the depth of the queue and the steal count of each
+     * worker, counts of workers parking and being unparked, of spare
+     * workers created to compensate for blocked joins, and a histogram
+     * of sampled task execution times.  The counts only increase, so
+     * rates can be obtained from successive snapshots.  The values are
+     * obtained in a single pass across the queues of the pool, without
+     * locking, and are only approximations, not necessarily consistent
+     * with each other.
+     *
+     * @return a snapshot of the statistics of this pool
+     * @since 1.8
+     */
+    public Snapshot snapshot() {
+        long qt = 0L; int qs = 0, rc = 0;
+        AtomicLong sc = stealCounter;
+        long st = (sc == null) ? 0L : sc.get();
+        long parks = retiredParkCount.get();
+        long unparks = retiredUnparkCount.get();
+        long[] latencies = new long[ThreadPoolExecutor.LATENCY_BUCKETS];
+        for (int i = 0; i < latencies.length; ++i)
+            latencies[i] = retiredLatencies.get(i);
+        Map<Long,Integer> queueSizes = new HashMap<Long,Integer>();
+        Map<Long,Long> steals = new HashMap<Long,Long>();
+        WorkQueue[] ws; WorkQueue w;
+        if ((ws = workQueues) != null) {
+            for (int i = 0; i < ws.length; ++i) {
+                if ((w = ws[i]) != null) {
+                    int size = w.queueSize();
+                    if ((i & 1) == 0) {
+                        qs += size;
+                        continue;
+                    }
+                    int ns = w.nsteals;
+                    qt += size;
+                    st += ns;
+                    parks += w.nparks;
+                    unparks += w.nunparks;
+                    if (w.isApparentlyUnblocked())
+                        ++rc;
+                    long[] h = w.latencies;
+                    if (h != null) {
+                        for (int j = 0; j < latencies.length; ++j)
+                            latencies[j] += h[j];
+                    }
+                    ForkJoinWorkerThread wt = w.owner;
+                    if (wt != null) {
+                        Long id = wt.getId();
+                        queueSizes.put(id, size);
+                        steals.put(id, (long)ns);
+                    }
+                }
+            }
+        }
+        long c = ctl;
+        int pc = (config & SMASK);
+        int tc = pc + (short)(c >>> TC_SHIFT);
+        int ac = pc + (int)(c >> AC_SHIFT);
+        return new Snapshot(pc, tc, (ac < 0) ? 0 : ac, rc, qt, qs, st,
+                            parks, unparks, compensationCount.get(),
+                            queueSizes, steals, latencies);
+    }
+
+    /**
+     * Returns the management interface of this pool.  The management
+     * interface of the {@linkplain #commonPool common pool} is
+     * registered with the platform {@code MBeanServer}, and is
+     * returned by {@link java.lang.management.ManagementFactory#getPlatformMXBeans(Class)
+     * ManagementFactory.getPlatformMXBeans(ForkJoinPoolMXBean.class)};
+     * that of another pool may be registered by the application:
+     * <pre> {@code
+     * ForkJoinPoolMXBean bean = pool.getMXBean();
+     * ManagementFactory.getPlatformMBeanServer()
+     *     .registerMBean(bean, bean.getObjectName());}</pre>
+     *
+     * @return the management interface of this pool
+     * @since 1.8
+     */
+    public ForkJoinPoolMXBean getMXBean() {
+        Monitor m = monitor;
+        if (m == null) {
+            String prefix = workerNamePrefix;
+            String name = prefix.endsWith("-worker-") ?
+                prefix.substring(0, prefix.length() - 8) : prefix;
+            monitor = m = new Monitor(this, name);
+        }
+        return m;
+    }
+
     /**
      * Returns a string identifying this pool, as well as its state,
      * including indications of run state, parallelism level, and
@@ -3024,6 +3244,290 @@ public class ForkJoinPool extends AbstractExecutorService {
             "]";
     }
 
+    /**
+     * An immutable view of the statistics of a {@code ForkJoinPool},
+     * as returned by {@link ForkJoinPool#snapshot}.
+     *
+     * <p>The per-worker statistics are keyed by the {@linkplain
+     * Thread#getId id} of the worker thread.  Steal counts of workers
+     * count the top-level tasks they have taken from queues, and may
+     * drop back to zero when the count of a worker is folded into the
+     * total of the pool, as happens on overflow.
+     *
+     * <p>The task execution time histogram counts sampled top-level
+     * tasks (see {@link ForkJoinPool#setTaskSamplingInterval}), each
+     * timed from when a worker starts executing it to when it
+     * completes, including time spent helping other tasks and
+     * waiting in joins, but not the subtasks the worker runs from its
+     * own queue afterwards.  It has the same buckets as that of
+     * {@link ThreadPoolExecutor.Snapshot}: bucket {@code i} counts the
+     * tasks that took less than {@link #getLatencyBucketLimit
+     * getLatencyBucketLimit(i)} nanoseconds and at least the limit of
+     * bucket {@code i - 1}.
+     *
+     * @since 1.8
+     */
+    public static final class Snapshot {
+        private final int parallelism;
+        private final int poolSize;
+        private final int activeThreadCount;
+        private final int runningThreadCount;
+        private final long queuedTaskCount;
+        private final int queuedSubmissionCount;
+        private final long stealCount;
+        private final long parkCount;
+        private final long unparkCount;
+        private final long compensationCount;
+        private final Map<Long,Integer> workerQueueSizes;
+        private final Map<Long,Long> workerStealCounts;
+        private final long[] latencies;
+
+        Snapshot(int parallelism, int poolSize, int activeThreadCount,
+                 int runningThreadCount, long queuedTaskCount,
+                 int queuedSubmissionCount, long stealCount,
+                 long parkCount, long unparkCount, long compensationCount,
+                 Map<Long,Integer> workerQueueSizes,
+                 Map<Long,Long> workerStealCounts, long[] latencies) {
+            this.parallelism = parallelism;
+            this.poolSize = poolSize;
+            this.activeThreadCount = activeThreadCount;
+            this.runningThreadCount = runningThreadCount;
+            this.queuedTaskCount = queuedTaskCount;
+            this.queuedSubmissionCount = queuedSubmissionCount;
+            this.stealCount = stealCount;
+            this.parkCount = parkCount;
+            this.unparkCount = unparkCount;
+            this.compensationCount = compensationCount;
+            this.workerQueueSizes =
+                Collections.unmodifiableMap(workerQueueSizes);
+            this.workerStealCounts =
+                Collections.unmodifiableMap(workerStealCounts);
+            this.latencies = latencies;
+        }
+
+        /**
+         * Returns the targeted parallelism level of the pool.
+         *
+         * @return the parallelism level
+         */
+        public int getParallelism() { return parallelism; }
+
+        /**
+         * Returns the number of worker threads that had started but not
+         * yet terminated, including spares.
+         *
+         * @return the number of worker threads
+         */
+        public int getPoolSize() { return poolSize; }
+
+        /**
+         * Returns the number of threads that were stealing or executing
+         * tasks.
+         *
+         * @return the number of active threads
+         */
+        public int getActiveThreadCount() { return activeThreadCount; }
+
+        /**
+         * Returns the number of worker threads that were not blocked
+         * waiting to join tasks or for other managed synchronization.
+         *
+         * @return the number of running threads
+         */
+        public int getRunningThreadCount() { return runningThreadCount; }
+
+        /**
+         * Returns the number of tasks held in the queues of worker
+         * threads.
+         *
+         * @return the number of queued tasks
+         */
+        public long getQueuedTaskCount() { return queuedTaskCount; }
+
+        /**
+         * Returns the number of tasks submitted to the pool from
+         * outside it that had not yet begun executing.
+         *
+         * @return the number of queued submissions
+         */
+        public int getQueuedSubmissionCount() { return queuedSubmissionCount; }
+
+        /**
+         * Returns the total number of tasks stolen from one queue by a
+         * worker thread.
+         *
+         * @return the number of steals
+         */
+        public long getStealCount() { return stealCount; }
+
+        /**
+         * Returns the number of times worker threads have parked to
+         * wait for tasks.
+         *
+         * @return the number of parks
+         */
+        public long getParkCount() { return parkCount; }
+
+        /**
+         * Returns the number of times a parked worker thread has been
+         * unparked to take new tasks.
+         *
+         * @return the number of unparks
+         */
+        public long getUnparkCount() { return unparkCount; }
+
+        /**
+         * Returns the number of spare worker threads created to keep
+         * the pool at its parallelism level while other workers were
+         * blocked joining tasks or in {@link ForkJoinPool#managedBlock
+         * managedBlock}.  The common pool creates at most 256 more
+         * workers than its parallelism level.
+         *
+         * @return the number of compensating threads created
+         */
+        public long getCompensationCount() { return compensationCount; }
+
+        /**
+         * Returns the number of tasks in the queue of each live
+         * worker, keyed by the {@linkplain Thread#getId id} of its
+         * thread.
+         *
+         * @return an unmodifiable map from thread id to queue depth
+         */
+        public Map<Long,Integer> getWorkerQueueSizes() {
+            return workerQueueSizes;
+        }
+
+        /**
+         * Returns the number of tasks stolen by each live worker,
+         * keyed by the {@linkplain Thread#getId id} of its thread.
+         *
+         * @return an unmodifiable map from thread id to steal count
+         */
+        public Map<Long,Long> getWorkerStealCounts() {
+            return workerStealCounts;
+        }
+
+        /**
+         * Returns the histogram of sampled task execution times.
+         *
+         * @return a new array holding the count of each bucket
+         */
+        public long[] getLatencyHistogram() { return latencies.clone(); }
+
+        /**
+         * Returns the exclusive upper bound, in nanoseconds, of the
+         * given bucket of the latency histogram, or
+         * {@code Long.MAX_VALUE} for the last bucket.
+         *
+         * @param bucket the bucket index
+         * @return the upper bound of the bucket in nanoseconds
+         * @throws IndexOutOfBoundsException if the index is out of range
+         */
+        public static long getLatencyBucketLimit(int bucket) {
+            return ThreadPoolExecutor.Snapshot.getLatencyBucketLimit(bucket);
+        }
+
+        public String toString() {
+            return super.toString() +
+                "[parallelism = " + parallelism +
+                ", size = " + poolSize +
+                ", active = " + activeThreadCount +
+                ", running = " + runningThreadCount +
+                ", steals = " + stealCount +
+                ", tasks = " + queuedTaskCount +
+                ", submissions = " + queuedSubmissionCount +
+                ", parks = " + parkCount +
+                ", unparks = " + unparkCount +
+                ", compensations = " + compensationCount +
+                "]";
+        }
+    }
+
+    /**
+     * The management interface of a pool, obtained from {@link
+     * #getMXBean}.  Attributes are read from the pool each time they
+     * are requested.
+     */
+    static final class Monitor implements ForkJoinPoolMXBean {
+        private final ForkJoinPool pool;
+        private final String name;
+
+        Monitor(ForkJoinPool pool, String name) {
+            this.pool = pool;
+            this.name = name;
+        }
+
+        public int getParallelism() {
+            return pool.getParallelism();
+        }
+
+        public int getPoolSize() {
+            return pool.getPoolSize();
+        }
+
+        public int getActiveThreadCount() {
+            return pool.getActiveThreadCount();
+        }
+
+        public int getRunningThreadCount() {
+            return pool.getRunningThreadCount();
+        }
+
+        public long getQueuedTaskCount() {
+            return pool.getQueuedTaskCount();
+        }
+
+        public int getQueuedSubmissionCount() {
+            return pool.getQueuedSubmissionCount();
+        }
+
+        public long getStealCount() {
+            return pool.getStealCount();
+        }
+
+        public long getParkCount() {
+            return pool.snapshot().getParkCount();
+        }
+
+        public long getUnparkCount() {
+            return pool.snapshot().getUnparkCount();
+        }
+
+        public long getCompensationCount() {
+            return pool.compensationCount.get();
+        }
+
+        public Map<Long,Integer> getWorkerQueueSizes() {
+            return pool.snapshot().getWorkerQueueSizes();
+        }
+
+        public Map<Long,Long> getWorkerStealCounts() {
+            return pool.snapshot().getWorkerStealCounts();
+        }
+
+        public long[] getLatencyHistogram() {
+            return pool.snapshot().getLatencyHistogram();
+        }
+
+        public int getTaskSamplingInterval() {
+            return pool.getTaskSamplingInterval();
+        }
+
+        public void setTaskSamplingInterval(int interval) {
+            pool.setTaskSamplingInterval(interval);
+        }
+
+        public ObjectName getObjectName() {
+            try {
+                return new ObjectName(
+                    "java.util.concurrent:type=ForkJoinPool,name=" + name);
+            } catch (MalformedObjectNameException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+    }
+
     /**
      * Possibly initiates an orderly shutdown in which previously
      * submitted tasks are executed, but no new tasks will be
@@ -3350,6 +3854,7 @@ public class ForkJoinPool extends AbstractExecutorService {
     private static final long QPARKER;
     private static final long QCURRENTSTEAL;
     private static final long QCURRENTJOIN;
+    private static final long QNUNPARKS;
 
     static {
         // initialize field offsets for CAS etc
@@ -3378,6 +3883,8 @@ public class ForkJoinPool extends AbstractExecutorService {
                 (wk.getDeclaredField("currentSteal"));
             QCURRENTJOIN = U.objectFieldOffset
                 (wk.getDeclaredField("currentJoin"));
+            QNUNPARKS = U.objectFieldOffset
+                (wk.getDeclaredField("nunparks"));
             Class<?> ak = ForkJoinTask[].class;
             ABASE = U.arrayBaseOffset(ak);
             int scale = U.arrayIndexScale(ak);
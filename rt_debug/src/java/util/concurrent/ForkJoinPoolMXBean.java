@@ -0,0 +1,172 @@
+package java.util.concurrent;
+
+import java.lang.management.PlatformManagedObject;
+import java.util.Map;
+
+/**
+ * The management interface for a {@link ForkJoinPool}, in particular
+ * for the {@linkplain ForkJoinPool#commonPool common pool} shared by
+ * parallel streams, {@link CompletableFuture} and fork/join tasks.
+ *
+ * <p> A class implementing this interface is an
+ * {@link javax.management.MXBean}.  The {@link ForkJoinPool#getMXBean}
+ * method returns the management interface of a pool.  That of the
+ * common pool can also be obtained with the {@link
+ * java.lang.management.ManagementFactory#getPlatformMXBeans(Class)
+ * getPlatformMXBeans} method:
+ * <pre>
+ *     List&lt;ForkJoinPoolMXBean&gt; pools = ManagementFactory.getPlatformMXBeans(ForkJoinPoolMXBean.class);
+ * </pre>
+ *
+ * <p> The management interface of the common pool is also registered
+ * with the platform {@link javax.management.MBeanServer MBeanServer}.
+ * The {@link javax.management.ObjectName ObjectName} that uniquely
+ * identifies the management interface of a pool within the
+ * {@code MBeanServer} is:
+ * <pre>
+ *     java.util.concurrent:type=ForkJoinPool,name=<i>pool name</i>
+ * </pre>
+ * where the pool name is the prefix of the names of its worker
+ * threads, such as {@code ForkJoinPool.commonPool} or
+ * {@code ForkJoinPool-1}.
+ *
+ * <p> The counts only increase, so rates of steals, parks and unparks
+ * can be obtained from successive readings.  All values are
+ * approximations, as described for {@link ForkJoinPool#snapshot}.
+ *
+ * @see ForkJoinPool.Snapshot
+ * @since   1.8
+ */
+public interface ForkJoinPoolMXBean extends PlatformManagedObject {
+
+    /**
+     * Returns the targeted parallelism level of the pool.
+     *
+     * @return  The parallelism level
+     */
+    int getParallelism();
+
+    /**
+     * Returns the number of worker threads that have started but not
+     * yet terminated, including spares created to compensate for
+     * blocked workers.
+     *
+     * @return  The number of worker threads
+     */
+    int getPoolSize();
+
+    /**
+     * Returns the number of threads that are stealing or executing
+     * tasks.
+     *
+     * @return  The number of active threads
+     */
+    int getActiveThreadCount();
+
+    /**
+     * Returns the number of worker threads that are not blocked
+     * waiting to join tasks or for other managed synchronization.
+     *
+     * @return  The number of running threads
+     */
+    int getRunningThreadCount();
+
+    /**
+     * Returns the number of tasks held in the queues of worker
+     * threads.
+     *
+     * @return  The number of queued tasks
+     */
+    long getQueuedTaskCount();
+
+    /**
+     * Returns the number of tasks submitted to the pool from outside
+     * it that have not yet begun executing.
+     *
+     * @return  The number of queued submissions
+     */
+    int getQueuedSubmissionCount();
+
+    /**
+     * Returns the total number of tasks stolen from one queue by a
+     * worker thread.
+     *
+     * @return  The number of steals
+     */
+    long getStealCount();
+
+    /**
+     * Returns the number of times worker threads have parked to wait
+     * for tasks.
+     *
+     * @return  The number of parks
+     */
+    long getParkCount();
+
+    /**
+     * Returns the number of times a parked worker thread has been
+     * unparked to take new tasks.
+     *
+     * @return  The number of unparks
+     */
+    long getUnparkCount();
+
+    /**
+     * Returns the number of spare worker threads created to keep the
+     * pool at its parallelism level while other workers were blocked.
+     * The common pool creates at most 256 more workers than its
+     * parallelism level.
+     *
+     * @return  The number of compensating threads created
+     */
+    long getCompensationCount();
+
+    /**
+     * Returns the number of tasks in the queue of each live worker,
+     * keyed by the id of its thread.
+     *
+     * @return  A map from thread id to queue depth
+     */
+    Map<Long,Integer> getWorkerQueueSizes();
+
+    /**
+     * Returns the number of tasks stolen by each live worker, keyed by
+     * the id of its thread.
+     *
+     * @return  A map from thread id to steal count
+     */
+    Map<Long,Long> getWorkerStealCounts();
+
+    /**
+     * Returns the histogram of sampled task execution times, with the
+     * buckets described by {@link
+     * ForkJoinPool.Snapshot#getLatencyBucketLimit}.
+     *
+     * @return  The count of each bucket
+     */
+    long[] getLatencyHistogram();
+
+    /**
+     * Returns the number of tasks per task whose execution time is
+     * measured by each worker, or zero if timing is disabled.
+     *
+     * @return  The task sampling interval
+     */
+    int getTaskSamplingInterval();
+
+    /**
+     * Sets the number of tasks per task whose execution time is
+     * measured by each worker; zero disables timing.
+     *
+     * @param  interval
+     *         The task sampling interval
+     *
+     * @throws  IllegalArgumentException
+     *          If {@code interval} is negative
+     *
+     * @throws  SecurityException
+     *          If a security manager exists and the caller does not
+     *          hold {@code RuntimePermission("modifyThread")}
+     */
+    void setTaskSamplingInterval(int interval);
+}
@@ -201,6 +201,23 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E>
         last = last.next = node;
     }
 
+    /**
+     * Links nodes holding the elements a[from, from + n) at end of queue.
+     *
+     * @return the count before the elements were added
+     */
+    private int enqueue(Object[] a, int from, int n) {
+        // assert putLock.isHeldByCurrentThread();
+        // assert count.get() + n <= capacity;
+        Node<E> l = last;
+        for (int i = from, end = from + n; i < end; i++) {
+            @SuppressWarnings("unchecked") E e = (E) a[i];
+            l = l.next = new Node<E>(e);
+        }
+        last = l;
+        return count.getAndAdd(n);
+    }
+
     /**
      * Removes a node from head of queue.
      *
@@ -396,6 +413,107 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E>
         return true;
     }
 
+    /**
+     * Inserts all of the elements of the specified collection at the tail
+     * of this queue, in the order of the collection's iterator, waiting if
+     * necessary for space to become available.  Elements are inserted in
+     * batches, each as large as the space available, with a single lock
+     * acquisition and at most one signal to waiting takers per batch.
+     *
+     * <p>If interrupted while waiting, the elements inserted before the
+     * interruption remain in the queue, and the others are not inserted.
+     *
+     * @param c collection containing elements to be added to this queue
+     * @throws InterruptedException if interrupted while waiting
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null
+     * @throws IllegalArgumentException if the collection is this queue
+     * @since 1.8
+     */
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        enqueueAll(c, false, 0L);
+    }
+
+    /**
+     * Inserts elements of the specified collection at the tail of this
+     * queue, in the order of the collection's iterator, waiting if
+     * necessary up to the specified wait time for space to become
+     * available.  Elements are inserted in batches, each as large as the
+     * space available, with a single lock acquisition and at most one
+     * signal to waiting takers per batch.
+     *
+     * @param c collection containing elements to be added to this queue
+     * @param timeout how long to wait before giving up, in units of
+     *        {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return the number of elements inserted, which is less than the size
+     *         of the collection if the specified waiting time elapses
+     *         before space is available for all of them
+     * @throws InterruptedException if interrupted while waiting
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null
+     * @throws IllegalArgumentException if the collection is this queue
+     * @since 1.8
+     */
+    public int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        return enqueueAll(c, true, unit.toNanos(timeout));
+    }
+
+    /**
+     * Implements putAll and offerAll.
+     *
+     * @return the number of elements inserted
+     */
+    private int enqueueAll(Collection<? extends E> c, boolean timed, long nanos)
+        throws InterruptedException {
+        if (c == this)
+            throw new IllegalArgumentException();
+        Object[] a = c.toArray();
+        for (Object e : a)
+            if (e == null) throw new NullPointerException();
+        if (a.length == 0)
+            return 0;
+        boolean signal = false;
+        int i = 0;
+        final ReentrantLock putLock = this.putLock;
+        final AtomicInteger count = this.count;
+        putLock.lockInterruptibly();
+        try {
+            for (;;) {
+                int n = Math.min(a.length - i, capacity - count.get());
+                if (n > 0) {
+                    int c0 = enqueue(a, i, n);
+                    i += n;
+                    if (c0 == 0)
+                        signal = true;
+                    if (i == a.length) {
+                        if (c0 + n < capacity)
+                            notFull.signal();
+                        break;
+                    }
+                }
+                // The queue is full: takers must be woken before waiting
+                if (signal) {
+                    signalNotEmpty();
+                    signal = false;
+                }
+                if (!timed)
+                    notFull.await();
+                else if (nanos > 0)
+                    nanos = notFull.awaitNanos(nanos);
+                else
+                    break;
+            }
+        } finally {
+            putLock.unlock();
+        }
+        if (signal)
+            signalNotEmpty();
+        return i;
+    }
+
     /**
      * Inserts the specified element at the tail of this queue if it is
      * possible to do so immediately without exceeding the queue's capacity,
@@ -762,6 +880,88 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E>
         }
     }
 
+    /**
+     * Removes at most the given number of available elements from this
+     * queue and adds them to the given collection, waiting if necessary
+     * up to the specified wait time for an element to become available.
+     * Once at least one element is available, this method removes the
+     * elements available, up to {@code maxElements}, with a single lock
+     * acquisition, and does not wait for more.
+     *
+     * <p>A failure encountered while attempting to add elements to
+     * collection {@code c} may result in elements being in neither,
+     * either or both collections when the associated exception is
+     * thrown, as for {@link #drainTo(Collection, int)}.
+     *
+     * @param c the collection to transfer elements into
+     * @param maxElements the maximum number of elements to transfer
+     * @param timeout how long to wait before giving up, in units of
+     *        {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return the number of elements transferred, which is zero if the
+     *         specified waiting time elapses before an element is available
+     * @throws InterruptedException if interrupted while waiting
+     * @throws UnsupportedOperationException if addition of elements
+     *         is not supported by the specified collection
+     * @throws ClassCastException if the class of an element of this queue
+     *         prevents it from being added to the specified collection
+     * @throws NullPointerException if the specified collection is null
+     * @throws IllegalArgumentException if the specified collection is this
+     *         queue, or some property of an element of this queue prevents
+     *         it from being added to the specified collection
+     * @since 1.8
+     */
+    public int drainTo(Collection<? super E> c, int maxElements,
+                       long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        long nanos = unit.toNanos(timeout);
+        boolean signalNotFull = false;
+        final AtomicInteger count = this.count;
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lockInterruptibly();
+        try {
+            while (count.get() == 0) {
+                if (nanos <= 0)
+                    return 0;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            int n = Math.min(maxElements, count.get());
+            Node<E> h = head;
+            int i = 0;
+            try {
+                while (i < n) {
+                    Node<E> p = h.next;
+                    c.add(p.item);
+                    p.item = null;
+                    h.next = h;
+                    h = p;
+                    ++i;
+                }
+                return n;
+            } finally {
+                // Restore invariants even if c.add() threw
+                if (i > 0) {
+                    head = h;
+                    int c0 = count.getAndAdd(-i);
+                    if (c0 > i)
+                        notEmpty.signal();
+                    signalNotFull = (c0 == capacity);
+                }
+            }
+        } finally {
+            takeLock.unlock();
+            if (signalNotFull)
+                signalNotFull();
+        }
+    }
+
     /**
      * Returns an iterator over the elements in this queue in proper sequence.
      * The elements will be returned in order from first (head) to last (tail).
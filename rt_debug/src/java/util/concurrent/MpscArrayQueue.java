@@ -0,0 +1,109 @@
+package java.util.concurrent;
+
+/**
+ * A bounded lock-free {@linkplain BlockingQueue blocking queue} backed
+ * by an array, for handing elements from any number of producer threads
+ * to one consumer thread.  This queue orders elements FIFO
+ * (first-in-first-out), in the order in which producers claim their
+ * slots.
+ *
+ * <p>Any thread may insert elements, with {@code offer}, {@code add}
+ * or {@code put}, but at most one thread may remove them, with
+ * {@code poll}, {@code take}, {@code peek}, {@code drainTo},
+ * {@code remove()} or {@code clear}, at a time; the results of other
+ * usages are undefined.  The other methods may be called by any thread.
+ * Producers claim slots by a compare-and-set of a shared index and
+ * publish their elements with ordered stores; the consumer publishes
+ * its progress with ordered stores of its own index, on a separate cache
+ * line, which producers read only when the queue appears full.  No
+ * locks are used except by producers waiting for space.
+ *
+ * <p>The blocking methods spin briefly, then park.  A parked consumer
+ * is unparked when an element is inserted, and parked producers when a
+ * quarter of the queue has been freed.
+ *
+ * <p>The capacity is rounded up to a power of two for the backing
+ * array, but the queue never holds more elements than the capacity
+ * given to the constructor.  Removal of arbitrary elements with
+ * {@code remove(Object)} and the iterator is not supported.
+ *
+ * <p>This class and its iterator implement all of the <em>optional</em>
+ * methods of the {@link java.util.Collection} and {@link
+ * java.util.Iterator} interfaces, except removal of arbitrary elements.
+ *
+ * @see SpscArrayQueue
+ * @since 1.8
+ * @param <E> the type of elements held in this collection
+ */
+public class MpscArrayQueue<E> extends SingleConsumerArrayQueue<E> {
+
+    /** The index of the next slot to claim */
+    @sun.misc.Contended("producer")
+    volatile long producerIndex;
+
+    /**
+     * The producers' cache of consumerIndex + capacity, which
+     * producerIndex may not reach
+     */
+    @sun.misc.Contended("producer")
+    volatile long producerLimit;
+
+    /**
+     * Creates a {@code MpscArrayQueue} with the given (fixed) capacity.
+     *
+     * @param capacity the capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity} is less than 1
+     *         or greater than 2<sup>30</sup>
+     */
+    public MpscArrayQueue(int capacity) {
+        super(capacity);
+    }
+
+    final long producerIndex() {
+        return producerIndex;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's
+     * capacity, returning {@code true} upon success and {@code false} if
+     * this queue is full.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (e == null)
+            throw new NullPointerException();
+        long limit = producerLimit;
+        long p;
+        do {
+            p = producerIndex;
+            if (p >= limit) {
+                limit = consumerIndex + capacity;
+                if (p >= limit)
+                    return false;
+                U.putOrderedLong(this, PLIMIT, limit);
+            }
+        } while (!U.compareAndSwapLong(this, PINDEX, p, p + 1));
+        // The slot is claimed; the consumer waits for the element to
+        // appear if it sees the index before it
+        U.putOrderedObject(buffer, offset(p), e);
+        signalNotEmpty();
+        return true;
+    }
+
+    // Unsafe mechanics
+    private static final long PINDEX;
+    private static final long PLIMIT;
+    static {
+        try {
+            Class<?> k = MpscArrayQueue.class;
+            PINDEX = U.objectFieldOffset
+                (k.getDeclaredField("producerIndex"));
+            PLIMIT = U.objectFieldOffset
+                (k.getDeclaredField("producerLimit"));
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -0,0 +1,493 @@
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The consumer side, and the blocking operations, of the bounded
+ * lock-free array queues that have a single consumer thread,
+ * {@link SpscArrayQueue} and {@link MpscArrayQueue}.  Subclasses define
+ * how producers claim slots.
+ *
+ * @since 1.8
+ * @param <E> the type of elements held in this queue
+ */
+abstract class SingleConsumerArrayQueue<E> extends AbstractQueue<E>
+        implements BlockingQueue<E> {
+
+    /*
+     * Elements are stored in a ring buffer whose length is a power of
+     * two, so that slots are found by masking the indices, which grow
+     * without wrapping.  A slot is non-null exactly while it holds an
+     * element: producers publish an element by an ordered store of it
+     * into its slot, and the consumer takes it by an ordered store of
+     * null, then advances consumerIndex, also by an ordered store.
+     * Producers compare their index to consumerIndex only when the
+     * bound they cached from it is reached.  The indices and the caches
+     * are in separate @Contended groups, so that the producers and the
+     * consumer do not write to the same cache lines.
+     *
+     * Waiting.  A consumer that finds the queue empty spins briefly
+     * (on multiprocessors), then records itself in consumerWaiter and
+     * parks; the first producer to insert an element afterwards clears
+     * consumerWaiter and unparks it, so that later ones do not.
+     * Producers that find the queue full wait on the notFull condition
+     * of waitLock, which the consumer signals, once a quarter of the
+     * queue is free, when producersWaiting is non-zero, resetting it.
+     * The non-blocking operations use no fences besides the ordered
+     * stores, so a waiter may register itself just as the other side
+     * checks for waiters without seeing it.  Such a missed wakeup is
+     * recovered by parking for bounded times, starting at
+     * MIN_PARK_NANOS and doubling up to MAX_PARK_NANOS: once
+     * registered, a waiter is seen by every later check, so only the
+     * first park can be too long, and it is short.
+     */
+
+    /** The number of CPUs, for spin control */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** The number of times to poll before parking on multiprocessors. */
+    static final int SPINS = (NCPU < 2) ? 0 : 1 << 7;
+
+    /** The first, and shortest, time to park while waiting. */
+    static final long MIN_PARK_NANOS = 1L << 14;
+
+    /** The longest time to park while waiting. */
+    static final long MAX_PARK_NANOS = 1L << 27;
+
+    /** The largest capacity; the buffer length is a power of two. */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** The ring buffer */
+    final Object[] buffer;
+
+    /** buffer.length - 1 */
+    final int mask;
+
+    /** The maximum number of elements */
+    final int capacity;
+
+    /** The index of the next element to take, written by the consumer */
+    @sun.misc.Contended("consumer")
+    volatile long consumerIndex;
+
+    /**
+     * The consumer thread, while it is parked waiting for an element.
+     * The producer that unparks it clears this field.
+     */
+    @sun.misc.Contended("waiters")
+    volatile Thread consumerWaiter;
+
+    /**
+     * Non-zero if producers may be waiting for space; the number of
+     * times producers have waited since the consumer last signalled
+     * them.  Written under waitLock.
+     */
+    @sun.misc.Contended("waiters")
+    volatile int producersWaiting;
+
+    /** Lock for producers waiting for space */
+    private final ReentrantLock waitLock = new ReentrantLock();
+
+    /** Condition for producers waiting for space */
+    private final Condition notFull = waitLock.newCondition();
+
+    SingleConsumerArrayQueue(int capacity) {
+        if (capacity < 1 || capacity > MAXIMUM_CAPACITY)
+            throw new IllegalArgumentException();
+        int n = 1;
+        while (n < capacity)
+            n <<= 1;
+        this.buffer = new Object[n];
+        this.mask = n - 1;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the index of the next slot producers will claim.
+     */
+    abstract long producerIndex();
+
+    /**
+     * Returns the offset of the slot for index i.
+     */
+    final long offset(long i) {
+        return ((long) ((int) i & mask) << ASHIFT) + ABASE;
+    }
+
+    /**
+     * Unparks the consumer if it is waiting.  Called by producers after
+     * inserting an element.
+     */
+    final void signalNotEmpty() {
+        Thread w = consumerWaiter;
+        if (w != null && U.compareAndSwapObject(this, WAITER, w, null))
+            LockSupport.unpark(w);
+    }
+
+    /**
+     * Signals waiting producers if a quarter of the queue is free.
+     * Called by the consumer after taking elements.
+     */
+    private void signalNotFull(long c) {
+        if (producersWaiting != 0 &&
+            capacity - (producerIndex() - c) >= Math.max(1, capacity >> 2)) {
+            final ReentrantLock lock = this.waitLock;
+            lock.lock();
+            try {
+                producersWaiting = 0;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the element at index c, which the consumer has not taken,
+     * waiting for it if a producer has claimed its slot without having
+     * stored it yet, or null if the queue is empty.
+     */
+    private Object elementAt(long c, long offset) {
+        Object e = U.getObjectVolatile(buffer, offset);
+        if (e == null && c != producerIndex()) {
+            // Claimed but not yet published; it will be shortly
+            while ((e = U.getObjectVolatile(buffer, offset)) == null)
+                Thread.yield();
+        }
+        return e;
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, or returns
+     * {@code null} if this queue is empty.  This method may only be
+     * called by the consumer thread.
+     *
+     * @return the head of this queue, or {@code null} if this queue is empty
+     */
+    public E poll() {
+        long c = consumerIndex;
+        long offset = offset(c);
+        Object e = elementAt(c, offset);
+        if (e == null)
+            return null;
+        U.putOrderedObject(buffer, offset, null);
+        U.putOrderedLong(this, CINDEX, c + 1);
+        signalNotFull(c + 1);
+        @SuppressWarnings("unchecked") E x = (E) e;
+        return x;
+    }
+
+    /**
+     * Retrieves, but does not remove, the head of this queue, or returns
+     * {@code null} if this queue is empty.  This method may only be
+     * called by the consumer thread.
+     *
+     * @return the head of this queue, or {@code null} if this queue is empty
+     */
+    public E peek() {
+        long c = consumerIndex;
+        @SuppressWarnings("unchecked") E x = (E) elementAt(c, offset(c));
+        return x;
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, waiting if necessary
+     * until an element becomes available.  This method may only be
+     * called by the consumer thread.
+     *
+     * @return the head of this queue
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public E take() throws InterruptedException {
+        E e = poll();
+        return (e != null) ? e : awaitElement(false, 0L);
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, waiting up to the
+     * specified wait time if necessary for an element to become
+     * available.  This method may only be called by the consumer thread.
+     *
+     * @param timeout how long to wait before giving up, in units of
+     *        {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return the head of this queue, or {@code null} if the
+     *         specified waiting time elapses before an element is available
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = poll();
+        return (e != null) ? e : awaitElement(true, unit.toNanos(timeout));
+    }
+
+    private E awaitElement(boolean timed, long nanos)
+        throws InterruptedException {
+        final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        E e;
+        for (int spins = SPINS; spins > 0; --spins) {
+            if ((e = poll()) != null)
+                return e;
+        }
+        Thread w = Thread.currentThread();
+        try {
+            for (long slice = MIN_PARK_NANOS;;) {
+                consumerWaiter = w;
+                if ((e = poll()) != null)
+                    return e;
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+                long park = slice;
+                if (timed) {
+                    nanos = deadline - System.nanoTime();
+                    if (nanos <= 0L)
+                        return null;
+                    park = Math.min(park, nanos);
+                }
+                LockSupport.parkNanos(this, park);
+                if (slice < MAX_PARK_NANOS)
+                    slice <<= 1;
+            }
+        } finally {
+            consumerWaiter = null;
+        }
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * for space to become available if the queue is full.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void put(E e) throws InterruptedException {
+        if (!offer(e))
+            awaitSpace(e, false, 0L);
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * up to the specified wait time for space to become available if
+     * the queue is full.
+     *
+     * @return {@code true} if successful, or {@code false} if
+     *         the specified waiting time elapses before space is available
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public boolean offer(E e, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        return offer(e) || awaitSpace(e, true, unit.toNanos(timeout));
+    }
+
+    private boolean awaitSpace(E e, boolean timed, long nanos)
+        throws InterruptedException {
+        final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        for (int spins = SPINS; spins > 0; --spins) {
+            if (offer(e))
+                return true;
+        }
+        final ReentrantLock lock = this.waitLock;
+        lock.lockInterruptibly();
+        try {
+            for (long slice = MIN_PARK_NANOS;;) {
+                producersWaiting++;
+                if (offer(e))
+                    return true;
+                long park = slice;
+                if (timed) {
+                    nanos = deadline - System.nanoTime();
+                    if (nanos <= 0L)
+                        return false;
+                    park = Math.min(park, nanos);
+                }
+                notFull.awaitNanos(park);
+                if (slice < MAX_PARK_NANOS)
+                    slice <<= 1;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's
+     * capacity, returning {@code true} upon success and {@code false} if
+     * this queue is full.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public abstract boolean offer(E e);
+
+    /**
+     * Returns the number of elements in this queue.
+     *
+     * @return the number of elements in this queue
+     */
+    public int size() {
+        long after = consumerIndex;
+        for (;;) {
+            long before = after;
+            long p = producerIndex();
+            after = consumerIndex;
+            if (before == after) {
+                long size = p - after;
+                return (size <= 0L) ? 0 : (int) Math.min(size, capacity);
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} if this queue contains no elements.
+     *
+     * @return {@code true} if this queue contains no elements
+     */
+    public boolean isEmpty() {
+        return consumerIndex >= producerIndex();
+    }
+
+    /**
+     * Returns the number of additional elements that this queue can
+     * ideally (in the absence of memory or resource constraints) accept
+     * without blocking.
+     *
+     * @return the remaining capacity
+     */
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    /**
+     * Removes all available elements from this queue and adds them to
+     * the given collection.  This method may only be called by the
+     * consumer thread.
+     *
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes at most the given number of available elements from this
+     * queue and adds them to the given collection, publishing the space
+     * they free once.  This method may only be called by the consumer
+     * thread.
+     *
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        final Object[] buffer = this.buffer;
+        long start = consumerIndex, ci = start;
+        try {
+            for (int n = 0; n < maxElements; n++) {
+                long offset = offset(ci);
+                Object e = U.getObjectVolatile(buffer, offset);
+                if (e == null)
+                    break;
+                @SuppressWarnings("unchecked") E x = (E) e;
+                c.add(x);
+                U.putOrderedObject(buffer, offset, null);
+                ci++;
+            }
+        } finally {
+            // Publish the elements taken even if c.add() threw
+            if (ci != start) {
+                U.putOrderedLong(this, CINDEX, ci);
+                signalNotFull(ci);
+            }
+        }
+        return (int) (ci - start);
+    }
+
+    /**
+     * Returns an iterator over the elements in this queue in proper
+     * sequence.  The iterator does not support {@code remove}.
+     *
+     * <p>The returned iterator is
+     * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>.
+     *
+     * @return an iterator over the elements in this queue in proper sequence
+     */
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * Iterator over the indices between consumerIndex and producerIndex
+     * when it was created, skipping slots that have been taken since.
+     */
+    private final class Itr implements Iterator<E> {
+        private long index = consumerIndex;
+        private final long end = producerIndex();
+        private Object next = advance();
+
+        private Object advance() {
+            for (; index < end; index++) {
+                if (index < consumerIndex)
+                    continue;
+                Object e = U.getObjectVolatile(buffer, offset(index));
+                if (e != null) {
+                    index++;
+                    return e;
+                }
+            }
+            return null;
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public E next() {
+            Object e = next;
+            if (e == null)
+                throw new NoSuchElementException();
+            next = advance();
+            @SuppressWarnings("unchecked") E x = (E) e;
+            return x;
+        }
+    }
+
+    // Unsafe mechanics
+    static final sun.misc.Unsafe U;
+    private static final long CINDEX;
+    private static final long WAITER;
+    private static final long ABASE;
+    private static final int ASHIFT;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = SingleConsumerArrayQueue.class;
+            CINDEX = U.objectFieldOffset
+                (k.getDeclaredField("consumerIndex"));
+            WAITER = U.objectFieldOffset
+                (k.getDeclaredField("consumerWaiter"));
+            Class<?> ak = Object[].class;
+            ABASE = U.arrayBaseOffset(ak);
+            int scale = U.arrayIndexScale(ak);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package java.util.concurrent;
+
+/**
+ * A bounded lock-free {@linkplain BlockingQueue blocking queue} backed
+ * by an array, for handing elements from one producer thread to one
+ * consumer thread.  This queue orders elements FIFO (first-in-first-out).
+ *
+ * <p>At most one thread may insert elements, with {@code offer},
+ * {@code add} or {@code put}, at a time, and at most one thread may
+ * remove them, with {@code poll}, {@code take}, {@code peek},
+ * {@code drainTo}, {@code remove()} or {@code clear}, at a time; the
+ * results of other usages are undefined.  The other methods may be
+ * called by any thread.  Neither side ever blocks the other: the
+ * producer and the consumer publish their progress with ordered stores
+ * of their indices, on separate cache lines, and read each other's
+ * index only when the queue appears full or empty.  Inserting or
+ * removing an element therefore costs a few memory accesses, rather
+ * than the lock acquisitions and signals of {@link ArrayBlockingQueue}.
+ *
+ * <p>The blocking methods spin briefly, then park.  A parked consumer
+ * is unparked when an element is inserted, and a parked producer when
+ * a quarter of the queue has been freed.
+ *
+ * <p>The capacity is rounded up to a power of two for the backing
+ * array, but the queue never holds more elements than the capacity
+ * given to the constructor.  Removal of arbitrary elements with
+ * {@code remove(Object)} and the iterator is not supported.
+ *
+ * <p>This class and its iterator implement all of the <em>optional</em>
+ * methods of the {@link java.util.Collection} and {@link
+ * java.util.Iterator} interfaces, except removal of arbitrary elements.
+ *
+ * @see MpscArrayQueue
+ * @since 1.8
+ * @param <E> the type of elements held in this collection
+ */
+public class SpscArrayQueue<E> extends SingleConsumerArrayQueue<E> {
+
+    /** The index of the next element to insert */
+    @sun.misc.Contended("producer")
+    volatile long producerIndex;
+
+    /**
+     * The producer's cache of consumerIndex + capacity, which
+     * producerIndex may not reach
+     */
+    @sun.misc.Contended("producer")
+    long producerLimit;
+
+    /**
+     * Creates a {@code SpscArrayQueue} with the given (fixed) capacity.
+     *
+     * @param capacity the capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity} is less than 1
+     *         or greater than 2<sup>30</sup>
+     */
+    public SpscArrayQueue(int capacity) {
+        super(capacity);
+    }
+
+    final long producerIndex() {
+        return producerIndex;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's
+     * capacity, returning {@code true} upon success and {@code false} if
+     * this queue is full.  This method may only be called by the
+     * producer thread.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (e == null)
+            throw new NullPointerException();
+        long p = producerIndex;
+        if (p >= producerLimit) {
+            long limit = consumerIndex + capacity;
+            if (p >= limit)
+                return false;
+            producerLimit = limit;
+        }
+        U.putOrderedObject(buffer, offset(p), e);
+        U.putOrderedLong(this, PINDEX, p + 1);
+        signalNotEmpty();
+        return true;
+    }
+
+    // Unsafe mechanics
+    private static final long PINDEX;
+    static {
+        try {
+            PINDEX = U.objectFieldOffset
+                (SpscArrayQueue.class.getDeclaredField("producerIndex"));
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
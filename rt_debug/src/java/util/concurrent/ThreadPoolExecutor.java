@@ -42,6 +42,8 @@ import java.util.concurrent.locks.AbstractQueuedSynchronizer;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.*;
 
 /**
@@ -497,25 +499,32 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
     private final BlockingQueue<Runnable> workQueue;
 
     /**
-     * Lock held on access to workers set and related bookkeeping.
-     * While we could use a concurrent set of some sort, it turns out
-     * to be generally preferable to use a lock. Among the reasons is
-     * that this serializes interruptIdleWorkers, which avoids
-     * unnecessary interrupt storms, especially during shutdown.
-     * Otherwise exiting threads would concurrently interrupt those
-     * that have not yet interrupted. It also simplifies some of the
-     * associated statistics bookkeeping of largestPoolSize etc. We
+     * Lock held on traversals of the workers set that act on workers,
+     * and on admission of new workers.  Holding the lock serializes
+     * interruptIdleWorkers, which avoids unnecessary interrupt storms,
+     * especially during shutdown.  Otherwise exiting threads would
+     * concurrently interrupt those that have not yet interrupted. We
      * also hold mainLock on shutdown and shutdownNow, for the sake of
      * ensuring workers set is stable while separately checking
-     * permission to interrupt and actually interrupting.
+     * permission to interrupt and actually interrupting, and in
+     * addWorker so that the run state recheck and the insertion are
+     * atomic with respect to those sweeps.
+     *
+     * The workers set itself is concurrent, and the statistics are
+     * kept in adders, so that worker exit and the monitoring methods
+     * (getPoolSize, getActiveCount, getCompletedTaskCount, snapshot
+     * etc) never need the lock.  Pools with many threads that are
+     * polled frequently by monitoring agents would otherwise see
+     * those agents contend with workers starting and exiting.
      */
     private final ReentrantLock mainLock = new ReentrantLock();
 
     /**
-     * Set containing all worker threads in pool. Accessed only when
-     * holding mainLock.
+     * Set containing all worker threads in pool. Mutated by addWorker
+     * under mainLock, and by exiting workers without it; may be read
+     * at any time.
      */
-    private final HashSet<Worker> workers = new HashSet<Worker>();
+    private final Set<Worker> workers = ConcurrentHashMap.newKeySet();
 
     /**
      * Wait condition to support awaitTermination
@@ -523,16 +532,39 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
     private final Condition termination = mainLock.newCondition();
 
     /**
-     * Tracks largest attained pool size. Accessed only under
-     * mainLock.
+     * Tracks largest attained pool size. Updated only under mainLock.
+     */
+    private volatile int largestPoolSize;
+
+    /**
+     * Counter for completed tasks, incremented by each worker after
+     * every task.  Being only ever incremented, successive sums never
+     * decrease.
+     */
+    private final LongAdder completedTaskCount = new LongAdder();
+
+    /**
+     * Task execution time histogram of workers that have exited,
+     * merged in by processWorkerExit. Buckets as for latencyBucket.
+     */
+    private final AtomicLongArray retiredLatencies =
+        new AtomicLongArray(LATENCY_BUCKETS);
+
+    /**
+     * If true, workers time each task and record the elapsed time in
+     * their latency histograms.  Off by default, since it costs two
+     * calls to System.nanoTime per task.
      */
-    private int largestPoolSize;
+    private volatile boolean taskTimingEnabled;
 
     /**
-     * Counter for completed tasks. Updated only on termination of
-     * worker threads. Accessed only under mainLock.
+     * Number of buckets of the task execution time histograms.
+     * Bucket 0 counts tasks that took less than 1024 nanoseconds,
+     * bucket i counts those that took less than {@code 1024 << i}
+     * nanoseconds (but at least {@code 1024 << (i - 1)}), and the
+     * last bucket also counts everything longer.
      */
-    private long completedTaskCount;
+    static final int LATENCY_BUCKETS = 32;
 
     /*
      * All user control parameters are declared as volatiles so that
@@ -665,6 +697,12 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         /** Per-thread task counter */
         /** 每线程任务计数器 */
         volatile long completedTasks;
+        /**
+         * Per-thread task execution time histogram, created on first
+         * use. Written only by the worker thread, so readers may see
+         * slightly stale counts.
+         */
+        volatile long[] latencies;
 
         /**
          * Creates with given first task and thread from ThreadFactory.
@@ -714,6 +752,14 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         public void unlock()      { release(1); }
         public boolean isLocked() { return isHeldExclusively(); }
 
+        /** Records a task execution time. Called only by thread. */
+        void recordLatency(long nanos) {
+            long[] h = latencies;
+            if (h == null)
+                latencies = h = new long[LATENCY_BUCKETS];
+            h[latencyBucket(nanos)]++;
+        }
+
         void interruptIfStarted() {
             Thread t;
             if (getState() >= 0 && (t = thread) != null && !t.isInterrupted()) {
@@ -1073,13 +1119,13 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         if (completedAbruptly) // If abrupt, then workerCount wasn't adjusted - 如果是突然的，则不调整workerCount
             decrementWorkerCount();
 
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            completedTaskCount += w.completedTasks;
-            workers.remove(w);
-        } finally {
-            mainLock.unlock();
+        workers.remove(w);
+        long[] h = w.latencies;
+        if (h != null) {
+            for (int i = 0; i < h.length; ++i) {
+                if (h[i] != 0L)
+                    retiredLatencies.addAndGet(i, h[i]);
+            }
         }
 
         tryTerminate();
@@ -1224,6 +1270,8 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         try {
             while (task != null || (task = getTask()) != null) {
                 w.lock();
+                boolean timed = taskTimingEnabled;
+                long startTime = timed ? System.nanoTime() : 0L;
                 // If pool is stopping, ensure thread is interrupted;
                 // if not, ensure thread is not interrupted.  This
                 // requires a recheck in second case to deal with
@@ -1250,6 +1298,9 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                 } finally {
                     task = null;
                     w.completedTasks++;
+                    completedTaskCount.increment();
+                    if (timed)
+                        w.recordLatency(System.nanoTime() - startTime);
                     w.unlock();
                 }
             }
@@ -1898,16 +1949,10 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      * @return the number of threads
      */
     public int getPoolSize() {
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            // Remove rare and surprising possibility of
-            // isTerminated() && getPoolSize() > 0
-            return runStateAtLeast(ctl.get(), TIDYING) ? 0
-                : workers.size();
-        } finally {
-            mainLock.unlock();
-        }
+        // Remove rare and surprising possibility of
+        // isTerminated() && getPoolSize() > 0
+        return runStateAtLeast(ctl.get(), TIDYING) ? 0
+            : workers.size();
     }
 
     /**
@@ -1917,17 +1962,11 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      * @return the number of threads
      */
     public int getActiveCount() {
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            int n = 0;
-            for (Worker w : workers)
-                if (w.isLocked())
-                    ++n;
-            return n;
-        } finally {
-            mainLock.unlock();
-        }
+        int n = 0;
+        for (Worker w : workers)
+            if (w.isLocked())
+                ++n;
+        return n;
     }
 
     /**
@@ -1937,13 +1976,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      * @return the number of threads
      */
     public int getLargestPoolSize() {
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            return largestPoolSize;
-        } finally {
-            mainLock.unlock();
-        }
+        return largestPoolSize;
     }
 
     /**
@@ -1955,19 +1988,12 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      * @return the number of tasks
      */
     public long getTaskCount() {
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            long n = completedTaskCount;
-            for (Worker w : workers) {
-                n += w.completedTasks;
-                if (w.isLocked())
-                    ++n;
-            }
-            return n + workQueue.size();
-        } finally {
-            mainLock.unlock();
+        long n = completedTaskCount.sum();
+        for (Worker w : workers) {
+            if (w.isLocked())
+                ++n;
         }
+        return n + workQueue.size();
     }
 
     /**
@@ -1980,16 +2006,80 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      * @return the number of tasks
      */
     public long getCompletedTaskCount() {
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            long n = completedTaskCount;
-            for (Worker w : workers)
-                n += w.completedTasks;
-            return n;
-        } finally {
-            mainLock.unlock();
+        return completedTaskCount.sum();
+    }
+
+    /**
+     * Sets whether worker threads measure the execution time of each
+     * task for the latency histogram reported by {@link #snapshot}.
+     * Timing is disabled by default, since it adds two calls to
+     * {@link System#nanoTime} to every task.  The setting takes effect
+     * for tasks started after this method returns.
+     *
+     * @param value {@code true} to time tasks, else {@code false}
+     * @since 1.8
+     */
+    public void setTaskTimingEnabled(boolean value) {
+        taskTimingEnabled = value;
+    }
+
+    /**
+     * Returns {@code true} if worker threads measure the execution
+     * time of each task.
+     *
+     * @return {@code true} if task timing is enabled
+     * @see #setTaskTimingEnabled
+     * @since 1.8
+     */
+    public boolean isTaskTimingEnabled() {
+        return taskTimingEnabled;
+    }
+
+    /**
+     * Returns a point-in-time view of the statistics of this pool.
+     * This method does not acquire any lock, so it may be called as
+     * often as monitoring requires without slowing down the creation
+     * and exit of worker threads.  Because the states of tasks and
+     * threads may change dynamically while the snapshot is taken, its
+     * values are only approximations, and are not necessarily
+     * consistent with each other.
+     *
+     * @return a snapshot of the statistics of this pool
+     * @since 1.8
+     */
+    public Snapshot snapshot() {
+        int c = ctl.get();
+        boolean tidying = runStateAtLeast(c, TIDYING);
+        Map<Long,Long> perWorker = new HashMap<Long,Long>();
+        long[] latencies = new long[LATENCY_BUCKETS];
+        int nworkers = 0, nactive = 0;
+        for (Worker w : workers) {
+            ++nworkers;
+            if (w.isLocked())
+                ++nactive;
+            if (w.thread != null)
+                perWorker.put(w.thread.getId(), w.completedTasks);
+            long[] h = w.latencies;
+            if (h != null) {
+                for (int i = 0; i < LATENCY_BUCKETS; ++i)
+                    latencies[i] += h[i];
+            }
         }
+        for (int i = 0; i < LATENCY_BUCKETS; ++i)
+            latencies[i] += retiredLatencies.get(i);
+        return new Snapshot(tidying ? 0 : nworkers, nactive,
+                            largestPoolSize, workQueue.size(),
+                            completedTaskCount.sum(), perWorker,
+                            latencies);
+    }
+
+    /**
+     * Returns the index of the latency histogram bucket for the
+     * given elapsed time.
+     */
+    static int latencyBucket(long nanos) {
+        int b = 64 - Long.numberOfLeadingZeros(nanos >>> 10);
+        return (b < LATENCY_BUCKETS) ? b : LATENCY_BUCKETS - 1;
     }
 
     /**
@@ -2000,21 +2090,12 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      * @return a string identifying this pool, as well as its state
      */
     public String toString() {
-        long ncompleted;
-        int nworkers, nactive;
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            ncompleted = completedTaskCount;
-            nactive = 0;
-            nworkers = workers.size();
-            for (Worker w : workers) {
-                ncompleted += w.completedTasks;
-                if (w.isLocked())
-                    ++nactive;
-            }
-        } finally {
-            mainLock.unlock();
+        long ncompleted = completedTaskCount.sum();
+        int nworkers = 0, nactive = 0;
+        for (Worker w : workers) {
+            ++nworkers;
+            if (w.isLocked())
+                ++nactive;
         }
         int c = ctl.get();
         String rs = (runStateLessThan(c, SHUTDOWN) ? "Running" :
@@ -2029,6 +2110,126 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
             "]";
     }
 
+    /**
+     * An immutable view of the statistics of a
+     * {@code ThreadPoolExecutor}, as returned by
+     * {@link ThreadPoolExecutor#snapshot}.
+     *
+     * <p>The task execution time histogram has
+     * {@code getLatencyHistogram().length} buckets.  Bucket {@code i}
+     * counts the tasks whose execution, including the
+     * {@code beforeExecute} and {@code afterExecute} hooks, took less
+     * than {@link #getLatencyBucketLimit getLatencyBucketLimit(i)}
+     * nanoseconds and at least the limit of bucket {@code i - 1}.  The
+     * histogram is only populated while
+     * {@linkplain ThreadPoolExecutor#setTaskTimingEnabled task timing}
+     * is enabled.
+     *
+     * @since 1.8
+     */
+    public static final class Snapshot {
+        private final int poolSize;
+        private final int activeCount;
+        private final int largestPoolSize;
+        private final int queueSize;
+        private final long completedTaskCount;
+        private final Map<Long,Long> workerCompletedTasks;
+        private final long[] latencies;
+
+        Snapshot(int poolSize, int activeCount, int largestPoolSize,
+                 int queueSize, long completedTaskCount,
+                 Map<Long,Long> workerCompletedTasks, long[] latencies) {
+            this.poolSize = poolSize;
+            this.activeCount = activeCount;
+            this.largestPoolSize = largestPoolSize;
+            this.queueSize = queueSize;
+            this.completedTaskCount = completedTaskCount;
+            this.workerCompletedTasks =
+                Collections.unmodifiableMap(workerCompletedTasks);
+            this.latencies = latencies;
+        }
+
+        /**
+         * Returns the number of threads in the pool.
+         *
+         * @return the number of threads
+         */
+        public int getPoolSize() { return poolSize; }
+
+        /**
+         * Returns the number of threads that were executing tasks.
+         *
+         * @return the number of threads
+         */
+        public int getActiveCount() { return activeCount; }
+
+        /**
+         * Returns the largest number of threads that have ever
+         * simultaneously been in the pool.
+         *
+         * @return the number of threads
+         */
+        public int getLargestPoolSize() { return largestPoolSize; }
+
+        /**
+         * Returns the number of tasks waiting in the work queue.
+         *
+         * @return the queue depth
+         */
+        public int getQueueSize() { return queueSize; }
+
+        /**
+         * Returns the total number of tasks that have completed
+         * execution.
+         *
+         * @return the number of tasks
+         */
+        public long getCompletedTaskCount() { return completedTaskCount; }
+
+        /**
+         * Returns the number of tasks completed by each live worker,
+         * keyed by the {@linkplain Thread#getId id} of its thread.
+         *
+         * @return an unmodifiable map from thread id to task count
+         */
+        public Map<Long,Long> getWorkerCompletedTasks() {
+            return workerCompletedTasks;
+        }
+
+        /**
+         * Returns the task execution time histogram.
+         *
+         * @return a new array holding the count of each bucket
+         */
+        public long[] getLatencyHistogram() { return latencies.clone(); }
+
+        /**
+         * Returns the exclusive upper bound, in nanoseconds, of the
+         * given bucket of the latency histogram, or
+         * {@code Long.MAX_VALUE} for the last bucket.
+         *
+         * @param bucket the bucket index
+         * @return the upper bound of the bucket in nanoseconds
+         * @throws IndexOutOfBoundsException if the index is out of range
+         */
+        public static long getLatencyBucketLimit(int bucket) {
+            if (bucket < 0 || bucket >= LATENCY_BUCKETS)
+                throw new IndexOutOfBoundsException(String.valueOf(bucket));
+            return (bucket == LATENCY_BUCKETS - 1) ? Long.MAX_VALUE
+                : 1024L << bucket;
+        }
+
+        public String toString() {
+            return super.toString() +
+                "[pool size = " + poolSize +
+                ", active threads = " + activeCount +
+                ", largest pool size = " + largestPoolSize +
+                ", queued tasks = " + queueSize +
+                ", completed tasks = " + completedTaskCount +
+                "]";
+        }
+    }
+
     /* Extension hooks */
 
     /**
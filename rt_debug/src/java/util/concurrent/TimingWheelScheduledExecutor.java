@@ -0,0 +1,892 @@
+package java.util.concurrent;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link ScheduledExecutorService} that keeps its pending tasks in a
+ * hierarchical hashed timing wheel instead of a priority queue.
+ *
+ * <p>{@link ScheduledThreadPoolExecutor} orders delayed tasks in a
+ * binary heap guarded by a single lock, so scheduling and cancelling
+ * cost {@code O(log n)} and are serialized across all threads.  That is
+ * a poor fit for workloads that keep very many short-lived timeouts
+ * pending, such as per-request deadlines that are almost always
+ * cancelled before they fire.  This class instead:
+ *
+ * <ul>
+ * <li>schedules in {@code O(1)} without locking, by appending the task
+ * to a lock-free queue that the timer thread drains once per tick;
+ *
+ * <li>cancels in {@code O(1)}, by unlinking the task from its wheel
+ * bucket on the next tick;
+ *
+ * <li>expires tasks a bucket at a time, handing every task that became
+ * due during a tick over to a pool of worker threads in one pass.
+ * </ul>
+ *
+ * <p>The price is resolution: time is quantized into ticks of a fixed
+ * duration (one millisecond by default, see the constructors), and a
+ * task runs at the first tick boundary at or after its trigger time,
+ * so it may run up to one tick late, but never early.  While any task
+ * is pending the timer thread wakes up once per tick, so very fine
+ * tick durations trade CPU time for precision.
+ *
+ * <p>The wheel has {@code 8} levels of {@code 256} buckets.  A task
+ * lands in the lowest level whose span covers the distance to its
+ * deadline, and is moved ("cascaded") to a lower level when the level
+ * below wraps around, which happens at most once per level over the
+ * life of the task.
+ *
+ * <p>Apart from resolution, this class behaves like a
+ * {@code ScheduledThreadPoolExecutor} with its default policies, and
+ * may be used wherever {@link Executors#newScheduledThreadPool(int)}
+ * is: tasks scheduled for the same tick run in no particular order;
+ * cancelled tasks are removed from the wheel; after {@link #shutdown}
+ * periodic tasks are cancelled, while delayed tasks still run; and
+ * commands submitted with zero delay through {@code execute} or
+ * {@code submit} bypass the wheel entirely.
+ *
+ * @since 1.8
+ * @see Executors#newTimingWheelScheduledThreadPool(int)
+ */
+public class TimingWheelScheduledExecutor extends AbstractExecutorService
+        implements ScheduledExecutorService {
+
+    /*
+     * Threading: the wheel (buckets, currentTick, wheelCount and the
+     * link fields of the tasks) is owned by the timer thread, which
+     * holds wheelLock while touching it.  Nothing else takes that
+     * lock except shutdownNow, which needs to drain the wheel, so it
+     * is always uncontended in normal operation.  Other threads only
+     * ever communicate with the timer thread through the two
+     * lock-free queues "pending" (newly scheduled or rescheduled
+     * tasks) and "cancelled" (tasks to be unlinked).
+     *
+     * Ticks are counted from startTime.  A task due at nanoTime t is
+     * assigned deadline tick ceil((t - startTime) / tickNanos) and is
+     * expired when currentTick reaches it.  Buckets are indexed by the
+     * bits of the deadline tick: a task is kept at the level of the
+     * highest group of WHEEL_BITS bits in which its deadline differs
+     * from the current tick, in the bucket given by that group of its
+     * deadline.  Whenever the lower groups of currentTick all become
+     * zero, the matching bucket of the next level up is cascaded,
+     * i.e. its tasks are reinserted relative to the new current tick.
+     */
+
+    /** Number of bits of the deadline tick consumed by each level. */
+    static final int WHEEL_BITS = 8;
+
+    /** Number of buckets per level. */
+    static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+    static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    /** Number of levels, enough to cover any non-negative tick. */
+    static final int LEVELS = (63 + WHEEL_BITS - 1) / WHEEL_BITS;
+
+    /** Tick duration used by the constructors that do not take one. */
+    static final long DEFAULT_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** Run states, in increasing order. */
+    private static final int RUNNING  = 0;
+    private static final int SHUTDOWN = 1;
+    private static final int STOP     = 2;
+
+    private final AtomicInteger runState = new AtomicInteger(RUNNING);
+
+    /** The pool running expired tasks. */
+    private final ThreadPoolExecutor workers;
+
+    private final ThreadFactory threadFactory;
+
+    /** Duration of one tick, in nanoseconds. */
+    private final long tickNanos;
+
+    /** Origin of ticks, in nanoTime units. */
+    private final long startTime;
+
+    /** Sequence number to break scheduling ties */
+    private final AtomicLong sequencer = new AtomicLong();
+
+    /** Tasks waiting to be inserted into the wheel. */
+    private final ConcurrentLinkedQueue<WheelTask<?>> pending =
+        new ConcurrentLinkedQueue<WheelTask<?>>();
+
+    /** Cancelled tasks waiting to be unlinked from the wheel. */
+    private final ConcurrentLinkedQueue<WheelTask<?>> cancelled =
+        new ConcurrentLinkedQueue<WheelTask<?>>();
+
+    /** Guards the wheel; see above. */
+    private final ReentrantLock wheelLock = new ReentrantLock();
+
+    /** Bucket heads, LEVELS * WHEEL_SIZE of them, level-major. */
+    private final WheelTask<?>[] buckets = new WheelTask<?>[LEVELS * WHEEL_SIZE];
+
+    /** The last tick processed. Guarded by wheelLock. */
+    private long currentTick;
+
+    /** Number of tasks linked into buckets. Guarded by wheelLock. */
+    private int wheelCount;
+
+    /** Set once the timer thread has been (or may no longer be) started. */
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    /** Released when the timer thread has exited, or will never start. */
+    private final CountDownLatch timerDone = new CountDownLatch(1);
+
+    /** The timer thread, once started. */
+    private volatile Thread timer;
+
+    /** True while the timer thread is parked waiting for work. */
+    private volatile boolean idle;
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the given
+     * number of worker threads and a tick of one millisecond.
+     *
+     * @param corePoolSize the number of threads running expired tasks;
+     *        zero is treated as one
+     * @throws IllegalArgumentException if {@code corePoolSize < 0}
+     */
+    public TimingWheelScheduledExecutor(int corePoolSize) {
+        this(corePoolSize, DEFAULT_TICK_NANOS, NANOSECONDS,
+             Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the given
+     * number of worker threads and thread factory, and a tick of one
+     * millisecond.
+     *
+     * @param corePoolSize the number of threads running expired tasks;
+     *        zero is treated as one
+     * @param threadFactory the factory to use when the executor
+     *        creates a new thread, including the timer thread
+     * @throws IllegalArgumentException if {@code corePoolSize < 0}
+     * @throws NullPointerException if {@code threadFactory} is null
+     */
+    public TimingWheelScheduledExecutor(int corePoolSize,
+                                        ThreadFactory threadFactory) {
+        this(corePoolSize, DEFAULT_TICK_NANOS, NANOSECONDS, threadFactory);
+    }
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the given
+     * number of worker threads, tick duration and thread factory.
+     *
+     * @param corePoolSize the number of threads running expired tasks;
+     *        zero is treated as one
+     * @param tickDuration the resolution of the timer
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @param threadFactory the factory to use when the executor
+     *        creates a new thread, including the timer thread
+     * @throws IllegalArgumentException if {@code corePoolSize < 0} or
+     *         {@code tickDuration <= 0}
+     * @throws NullPointerException if {@code unit} or
+     *         {@code threadFactory} is null
+     */
+    public TimingWheelScheduledExecutor(int corePoolSize,
+                                        long tickDuration,
+                                        TimeUnit unit,
+                                        ThreadFactory threadFactory) {
+        if (corePoolSize < 0 || tickDuration <= 0)
+            throw new IllegalArgumentException();
+        if (unit == null || threadFactory == null)
+            throw new NullPointerException();
+        int n = Math.max(corePoolSize, 1);
+        this.workers = new ThreadPoolExecutor(n, n, 0L, NANOSECONDS,
+                                              new LinkedBlockingQueue<Runnable>(),
+                                              threadFactory);
+        this.threadFactory = threadFactory;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.startTime = System.nanoTime();
+    }
+
+    final long now() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Returns the trigger time of a delayed action, keeping clear of
+     * overflow when computing ticks from it.
+     */
+    private long triggerTime(long delay, TimeUnit unit) {
+        long d = unit.toNanos((delay < 0) ? 0 : delay);
+        return now() + ((d < (Long.MAX_VALUE >> 2)) ? d : (Long.MAX_VALUE >> 2));
+    }
+
+    private class WheelTask<V>
+            extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+        /** Sequence number to break ties FIFO */
+        private final long sequenceNumber;
+
+        /** The time the task is enabled to execute in nanoTime units */
+        private long time;
+
+        /**
+         * Period in nanoseconds for repeating tasks.  A positive
+         * value indicates fixed-rate execution.  A negative value
+         * indicates fixed-delay execution.  A value of 0 indicates a
+         * non-repeating task.
+         */
+        private final long period;
+
+        /** Tick at which the task expires. Owned by the timer thread. */
+        long deadlineTick;
+
+        /** Bucket links. Owned by the timer thread. */
+        WheelTask<?> prev, next;
+
+        /** Index into buckets, or -1 if not linked. Owned by timer. */
+        int slot = -1;
+
+        WheelTask(Runnable r, V result, long ns, long period) {
+            super(r, result);
+            this.time = ns;
+            this.period = period;
+            this.sequenceNumber = sequencer.getAndIncrement();
+        }
+
+        WheelTask(Callable<V> callable, long ns) {
+            super(callable);
+            this.time = ns;
+            this.period = 0;
+            this.sequenceNumber = sequencer.getAndIncrement();
+        }
+
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - now(), NANOSECONDS);
+        }
+
+        public int compareTo(Delayed other) {
+            if (other == this) // compare zero if same object
+                return 0;
+            if (other instanceof WheelTask) {
+                WheelTask<?> x = (WheelTask<?>)other;
+                long diff = time - x.time;
+                if (diff < 0)
+                    return -1;
+                else if (diff > 0)
+                    return 1;
+                else if (sequenceNumber < x.sequenceNumber)
+                    return -1;
+                else
+                    return 1;
+            }
+            long diff = getDelay(NANOSECONDS) - other.getDelay(NANOSECONDS);
+            return (diff < 0) ? -1 : (diff > 0) ? 1 : 0;
+        }
+
+        public boolean isPeriodic() {
+            return period != 0;
+        }
+
+        /**
+         * Sets the next time to run for a periodic task.
+         */
+        private void setNextRunTime() {
+            long p = period;
+            if (p > 0)
+                time += p;
+            else
+                time = triggerTime(-p, NANOSECONDS);
+        }
+
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean wasCancelled = super.cancel(mayInterruptIfRunning);
+            if (wasCancelled)
+                cancelled.offer(this);
+            return wasCancelled;
+        }
+
+        /**
+         * Overrides FutureTask version so as to reset/requeue if periodic.
+         */
+        public void run() {
+            boolean periodic = isPeriodic();
+            if (!canRunInCurrentRunState(periodic))
+                cancel(false);
+            else if (!periodic)
+                super.run();
+            else if (super.runAndReset()) {
+                setNextRunTime();
+                reExecutePeriodic(this);
+            }
+        }
+    }
+
+    /**
+     * Transitions runState to given target, or leaves it alone if
+     * already at least the given target.
+     */
+    private void advanceRunState(int targetState) {
+        for (;;) {
+            int rs = runState.get();
+            if (rs >= targetState || runState.compareAndSet(rs, targetState))
+                break;
+        }
+    }
+
+    /**
+     * Returns true if can run a task given current run state: delayed
+     * tasks run until shutdownNow, periodic ones only until shutdown.
+     */
+    boolean canRunInCurrentRunState(boolean periodic) {
+        int rs = runState.get();
+        return rs == RUNNING || (rs == SHUTDOWN && !periodic);
+    }
+
+    /**
+     * Main execution method for delayed or periodic tasks.  Tasks due
+     * now go straight to the workers; others are queued for the timer
+     * thread.  If the executor is shut down while the task is being
+     * added, cancels it.
+     */
+    private void delayedExecute(WheelTask<?> task) {
+        if (runState.get() != RUNNING)
+            throw new RejectedExecutionException("Task " + task.toString() +
+                                                 " rejected from " +
+                                                 toString());
+        if (task.time - now() <= 0) {
+            handOff(task);
+            return;
+        }
+        pending.offer(task);
+        if (runState.get() != RUNNING)
+            task.cancel(false);
+        else {
+            signalTimer();
+            checkTimer(task);
+        }
+    }
+
+    /**
+     * Requeues a periodic task unless current run state precludes it.
+     */
+    void reExecutePeriodic(WheelTask<?> task) {
+        if (canRunInCurrentRunState(true)) {
+            pending.offer(task);
+            if (!canRunInCurrentRunState(true))
+                task.cancel(false);
+            else {
+                signalTimer();
+                checkTimer(task);
+            }
+        } else
+            task.cancel(false);
+    }
+
+    /**
+     * Runs the task on a worker thread, cancelling it if the workers
+     * have shut down.
+     */
+    private void handOff(WheelTask<?> task) {
+        try {
+            workers.execute(task);
+        } catch (RejectedExecutionException ex) {
+            task.cancel(false);
+        }
+    }
+
+    /**
+     * Starts the timer thread on first use, or wakes it up if it is
+     * idle.
+     */
+    private void signalTimer() {
+        if (!started.get() && started.compareAndSet(false, true)) {
+            Thread t = threadFactory.newThread(new Ticker());
+            if (t == null) {
+                timerDone.countDown();
+                throw new RejectedExecutionException("Could not create timer thread");
+            }
+            timer = t;
+            t.start();
+        } else if (idle) {
+            LockSupport.unpark(timer);
+        }
+    }
+
+    /**
+     * Cancels a task just queued if no timer thread exists to take it
+     * and none ever will, as when shutdown found nothing pending and
+     * so did not start one.
+     */
+    private void checkTimer(WheelTask<?> task) {
+        if (timer == null && timerDone.getCount() == 0 && pending.remove(task))
+            task.cancel(false);
+    }
+
+    // Wheel operations, only performed by the timer thread under wheelLock
+
+    /**
+     * Links the task into the bucket matching its deadline, or adds it
+     * to the expired list if its deadline has been reached.
+     */
+    private void insert(WheelTask<?> t, List<WheelTask<?>> expired) {
+        long d = t.deadlineTick;
+        long cur = currentTick;
+        if (d <= cur) {
+            expired.add(t);
+            return;
+        }
+        int level = (63 - Long.numberOfLeadingZeros(d ^ cur)) / WHEEL_BITS;
+        int slot = (level << WHEEL_BITS) |
+            ((int)(d >>> (level * WHEEL_BITS)) & WHEEL_MASK);
+        WheelTask<?> head = buckets[slot];
+        t.slot = slot;
+        t.prev = null;
+        t.next = head;
+        if (head != null)
+            head.prev = t;
+        buckets[slot] = t;
+        ++wheelCount;
+    }
+
+    /**
+     * Unlinks the task from its bucket, if any.
+     */
+    private void unlink(WheelTask<?> t) {
+        int slot = t.slot;
+        if (slot < 0)
+            return;
+        WheelTask<?> p = t.prev, n = t.next;
+        if (p == null)
+            buckets[slot] = n;
+        else
+            p.next = n;
+        if (n != null)
+            n.prev = p;
+        t.prev = t.next = null;
+        t.slot = -1;
+        --wheelCount;
+    }
+
+    /**
+     * Detaches and returns the list held in the given bucket.
+     */
+    private WheelTask<?> detach(int slot) {
+        WheelTask<?> head = buckets[slot];
+        if (head != null) {
+            buckets[slot] = null;
+            for (WheelTask<?> t = head; t != null; t = t.next) {
+                t.slot = -1;
+                --wheelCount;
+            }
+        }
+        return head;
+    }
+
+    /**
+     * Advances the wheel by one tick, cascading higher levels as
+     * needed and collecting the tasks that are now due.
+     */
+    private void advance(List<WheelTask<?>> expired) {
+        long tick = ++currentTick;
+        int top = Math.min(Long.numberOfTrailingZeros(tick) / WHEEL_BITS,
+                           LEVELS - 1);
+        for (int level = top; level >= 1; --level) {
+            int slot = (level << WHEEL_BITS) |
+                ((int)(tick >>> (level * WHEEL_BITS)) & WHEEL_MASK);
+            WheelTask<?> t = detach(slot);
+            while (t != null) {
+                WheelTask<?> n = t.next;
+                t.next = t.prev = null;
+                insert(t, expired);
+                t = n;
+            }
+        }
+        WheelTask<?> t = detach((int)tick & WHEEL_MASK);
+        while (t != null) {
+            WheelTask<?> n = t.next;
+            t.next = t.prev = null;
+            expired.add(t);
+            t = n;
+        }
+    }
+
+    /**
+     * Moves newly scheduled tasks into the wheel.
+     */
+    private void transferPending(List<WheelTask<?>> expired) {
+        WheelTask<?> t;
+        while ((t = pending.poll()) != null) {
+            if (t.isCancelled())
+                continue;
+            if (!canRunInCurrentRunState(t.isPeriodic())) {
+                t.cancel(false);
+                continue;
+            }
+            long ticks = t.time - startTime;
+            t.deadlineTick = (ticks <= 0) ? 0 : (ticks + tickNanos - 1) / tickNanos;
+            insert(t, expired);
+        }
+    }
+
+    /**
+     * Unlinks cancelled tasks from the wheel.
+     */
+    private void purgeCancelled() {
+        WheelTask<?> t;
+        while ((t = cancelled.poll()) != null)
+            unlink(t);
+    }
+
+    /**
+     * Cancels every periodic task in the wheel; used on shutdown.
+     */
+    private void cancelPeriodic() {
+        for (WheelTask<?> head : buckets) {
+            for (WheelTask<?> t = head; t != null; t = t.next) {
+                if (t.isPeriodic())
+                    t.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Removes and returns every task from the wheel and the pending
+     * queue.
+     */
+    private List<Runnable> drainTasks() {
+        ArrayList<Runnable> list = new ArrayList<Runnable>();
+        for (int slot = 0; slot < buckets.length; ++slot) {
+            WheelTask<?> t = detach(slot);
+            while (t != null) {
+                WheelTask<?> n = t.next;
+                t.next = t.prev = null;
+                if (!t.isCancelled())
+                    list.add(t);
+                t = n;
+            }
+        }
+        WheelTask<?> t;
+        while ((t = pending.poll()) != null) {
+            if (!t.isCancelled())
+                list.add(t);
+        }
+        cancelled.clear();
+        return list;
+    }
+
+    /**
+     * The timer thread: once per tick, takes in new and cancelled
+     * tasks, advances the wheel to the current time and hands the
+     * expired tasks over to the workers.
+     */
+    private final class Ticker implements Runnable {
+        public void run() {
+            final ReentrantLock lock = wheelLock;
+            ArrayList<WheelTask<?>> expired = new ArrayList<WheelTask<?>>();
+            boolean shutdownSeen = false;
+            try {
+                for (;;) {
+                    int rs = runState.get();
+                    if (rs >= STOP)
+                        break;
+                    boolean empty;
+                    lock.lock();
+                    try {
+                        long target = (now() - startTime) / tickNanos;
+                        if (wheelCount == 0) {
+                            if (target > currentTick)
+                                currentTick = target;
+                        } else {
+                            purgeCancelled();
+                            while (currentTick < target) {
+                                if (wheelCount == 0) {
+                                    currentTick = target;
+                                    break;
+                                }
+                                advance(expired);
+                            }
+                        }
+                        transferPending(expired);
+                        purgeCancelled();
+                        if (rs == SHUTDOWN && !shutdownSeen) {
+                            shutdownSeen = true;
+                            cancelPeriodic();
+                            purgeCancelled();
+                        }
+                        empty = wheelCount == 0;
+                    } finally {
+                        lock.unlock();
+                    }
+                    for (int i = 0, n = expired.size(); i < n; ++i) {
+                        WheelTask<?> t = expired.get(i);
+                        if (!t.isCancelled())
+                            handOff(t);
+                    }
+                    expired.clear();
+
+                    if (empty && pending.isEmpty()) {
+                        if (rs != RUNNING)
+                            break;
+                        idle = true;
+                        if (pending.isEmpty() && runState.get() == RUNNING)
+                            LockSupport.park(this);
+                        idle = false;
+                    } else {
+                        long nextTick = startTime + (currentTick + 1) * tickNanos;
+                        long delay = nextTick - now();
+                        if (delay > 0)
+                            LockSupport.parkNanos(this, delay);
+                    }
+                }
+            } finally {
+                if (runState.get() < STOP)
+                    workers.shutdown();
+                timerDone.countDown();
+            }
+        }
+    }
+
+    /**
+     * Executes {@code command} with zero required delay.
+     *
+     * @throws RejectedExecutionException if the task cannot be
+     *         accepted for execution because the executor has been
+     *         shut down
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void execute(Runnable command) {
+        schedule(command, 0, NANOSECONDS);
+    }
+
+    // Override AbstractExecutorService methods
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public Future<?> submit(Runnable task) {
+        return schedule(task, 0, NANOSECONDS);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <T> Future<T> submit(Runnable task, T result) {
+        return schedule(Executors.callable(task, result), 0, NANOSECONDS);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return schedule(task, 0, NANOSECONDS);
+    }
+
+    // ScheduledExecutorService methods
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public ScheduledFuture<?> schedule(Runnable command,
+                                       long delay,
+                                       TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        WheelTask<Void> t = new WheelTask<Void>(command, null,
+                                                triggerTime(delay, unit), 0);
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable,
+                                           long delay,
+                                           TimeUnit unit) {
+        if (callable == null || unit == null)
+            throw new NullPointerException();
+        WheelTask<V> t = new WheelTask<V>(callable, triggerTime(delay, unit));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command,
+                                                  long initialDelay,
+                                                  long period,
+                                                  TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (period <= 0)
+            throw new IllegalArgumentException();
+        WheelTask<Void> t =
+            new WheelTask<Void>(command, null,
+                                triggerTime(initialDelay, unit),
+                                unit.toNanos(period));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command,
+                                                     long initialDelay,
+                                                     long delay,
+                                                     TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (delay <= 0)
+            throw new IllegalArgumentException();
+        WheelTask<Void> t =
+            new WheelTask<Void>(command, null,
+                                triggerTime(initialDelay, unit),
+                                unit.toNanos(-delay));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * Initiates an orderly shutdown in which previously submitted
+     * delayed tasks are still executed when they become due, but
+     * periodic tasks are cancelled and no new tasks will be accepted.
+     * Invocation has no additional effect if already shut down.
+     *
+     * <p>This method does not wait for previously submitted tasks to
+     * complete execution.  Use {@link #awaitTermination awaitTermination}
+     * to do that.
+     *
+     * @throws SecurityException {@inheritDoc}
+     */
+    public void shutdown() {
+        advanceRunState(SHUTDOWN);
+        if (started.compareAndSet(false, true)) {
+            // No timer thread was started, but tasks scheduled just
+            // before the shutdown may be pending.  Start one to run or
+            // cancel them, as it would have on shutdown.
+            Thread t = pending.isEmpty() ? null
+                : threadFactory.newThread(new Ticker());
+            if (t != null) {
+                timer = t;
+                t.start();
+            } else {
+                WheelTask<?> p;
+                while ((p = pending.poll()) != null)
+                    p.cancel(false);
+                timerDone.countDown();
+                workers.shutdown();
+            }
+        } else {
+            Thread t = timer;
+            if (t != null)
+                LockSupport.unpark(t);
+        }
+    }
+
+    /**
+     * Attempts to stop all actively executing tasks, halts the
+     * processing of waiting tasks, and returns a list of the tasks
+     * that were awaiting execution, including those not yet due.
+     *
+     * <p>This method does not wait for actively executing tasks to
+     * terminate.  Use {@link #awaitTermination awaitTermination} to
+     * do that.
+     *
+     * <p>There are no guarantees beyond best-effort attempts to stop
+     * processing actively executing tasks.  This implementation
+     * cancels tasks via {@link Thread#interrupt}, so any task that
+     * fails to respond to interrupts may never terminate.
+     *
+     * @return list of tasks that never commenced execution.
+     *         Each element of this list is a {@link ScheduledFuture},
+     *         including those tasks submitted using {@code execute},
+     *         which are for scheduling purposes used as the basis of a
+     *         zero-delay {@code ScheduledFuture}.
+     * @throws SecurityException {@inheritDoc}
+     */
+    public List<Runnable> shutdownNow() {
+        advanceRunState(STOP);
+        started.set(true);
+        Thread t = timer;
+        if (t != null)
+            LockSupport.unpark(t);
+        else
+            timerDone.countDown();
+        List<Runnable> tasks;
+        final ReentrantLock lock = wheelLock;
+        lock.lock();
+        try {
+            tasks = drainTasks();
+        } finally {
+            lock.unlock();
+        }
+        tasks.addAll(workers.shutdownNow());
+        return tasks;
+    }
+
+    public boolean isShutdown() {
+        return runState.get() != RUNNING;
+    }
+
+    public boolean isTerminated() {
+        return timerDone.getCount() == 0 && workers.isTerminated();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+        throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (!timerDone.await(timeout, unit))
+            return false;
+        return workers.awaitTermination(deadline - System.nanoTime(),
+                                        NANOSECONDS);
+    }
+
+    /**
+     * Returns the approximate number of tasks scheduled on the wheel or
+     * waiting to be placed there.  Tasks that are executing or waiting
+     * for a free worker thread are not included.
+     *
+     * @return the number of pending tasks
+     */
+    public int getPendingTaskCount() {
+        int n;
+        final ReentrantLock lock = wheelLock;
+        lock.lock();
+        try {
+            n = wheelCount;
+        } finally {
+            lock.unlock();
+        }
+        return n + pending.size();
+    }
+
+    /**
+     * Returns a string identifying this executor, as well as its
+     * state.
+     *
+     * @return a string identifying this executor, as well as its state
+     */
+    public String toString() {
+        int rs = runState.get();
+        String s = (rs == RUNNING) ? "Running" :
+            isTerminated() ? "Terminated" : "Shutting down";
+        return super.toString() +
+            "[" + s +
+            ", tick = " + tickNanos + "ns" +
+            ", workers = " + workers.getPoolSize() +
+            "]";
+    }
+}
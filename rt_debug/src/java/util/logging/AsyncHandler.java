@@ -0,0 +1,554 @@
+package java.util.logging;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <tt>Handler</tt> that publishes requests to a target <tt>Handler</tt> on
+ * a background thread.
+ * <p>
+ * An <tt>AsyncHandler</tt> stores incoming <tt>LogRecords</tt> in a bounded
+ * ring buffer, which logging threads add to without locking.  A single
+ * background thread takes the records from the buffer in batches and
+ * passes each batch to the target <tt>Handler</tt>, which formats and
+ * writes it.  The <tt>StreamHandler</tt>, <tt>ConsoleHandler</tt>,
+ * <tt>SocketHandler</tt> and <tt>FileHandler</tt> classes write a batch
+ * while holding their lock once and flush their output once per batch,
+ * rather than once per record.
+ * <p>
+ * What happens when a record is published while the buffer is full is
+ * decided by the handler's {@linkplain OverflowPolicy overflow policy}.
+ * Records that are dropped are counted; the number of records waiting in
+ * the buffer and the number dropped are available from this class and, for
+ * every open <tt>AsyncHandler</tt>, from the {@link LoggingMXBean}.
+ * <p>
+ * Since records are published on another thread, the source class and
+ * method of each record are inferred before it is stored, and the
+ * parameters of a record should not be changed after it has been logged.
+ * Records still in the buffer are published when the handler is closed,
+ * which the <tt>LogManager</tt> does for the handlers it configured when
+ * the virtual machine shuts down.
+ * <p>
+ * <b>Configuration:</b>
+ * By default each <tt>AsyncHandler</tt> is initialized using the following
+ * <tt>LogManager</tt> configuration properties where <tt>&lt;handler-name&gt;</tt>
+ * refers to the fully-qualified class name of the handler.
+ * If properties are not defined
+ * (or have invalid values) then the specified default values are used.
+ * If no default value is defined then a RuntimeException is thrown.
+ * <ul>
+ * <li>   &lt;handler-name&gt;.level
+ *        specifies the level for the <tt>Handler</tt>
+ *        (defaults to <tt>Level.ALL</tt>). </li>
+ * <li>   &lt;handler-name&gt;.filter
+ *        specifies the name of a <tt>Filter</tt> class to use
+ *        (defaults to no <tt>Filter</tt>). </li>
+ * <li>   &lt;handler-name&gt;.size
+ *        defines the buffer size, which is rounded up to a power of
+ *        two (defaults to 1024). </li>
+ * <li>   &lt;handler-name&gt;.batchSize
+ *        defines the largest number of records passed to the target
+ *        at once (defaults to 256). </li>
+ * <li>   &lt;handler-name&gt;.overflow
+ *        specifies the {@link OverflowPolicy} by name
+ *        (defaults to <tt>BLOCK</tt>). </li>
+ * <li>   &lt;handler-name&gt;.overflowLevel
+ *        specifies the level below which records are dropped by the
+ *        <tt>DROP_BELOW_LEVEL</tt> policy
+ *        (defaults to <tt>Level.WARNING</tt>). </li>
+ * <li>   &lt;handler-name&gt;.name
+ *        specifies the name under which the handler is reported by the
+ *        <tt>LoggingMXBean</tt> (defaults to &lt;handler-name&gt;). </li>
+ * <li>   &lt;handler-name&gt;.target
+ *        specifies the name of the target <tt>Handler </tt> class.
+ *        (no default). </li>
+ * </ul>
+ * <p>
+ * For example, to write to a file without blocking the logging threads,
+ * dropping informational records if the file cannot keep up:
+ * <ul>
+ * <li>   handlers=java.util.logging.AsyncHandler </li>
+ * <li>   java.util.logging.AsyncHandler.target=java.util.logging.FileHandler </li>
+ * <li>   java.util.logging.AsyncHandler.overflow=DROP_BELOW_LEVEL </li>
+ * </ul>
+ *
+ * @see MemoryHandler
+ * @since 1.8
+ */
+public class AsyncHandler extends Handler {
+
+    /**
+     * What an <tt>AsyncHandler</tt> does with a record published while its
+     * buffer is full.
+     *
+     * @since 1.8
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait until the background thread makes room for the record.
+         */
+        BLOCK,
+        /**
+         * Drop the record.
+         */
+        DROP,
+        /**
+         * Drop the record if its level is below the handler's
+         * {@linkplain AsyncHandler#getOverflowLevel overflow level},
+         * and wait otherwise.
+         */
+        DROP_BELOW_LEVEL
+    }
+
+    private final static int DEFAULT_SIZE = 1024;
+    private final static int DEFAULT_BATCH_SIZE = 256;
+
+    // The open handlers, by name, for the LoggingMXBean.
+    private static final ConcurrentHashMap<String,AsyncHandler> handlers =
+        new ConcurrentHashMap<>();
+
+    private Handler target;
+    private int batchSize;
+    private volatile OverflowPolicy overflow;
+    private volatile Level overflowLevel;
+    private String name;
+
+    /*
+     * The buffer is a bounded multi-producer, single-consumer ring.  Each
+     * slot has a sequence number: a producer claims the slot for position
+     * t by advancing tail from t when the slot's sequence is t, stores the
+     * record and sets the sequence to t + 1.  The consumer takes the record
+     * at head once its sequence is head + 1, and releases the slot for the
+     * next round by setting its sequence to head + buffer.length.
+     */
+    private LogRecord[] buffer;
+    private AtomicLongArray sequences;
+    private int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;             // written by the worker only
+
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed;
+    private volatile boolean sleeping;      // worker is about to park
+    private volatile int blocked;           // producers waiting for room
+    private final Object notFull = new Object();
+    private Thread worker;
+
+    // Private method to configure an AsyncHandler from LogManager
+    // properties and/or default values as specified in the class
+    // javadoc.
+    private void configure() {
+        LogManager manager = LogManager.getLogManager();
+        String cname = getClass().getName();
+
+        setLevel(manager.getLevelProperty(cname +".level", Level.ALL));
+        setFilter(manager.getFilterProperty(cname +".filter", null));
+        batchSize = manager.getIntProperty(cname + ".batchSize", DEFAULT_BATCH_SIZE);
+        if (batchSize <= 0) {
+            batchSize = DEFAULT_BATCH_SIZE;
+        }
+        overflow = OverflowPolicy.BLOCK;
+        String val = manager.getProperty(cname + ".overflow");
+        if (val != null) {
+            try {
+                overflow = OverflowPolicy.valueOf(val.trim());
+            } catch (IllegalArgumentException ex) {
+                // we return the default value
+            }
+        }
+        overflowLevel = manager.getLevelProperty(cname + ".overflowLevel", Level.WARNING);
+        name = manager.getStringProperty(cname + ".name", cname);
+    }
+
+    /**
+     * Create an <tt>AsyncHandler</tt> and configure it based on
+     * <tt>LogManager</tt> configuration properties.
+     */
+    public AsyncHandler() {
+        sealed = false;
+        configure();
+        sealed = true;
+
+        LogManager manager = LogManager.getLogManager();
+        String handlerName = getClass().getName();
+        String targetName = manager.getProperty(handlerName+".target");
+        if (targetName == null) {
+            throw new RuntimeException("The handler " + handlerName
+                    + " does not specify a target");
+        }
+        Class<?> clz;
+        try {
+            clz = ClassLoader.getSystemClassLoader().loadClass(targetName);
+            target = (Handler) clz.newInstance();
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
+            throw new RuntimeException("AsyncHandler can't load handler target \"" + targetName + "\"" , e);
+        }
+        int size = manager.getIntProperty(handlerName + ".size", DEFAULT_SIZE);
+        if (size <= 0) {
+            size = DEFAULT_SIZE;
+        }
+        init(size);
+    }
+
+    /**
+     * Create an <tt>AsyncHandler</tt>.
+     * <p>
+     * The <tt>AsyncHandler</tt> is configured based on <tt>LogManager</tt>
+     * properties (or their default values) except that the given target,
+     * buffer size and overflow policy are used.
+     *
+     * @param target  the Handler to which to publish output.
+     * @param size    the number of log records to buffer (must be greater
+     *                than zero), rounded up to a power of two
+     * @param overflow  what to do with records published while the buffer
+     *                is full
+     *
+     * @throws IllegalArgumentException if {@code size is <= 0}
+     */
+    public AsyncHandler(Handler target, int size, OverflowPolicy overflow) {
+        if (target == null || overflow == null) {
+            throw new NullPointerException();
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException();
+        }
+        sealed = false;
+        configure();
+        sealed = true;
+        this.target = target;
+        this.overflow = overflow;
+        init(size);
+    }
+
+    // Initialize the buffer, register the handler and start the worker.
+    private void init(int size) {
+        int n = 1;
+        while (n < size && n < (1 << 30)) {
+            n <<= 1;
+        }
+        buffer = new LogRecord[n];
+        sequences = new AtomicLongArray(n);
+        for (int i = 0; i < n; i++) {
+            sequences.set(i, i);
+        }
+        mask = n - 1;
+        batchSize = Math.min(batchSize, n);
+
+        String base = name;
+        for (int i = 2; handlers.putIfAbsent(name, this) != null; i++) {
+            name = base + "-" + i;
+        }
+        worker = AccessController.doPrivileged(new PrivilegedAction<Thread>() {
+            @Override
+            public Thread run() {
+                Thread t = new Worker("AsyncHandler: " + name);
+                t.setDaemon(true);
+                t.setContextClassLoader(null);
+                t.start();
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Store a <tt>LogRecord</tt> in the buffer, to be published to the
+     * target <tt>Handler</tt> by the background thread.
+     * <p>
+     * If there is a <tt>Filter</tt>, its <tt>isLoggable</tt>
+     * method is called to check if the given log record is loggable.
+     * If not we return.  If the buffer is full, the record is dropped or
+     * this method waits for room in the buffer, according to the
+     * overflow policy.  Records published by the background thread itself,
+     * for example by the target <tt>Handler</tt>, are dropped rather than
+     * waited for.
+     *
+     * @param  record  description of the log event. A null record is
+     *                 silently ignored and is not published
+     */
+    @Override
+    public void publish(LogRecord record) {
+        if (record == null || !isLoggable(record)) {
+            return;
+        }
+        // infer the caller while still on the caller's thread
+        record.getSourceClassName();
+        if (offer(record)) {
+            return;
+        }
+        OverflowPolicy p = overflow;
+        if (p == OverflowPolicy.DROP
+                || (p == OverflowPolicy.DROP_BELOW_LEVEL
+                    && record.getLevel().intValue() < overflowLevel.intValue())
+                || Thread.currentThread() == worker) {
+            dropped.increment();
+            return;
+        }
+        boolean interrupted = false;
+        synchronized (notFull) {
+            blocked++;
+            try {
+                while (!offer(record)) {
+                    if (closed) {
+                        dropped.increment();
+                        break;
+                    }
+                    try {
+                        // timed, as the worker may miss a producer that
+                        // has just started waiting
+                        notFull.wait(10);
+                    } catch (InterruptedException ex) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                blocked--;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Add a record to the buffer, returning false if it is full.
+    private boolean offer(LogRecord record) {
+        for (;;) {
+            long t = tail.get();
+            int i = (int) t & mask;
+            long seq = sequences.get(i);
+            if (seq == t) {
+                if (tail.compareAndSet(t, t + 1)) {
+                    buffer[i] = record;
+                    sequences.lazySet(i, t + 1);
+                    if (sleeping) {
+                        LockSupport.unpark(worker);
+                    }
+                    return true;
+                }
+            } else if (seq < t) {
+                return false;
+            }
+        }
+    }
+
+    // Take the record at the head of the buffer, or return null if it has
+    // not been stored yet.  Called by the worker only.
+    private LogRecord poll() {
+        long h = head;
+        int i = (int) h & mask;
+        if (sequences.get(i) != h + 1) {
+            return null;
+        }
+        LogRecord record = buffer[i];
+        buffer[i] = null;
+        sequences.lazySet(i, h + buffer.length);
+        head = h + 1;
+        return record;
+    }
+
+    private boolean isEmpty() {
+        return tail.get() == head;
+    }
+
+    private final class Worker extends Thread {
+        Worker(String name) {
+            super(name);
+        }
+
+        @Override
+        public void run() {
+            LogRecord[] batch = new LogRecord[batchSize];
+            for (;;) {
+                int n = 0;
+                LogRecord record;
+                while (n < batch.length && (record = poll()) != null) {
+                    batch[n++] = record;
+                }
+                if (n > 0) {
+                    if (blocked > 0) {
+                        synchronized (notFull) {
+                            notFull.notifyAll();
+                        }
+                    }
+                    try {
+                        target.publishAll(batch, n);
+                    } catch (Exception ex) {
+                        // We don't want the worker to die here, but we
+                        // report the exception to any registered ErrorManager.
+                        reportError(null, ex, ErrorManager.WRITE_FAILURE);
+                    }
+                    Arrays.fill(batch, 0, n, null);
+                } else if (!isEmpty()) {
+                    // a producer has claimed a slot but not filled it yet
+                    Thread.yield();
+                } else if (closed) {
+                    return;
+                } else {
+                    sleeping = true;
+                    if (isEmpty() && !closed) {
+                        LockSupport.park(this);
+                    }
+                    sleeping = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait until the records published so far have been passed to the
+     * target <tt>Handler</tt>, and then flush the target.
+     */
+    @Override
+    public void flush() {
+        if (Thread.currentThread() != worker) {
+            long t = tail.get();
+            while (head < t && worker.isAlive()) {
+                LockSupport.unpark(worker);
+                LockSupport.parkNanos(this, 100_000L);
+            }
+        }
+        target.flush();
+    }
+
+    /**
+     * Close the <tt>Handler</tt> and free all associated resources.
+     * Records still in the buffer are first published to the target
+     * <tt>Handler</tt>, which is then closed.
+     *
+     * @exception  SecurityException  if a security manager exists and if
+     *             the caller does not have <tt>LoggingPermission("control")</tt>.
+     */
+    @Override
+    public void close() throws SecurityException {
+        checkPermission();
+        closed = true;
+        LockSupport.unpark(worker);
+        synchronized (notFull) {
+            notFull.notifyAll();
+        }
+        if (Thread.currentThread() != worker) {
+            boolean interrupted = false;
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        handlers.remove(name, this);
+        target.close();
+        setLevel(Level.OFF);
+    }
+
+    /**
+     * Set the overflow policy.
+     *
+     * @param newPolicy the new overflow policy
+     * @exception  SecurityException  if a security manager exists and if
+     *             the caller does not have <tt>LoggingPermission("control")</tt>.
+     */
+    public void setOverflowPolicy(OverflowPolicy newPolicy) throws SecurityException {
+        if (newPolicy == null) {
+            throw new NullPointerException();
+        }
+        checkPermission();
+        overflow = newPolicy;
+    }
+
+    /**
+     * Get the overflow policy.
+     *
+     * @return the overflow policy
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflow;
+    }
+
+    /**
+     * Set the level below which records are dropped when the buffer is
+     * full and the overflow policy is <tt>DROP_BELOW_LEVEL</tt>.
+     *
+     * @param newLevel the new overflow level
+     * @exception  SecurityException  if a security manager exists and if
+     *             the caller does not have <tt>LoggingPermission("control")</tt>.
+     */
+    public void setOverflowLevel(Level newLevel) throws SecurityException {
+        if (newLevel == null) {
+            throw new NullPointerException();
+        }
+        checkPermission();
+        overflowLevel = newLevel;
+    }
+
+    /**
+     * Get the level below which records are dropped when the buffer is
+     * full and the overflow policy is <tt>DROP_BELOW_LEVEL</tt>.
+     *
+     * @return the overflow level
+     */
+    public Level getOverflowLevel() {
+        return overflowLevel;
+    }
+
+    /**
+     * Get the name under which this handler is reported by the
+     * <tt>LoggingMXBean</tt>.  It is unique among open handlers.
+     *
+     * @return the name of this handler
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the number of records the buffer can hold.
+     *
+     * @return the capacity of the buffer
+     */
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Get the number of records waiting in the buffer.
+     *
+     * @return the number of records not yet passed to the target
+     */
+    public int getQueueSize() {
+        long n = tail.get() - head;
+        return (int) Math.max(0L, Math.min(n, buffer.length));
+    }
+
+    /**
+     * Get the number of records dropped because the buffer was full.
+     *
+     * @return the number of dropped records
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    // Support for LoggingMXBean.
+
+    static List<String> getHandlerNames() {
+        List<String> names = new ArrayList<>(handlers.keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    static AsyncHandler getHandler(String name) {
+        return handlers.get(name);
+    }
+}
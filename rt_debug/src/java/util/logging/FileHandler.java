@@ -700,6 +700,34 @@ public class FileHandler extends StreamHandler {
         }
         super.publish(record);
         flush();
+        rotateIfFull();
+    }
+
+    /**
+     * Publish a batch of records, flushing the file only at the end of
+     * the batch.  The size of a file is only brought up to date when the
+     * writer empties its buffer, so a file may exceed the limit by up to
+     * the size of that buffer before it is rotated.
+     */
+    @Override
+    void publishAll(LogRecord[] records, int count) {
+        if (getClass() != FileHandler.class) {
+            super.publishAll(records, count);
+            return;
+        }
+        synchronized (this) {
+            for (int i = 0; i < count; i++) {
+                if (isLoggable(records[i])) {
+                    writeRecord(records[i]);
+                    rotateIfFull();
+                }
+            }
+            flush();
+            rotateIfFull();
+        }
+    }
+
+    private void rotateIfFull() {
         if (limit > 0 && meter.written >= limit) {
             // We performed access checks in the "init" method to make sure
             // we are only initialized from trusted code.  So we assume
@@ -107,6 +107,19 @@ public abstract class Handler {
      */
     public abstract void close() throws SecurityException;
 
+    /**
+     * Publish the first <tt>count</tt> records of the given array, in
+     * order, and then flush.  Used by <tt>AsyncHandler</tt> to write
+     * records in batches; handlers that can write a batch more cheaply
+     * than one record at a time override this method.
+     */
+    void publishAll(LogRecord[] records, int count) {
+        for (int i = 0; i < count; i++) {
+            publish(records[i]);
+        }
+        flush();
+    }
+
     /**
      * Set a <tt>Formatter</tt>.  This <tt>Formatter</tt> will be used
      * to format <tt>LogRecords</tt> for this <tt>Handler</tt>.
@@ -136,4 +136,51 @@ public interface LoggingMXBean {
      *         is returned.
      */
     public String getParentLoggerName(String loggerName);
+
+    /**
+     * Returns the names of the currently open {@link AsyncHandler}s,
+     * as returned by {@link AsyncHandler#getName}.
+     *
+     * @return A list of <tt>String</tt> each of which is the name of
+     *         an open <tt>AsyncHandler</tt>.
+     *
+     * @since 1.8
+     */
+    public default java.util.List<String> getAsyncHandlerNames() {
+        return AsyncHandler.getHandlerNames();
+    }
+
+    /**
+     * Returns the number of records waiting in the buffer of the
+     * specified {@link AsyncHandler}.
+     *
+     * @param handlerName The name of an <tt>AsyncHandler</tt>.
+     *
+     * @return the number of records waiting in the buffer; or -1 if
+     *         no open <tt>AsyncHandler</tt> has the given name.
+     *
+     * @see AsyncHandler#getQueueSize
+     * @since 1.8
+     */
+    public default int getAsyncHandlerQueueSize(String handlerName) {
+        AsyncHandler h = AsyncHandler.getHandler(handlerName);
+        return (h == null) ? -1 : h.getQueueSize();
+    }
+
+    /**
+     * Returns the number of records dropped by the specified
+     * {@link AsyncHandler} because its buffer was full.
+     *
+     * @param handlerName The name of an <tt>AsyncHandler</tt>.
+     *
+     * @return the number of dropped records; or -1 if no open
+     *         <tt>AsyncHandler</tt> has the given name.
+     *
+     * @see AsyncHandler#getDroppedCount
+     * @since 1.8
+     */
+    public default long getAsyncHandlerDroppedCount(String handlerName) {
+        AsyncHandler h = AsyncHandler.getHandler(handlerName);
+        return (h == null) ? -1 : h.getDroppedCount();
+    }
 }
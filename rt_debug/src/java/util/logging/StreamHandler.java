@@ -206,6 +206,35 @@ public class StreamHandler extends Handler {
         if (!isLoggable(record)) {
             return;
         }
+        writeRecord(record);
+    }
+
+    /**
+     * Publish a batch of records, flushing the output stream only once.
+     * Subclasses outside this package may override <tt>publish</tt>, so
+     * they are given the records one at a time.
+     */
+    @Override
+    void publishAll(LogRecord[] records, int count) {
+        Class<?> c = getClass();
+        if (c != StreamHandler.class && c != ConsoleHandler.class
+                && c != SocketHandler.class) {
+            super.publishAll(records, count);
+            return;
+        }
+        synchronized (this) {
+            for (int i = 0; i < count; i++) {
+                if (isLoggable(records[i])) {
+                    writeRecord(records[i]);
+                }
+            }
+            flush();
+        }
+    }
+
+    // Format and write a record that is known to be loggable.
+    // The caller must hold the lock on this handler.
+    void writeRecord(LogRecord record) {
         String msg;
         try {
             msg = getFormatter().format(record);
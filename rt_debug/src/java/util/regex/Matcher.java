@@ -167,6 +167,12 @@ public final class Matcher implements MatchResult {
      */
     int[] locals;
 
+    /**
+     * Storage used by patterns compiled with {@link Pattern#LINEAR}, kept
+     * across match operations so that they do not allocate.
+     */
+    NFA.Scratch nfaScratch;
+
     /**
      * Boolean indicating whether or not more input could change
      * the results of the last match.
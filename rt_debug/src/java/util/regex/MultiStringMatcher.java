@@ -0,0 +1,572 @@
+package java.util.regex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A matcher that searches a character sequence for any of a fixed set of
+ * keywords at once.
+ *
+ * <p> The keywords are compiled into an Aho-Corasick automaton, so that a
+ * search reads each char of the input once however many keywords there
+ * are, where matching an alternation such as <tt>ERROR|WARN|FATAL</tt>
+ * with a {@link Pattern} tries each keyword in turn at every position.
+ * {@code Pattern} itself uses this class for alternations of many literal
+ * strings.
+ *
+ * <p> Keywords may optionally be matched without regard to case, in which
+ * case each char is compared as by
+ * {@code Character.toLowerCase(Character.toUpperCase(c))}, as
+ * {@link Pattern#CASE_INSENSITIVE} combined with
+ * {@link Pattern#UNICODE_CASE} does.
+ *
+ * <p> Instances of this class are immutable and are safe for use by
+ * multiple concurrent threads.
+ *
+ * @since 1.8
+ */
+public final class MultiStringMatcher {
+
+    // Case folding modes
+    static final int FOLD_NONE    = 0;
+    static final int FOLD_ASCII   = 1;
+    static final int FOLD_UNICODE = 2;
+
+    private final List<String> keywords;
+    private final int fold;
+
+    /*
+     * The trie.  The children of state s are label[first[s]..first[s+1])
+     * and target[first[s]..first[s+1]], sorted by label.  State 0 is the
+     * root, whose children are also in rootNext for ASCII labels.
+     */
+    private final int[] first;
+    private final char[] label;
+    private final int[] target;
+    private final int[] rootNext;
+
+    private final int[] depth;      // length of the prefix spelt by a state
+    private final int[] fail;       // longest proper suffix that is a state
+    private final int[] out;        // keyword ending at a state, or -1
+    private final int[] dict;       // next state on the fail chain with out
+    private final int[] below;      // first keyword below a state, or MAX_VALUE
+
+    private final int minLength;
+    private final int maxLength;
+
+    private MultiStringMatcher(List<String> keywords, int fold) {
+        this.keywords = keywords;
+        this.fold = fold;
+
+        // Build the trie, using a map for the edges
+        Map<Long,Integer> edges = new HashMap<>();
+        int nstates = 1;
+        int[] outs = new int[16];
+        int[] depths = new int[16];
+        Arrays.fill(outs, -1);
+        int min = Integer.MAX_VALUE, max = 0;
+        for (int k = 0; k < keywords.size(); k++) {
+            String w = keywords.get(k);
+            int s = 0;
+            for (int i = 0; i < w.length(); i++) {
+                Long key = ((long) s << 16) | fold(w.charAt(i));
+                Integer t = edges.get(key);
+                if (t == null) {
+                    if (nstates == outs.length) {
+                        outs = Arrays.copyOf(outs, nstates * 2);
+                        Arrays.fill(outs, nstates, outs.length, -1);
+                        depths = Arrays.copyOf(depths, nstates * 2);
+                    }
+                    depths[nstates] = i + 1;
+                    edges.put(key, t = nstates++);
+                }
+                s = t;
+            }
+            if (outs[s] < 0)
+                outs[s] = k;
+            min = Math.min(min, w.length());
+            max = Math.max(max, w.length());
+        }
+        minLength = min;
+        maxLength = max;
+        out = Arrays.copyOf(outs, nstates);
+        depth = Arrays.copyOf(depths, nstates);
+
+        // Lay the edges out by state and label
+        long[] sorted = new long[edges.size()];
+        int n = 0;
+        for (Long key : edges.keySet())
+            sorted[n++] = key;
+        Arrays.sort(sorted);
+        first = new int[nstates + 1];
+        label = new char[n];
+        target = new int[n];
+        for (int e = 0; e < n; e++) {
+            long key = sorted[e];
+            first[(int) (key >>> 16) + 1]++;
+            label[e] = (char) key;
+            target[e] = edges.get(key);
+        }
+        for (int s = 0; s < nstates; s++)
+            first[s + 1] += first[s];
+        rootNext = new int[128];
+        for (int e = first[0]; e < first[1]; e++) {
+            if (label[e] < 128)
+                rootNext[label[e]] = target[e];
+        }
+
+        // Children are numbered after their parent
+        below = new int[nstates];
+        for (int s = nstates - 1; s >= 0; s--) {
+            int b = Integer.MAX_VALUE;
+            for (int e = first[s]; e < first[s + 1]; e++) {
+                int t = target[e];
+                b = Math.min(b, below[t]);
+                if (out[t] >= 0)
+                    b = Math.min(b, out[t]);
+            }
+            below[s] = b;
+        }
+
+        // Failure and dictionary links, breadth first
+        fail = new int[nstates];
+        dict = new int[nstates];
+        dict[0] = -1;
+        int[] queue = new int[nstates];
+        int head = 0, tail = 0;
+        for (int e = first[0]; e < first[1]; e++) {
+            int t = target[e];
+            dict[t] = -1;
+            queue[tail++] = t;
+        }
+        while (head < tail) {
+            int s = queue[head++];
+            for (int e = first[s]; e < first[s + 1]; e++) {
+                int t = target[e];
+                int f = fail[s];
+                int ft;
+                while ((ft = child(f, label[e])) < 0 && f != 0)
+                    f = fail[f];
+                fail[t] = ft < 0 ? 0 : ft;
+                int ff = fail[t];
+                dict[t] = out[ff] >= 0 ? ff : dict[ff];
+                queue[tail++] = t;
+            }
+        }
+    }
+
+    /**
+     * Compiles the given keywords into a matcher that matches them exactly.
+     *
+     * @param  keywords
+     *         The keywords to search for
+     *
+     * @return a matcher for the given keywords
+     *
+     * @throws IllegalArgumentException
+     *         If there are no keywords, or a keyword is empty
+     */
+    public static MultiStringMatcher compile(
+            Collection<? extends CharSequence> keywords) {
+        return compile(keywords, false);
+    }
+
+    /**
+     * Compiles the given keywords into a matcher.
+     *
+     * @param  keywords
+     *         The keywords to search for
+     *
+     * @param  ignoreCase
+     *         Whether keywords should be matched without regard to case
+     *
+     * @return a matcher for the given keywords
+     *
+     * @throws IllegalArgumentException
+     *         If there are no keywords, or a keyword is empty
+     */
+    public static MultiStringMatcher compile(
+            Collection<? extends CharSequence> keywords, boolean ignoreCase) {
+        List<String> list = new ArrayList<>(keywords.size());
+        for (CharSequence w : keywords) {
+            if (w.length() == 0)
+                throw new IllegalArgumentException("Empty keyword");
+            list.add(w.toString());
+        }
+        if (list.isEmpty())
+            throw new IllegalArgumentException("No keywords");
+        return new MultiStringMatcher(Collections.unmodifiableList(list),
+                                      ignoreCase ? FOLD_UNICODE : FOLD_NONE);
+    }
+
+    /**
+     * Compiles literal keywords for a pattern node, whose chars are already
+     * folded the way given.
+     */
+    static MultiStringMatcher forLiterals(List<String> keywords, int fold) {
+        return new MultiStringMatcher(keywords, fold);
+    }
+
+    /**
+     * Returns the keywords of this matcher, in the order they were given.
+     *
+     * @return an unmodifiable list of the keywords
+     */
+    public List<String> keywords() {
+        return keywords;
+    }
+
+    /**
+     * Tells whether any of the keywords occurs in the given input.
+     *
+     * @param  input
+     *         The character sequence to search
+     *
+     * @return {@code true} if, and only if, a keyword occurs in the input
+     */
+    public boolean containsAny(CharSequence input) {
+        int to = input.length();
+        int s = 0;
+        for (int i = 0; i < to; i++) {
+            s = next(s, input.charAt(i));
+            if (out[s] >= 0 || dict[s] >= 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Finds the first occurrence of any keyword in the given input.
+     *
+     * @param  input
+     *         The character sequence to search
+     *
+     * @return the match, or {@code null} if no keyword occurs in the input
+     */
+    public MatchResult find(CharSequence input) {
+        return find(input, 0);
+    }
+
+    /**
+     * Finds the first occurrence of any keyword in the given input starting
+     * at or after the given index.  Of the keywords occurring at the lowest
+     * index, the longest one is matched.
+     *
+     * @param  input
+     *         The character sequence to search
+     *
+     * @param  fromIndex
+     *         The index to start searching from
+     *
+     * @return the match, or {@code null} if no keyword occurs in the input
+     *         at or after fromIndex
+     *
+     * @throws IndexOutOfBoundsException
+     *         If fromIndex is negative or greater than the length of the
+     *         input
+     */
+    public MatchResult find(CharSequence input, int fromIndex) {
+        int to = input.length();
+        if (fromIndex < 0 || fromIndex > to)
+            throw new IndexOutOfBoundsException("Illegal start index");
+        int start = -1, end = -1, keyword = -1;
+        int s = 0;
+        for (int i = fromIndex; i < to; i++) {
+            s = next(s, input.charAt(i));
+            if (start >= 0 && i + 1 - depth[s] > start)
+                break;      // nothing longer can start at start
+            int o = out[s] >= 0 ? s : dict[s];
+            if (o >= 0) {
+                int st = i + 1 - depth[o];
+                if (start < 0 || st < start || (st == start && i + 1 > end)) {
+                    start = st;
+                    end = i + 1;
+                    keyword = out[o];
+                }
+            }
+        }
+        if (start < 0)
+            return null;
+        return new Match(input.subSequence(start, end).toString(),
+                         start, end, keyword);
+    }
+
+    /**
+     * Returns the index of the first occurrence of any keyword in the given
+     * input starting at or after the given index.
+     *
+     * @param  input
+     *         The character sequence to search
+     *
+     * @param  fromIndex
+     *         The index to start searching from
+     *
+     * @return the index where the first occurrence starts, or -1 if no
+     *         keyword occurs in the input at or after fromIndex
+     *
+     * @throws IndexOutOfBoundsException
+     *         If fromIndex is negative or greater than the length of the
+     *         input
+     */
+    public int indexIn(CharSequence input, int fromIndex) {
+        int to = input.length();
+        if (fromIndex < 0 || fromIndex > to)
+            throw new IndexOutOfBoundsException("Illegal start index");
+        return indexIn(input, fromIndex, to);
+    }
+
+    /**
+     * Returns which of the keywords occur in the given input, counting
+     * overlapping occurrences.
+     *
+     * @param  input
+     *         The character sequence to search
+     *
+     * @return a bit set with the bit of each keyword that occurs in the
+     *         input set, indexed as in {@link #keywords()}
+     */
+    public BitSet matchingKeywords(CharSequence input) {
+        BitSet found = new BitSet(keywords.size());
+        int to = input.length();
+        int s = 0;
+        for (int i = 0; i < to; i++) {
+            s = next(s, input.charAt(i));
+            for (int o = out[s] >= 0 ? s : dict[s]; o >= 0; o = dict[o])
+                found.set(out[o]);
+        }
+        // keywords that are the same once folded share a state
+        if (found.cardinality() < keywords.size())
+            addDuplicates(found);
+        return found;
+    }
+
+    private void addDuplicates(BitSet found) {
+        for (int k = 0; k < keywords.size(); k++) {
+            if (found.get(k))
+                continue;
+            int s = walk(keywords.get(k));
+            if (found.get(out[s]))
+                found.set(k);
+        }
+    }
+
+    // Returns the state spelt by a keyword.
+    private int walk(String w) {
+        int s = 0;
+        for (int i = 0; i < w.length(); i++)
+            s = child(s, fold(w.charAt(i)));
+        return s;
+    }
+
+    /**
+     * Returns a string representation of this matcher.
+     *
+     * @return the number of keywords and of states of this matcher
+     */
+    @Override
+    public String toString() {
+        return "MultiStringMatcher[keywords=" + keywords.size()
+            + ",states=" + depth.length + "]";
+    }
+
+    /* -- Used by Pattern -- */
+
+    int minLength() {
+        return minLength;
+    }
+
+    int maxLength() {
+        return maxLength;
+    }
+
+    int keywordCount() {
+        return keywords.size();
+    }
+
+    /**
+     * Returns the index in seq[from, to) where the first occurrence of a
+     * keyword starts, or -1.
+     */
+    int indexIn(CharSequence seq, int from, int to) {
+        int start = -1;
+        int s = 0;
+        for (int i = from; i < to; i++) {
+            s = next(s, seq.charAt(i));
+            if (start >= 0 && i + 1 - depth[s] >= start)
+                break;      // nothing can start before start
+            int o = out[s] >= 0 ? s : dict[s];
+            if (o >= 0) {
+                int st = i + 1 - depth[o];
+                if (start < 0 || st < start)
+                    start = st;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * Matches the keywords occurring at index i of seq, in the order they
+     * were given, each followed by next, as an alternation of them would.
+     * Like the alternation, sets hitEnd if a keyword tried before the one
+     * that matches needs more input.
+     */
+    boolean matchAt(Matcher matcher, int i, CharSequence seq,
+                    Pattern.Node next) {
+        int to = matcher.to;
+        int count = 0, best = -1, bestEnd = -1;
+        int hitEnd = Integer.MAX_VALUE;     // first keyword needing more
+        int s = 0;
+        for (int j = i; ; j++) {
+            if (j >= to) {
+                hitEnd = below[s];
+                break;
+            }
+            if ((s = child(s, fold(seq.charAt(j)))) < 0)
+                break;
+            if (out[s] >= 0) {
+                count++;
+                if (best < 0 || out[s] < best) {
+                    best = out[s];
+                    bestEnd = j + 1;
+                }
+            }
+        }
+        if (count <= 1) {
+            if (hitEnd < best || (count == 0 && hitEnd != Integer.MAX_VALUE))
+                matcher.hitEnd = true;
+            if (count == 0)
+                return false;
+            if (next.match(matcher, bestEnd, seq))
+                return true;
+            if (hitEnd != Integer.MAX_VALUE)
+                matcher.hitEnd = true;
+            return false;
+        }
+
+        // Keywords that are prefixes of each other: try them in order
+        long[] ends = new long[count];
+        count = 0;
+        s = 0;
+        for (int j = i; j < to; j++) {
+            if ((s = child(s, fold(seq.charAt(j)))) < 0)
+                break;
+            if (out[s] >= 0)
+                ends[count++] = ((long) out[s] << 32) | (j + 1);
+        }
+        Arrays.sort(ends);
+        for (long e : ends) {
+            if (hitEnd < (int) (e >>> 32))
+                matcher.hitEnd = true;
+            if (next.match(matcher, (int) e, seq))
+                return true;
+        }
+        if (hitEnd != Integer.MAX_VALUE)
+            matcher.hitEnd = true;
+        return false;
+    }
+
+    /* -- The automaton -- */
+
+    private int fold(int c) {
+        switch (fold) {
+        case FOLD_ASCII:
+            return ASCII.toLower(c);
+        case FOLD_UNICODE:
+            return Character.toLowerCase(Character.toUpperCase(c));
+        default:
+            return c;
+        }
+    }
+
+    // Returns the child of s labelled c, or -1.
+    private int child(int s, int c) {
+        if (s == 0 && c < 128) {
+            int t = rootNext[c];
+            return t == 0 ? -1 : t;
+        }
+        int lo = first[s], hi = first[s + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int l = label[mid];
+            if (l < c)
+                lo = mid + 1;
+            else if (l > c)
+                hi = mid - 1;
+            else
+                return target[mid];
+        }
+        return -1;
+    }
+
+    // Returns the state after reading c in state s.
+    private int next(int s, char ch) {
+        int c = fold(ch);
+        int t;
+        while ((t = child(s, c)) < 0 && s != 0)
+            s = fail[s];
+        return t < 0 ? 0 : t;
+    }
+
+    /**
+     * An occurrence of a keyword.
+     */
+    private static final class Match implements MatchResult {
+        private final String text;
+        private final int start, end, keyword;
+
+        Match(String text, int start, int end, int keyword) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+            this.keyword = keyword;
+        }
+
+        public int start() {
+            return start;
+        }
+
+        public int start(int group) {
+            checkGroup(group);
+            return start;
+        }
+
+        public int end() {
+            return end;
+        }
+
+        public int end(int group) {
+            checkGroup(group);
+            return end;
+        }
+
+        public String group() {
+            return text;
+        }
+
+        public String group(int group) {
+            checkGroup(group);
+            return text;
+        }
+
+        public int groupCount() {
+            return 0;
+        }
+
+        private void checkGroup(int group) {
+            if (group != 0)
+                throw new IndexOutOfBoundsException("No group " + group);
+        }
+
+        @Override
+        public String toString() {
+            return "MultiStringMatcher.Match[keyword=" + keyword
+                + ",start=" + start + ",end=" + end + "]";
+        }
+    }
+}
@@ -0,0 +1,678 @@
+package java.util.regex;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The matching engine of patterns compiled with {@link Pattern#LINEAR}.
+ *
+ * <p> The object tree built by the pattern's parser is translated into a
+ * program for a Thompson NFA, which is then simulated in lockstep over the
+ * input, one char at a time, as in Pike's VM: all threads are at the same
+ * position, each state is entered at most once per position, and threads
+ * are kept in priority order so that the match found, and the groups it
+ * sets, are as a rule the ones backtracking would find.  A match takes
+ * time proportional to the length of the input times the size of the
+ * program, whatever the input.
+ *
+ * <p> Character classes, literal slices and zero-width assertions are
+ * taken from the object tree as they are, so that they behave exactly as
+ * with backtracking.  Constructs that need backtracking, such as back
+ * references, lookaround, independent groups and possessive quantifiers,
+ * are rejected.
+ */
+final class NFA {
+
+    // Instructions
+    private static final int CHAR     = 0;  // x = char or code point, y = mode
+    private static final int PROP     = 1;  // refs = CharProperty
+    private static final int PROP_BMP = 2;  // refs = BmpCharProperty
+    private static final int LINE_END = 3;  // \R
+    private static final int MATCH    = 4;
+    private static final int SPLIT    = 5;  // to x, then to y
+    private static final int JMP      = 6;  // to x
+    private static final int SAVE     = 7;  // x = group slot, or -1
+    private static final int ASSERT   = 8;  // refs = zero-width node
+    private static final int EMPTY    = 9;  // to y if slot x is here
+
+    // CHAR modes
+    private static final int FOLD_ASCII   = 1;
+    private static final int FOLD_UNICODE = 2;
+    private static final int CODE_POINT   = 4;
+
+    /**
+     * The largest number of instructions of a program.  Counted
+     * repetitions are expanded, so large counts may exceed it.
+     */
+    private static final int MAX_PROGRAM = 100000;
+
+    /**
+     * Terminates the zero-width nodes used by ASSERT instructions, so
+     * that matching them only checks the assertion.
+     */
+    private static final Pattern.Node SUCCEED = new Pattern.Node() {
+        boolean match(Matcher matcher, int i, CharSequence seq) {
+            return true;
+        }
+    };
+
+    private final int[] op;
+    private final int[] xs;
+    private final int[] ys;
+    private final Pattern.Node[] refs;
+    private final int ncap;                 // number of group slots
+    private final int nslot;                // group and repetition slots
+    private final boolean hasSupplementary;
+
+    private NFA(Builder b, boolean hasSupplementary) {
+        op = Arrays.copyOf(b.op, b.pc);
+        xs = Arrays.copyOf(b.xs, b.pc);
+        ys = Arrays.copyOf(b.ys, b.pc);
+        refs = Arrays.copyOf(b.refs, b.pc);
+        ncap = b.ncap;
+        nslot = b.nslot;
+        this.hasSupplementary = hasSupplementary;
+    }
+
+    /**
+     * Translates the object tree rooted at matchRoot into a program.
+     *
+     * @throws PatternSyntaxException if the tree uses a construct that
+     *         cannot be matched in linear time
+     */
+    static NFA compile(Pattern.Node matchRoot, String regex,
+                       int groupCount, boolean hasSupplementary) {
+        Builder b = new Builder(regex, groupCount * 2);
+        b.chain(matchRoot, null);
+        b.patchGroupHeads();
+        return new NFA(b, hasSupplementary);
+    }
+
+    /**
+     * The root of a LINEAR pattern, for find operations.
+     */
+    static final class Search extends Pattern.Node {
+        final NFA nfa;
+        Search(NFA nfa) {
+            this.nfa = nfa;
+        }
+        boolean match(Matcher matcher, int i, CharSequence seq) {
+            return nfa.run(matcher, i, seq, false);
+        }
+    }
+
+    /**
+     * The match root of a LINEAR pattern, for matches and lookingAt.
+     */
+    static final class Anchored extends Pattern.Node {
+        final NFA nfa;
+        Anchored(NFA nfa) {
+            this.nfa = nfa;
+        }
+        boolean match(Matcher matcher, int i, CharSequence seq) {
+            return nfa.run(matcher, i, seq, true);
+        }
+    }
+
+    /* -- Translation -- */
+
+    private static final class Builder {
+        final String regex;
+        final int ncap;
+        int nslot;
+        int[] op = new int[16];
+        int[] xs = new int[16];
+        int[] ys = new int[16];
+        Pattern.Node[] refs = new Pattern.Node[16];
+        int pc;
+
+        // group heads are emitted before their group number is known
+        int[] headPcs = new int[4];
+        int[] headLocals = new int[4];
+        int heads;
+        final Map<Integer,Integer> groupOfLocal = new HashMap<>();
+
+        // successors of assertion nodes, whose next is replaced by SUCCEED
+        final Map<Pattern.Node,Pattern.Node> assertNext = new IdentityHashMap<>();
+
+        // slots holding where the current iteration of a repetition began
+        final Map<Pattern.Node,Integer> repeatSlots = new IdentityHashMap<>();
+
+        Builder(String regex, int ncap) {
+            this.regex = regex;
+            this.ncap = ncap;
+            this.nslot = ncap;
+        }
+
+        int emit(int o, int x, int y, Pattern.Node ref) {
+            if (pc >= MAX_PROGRAM)
+                throw new PatternSyntaxException(
+                    "Pattern too large for LINEAR matching", regex, -1);
+            if (pc == op.length) {
+                int n = pc * 2;
+                op = Arrays.copyOf(op, n);
+                xs = Arrays.copyOf(xs, n);
+                ys = Arrays.copyOf(ys, n);
+                refs = Arrays.copyOf(refs, n);
+            }
+            op[pc] = o;
+            xs[pc] = x;
+            ys[pc] = y;
+            refs[pc] = ref;
+            return pc++;
+        }
+
+        PatternSyntaxException unsupported(String what) {
+            return new PatternSyntaxException(
+                what + " not supported with LINEAR", regex, -1);
+        }
+
+        /**
+         * Emits the chain of nodes starting at n, up to stop, the end of an
+         * atom, or the final accept node.
+         */
+        void chain(Pattern.Node n, Pattern.Node stop) {
+            while (n != stop && n != Pattern.accept) {
+                if (n instanceof Pattern.LastNode) {
+                    emit(MATCH, 0, 0, null);
+                    return;
+                } else if (n instanceof Pattern.BmpCharProperty) {
+                    emit(PROP_BMP, 0, 0, n);
+                } else if (n instanceof Pattern.CharProperty) {
+                    emit(PROP, 0, 0, n);
+                } else if (n instanceof Pattern.SliceNode) {
+                    slice((Pattern.SliceNode) n);
+                } else if (n instanceof Pattern.SliceSet) {
+                    sliceSet((Pattern.SliceSet) n);
+                } else if (n instanceof Pattern.LineEnding) {
+                    emit(LINE_END, 0, 0, null);
+                } else if (n instanceof Pattern.Ques) {
+                    Pattern.Ques q = (Pattern.Ques) n;
+                    if (q.type == Pattern.POSSESSIVE)
+                        throw unsupported("Possessive quantifier");
+                    if (q.type == Pattern.INDEPENDENT)
+                        throw unsupported("Independent group");
+                    repeat(q.atom, null, 0, 1, q.type == Pattern.GREEDY,
+                           -1, -1, false);
+                } else if (n instanceof Pattern.Curly) {
+                    Pattern.Curly c = (Pattern.Curly) n;
+                    if (c.type == Pattern.POSSESSIVE)
+                        throw unsupported("Possessive quantifier");
+                    repeat(c.atom, null, c.cmin, c.cmax,
+                           c.type == Pattern.GREEDY, -1, -1, false);
+                } else if (n instanceof Pattern.GroupCurly) {
+                    // the body ends with the group's tail, which sets the
+                    // end of the group; its head was dropped
+                    Pattern.GroupCurly c = (Pattern.GroupCurly) n;
+                    repeat(c.atom, null, c.cmin, c.cmax,
+                           c.type == Pattern.GREEDY,
+                           c.capture ? c.groupIndex : -1, repeatSlot(c), false);
+                } else if (n instanceof Pattern.Prolog) {
+                    Pattern.Loop loop = ((Pattern.Prolog) n).loop;
+                    repeat(loop.body, loop, loop.cmin, loop.cmax,
+                           !(loop instanceof Pattern.LazyLoop),
+                           -1, repeatSlot(loop), true);
+                    n = loop.next;
+                    continue;
+                } else if (n instanceof Pattern.Branch) {
+                    branch((Pattern.Branch) n);
+                    n = ((Pattern.Branch) n).conn.next;
+                    continue;
+                } else if (n instanceof Pattern.GroupHead) {
+                    groupHead(((Pattern.GroupHead) n).localIndex);
+                } else if (n instanceof Pattern.GroupTail) {
+                    Pattern.GroupTail t = (Pattern.GroupTail) n;
+                    groupOfLocal.put(t.localIndex, t.groupIndex);
+                    if (t.groupIndex > 0)
+                        emit(SAVE, t.groupIndex + 1, 0, null);
+                } else if (n instanceof Pattern.BranchConn) {
+                    // end of an alternative reached without a stop
+                } else if (n instanceof Pattern.Begin
+                           || n instanceof Pattern.End
+                           || n instanceof Pattern.Caret
+                           || n instanceof Pattern.UnixCaret
+                           || n instanceof Pattern.Dollar
+                           || n instanceof Pattern.UnixDollar
+                           || n instanceof Pattern.Bound
+                           || n instanceof Pattern.LastMatch) {
+                    Pattern.Node next = assertNext.get(n);
+                    if (next == null) {
+                        assertNext.put(n, next = n.next);
+                        n.next = SUCCEED;
+                    }
+                    emit(ASSERT, 0, 0, n);
+                    n = next;
+                    continue;
+                } else if (n instanceof Pattern.BackRef
+                           || n instanceof Pattern.CIBackRef
+                           || n instanceof Pattern.GroupRef) {
+                    throw unsupported("Back reference");
+                } else if (n instanceof Pattern.Pos
+                           || n instanceof Pattern.Neg
+                           || n instanceof Pattern.Behind
+                           || n instanceof Pattern.NotBehind) {
+                    throw unsupported("Lookaround");
+                } else {
+                    throw unsupported(n.getClass().getSimpleName());
+                }
+                n = n.next;
+            }
+        }
+
+        void slice(Pattern.SliceNode n) {
+            int mode;
+            if (n instanceof Pattern.Slice)
+                mode = 0;
+            else if (n instanceof Pattern.SliceU)
+                mode = FOLD_UNICODE;
+            else if (n instanceof Pattern.SliceI)
+                mode = FOLD_ASCII;
+            else if (n instanceof Pattern.SliceS)
+                mode = CODE_POINT;
+            else if (n instanceof Pattern.SliceUS)
+                mode = CODE_POINT | FOLD_UNICODE;
+            else if (n instanceof Pattern.SliceIS)
+                mode = CODE_POINT | FOLD_ASCII;
+            else
+                throw unsupported(n.getClass().getSimpleName());
+            for (int c : n.buffer)
+                emit(CHAR, c, mode, null);
+        }
+
+        void sliceSet(Pattern.SliceSet n) {
+            int mode = n.ignoreCase ? FOLD_ASCII : 0;
+            List<String> literals = n.literals.keywords();
+            int size = literals.size();
+            int[] jumps = new int[size];
+            for (int k = 0; k < size; k++) {
+                int split = -1;
+                if (k < size - 1)
+                    split = emit(SPLIT, pc + 1, 0, null);
+                String literal = literals.get(k);
+                for (int i = 0; i < literal.length(); i++)
+                    emit(CHAR, literal.charAt(i), mode, null);
+                jumps[k] = emit(JMP, 0, 0, null);
+                if (split >= 0)
+                    ys[split] = pc;
+            }
+            for (int j : jumps)
+                xs[j] = pc;
+        }
+
+        void groupHead(int localIndex) {
+            if (heads == headPcs.length) {
+                headPcs = Arrays.copyOf(headPcs, heads * 2);
+                headLocals = Arrays.copyOf(headLocals, heads * 2);
+            }
+            headPcs[heads] = emit(SAVE, -1, 0, null);
+            headLocals[heads++] = localIndex;
+        }
+
+        void patchGroupHeads() {
+            for (int k = 0; k < heads; k++) {
+                Integer slot = groupOfLocal.get(headLocals[k]);
+                xs[headPcs[k]] = (slot == null || slot == 0) ? -1 : slot;
+            }
+        }
+
+        void branch(Pattern.Branch b) {
+            int[] jumps = new int[b.size];
+            for (int k = 0; k < b.size; k++) {
+                int split = -1;
+                if (k < b.size - 1)
+                    split = emit(SPLIT, pc + 1, 0, null);
+                if (b.atoms[k] != null)
+                    chain(b.atoms[k], b.conn);
+                jumps[k] = emit(JMP, 0, 0, null);
+                if (split >= 0)
+                    ys[split] = pc;
+            }
+            for (int j : jumps)
+                xs[j] = pc;
+        }
+
+        int repeatSlot(Pattern.Node n) {
+            Integer slot = repeatSlots.get(n);
+            if (slot == null)
+                repeatSlots.put(n, slot = nslot++);
+            return slot;
+        }
+
+        /**
+         * Emits cmin copies of the body followed by cmax - cmin optional
+         * ones, nested so that skipping one skips the rest, or a loop if
+         * cmax is unbounded.  A group slot, if any, is saved at the start
+         * of each copy.
+         *
+         * <p> As with backtracking, an optional iteration that matches the
+         * empty string ends the repetition, and so does a required one if
+         * allEmpty is true, as it is for loops.  The position each
+         * iteration starts at is kept in emptySlot for the check.
+         */
+        void repeat(Pattern.Node body, Pattern.Node stop, int cmin, int cmax,
+                    boolean greedy, int slot, int emptySlot, boolean allEmpty) {
+            int[] exits = new int[4];
+            int nexits = 0;
+            for (int k = 0; k < cmin; k++) {
+                int check = body(body, stop, slot, allEmpty ? emptySlot : -1);
+                if (check >= 0) {
+                    if (nexits == exits.length)
+                        exits = Arrays.copyOf(exits, nexits * 2);
+                    exits[nexits++] = check;
+                }
+            }
+            if (cmax == Pattern.MAX_REPS) {
+                int loop = emit(SPLIT, 0, 0, null);
+                int check = body(body, stop, slot, emptySlot);
+                emit(JMP, loop, 0, null);
+                setSplit(loop, greedy);
+                if (check >= 0)
+                    ys[check] = pc;
+            } else {
+                if (cmax - cmin > MAX_PROGRAM)
+                    throw new PatternSyntaxException(
+                        "Pattern too large for LINEAR matching", regex, -1);
+                int[] splits = new int[Math.max(0, cmax - cmin)];
+                int[] checks = new int[splits.length];
+                for (int k = 0; k < splits.length; k++) {
+                    splits[k] = emit(SPLIT, 0, 0, null);
+                    checks[k] = body(body, stop, slot, emptySlot);
+                }
+                for (int s : splits)
+                    setSplit(s, greedy);
+                for (int c : checks)
+                    if (c >= 0)
+                        ys[c] = pc;
+            }
+            for (int k = 0; k < nexits; k++)
+                ys[exits[k]] = pc;
+        }
+
+        // Emits one copy of a repeated body and returns the pc of its
+        // empty iteration check, whose target is left to the caller, or
+        // -1 if it has none.
+        private int body(Pattern.Node body, Pattern.Node stop, int slot,
+                         int emptySlot) {
+            if (emptySlot >= 0)
+                emit(SAVE, emptySlot, 0, null);
+            if (slot > 0)
+                emit(SAVE, slot, 0, null);
+            chain(body, stop);
+            return emptySlot >= 0 ? emit(EMPTY, emptySlot, 0, null) : -1;
+        }
+
+        // Points a SPLIT at the instruction after it and at the current pc,
+        // in the order of preference.
+        private void setSplit(int split, boolean greedy) {
+            if (greedy) {
+                xs[split] = split + 1;
+                ys[split] = pc;
+            } else {
+                xs[split] = pc;
+                ys[split] = split + 1;
+            }
+        }
+    }
+
+    /* -- Simulation -- */
+
+    /**
+     * The threads at one position, in priority order.  A thread is a
+     * state, either an instruction that consumes input or MATCH, or an
+     * instruction preceded by the second char of a surrogate pair still to
+     * be skipped, together with its slots.  The marks record the
+     * states entered at this position, including those that do not
+     * consume input.
+     */
+    private static final class Threads {
+        final int[] states;
+        final int[] marks;
+        int[] caps;
+        int size;
+        int gen = 1;
+
+        Threads(int nstates, int nslot) {
+            states = new int[nstates];
+            marks = new int[nstates];
+            caps = new int[16 * nslot];
+        }
+
+        void clear() {
+            size = 0;
+            if (++gen == 0) {
+                Arrays.fill(marks, 0);
+                gen = 1;
+            }
+        }
+
+        boolean mark(int state) {
+            if (marks[state] == gen)
+                return false;
+            marks[state] = gen;
+            return true;
+        }
+
+        void add(int state, int[] c, int nslot) {
+            int off = size * nslot;
+            if (off + nslot > caps.length)
+                caps = Arrays.copyOf(caps, Math.max(caps.length * 2, off + nslot));
+            System.arraycopy(c, 0, caps, off, nslot);
+            states[size++] = state;
+        }
+    }
+
+    /**
+     * Scratch space of a matcher, reused by successive operations as long
+     * as its pattern does not change.
+     */
+    static final class Scratch {
+        final NFA nfa;
+        Threads clist, nlist;
+        final int[] caps;
+        int[] best;
+        int[] stack = new int[32];
+
+        Scratch(NFA nfa) {
+            this.nfa = nfa;
+            int nstates = nfa.op.length * 2;
+            clist = new Threads(nstates, nfa.nslot);
+            nlist = new Threads(nstates, nfa.nslot);
+            caps = new int[nfa.nslot];
+            best = new int[nfa.nslot];
+        }
+    }
+
+    /**
+     * Finds a match starting at from, or anywhere after it unless anchored,
+     * and sets the matcher's match bounds and groups if one is found.
+     */
+    boolean run(Matcher matcher, int from, CharSequence seq, boolean anchored) {
+        Scratch s = matcher.nfaScratch;
+        if (s == null || s.nfa != this)
+            matcher.nfaScratch = s = new Scratch(this);
+        Threads clist = s.clist, nlist = s.nlist;
+        clist.clear();
+        nlist.clear();
+        int[] caps = s.caps;
+        int to = matcher.to;
+        int n = op.length;
+        boolean matched = false;
+
+        for (int p = from; ; p++) {
+            if (!matched && (p == from || !anchored) && p <= to
+                && !(hasSupplementary && p > from && p < to
+                     && Character.isLowSurrogate(seq.charAt(p))
+                     && Character.isHighSurrogate(seq.charAt(p - 1)))) {
+                // a new thread starting here, with the lowest priority
+                Arrays.fill(caps, -1);
+                caps[0] = p;
+                addThread(s, clist, 0, p, matcher, seq);
+            }
+            if (clist.size == 0) {
+                if (matched || anchored || p >= to)
+                    break;
+                clist.clear();
+                continue;
+            }
+            nlist.clear();
+            for (int t = 0; t < clist.size; t++) {
+                int state = clist.states[t];
+                System.arraycopy(clist.caps, t * nslot, caps, 0, nslot);
+                if (state >= n) {
+                    // skip the second half of a surrogate pair
+                    if (p < to)
+                        addThread(s, nlist, state - n, p + 1, matcher, seq);
+                    else
+                        matcher.hitEnd = true;
+                    continue;
+                }
+                int pc = state;
+                if (op[pc] == MATCH) {
+                    if (matcher.acceptMode == Matcher.ENDANCHOR && p != to)
+                        continue;
+                    matched = true;
+                    caps[1] = p;
+                    System.arraycopy(caps, 0, s.best, 0, ncap);
+                    break;      // cut off the threads of lower priority
+                }
+                if (p >= to) {
+                    matcher.hitEnd = true;
+                    continue;
+                }
+                int len = step(pc, p, to, seq);
+                if (len == 1)
+                    addThread(s, nlist, pc + 1, p + 1, matcher, seq);
+                else if (len == 2 && nlist.mark(pc + 1 + n))
+                    nlist.add(pc + 1 + n, caps, nslot);
+                else if (len < 0)
+                    matcher.hitEnd = true;
+            }
+            Threads tmp = clist;
+            clist = nlist;
+            nlist = tmp;
+            if (p >= to && clist.size == 0)
+                break;
+        }
+        s.clist = clist;
+        s.nlist = nlist;
+
+        if (!matched) {
+            if (!anchored)
+                matcher.hitEnd = true;
+            return false;
+        }
+        int[] best = s.best;
+        matcher.first = best[0];
+        matcher.last = best[1];
+        System.arraycopy(best, 0, matcher.groups, 0, ncap);
+        return true;
+    }
+
+    /**
+     * Returns the number of chars consumed by the instruction at pc at
+     * position p, which is before the end, 0 if it does not match there,
+     * or -1 if it needs more input than there is.
+     */
+    private int step(int pc, int p, int to, CharSequence seq) {
+        switch (op[pc]) {
+        case CHAR: {
+            int mode = ys[pc];
+            int c = xs[pc];
+            int ch;
+            int len;
+            if ((mode & CODE_POINT) != 0) {
+                ch = Character.codePointAt(seq, p);
+                len = Character.charCount(ch);
+                if (p + len > to)
+                    return -1;
+            } else {
+                ch = seq.charAt(p);
+                len = 1;
+            }
+            if (c == ch
+                || ((mode & FOLD_ASCII) != 0 && c == ASCII.toLower(ch))
+                || ((mode & FOLD_UNICODE) != 0
+                    && c == Character.toLowerCase(Character.toUpperCase(ch))))
+                return len;
+            return 0;
+        }
+        case PROP: {
+            int ch = Character.codePointAt(seq, p);
+            return ((Pattern.CharProperty) refs[pc]).isSatisfiedBy(ch)
+                ? Character.charCount(ch) : 0;
+        }
+        case PROP_BMP:
+            return ((Pattern.CharProperty) refs[pc]).isSatisfiedBy(seq.charAt(p))
+                ? 1 : 0;
+        case LINE_END: {
+            char ch = seq.charAt(p);
+            if (ch == 0x0A || ch == 0x0B || ch == 0x0C ||
+                ch == 0x85 || ch == 0x2028 || ch == 0x2029)
+                return 1;
+            if (ch == 0x0D)
+                return (p + 1 < to && seq.charAt(p + 1) == 0x0A) ? 2 : 1;
+            return 0;
+        }
+        default:
+            throw new AssertionError();
+        }
+    }
+
+    /**
+     * Adds the thread at pc, with the slots in s.caps, and the threads it
+     * leads to without consuming input, to the list of position p, in
+     * priority order.  The slots are restored before returning.
+     */
+    private void addThread(Scratch s, Threads list, int pc, int p,
+                           Matcher matcher, CharSequence seq) {
+        int[] caps = s.caps;
+        int[] stack = s.stack;
+        int sp = 0;
+        stack[sp++] = pc;
+        while (sp > 0) {
+            int e = stack[--sp];
+            if (e < 0) {
+                // restore a slot saved by SAVE
+                caps[-e - 1] = stack[--sp];
+                continue;
+            }
+            pc = e;
+            if (!list.mark(pc))
+                continue;
+            if (sp + 4 > stack.length)
+                s.stack = stack = Arrays.copyOf(stack, stack.length * 2);
+            switch (op[pc]) {
+            case JMP:
+                stack[sp++] = xs[pc];
+                break;
+            case SPLIT:
+                stack[sp++] = ys[pc];
+                stack[sp++] = xs[pc];
+                break;
+            case SAVE: {
+                int slot = xs[pc];
+                if (slot >= 0) {
+                    stack[sp++] = caps[slot];
+                    stack[sp++] = -slot - 1;
+                    caps[slot] = p;
+                }
+                stack[sp++] = pc + 1;
+                break;
+            }
+            case ASSERT:
+                if (refs[pc].match(matcher, p, seq))
+                    stack[sp++] = pc + 1;
+                break;
+            case EMPTY:
+                stack[sp++] = caps[xs[pc]] == p ? ys[pc] : pc + 1;
+                break;
+            default:
+                list.add(pc, caps, nslot);
+                break;
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Arrays;
 import java.util.NoSuchElementException;
 import java.util.Spliterator;
@@ -917,6 +918,38 @@ public final class Pattern
      */
     public static final int UNICODE_CHARACTER_CLASS = 0x100;
 
+    /**
+     * Enables linear-time matching.
+     *
+     * <p> When this flag is specified the pattern is matched by simulating
+     * all the ways it can match the input at once, instead of trying them
+     * one after another, so that the time a match takes grows linearly
+     * with the length of the input whatever the pattern.  The expression
+     * <tt>(a|aa)*b</tt>, for example, takes exponential time to fail on a
+     * long run of <tt>a</tt>s by default, but linear time with this flag.
+     * The match found and the groups captured are the same as without the
+     * flag, except for some repetitions of expressions that can match the
+     * empty string, where the groups, and occasionally the match, may
+     * differ.  A search that is not anchored to its start by <tt>\A</tt>
+     * or <tt>^</tt> tries every position up to the end of the input, so
+     * {@link Matcher#hitEnd hitEnd} may also return {@code true} where it
+     * would not without the flag.
+     *
+     * <p> Constructs that require backtracking cannot be matched in linear
+     * time: back references, lookahead, lookbehind, independent groups and
+     * possessive quantifiers cause {@link #compile(String, int)} to throw
+     * a {@link PatternSyntaxException} when this flag is specified.
+     *
+     * <p> There is no embedded flag character for enabling linear-time
+     * matching.
+     *
+     * <p> Specifying this flag improves the worst case at the cost of the
+     * common case, which is typically a few times slower than
+     * backtracking.  </p>
+     * @since 1.8
+     */
+    public static final int LINEAR = 0x200;
+
     /* Pattern has only two serialized components: The pattern string
      * and the flags, which are all that is needed to recompile the pattern
      * when it is deserialized.
@@ -1039,7 +1072,7 @@ public final class Pattern
      *         Match flags, a bit mask that may include
      *         {@link #CASE_INSENSITIVE}, {@link #MULTILINE}, {@link #DOTALL},
      *         {@link #UNICODE_CASE}, {@link #CANON_EQ}, {@link #UNIX_LINES},
-     *         {@link #LITERAL}, {@link #UNICODE_CHARACTER_CLASS}
+     *         {@link #LITERAL}, {@link #UNICODE_CHARACTER_CLASS}, {@link #LINEAR}
      *         and {@link #COMMENTS}
      *
      * @return the given regular expression compiled into a pattern with the given flags
@@ -1054,6 +1087,76 @@ public final class Pattern
         return new Pattern(regex, flags);
     }
 
+    /**
+     * Returns a compiled pattern for the given regular expression and
+     * flags, taken from a cache of recently used patterns if possible.
+     *
+     * <p> Patterns are immutable, so a cached pattern can be shared by any
+     * number of callers.  This method is used by {@link #matches(String,
+     * CharSequence)} and by the regular expression methods of {@link
+     * String}, so that an expression used repeatedly with them is only
+     * compiled once.  Code that holds on to a pattern should use {@link
+     * #compile(String, int)} instead.
+     *
+     * <p> The cache holds at most 256 patterns, evicting those that have
+     * not been used recently when it is full.  Its size can be set with the
+     * {@code java.util.regex.Pattern.cacheSize} system property; a size of
+     * zero disables the cache.  Its statistics are available from {@link
+     * #getCacheMXBean}.
+     *
+     * @param  regex
+     *         The expression to be compiled
+     *
+     * @param  flags
+     *         Match flags, as for {@link #compile(String, int)}
+     *
+     * @return the given regular expression compiled into a pattern with the given flags
+     * @throws  IllegalArgumentException
+     *          If bit values other than those corresponding to the defined
+     *          match flags are set in <tt>flags</tt>
+     *
+     * @throws  PatternSyntaxException
+     *          If the expression's syntax is invalid
+     *
+     * @since 1.8
+     */
+    public static Pattern compileCached(String regex, int flags) {
+        if (!sun.misc.VM.isBooted()) {
+            // too early to read the cache size
+            return new Pattern(regex, flags);
+        }
+        return CacheHolder.cache.get(regex, flags);
+    }
+
+    /**
+     * Returns the management interface of the cache used by {@link
+     * #compileCached}.
+     *
+     * @return the management interface of the pattern cache
+     *
+     * @since 1.8
+     */
+    public static PatternCacheMXBean getCacheMXBean() {
+        return CacheHolder.cache;
+    }
+
+    private static class CacheHolder {
+        static final PatternCache cache = new PatternCache(cacheSize());
+
+        private static int cacheSize() {
+            String s = sun.misc.VM.getSavedProperty(
+                "java.util.regex.Pattern.cacheSize");
+            if (s != null) {
+                try {
+                    return Integer.parseInt(s.trim());
+                } catch (NumberFormatException e) {
+                    // use the default
+                }
+            }
+            return 256;
+        }
+    }
+
     /**
      * Returns the regular expression from which this pattern was compiled.
      *
@@ -1130,7 +1233,7 @@ public final class Pattern
      *          If the expression's syntax is invalid
      */
     public static boolean matches(String regex, CharSequence input) {
-        Pattern p = Pattern.compile(regex);
+        Pattern p = Pattern.compileCached(regex, 0);
         Matcher m = p.matcher(input);
         return m.matches();
     }
@@ -1715,7 +1818,21 @@ loop:   for(int x=0, offset=0; x<nCodePoints; x++, offset+=len) {
         } else if (matchRoot instanceof Begin || matchRoot instanceof First) {
             root = matchRoot;
         } else {
-            root = hasSupplementary ? new StartS(matchRoot) : new Start(matchRoot);
+            SliceSet set = hasSupplementary ? null : SliceSet.leading(matchRoot);
+            if (set != null)
+                root = new SliceSetStart(matchRoot, set);
+            else
+                root = hasSupplementary ? new StartS(matchRoot) : new Start(matchRoot);
+        }
+
+        if (has(LINEAR)) {
+            NFA nfa = NFA.compile(matchRoot, pattern, capturingGroupCount,
+                                  hasSupplementary);
+            // A pattern starting with \A, or ^ without MULTILINE, can
+            // only match where the search starts, as above
+            boolean begins = matchRoot instanceof Begin;
+            matchRoot = new NFA.Anchored(nfa);
+            root = begins ? matchRoot : new NFA.Search(nfa);
         }
 
         // Release temporary storage
@@ -2029,6 +2146,8 @@ loop:   for(int x=0, offset=0; x<nCodePoints; x++, offset+=len) {
                 }
             }
             if (peek() != '|') {
+                if (prev == branch && branch.size >= SliceSet.MIN_LITERALS)
+                    return SliceSet.optimize(branch);
                 return prev;
             }
             next();
@@ -3515,6 +3634,44 @@ loop:   for(int x=0, offset=0; x<nCodePoints; x++, offset+=len) {
         }
     }
 
+    /**
+     * Replaces Start when the pattern begins with a set of literals.  The
+     * literals are searched for all at once, and the rest of the pattern
+     * is only tried where one of them starts.  Positions from which the
+     * longest literal would reach the end of input are tried one by one,
+     * since a literal cut off by the end must still set hitEnd.
+     */
+    static final class SliceSetStart extends Start {
+        final MultiStringMatcher literals;
+        SliceSetStart(Node node, SliceSet set) {
+            super(node);
+            literals = set.literals;
+        }
+        boolean match(Matcher matcher, int i, CharSequence seq) {
+            int guard = matcher.to - minLength;
+            int tail = matcher.to - literals.maxLength();
+            while (i <= guard) {
+                if (i < tail) {
+                    int j = literals.indexIn(seq, i, matcher.to);
+                    if (j < 0 || j >= tail) {
+                        i = tail;       // no literal starts before tail
+                        continue;
+                    }
+                    i = j;
+                }
+                if (next.match(matcher, i, seq)) {
+                    matcher.first = i;
+                    matcher.groups[0] = matcher.first;
+                    matcher.groups[1] = matcher.last;
+                    return true;
+                }
+                i++;
+            }
+            matcher.hitEnd = true;
+            return false;
+        }
+    }
+
     /**
      * Node to anchor at the beginning of input. This object implements the
      * match for a \A sequence, and the caret anchor will use this if not in
@@ -3765,7 +3922,7 @@ loop:   for(int x=0, offset=0; x<nCodePoints; x++, offset+=len) {
      * Abstract node class to match one character satisfying some
      * boolean property.
      */
-    private static abstract class CharProperty extends Node {
+    static abstract class CharProperty extends Node {
         abstract boolean isSatisfiedBy(int ch);
         CharProperty complement() {
             return new CharProperty() {
@@ -3793,7 +3950,7 @@ loop:   for(int x=0, offset=0; x<nCodePoints; x++, offset+=len) {
      * Optimized version of CharProperty that works only for
      * properties never satisfied by Supplementary characters.
      */
-    private static abstract class BmpCharProperty extends CharProperty {
+    static abstract class BmpCharProperty extends CharProperty {
         boolean match(Matcher matcher, int i, CharSequence seq) {
             if (i < matcher.to) {
                 return isSatisfiedBy(seq.charAt(i))
@@ -4640,6 +4797,102 @@ loop:   for(int x=0, offset=0; x<nCodePoints; x++, offset+=len) {
         }
     }
 
+    /**
+     * Handles an alternation of many literal strings, which Branch would
+     * try one after another.  The literals are put in a trie, so that those
+     * occurring at a position are found in one pass, and are then tried in
+     * the order of the alternation.
+     */
+    static final class SliceSet extends Node {
+        /**
+         * The smallest number of literals worth replacing a Branch.
+         */
+        static final int MIN_LITERALS = 8;
+
+        final MultiStringMatcher literals;
+        final boolean ignoreCase;   // ASCII case insensitive
+
+        SliceSet(MultiStringMatcher literals, boolean ignoreCase, Node next) {
+            this.literals = literals;
+            this.ignoreCase = ignoreCase;
+            this.next = next;
+        }
+
+        /**
+         * Returns a SliceSet matching the same as the branch if all of its
+         * alternatives are literals, or the branch itself otherwise.
+         */
+        static Node optimize(Branch branch) {
+            List<String> strings = new ArrayList<>(branch.size);
+            boolean ignoreCase = false;
+            boolean hasLetters = false;
+            for (int n = 0; n < branch.size; n++) {
+                Node atom = branch.atoms[n];
+                if (atom == null || atom.next != branch.conn)
+                    return branch;
+                String str;
+                if (atom instanceof Slice) {
+                    int[] buf = ((Slice) atom).buffer;
+                    str = new String(buf, 0, buf.length);
+                    hasLetters |= hasAsciiLetters(buf);
+                } else if (atom instanceof SliceI) {
+                    int[] buf = ((SliceI) atom).buffer;
+                    str = new String(buf, 0, buf.length);
+                    ignoreCase = true;
+                } else if (atom instanceof Single) {
+                    int c = ((Single) atom).c;
+                    str = String.valueOf((char) c);
+                    hasLetters |= ASCII.isType(c, ASCII.ALPHA);
+                } else if (atom instanceof SingleI) {
+                    str = String.valueOf((char) ((SingleI) atom).lower);
+                    ignoreCase = true;
+                } else {
+                    return branch;
+                }
+                strings.add(str);
+            }
+            // Exact and case insensitive literals can be mixed only if the
+            // exact ones are not affected by case
+            if (ignoreCase && hasLetters)
+                return branch;
+            MultiStringMatcher literals = MultiStringMatcher.forLiterals(
+                strings,
+                ignoreCase ? MultiStringMatcher.FOLD_ASCII
+                           : MultiStringMatcher.FOLD_NONE);
+            return new SliceSet(literals, ignoreCase, branch.conn.next);
+        }
+
+        private static boolean hasAsciiLetters(int[] buf) {
+            for (int c : buf) {
+                if (ASCII.isType(c, ASCII.ALPHA))
+                    return true;
+            }
+            return false;
+        }
+
+        /**
+         * Returns the SliceSet the given node starts with, skipping the
+         * group heads before it, or null.
+         */
+        static SliceSet leading(Node node) {
+            while (node instanceof GroupHead)
+                node = node.next;
+            return node instanceof SliceSet ? (SliceSet) node : null;
+        }
+
+        boolean match(Matcher matcher, int i, CharSequence seq) {
+            return literals.matchAt(matcher, i, seq, next);
+        }
+
+        boolean study(TreeInfo info) {
+            info.minLength += literals.minLength();
+            info.maxLength += literals.maxLength();
+            next.study(info);
+            info.deterministic = false;
+            return false;
+        }
+    }
+
     /**
      * The GroupHead saves the location where the group begins in the locals
      * and restores them when the match is done.
@@ -0,0 +1,154 @@
+package java.util.regex;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * A bounded cache of compiled patterns, keyed by expression and flags.
+ * Lookups do not lock.  When the cache is full, a pattern is evicted with
+ * the CLOCK algorithm, which approximates least-recently-used order: each
+ * pattern is marked when it is used, and the clock hand passes over, and
+ * unmarks, the marked ones until it finds an unmarked one.
+ */
+final class PatternCache implements PatternCacheMXBean {
+
+    /**
+     * Key for patterns with flags.  Patterns without flags are keyed by
+     * their expression alone, which a Key is never equal to.
+     */
+    private static final class Key {
+        final String regex;
+        final int flags;
+
+        Key(String regex, int flags) {
+            this.regex = regex;
+            this.flags = flags;
+        }
+
+        public int hashCode() {
+            return regex.hashCode() * 31 + flags;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key k = (Key) o;
+            return flags == k.flags && regex.equals(k.regex);
+        }
+    }
+
+    private static final class Entry {
+        final Object key;
+        final Pattern pattern;
+        volatile boolean used;
+
+        Entry(Object key, Pattern pattern) {
+            this.key = key;
+            this.pattern = pattern;
+        }
+    }
+
+    private final int maxSize;
+    private final ConcurrentHashMap<Object,Entry> map;
+    private final Entry[] clock;    // guarded by this
+    private int count;              // guarded by this
+    private int hand;               // guarded by this
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    PatternCache(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+        map = new ConcurrentHashMap<>(this.maxSize);
+        clock = new Entry[this.maxSize];
+    }
+
+    /**
+     * Returns the pattern for the given expression and flags, compiling
+     * and caching it if it is not cached yet.
+     */
+    Pattern get(String regex, int flags) {
+        if (maxSize == 0)
+            return Pattern.compile(regex, flags);
+        Object key = (flags == 0) ? regex : new Key(regex, flags);
+        Entry e = map.get(key);
+        if (e != null) {
+            if (!e.used)
+                e.used = true;
+            hits.increment();
+            return e.pattern;
+        }
+        misses.increment();
+        Pattern p = Pattern.compile(regex, flags);
+        add(new Entry(key, p));
+        return p;
+    }
+
+    private synchronized void add(Entry e) {
+        if (map.containsKey(e.key))
+            return;             // compiled concurrently by another thread
+        if (count < clock.length) {
+            clock[count++] = e;
+        } else {
+            for (;;) {
+                Entry victim = clock[hand];
+                if (victim.used) {
+                    victim.used = false;
+                    hand = (hand + 1) % clock.length;
+                } else {
+                    map.remove(victim.key);
+                    evictions.increment();
+                    clock[hand] = e;
+                    hand = (hand + 1) % clock.length;
+                    break;
+                }
+            }
+        }
+        map.put(e.key, e);
+    }
+
+    public synchronized void clear() {
+        map.clear();
+        Arrays.fill(clock, null);
+        count = 0;
+        hand = 0;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return (total == 0) ? 0.0 : (double) h / total;
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int getSize() {
+        return map.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public ObjectName getObjectName() {
+        try {
+            return new ObjectName("java.util.regex:type=PatternCache");
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package java.util.regex;
+
+import java.lang.management.PlatformManagedObject;
+
+/**
+ * The management interface for the cache of compiled patterns used by
+ * {@link Pattern#compileCached}, and through it by {@link Pattern#matches}
+ * and the regular expression methods of {@link String}.
+ *
+ * <p> A class implementing this interface is an
+ * {@link javax.management.MXBean}.  The {@link
+ * java.lang.management.ManagementFactory#getPlatformMXBean(Class)
+ * getPlatformMXBean} method can be used to obtain it:
+ * <pre>
+ *     PatternCacheMXBean cache = ManagementFactory.getPlatformMXBean(PatternCacheMXBean.class);
+ * </pre>
+ *
+ * <p> The management interface is also registered with the platform {@link
+ * javax.management.MBeanServer MBeanServer}. The {@link
+ * javax.management.ObjectName ObjectName} that uniquely identifies the
+ * management interface within the {@code MBeanServer} is:
+ * <pre>
+ *     java.util.regex:type=PatternCache
+ * </pre>
+ *
+ * @see Pattern#getCacheMXBean
+ * @since   1.8
+ */
+public interface PatternCacheMXBean extends PlatformManagedObject {
+
+    /**
+     * Returns the number of lookups that found a compiled pattern in the
+     * cache.
+     *
+     * @return  The number of cache hits
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of lookups that had to compile the pattern.
+     *
+     * @return  The number of cache misses
+     */
+    long getMissCount();
+
+    /**
+     * Returns the fraction of lookups that found a compiled pattern in
+     * the cache, or {@code 0.0} if there have been no lookups.
+     *
+     * @return  The hit rate, between {@code 0.0} and {@code 1.0}
+     */
+    double getHitRate();
+
+    /**
+     * Returns the number of patterns dropped from the cache to make room
+     * for others.
+     *
+     * @return  The number of evictions
+     */
+    long getEvictionCount();
+
+    /**
+     * Returns the number of patterns currently in the cache.
+     *
+     * @return  The number of patterns
+     */
+    int getSize();
+
+    /**
+     * Returns the number of patterns the cache holds at most.  The cache
+     * is disabled if this is zero.
+     *
+     * @return  The maximum number of patterns
+     */
+    int getMaxSize();
+
+    /**
+     * Removes all patterns from the cache.
+     */
+    void clear();
+}
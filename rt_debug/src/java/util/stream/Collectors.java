@@ -24,6 +24,9 @@
  */
 package java.util.stream;
 
+import java.math.BigDecimal;
+import java.math.BigDecimalAccumulator;
+import java.math.MathContext;
 import java.util.AbstractMap;
 import java.util.AbstractSet;
 import java.util.ArrayList;
@@ -559,6 +562,60 @@ public final class Collectors {
             return tmp;
     }
 
+    /**
+     * Returns a {@code Collector} that produces the sum of a
+     * {@code BigDecimal}-valued function applied to the input elements.
+     * If no elements are present, the result is {@code BigDecimal.ZERO}.
+     *
+     * <p>The result is equal to the result of adding the values with
+     * {@link BigDecimal#add(BigDecimal)}, including its scale, but is
+     * computed in a {@link BigDecimalAccumulator}, which adds values that
+     * fit in a {@code long} without creating a {@code BigDecimal} for
+     * each intermediate sum.
+     *
+     * @param <T> the type of the input elements
+     * @param mapper a function extracting the property to be summed
+     * @return a {@code Collector} that produces the sum of a derived property
+     * @see #summingBigDecimal(Function, MathContext)
+     * @since 1.8
+     */
+    public static <T> Collector<T, ?, BigDecimal>
+    summingBigDecimal(Function<? super T, ? extends BigDecimal> mapper) {
+        return new CollectorImpl<>(
+                BigDecimalAccumulator::new,
+                (a, t) -> a.add(mapper.apply(t)),
+                (a, b) -> { a.combine(b); return a; },
+                BigDecimalAccumulator::sum, CH_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector} that produces the sum of a
+     * {@code BigDecimal}-valued function applied to the input elements,
+     * rounded according to the given context.  If no elements are present,
+     * the result is {@code BigDecimal.ZERO}.
+     *
+     * <p>The values are summed exactly, as by
+     * {@link #summingBigDecimal(Function)}, and only the final sum is
+     * rounded.
+     *
+     * @param <T> the type of the input elements
+     * @param mapper a function extracting the property to be summed
+     * @param mc the context used to round the sum
+     * @return a {@code Collector} that produces the rounded sum of a
+     * derived property
+     * @since 1.8
+     */
+    public static <T> Collector<T, ?, BigDecimal>
+    summingBigDecimal(Function<? super T, ? extends BigDecimal> mapper,
+                      MathContext mc) {
+        Objects.requireNonNull(mc);
+        return new CollectorImpl<>(
+                BigDecimalAccumulator::new,
+                (a, t) -> a.add(mapper.apply(t)),
+                (a, b) -> { a.combine(b); return a; },
+                a -> a.sum(mc), CH_NOID);
+    }
+
     /**
      * Returns a {@code Collector} that produces the arithmetic mean of an integer-valued
      * function applied to the input elements.  If no elements are present,
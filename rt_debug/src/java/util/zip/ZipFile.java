@@ -30,9 +30,14 @@ import java.io.InputStream;
 import java.io.IOException;
 import java.io.EOFException;
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayDeque;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -42,10 +47,15 @@ import java.util.NoSuchElementException;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
+import sun.misc.Cleaner;
+import sun.nio.ch.DirectBuffer;
 
 import static java.util.zip.ZipConstants64.*;
+import static java.util.zip.ZipUtils.*;
 
 /**
  * This class is used to read entries from a zip file.
@@ -54,6 +64,18 @@ import static java.util.zip.ZipConstants64.*;
  * or method in this class will cause a {@link NullPointerException} to be
  * thrown.
  *
+ * <p> If the system property {@code sun.zip.concurrentRead} is set to
+ * {@code true}, zip files are read concurrently: the central directory is
+ * indexed when the file is opened, and the file is mapped into memory, so
+ * that entries can be looked up, enumerated and read by many threads at once
+ * without locking.  Files larger than 2 GB, files that need ZIP64 extensions,
+ * files opened with {@link #OPEN_DELETE}, and all files when memory mapping
+ * is disabled, are read in the default way.  The mapping of a file read
+ * concurrently is released by {@link #close}, once reads in progress in
+ * other threads have completed, so the file can be deleted or renamed as
+ * soon as it has been closed.  Input streams of the file must not be used
+ * after it has been closed; their reads then throw an {@code IOException}.
+ *
  * @author      David Connelly
  */
 public
@@ -92,6 +114,8 @@ class ZipFile implements ZipConstants, Closeable {
 
     private static final boolean ensuretrailingslash;
 
+    private static final boolean concurrentread;
+
     static {
         // A system prpperty to disable mmap use to avoid vm crash when
         // in-use zip file is accidently overwritten by others.
@@ -102,6 +126,10 @@ class ZipFile implements ZipConstants, Closeable {
         // see getEntry() for details
         prop = sun.misc.VM.getSavedProperty("jdk.util.zip.ensureTrailingSlash");
         ensuretrailingslash = prop == null || !prop.equalsIgnoreCase("false");
+
+        // see CentralDirectory
+        prop = sun.misc.VM.getSavedProperty("sun.zip.concurrentRead");
+        concurrentread = prop != null && prop.equalsIgnoreCase("true");
     }
 
     /**
@@ -228,6 +256,8 @@ class ZipFile implements ZipConstants, Closeable {
         this.name = name;
         this.total = getTotal(jzfile);
         this.locsig = startsWithLOC(jzfile);
+        this.cd = (concurrentread && usemmap && (mode & OPEN_DELETE) == 0)
+                  ? CentralDirectory.open(file, zc, total) : null;
     }
 
     /**
@@ -310,6 +340,17 @@ class ZipFile implements ZipConstants, Closeable {
         if (name == null) {
             throw new NullPointerException("name");
         }
+        if (cd != null) {
+            ensureOpen();
+            int i = cd.indexOf(name);
+            if (i < 0 && !name.isEmpty() && !name.endsWith("/")) {
+                // same fallback as below
+                i = cd.indexOf(name + "/");
+            }
+            if (i < 0)
+                return null;
+            return cd.getZipEntry(ensuretrailingslash ? null : name, i);
+        }
         long jzentry = 0;
         synchronized (this) {
             ensureOpen();
@@ -360,6 +401,9 @@ class ZipFile implements ZipConstants, Closeable {
         if (entry == null) {
             throw new NullPointerException("entry");
         }
+        if (cd != null) {
+            return getInputStream(cd, entry);
+        }
         long jzentry = 0;
         ZipFileInputStream in = null;
         synchronized (this) {
@@ -387,7 +431,7 @@ class ZipFile implements ZipConstants, Closeable {
                 if (size <= 0) size = 4096;
                 Inflater inf = getInflater();
                 InputStream is =
-                    new ZipFileInflaterInputStream(in, inf, (int)size);
+                    new ZipFileInflaterInputStream(in, in.size(), inf, (int)size);
                 synchronized (streams) {
                     streams.put(is, inf);
                 }
@@ -398,15 +442,51 @@ class ZipFile implements ZipConstants, Closeable {
         }
     }
 
+    /*
+     * Returns an input stream for an entry of a zip file that is read
+     * concurrently, without taking any locks but that of the map of
+     * outstanding streams.
+     */
+    private InputStream getInputStream(CentralDirectory cd, ZipEntry entry)
+        throws IOException
+    {
+        ensureOpen();
+        int i = cd.indexOf(entry.name);
+        if (i < 0) {
+            return null;
+        }
+        MappedEntryInputStream in = new MappedEntryInputStream(cd.data(i));
+        switch (cd.method(i)) {
+        case STORED:
+            synchronized (streams) {
+                streams.put(in, null);
+            }
+            return in;
+        case DEFLATED:
+            long size = cd.size(i) + 2; // Inflater likes a bit of slack
+            if (size > 65536) size = 8192;
+            if (size <= 0) size = 4096;
+            Inflater inf = getInflater();
+            InputStream is = new ZipFileInflaterInputStream(in, cd.size(i),
+                                                            inf, (int)size);
+            synchronized (streams) {
+                streams.put(is, inf);
+            }
+            return is;
+        default:
+            throw new ZipException("invalid compression method");
+        }
+    }
+
     private class ZipFileInflaterInputStream extends InflaterInputStream {
         private volatile boolean closeRequested = false;
         private boolean eof = false;
-        private final ZipFileInputStream zfin;
+        private final long entrySize;
 
-        ZipFileInflaterInputStream(ZipFileInputStream zfin, Inflater inf,
-                int size) {
+        ZipFileInflaterInputStream(InputStream zfin, long entrySize,
+                Inflater inf, int size) {
             super(zfin, inf, size);
-            this.zfin = zfin;
+            this.entrySize = entrySize;
         }
 
         public void close() throws IOException {
@@ -443,7 +523,7 @@ class ZipFile implements ZipConstants, Closeable {
         public int available() throws IOException {
             if (closeRequested)
                 return 0;
-            long avail = zfin.size() - inf.getBytesWritten();
+            long avail = entrySize - inf.getBytesWritten();
             return (avail > (long) Integer.MAX_VALUE ?
                     Integer.MAX_VALUE : (int) avail);
         }
@@ -459,11 +539,9 @@ class ZipFile implements ZipConstants, Closeable {
      */
     private Inflater getInflater() {
         Inflater inf;
-        synchronized (inflaterCache) {
-            while (null != (inf = inflaterCache.poll())) {
-                if (false == inf.ended()) {
-                    return inf;
-                }
+        while (null != (inf = inflaterCache.poll())) {
+            if (false == inf.ended()) {
+                return inf;
             }
         }
         return new Inflater(true);
@@ -475,14 +553,18 @@ class ZipFile implements ZipConstants, Closeable {
     private void releaseInflater(Inflater inf) {
         if (false == inf.ended()) {
             inf.reset();
-            synchronized (inflaterCache) {
-                inflaterCache.add(inf);
+            inflaterCache.add(inf);
+            if (closeRequested) {
+                // close() may have drained the cache already
+                while (null != (inf = inflaterCache.poll())) {
+                    inf.end();
+                }
             }
         }
     }
 
     // List of available Inflater objects for decompression
-    private Deque<Inflater> inflaterCache = new ArrayDeque<>();
+    private final Deque<Inflater> inflaterCache = new ConcurrentLinkedDeque<>();
 
     /**
      * Returns the path name of the ZIP file.
@@ -504,6 +586,10 @@ class ZipFile implements ZipConstants, Closeable {
         }
 
         public boolean hasNext() {
+            if (cd != null) {
+                ensureOpen();
+                return i < total;
+            }
             synchronized (ZipFile.this) {
                 ensureOpen();
                 return i < total;
@@ -515,6 +601,13 @@ class ZipFile implements ZipConstants, Closeable {
         }
 
         public ZipEntry next() {
+            if (cd != null) {
+                ensureOpen();
+                if (i >= total) {
+                    throw new NoSuchElementException();
+                }
+                return cd.getZipEntry(null, i++);
+            }
             synchronized (ZipFile.this) {
                 ensureOpen();
                 if (i >= total) {
@@ -645,10 +738,13 @@ class ZipFile implements ZipConstants, Closeable {
 
             // Release cached inflaters
             Inflater inf;
-            synchronized (inflaterCache) {
-                while (null != (inf = inflaterCache.poll())) {
-                    inf.end();
-                }
+            while (null != (inf = inflaterCache.poll())) {
+                inf.end();
+            }
+
+            // Unmap the file once reads in progress have completed
+            if (cd != null) {
+                cd.close();
             }
 
             if (jzfile != 0) {
@@ -794,6 +890,298 @@ class ZipFile implements ZipConstants, Closeable {
         }
     }
 
+    /*
+     * Input stream for the data of an entry of a zip file that is read
+     * concurrently, reading directly from the mapped file.
+     */
+    private class MappedEntryInputStream extends InputStream {
+        private final ByteBuffer data;
+
+        MappedEntryInputStream(ByteBuffer data) {
+            this.data = data;
+        }
+
+        public int read(byte b[], int off, int len) throws IOException {
+            if (off < 0 || len < 0 || len > b.length - off) {
+                throw new IndexOutOfBoundsException();
+            }
+            int rem = data.remaining();
+            if (rem == 0) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            if (len > rem) {
+                len = rem;
+            }
+            cd.acquire();
+            try {
+                data.get(b, off, len);
+            } finally {
+                cd.release();
+            }
+            return len;
+        }
+
+        public int read() throws IOException {
+            if (!data.hasRemaining()) {
+                return -1;
+            }
+            cd.acquire();
+            try {
+                return data.get() & 0xff;
+            } finally {
+                cd.release();
+            }
+        }
+
+        public long skip(long n) {
+            if (n <= 0) {
+                return 0;
+            }
+            int k = (int)Math.min(n, data.remaining());
+            data.position(data.position() + k);
+            return k;
+        }
+
+        public int available() {
+            return data.remaining();
+        }
+
+        public void close() {
+            data.position(data.limit());
+            synchronized (streams) {
+                streams.remove(this);
+            }
+        }
+    }
+
+    // the index of a zip file that is read concurrently, or null
+    private final CentralDirectory cd;
+
+    /*
+     * An immutable index of the central directory of a zip file, which is
+     * mapped into memory as a whole.  Built when the zip file is opened,
+     * and used instead of the native zip library to look up, enumerate and
+     * read entries without locking.  Reads of the mapping are counted, so
+     * that closing it can unmap it as soon as none is in progress.
+     */
+    private static final class CentralDirectory {
+        // the number of reads of the map in progress, plus CLOSED once
+        // closed; the map is unmapped when the count reaches CLOSED
+        private static final int CLOSED = Integer.MIN_VALUE;
+        private final AtomicInteger readers = new AtomicInteger();
+
+        private final ByteBuffer map;     // the zip file, little-endian
+        private final long locpos;        // offset of the archive in the file
+        private final byte[] cen;         // the central directory
+        private final int[] pos;          // CEN header offset of each entry
+        private final String[] names;     // the name of each entry
+        private final ZipCoder zc;
+        private final HashMap<String,Integer> index;
+
+        private CentralDirectory(ByteBuffer map, long locpos, byte[] cen,
+                                 int[] pos, String[] names, ZipCoder zc) {
+            this.map = map;
+            this.locpos = locpos;
+            this.cen = cen;
+            this.pos = pos;
+            this.names = names;
+            this.zc = zc;
+            index = new HashMap<>((int)(names.length / 0.75f) + 1);
+            // The last of entries with the same name wins, as it does in
+            // the lookups of the native zip library
+            for (int i = 0; i < names.length; i++) {
+                index.put(names[i], i);
+            }
+        }
+
+        /*
+         * Maps and indexes the given zip file, or returns null if it cannot
+         * be read concurrently.  The number of entries must agree with the
+         * one found by the native zip library.
+         */
+        static CentralDirectory open(File file, ZipCoder zc, int total) {
+            try (FileChannel ch = FileChannel.open(file.toPath(),
+                                                   StandardOpenOption.READ)) {
+                long size = ch.size();
+                if (size > Integer.MAX_VALUE || size < ENDHDR) {
+                    return null;
+                }
+                MappedByteBuffer map =
+                    ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                map.order(ByteOrder.LITTLE_ENDIAN);
+                return read(map, zc, total);
+            } catch (IOException | RuntimeException x) {
+                return null;    // fall back to the native zip library
+            }
+        }
+
+        private static CentralDirectory read(ByteBuffer map, ZipCoder zc,
+                                             int total) {
+            int size = map.capacity();
+            int minEnd = Math.max(0, size - ENDHDR - 0xFFFF);
+            int end = -1;
+            for (int p = size - ENDHDR; p >= minEnd; p--) {
+                if (map.getInt(p) == (int)ENDSIG &&
+                    p + ENDHDR + (map.getShort(p + ENDCOM) & 0xffff) == size) {
+                    end = p;
+                    break;
+                }
+            }
+            if (end < 0 ||
+                (end >= ZIP64_LOCHDR && map.getInt(end - ZIP64_LOCHDR) == (int)ZIP64_LOCSIG)) {
+                return null;
+            }
+            long cenlen = map.getInt(end + ENDSIZ) & 0xffffffffL;
+            long cenoff = map.getInt(end + ENDOFF) & 0xffffffffL;
+            long cenpos = end - cenlen;
+            long locpos = cenpos - cenoff;
+            if (cenpos < 0 || locpos < 0) {
+                return null;
+            }
+            byte[] cen = new byte[(int)cenlen];
+            ByteBuffer buf = map.duplicate();
+            buf.position((int)cenpos);
+            buf.get(cen);
+
+            int[] pos = new int[total];
+            String[] names = new String[total];
+            int n = 0;
+            for (int p = 0; p < cen.length; n++) {
+                if (n == total || p + CENHDR > cen.length ||
+                    get32(cen, p) != CENSIG) {
+                    return null;
+                }
+                int nlen = get16(cen, p + CENNAM);
+                int elen = get16(cen, p + CENEXT);
+                int clen = get16(cen, p + CENCOM);
+                if (get32(cen, p + CENSIZ) == ZIP64_MAGICVAL ||
+                    get32(cen, p + CENLEN) == ZIP64_MAGICVAL ||
+                    get32(cen, p + CENOFF) == ZIP64_MAGICVAL ||
+                    p + CENHDR + nlen + elen + clen > cen.length) {
+                    return null;
+                }
+                byte[] bname = Arrays.copyOfRange(cen, p + CENHDR,
+                                                  p + CENHDR + nlen);
+                pos[n] = p;
+                names[n] = (!zc.isUTF8() && (get16(cen, p + CENFLG) & EFS) != 0)
+                           ? zc.toStringUTF8(bname, nlen)
+                           : zc.toString(bname, nlen);
+                p += CENHDR + nlen + elen + clen;
+            }
+            if (n != total) {
+                return null;
+            }
+            return new CentralDirectory(map, locpos, cen, pos, names, zc);
+        }
+
+        int indexOf(String name) {
+            Integer i = index.get(name);
+            return (i == null) ? -1 : i;
+        }
+
+        int method(int i) {
+            return get16(cen, pos[i] + CENHOW);
+        }
+
+        long size(int i) {
+            return get32(cen, pos[i] + CENLEN);
+        }
+
+        /*
+         * Returns a buffer positioned on the data of the given entry.
+         */
+        ByteBuffer data(int i) throws ZipException {
+            int p = pos[i];
+            long loc = locpos + get32(cen, p + CENOFF);
+            long csize = get32(cen, p + CENSIZ);
+            long start;
+            acquire();
+            try {
+                if (loc + LOCHDR > map.capacity() ||
+                    map.getInt((int)loc) != (int)LOCSIG) {
+                    throw new ZipException("invalid LOC header (bad signature)");
+                }
+                start = loc + LOCHDR + (map.getShort((int)loc + LOCNAM) & 0xffff)
+                                     + (map.getShort((int)loc + LOCEXT) & 0xffff);
+            } finally {
+                release();
+            }
+            if (start + csize > map.capacity()) {
+                throw new ZipException("invalid entry size");
+            }
+            ByteBuffer buf = map.duplicate();
+            buf.limit((int)(start + csize)).position((int)start);
+            return buf;
+        }
+
+        /*
+         * Registers a read of the map, which must be followed by a call
+         * to release once it has completed.
+         */
+        void acquire() throws ZipException {
+            int r;
+            do {
+                if ((r = readers.get()) < 0) {
+                    throw new ZipException("ZipFile closed");
+                }
+            } while (!readers.compareAndSet(r, r + 1));
+        }
+
+        void release() {
+            if (readers.decrementAndGet() == CLOSED) {
+                unmap();
+            }
+        }
+
+        /*
+         * Fails any further reads, and unmaps the map now if no read is
+         * in progress, or else when the last one completes.
+         */
+        void close() {
+            if (readers.getAndAdd(CLOSED) == 0) {
+                unmap();
+            }
+        }
+
+        private void unmap() {
+            Cleaner cl = ((DirectBuffer)map).cleaner();
+            if (cl != null) {
+                cl.clean();
+            }
+        }
+
+        ZipEntry getZipEntry(String name, int i) {
+            int p = pos[i];
+            ZipEntry e = new ZipEntry();
+            e.flag = get16(cen, p + CENFLG);
+            e.name = (name != null) ? name : names[i];
+            e.xdostime = get32(cen, p + CENTIM);
+            e.crc = get32(cen, p + CENCRC);
+            e.size = get32(cen, p + CENLEN);
+            e.csize = get32(cen, p + CENSIZ);
+            e.method = get16(cen, p + CENHOW);
+            int nlen = get16(cen, p + CENNAM);
+            int elen = get16(cen, p + CENEXT);
+            int clen = get16(cen, p + CENCOM);
+            int off = p + CENHDR + nlen;
+            e.setExtra0((elen == 0) ? null
+                        : Arrays.copyOfRange(cen, off, off + elen), false);
+            if (clen != 0) {
+                byte[] bcomm = Arrays.copyOfRange(cen, off + elen,
+                                                  off + elen + clen);
+                if (!zc.isUTF8() && (e.flag & EFS) != 0) {
+                    e.comment = zc.toStringUTF8(bcomm, clen);
+                } else {
+                    e.comment = zc.toString(bcomm, clen);
+                }
+            }
+            return e;
+        }
+    }
+
     static {
         sun.misc.SharedSecrets.setJavaUtilZipFileAccess(
             new sun.misc.JavaUtilZipFileAccess() {
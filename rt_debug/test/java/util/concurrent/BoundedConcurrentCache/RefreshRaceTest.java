@@ -0,0 +1,56 @@
+/*
+ * @test
+ * @summary A refresh does not overwrite a value put while it is
+ *          loading, in a cache with a loader but no timed policies
+ * @run main RefreshRaceTest
+ */
+
+import java.util.concurrent.BoundedConcurrentCache;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class RefreshRaceTest {
+
+    public static void main(String[] args) throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BoundedConcurrentCache<String,String> cache =
+            new BoundedConcurrentCache.Builder<String,String>()
+                .setMaximumSize(100)
+                .setLoader(k -> {
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    return "loaded";
+                })
+                .setExecutor(r -> new Thread(r).start())
+                .build();
+
+        // Replaced while loading: the loaded value is discarded
+        cache.put("k", "v1");
+        CompletableFuture<String> f = cache.refresh("k");
+        if (!loading.await(10, TimeUnit.SECONDS))
+            throw new RuntimeException("loader not called");
+        cache.put("k", "v2");
+        release.countDown();
+        f.get(10, TimeUnit.SECONDS);
+        check(cache.get("k"), "v2");
+
+        // Unchanged while loading: the loaded value is installed
+        cache.put("j", "v1");
+        cache.refresh("j").get(10, TimeUnit.SECONDS);
+        check(cache.get("j"), "loaded");
+
+        System.out.println("Passed");
+    }
+
+    static void check(String actual, String expected) {
+        if (!expected.equals(actual))
+            throw new RuntimeException("got " + actual +
+                                       ", expected " + expected);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * @test
+ * @summary find, hitEnd and requireEnd of LINEAR patterns starting with
+ *          \A or ^ agree with those of the backtracking engine
+ * @run main LinearAnchoredFindTest
+ */
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class LinearAnchoredFindTest {
+
+    public static void main(String[] args) throws Exception {
+        String[] regexes = {
+            "^abc", "\\Aabc", "^a+b", "^(a|ab)c", "^abc$", "(?s)^a.*c",
+        };
+        String[] inputs = {
+            "", "a", "ab", "abc", "abcd", "xabc", "abx xxxx", "aaab",
+            "xx\nabc", "abc\nabc",
+        };
+        for (String regex : regexes) {
+            for (String input : inputs) {
+                check(regex, input, false);
+                check(regex, input, true);
+            }
+        }
+        System.out.println("Passed");
+    }
+
+    static void check(String regex, String input, boolean region) {
+        Matcher expected = Pattern.compile(regex).matcher(input);
+        Matcher actual = Pattern.compile(regex, Pattern.LINEAR).matcher(input);
+        if (region && input.length() > 1) {
+            expected.region(1, input.length());
+            actual.region(1, input.length());
+        }
+        // Repeated finds, so later ones start after the anchor
+        for (int n = 0; n < 3; n++) {
+            boolean e = expected.find();
+            boolean a = actual.find();
+            String what = regex + " on \"" + input + "\"" +
+                          (region ? " in region" : "") + ", find " + n;
+            if (e != a)
+                throw new RuntimeException(what + ": found " + a);
+            if (e && (expected.start() != actual.start() ||
+                      expected.end() != actual.end()))
+                throw new RuntimeException(what + ": matched " +
+                                           actual.start() + "-" + actual.end());
+            if (expected.hitEnd() != actual.hitEnd())
+                throw new RuntimeException(what + ": hitEnd " +
+                                           actual.hitEnd());
+            if (e && expected.requireEnd() != actual.requireEnd())
+                throw new RuntimeException(what + ": requireEnd " +
+                                           actual.requireEnd());
+            if (!e)
+                break;
+        }
+    }
+}
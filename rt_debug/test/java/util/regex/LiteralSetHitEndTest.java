@@ -0,0 +1,83 @@
+/*
+ * @test
+ * @summary hitEnd and requireEnd for patterns starting with a large
+ *          alternation of literals, which are matched with a
+ *          multi-string automaton
+ * @run main LiteralSetHitEndTest
+ */
+
+import java.util.Scanner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class LiteralSetHitEndTest {
+
+    // Enough alternatives for the literals to be matched as a set
+    static final String LITERALS = "B|bBA|c1|c2|c3|c4|c5|c6|c7";
+
+    public static void main(String[] args) throws Exception {
+        // A literal cut off by the end of input, before a shorter match
+        check(LITERALS, "xbB", "B", true, false);
+        // A literal cut off by the end of input, with no match at all
+        check(LITERALS, "xxb", null, true, false);
+        check(LITERALS, "xxc", null, true, false);
+        // Matches away from the end of input
+        check(LITERALS, "bBAxxxx", "bBA", false, false);
+        check(LITERALS, "xxxxc4xxxx", "c4", false, false);
+        check(LITERALS, "xxxxxxxx", null, true, false);
+        // The whole of the longest literal up to the end of input
+        check(LITERALS, "xbBA", "bBA", false, false);
+        // Case insensitive literals
+        check("(?i)" + LITERALS.replace('B', 'q'),
+              "xBQ", "Q", true, false);
+        // The rest of the pattern needs the end of input
+        check("(?:" + LITERALS + ")$", "xxxxc7", "c7", true, true);
+        check("(?:" + LITERALS + ")x*", "xxxxc7xx", "c7xx", true, false);
+
+        // A scanner must read more input when hitEnd is set
+        Scanner sc = new Scanner(new ChunkedReader("xbB", "A"));
+        String found = sc.findWithinHorizon(Pattern.compile(LITERALS), 0);
+        if (!"bBA".equals(found))
+            throw new RuntimeException("Scanner found " + found);
+
+        System.out.println("Passed");
+    }
+
+    static void check(String regex, String input, String expected,
+                      boolean hitEnd, boolean requireEnd) {
+        Matcher m = Pattern.compile(regex).matcher(input);
+        boolean found = m.find();
+        String actual = found ? m.group() : null;
+        if (expected == null ? actual != null : !expected.equals(actual))
+            throw new RuntimeException(regex + " on " + input +
+                                       ": found " + actual +
+                                       ", expected " + expected);
+        if (m.hitEnd() != hitEnd)
+            throw new RuntimeException(regex + " on " + input +
+                                       ": hitEnd " + m.hitEnd());
+        if (found && m.requireEnd() != requireEnd)
+            throw new RuntimeException(regex + " on " + input +
+                                       ": requireEnd " + m.requireEnd());
+    }
+
+    /** Returns the given chunks one read at a time. */
+    static class ChunkedReader extends java.io.Reader {
+        private final String[] chunks;
+        private int next;
+
+        ChunkedReader(String... chunks) {
+            this.chunks = chunks;
+        }
+
+        public int read(char[] buf, int off, int len) {
+            if (next == chunks.length)
+                return -1;
+            String s = chunks[next++];
+            int n = Math.min(len, s.length());
+            s.getChars(0, n, buf, off);
+            return n;
+        }
+
+        public void close() { }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * @test
+ * @summary Looking up a name that several entries share finds the last
+ *          of them when zip files are read concurrently, as it does
+ *          through the native zip library
+ * @run main/othervm -Dsun.zip.concurrentRead=true ConcurrentReadDuplicateNames
+ * @run main/othervm ConcurrentReadDuplicateNames
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+public class ConcurrentReadDuplicateNames {
+
+    public static void main(String[] args) throws Exception {
+        // ZipOutputStream rejects duplicate names, so write two entries
+        // whose names differ in one byte, then rename the second one
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(bos)) {
+            zos.putNextEntry(new ZipEntry("a.txt"));
+            zos.write("first".getBytes("US-ASCII"));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("b.txt"));
+            zos.write("second".getBytes("US-ASCII"));
+            zos.closeEntry();
+        }
+        byte[] bytes = bos.toByteArray();
+        byte[] name = "b.txt".getBytes("US-ASCII");
+        for (int i = 0; i + name.length <= bytes.length; i++) {
+            int j = 0;
+            while (j < name.length && bytes[i + j] == name[j])
+                j++;
+            if (j == name.length)
+                bytes[i] = 'a';
+        }
+        File file = new File("duplicates.zip");
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            fos.write(bytes);
+        }
+
+        try (ZipFile zf = new ZipFile(file)) {
+            ZipEntry e = zf.getEntry("a.txt");
+            if (e == null || e.getSize() != "second".length())
+                throw new RuntimeException("getEntry returned " +
+                                           (e == null ? null : e.getSize()));
+            byte[] buf = new byte[16];
+            int n;
+            try (InputStream in = zf.getInputStream(e)) {
+                n = in.read(buf);
+            }
+            String s = new String(buf, 0, n, "US-ASCII");
+            if (!s.equals("second"))
+                throw new RuntimeException("read " + s);
+        } finally {
+            file.delete();
+        }
+
+        System.out.println("Passed");
+    }
+}